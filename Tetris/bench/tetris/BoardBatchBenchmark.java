@@ -0,0 +1,136 @@
+package tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Class BoardBatchBenchmark
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code BoardBatchBenchmark} class measures scoring every lock
+ * position of a piece, going through the pieces in turn: one position at a
+ * time without changing the board, and all of them at once in a
+ * {@code BoardBatch}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBatchBenchmark {
+
+    // The name of the fixture the pieces are placed on.
+    @Param({BoardFixtures.EMPTY, BoardFixtures.MID_GAME,
+        BoardFixtures.NEAR_TOP})
+    public String sFixture;
+
+    // The playfield holding the fixture.
+    private Playfield pfField;
+
+    // The batch the positions are put in.
+    private BoardBatch bbBatch;
+
+    // The evaluator with the default weights.
+    private Evaluator evaluator;
+
+    // The features of the position scored.
+    private int[] iFeatures;
+
+    // The scores of the batch.
+    private int[] iScores;
+
+    // The lock positions of every piece: [type][position] holds column,
+    // row and rotation.
+    private int[][][] iMoves;
+
+    // The piece scored next.
+    private int iType;
+
+    /**
+     * setUp
+     *
+     * Method that builds the playfield and finds the lock positions of
+     * every piece on it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        pfField = new Playfield();
+        pfField.copyFrom(BoardFixtures.createBoard(sFixture));
+        evaluator = new Evaluator();
+        iFeatures = new int[Evaluator.WEIGHTS];
+
+        MoveGenerator mgMoves = new MoveGenerator();
+        TileType[] ttTypes = TileType.values();
+        iMoves = new int[ttTypes.length][][];
+        int iMost = 0;
+        for (int iT = 0; iT < ttTypes.length; iT++) {
+            int iCount = mgMoves.generate(pfField, iT,
+                    ttTypes[iT].getSpawnColumn(), ttTypes[iT].getSpawnRow(),
+                    0);
+            iMoves[iT] = new int[iCount][];
+            for (int iM = 0; iM < iCount; iM++) {
+                iMoves[iT][iM] = new int[] {mgMoves.getMoveColumn(iM),
+                    mgMoves.getMoveRow(iM), mgMoves.getMoveRotation(iM)};
+            }
+            iMost = Math.max(iMost, iCount);
+        }
+        // A batch as small as the positions keeps its rows close together.
+        bbBatch = new BoardBatch(iMost);
+        iScores = new int[iMost];
+    }
+
+    /**
+     * whatIf
+     *
+     * Benchmark of scoring the positions one at a time.
+     *
+     * @param bhSink is the <code>Blackhole</code> that takes the scores.
+     */
+    @Benchmark
+    public void whatIf(Blackhole bhSink) {
+        iType = (iType + 1) % iMoves.length;
+        for (int[] iM : iMoves[iType]) {
+            bhSink.consume(evaluator.evaluate(pfField, iType, iM[0], iM[1],
+                    iM[2], iFeatures));
+        }
+    }
+
+    /**
+     * batch
+     *
+     * Benchmark of scoring the positions all at once.
+     *
+     * @param bhSink is the <code>Blackhole</code> that takes the scores.
+     */
+    @Benchmark
+    public void batch(Blackhole bhSink) {
+        iType = (iType + 1) % iMoves.length;
+        bbBatch.clear();
+        for (int[] iM : iMoves[iType]) {
+            bbBatch.add(pfField, iType, iM[0], iM[1], iM[2]);
+        }
+        bbBatch.checkLines();
+        bbBatch.countFeatures();
+        bbBatch.evaluate(evaluator, iScores);
+        bhSink.consume(iScores);
+    }
+}
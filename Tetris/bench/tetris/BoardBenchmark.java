@@ -0,0 +1,236 @@
+package tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class BoardBenchmark
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code BoardBenchmark} class measures the board operations the game
+ * runs on every move and every lock: the collision test, the landing search
+ * of the ghost, adding a piece, clearing lines and the insets of the pieces.
+ * Every benchmark runs on the three fixtures of {@code BoardFixtures}, and
+ * the ones that loop over many positions report the time of one position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+
+    // The number of positions tested by the probing benchmarks.
+    private static final int PROBES = 1120;
+
+    // The name of the fixture the board starts from.
+    @Param({BoardFixtures.EMPTY, BoardFixtures.MID_GAME,
+        BoardFixtures.NEAR_TOP})
+    public String sFixture;
+
+    // Every piece, so the loops don't copy the values of the enum.
+    private final TileType[] ttTypes = TileType.values();
+
+    // The board being measured.
+    private BoardPanel board;
+
+    // The state of the fixture, with its lowest row completed.
+    private int[][] iLineState;
+
+    // The pieces of the probes.
+    private TileType[] ttProbeTypes;
+
+    // The columns of the probes.
+    private int[] iProbeCols;
+
+    // The rows of the probes.
+    private int[] iProbeRows;
+
+    // The rotations of the probes.
+    private int[] iProbeRotations;
+
+    // The landing rows of the probes, for the pieces that fit where they are.
+    private int[] iLandingRows;
+
+    /**
+     * setUp
+     *
+     * Method that builds the board and the probes of the fixture.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = BoardFixtures.createBoard(sFixture);
+
+        int[][] iProbes = BoardFixtures.createProbes();
+        if (iProbes.length != PROBES) {
+            throw new IllegalStateException("Expected " + PROBES
+                    + " probes, got " + iProbes.length);
+        }
+        ttProbeTypes = new TileType[PROBES];
+        iProbeCols = new int[PROBES];
+        iProbeRows = new int[PROBES];
+        iProbeRotations = new int[PROBES];
+        iLandingRows = new int[PROBES];
+        for (int iP = 0; iP < PROBES; iP++) {
+            ttProbeTypes[iP] = ttTypes[iProbes[iP][0]];
+            iProbeCols[iP] = iProbes[iP][1];
+            iProbeRows[iP] = iProbes[iP][2];
+            iProbeRotations[iP] = iProbes[iP][3];
+            iLandingRows[iP] = board.isValidAndEmpty(ttProbeTypes[iP],
+                    iProbeCols[iP], iProbeRows[iP], iProbeRotations[iP])
+                    ? board.getLandingRow(ttProbeTypes[iP], iProbeCols[iP],
+                            iProbeRows[iP], iProbeRotations[iP]) : -1;
+        }
+
+        iLineState = BoardFixtures.createState(sFixture);
+        int[] iBottom = iLineState[BoardPanel.iRows - 1];
+        for (int iC = 0; iC < iBottom.length; iC++) {
+            if (iBottom[iC] == -1) {
+                iBottom[iC] = TileType.TypeI.getType();
+            }
+        }
+    }
+
+    /**
+     * isValidAndEmpty
+     *
+     * Benchmark of the collision test.
+     *
+     * @return an <code>integer</code> with the number of valid positions.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int isValidAndEmpty() {
+        int iValid = 0;
+        for (int iP = 0; iP < PROBES; iP++) {
+            if (board.isValidAndEmpty(ttProbeTypes[iP], iProbeCols[iP],
+                    iProbeRows[iP], iProbeRotations[iP])) {
+                iValid++;
+            }
+        }
+        return iValid;
+    }
+
+    /**
+     * getLandingRow
+     *
+     * Benchmark of the landing search the ghost is drawn with.
+     *
+     * @return an <code>integer</code> with the sum of the landing rows.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int getLandingRow() {
+        int iSum = 0;
+        for (int iP = 0; iP < PROBES; iP++) {
+            iSum += board.getLandingRow(ttProbeTypes[iP], iProbeCols[iP],
+                    iProbeRows[iP], iProbeRotations[iP]);
+        }
+        return iSum;
+    }
+
+    /**
+     * addPiece
+     *
+     * Benchmark of adding a piece where it lands. Adding the same piece
+     * twice writes the same tiles, so the board doesn't drift between
+     * invocations.
+     *
+     * @return the <code>BoardPanel</code>, so the writes aren't removed.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public BoardPanel addPiece() {
+        for (int iP = 0; iP < PROBES; iP++) {
+            if (iLandingRows[iP] >= 0) {
+                board.addPiece(ttProbeTypes[iP], iProbeCols[iP],
+                        iLandingRows[iP], iProbeRotations[iP]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * checkLinesNone
+     *
+     * Benchmark of checking the fixture for lines when none are complete,
+     * which is what most locks do.
+     *
+     * @return an <code>integer</code> with the lines cleared.
+     */
+    @Benchmark
+    public int checkLinesNone() {
+        return board.checkLines();
+    }
+
+    /**
+     * checkLinesClear
+     *
+     * Benchmark of clearing the bottom line of the fixture and shifting the
+     * rest of the board down. The state is restored before every invocation,
+     * so this includes the copy of {@code setState}; compare it with
+     * {@code setState} to get the cost of the clear alone.
+     *
+     * @return an <code>integer</code> with the lines cleared.
+     */
+    @Benchmark
+    public int checkLinesClear() {
+        board.setState(iLineState);
+        return board.checkLines();
+    }
+
+    /**
+     * setState
+     *
+     * Benchmark of restoring the state, the baseline of
+     * {@code checkLinesClear}.
+     *
+     * @return the <code>BoardPanel</code>, so the writes aren't removed.
+     */
+    @Benchmark
+    public BoardPanel setState() {
+        board.setState(iLineState);
+        return board;
+    }
+
+    /**
+     * insets
+     *
+     * Benchmark of the four insets of every piece and rotation, as read by
+     * the collision test and the rotation.
+     *
+     * @return an <code>integer</code> with the sum of the insets.
+     */
+    @Benchmark
+    @OperationsPerInvocation(28)
+    public int insets() {
+        int iSum = 0;
+        for (TileType ttType : ttTypes) {
+            for (int iRot = 0; iRot < 4; iRot++) {
+                iSum += ttType.getLeftInset(iRot) + ttType.getRightInset(iRot)
+                        + ttType.getTopInset(iRot)
+                        + ttType.getBottomInset(iRot);
+            }
+        }
+        return iSum;
+    }
+}
@@ -0,0 +1,173 @@
+package tetris;
+
+import java.util.Random;
+
+/**
+ * Class BoardFixtures
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code BoardFixtures} class builds the boards the benchmarks run on.
+ * Every board comes from a fixed seed, so two runs (or two machines) measure
+ * exactly the same positions: an empty board, a mid-game board with a ragged
+ * stack eight rows high, and a board about to top out.
+ */
+public final class BoardFixtures {
+
+    // The seed of every fixture.
+    public static final long SEED = 20160301L;
+
+    // The board with nothing on it.
+    public static final String EMPTY = "empty";
+
+    // The board with a stack in the bottom third.
+    public static final String MID_GAME = "midGame";
+
+    // The board with a stack a few rows from the spawn point.
+    public static final String NEAR_TOP = "nearTop";
+
+    /**
+     * BoardFixtures
+     *
+     * Constructor that is never used, the fixtures are static.
+     */
+    private BoardFixtures() {
+    }
+
+    /**
+     * getHeight
+     *
+     * Method that returns the height of the stack of a fixture.
+     *
+     * @param sFixture is the <code>String</code> with the fixture name.
+     * @return an <code>integer</code> with the number of rows.
+     */
+    public static int getHeight(String sFixture) {
+        switch (sFixture) {
+            case EMPTY:
+                return 0;
+            case MID_GAME:
+                return 8;
+            case NEAR_TOP:
+                return 15;
+            default:
+                throw new IllegalArgumentException("Unknown fixture: " + sFixture);
+        }
+    }
+
+    /**
+     * createState
+     *
+     * Method that builds the state of a fixture in the format of
+     * {@code BoardPanel.setState}. Every row of the stack has one to three
+     * holes, so it never clears by itself, and the top of the stack is
+     * ragged like a real game.
+     *
+     * @param sFixture is the <code>String</code> with the fixture name.
+     * @return an <code>integer matrix</code> with the type of every tile,
+     * -1 for empty ones.
+     */
+    public static int[][] createState(String sFixture) {
+        int iHeight = getHeight(sFixture);
+        Random ranFixture = new Random(SEED);
+        int iTypes = TileType.values().length;
+        int[][] iState = new int[BoardPanel.iRows][BoardPanel.iColumns];
+
+        /*
+        * The columns of the stack get a height each, up to two rows below
+        * the top of the stack, to leave a ragged surface.
+        */
+        int[] iColumnHeights = new int[BoardPanel.iColumns];
+        for (int iC = 0; iC < BoardPanel.iColumns; iC++) {
+            iColumnHeights[iC] = Math.max(0, iHeight - ranFixture.nextInt(3));
+        }
+
+        for (int iR = 0; iR < BoardPanel.iRows; iR++) {
+            int iFromBottom = BoardPanel.iRows - iR;
+            int iHoles = 1 + ranFixture.nextInt(3);
+            int iFirstHole = ranFixture.nextInt(BoardPanel.iColumns);
+            for (int iC = 0; iC < BoardPanel.iColumns; iC++) {
+                boolean bHole = ((iC - iFirstHole + BoardPanel.iColumns)
+                        % BoardPanel.iColumns) < iHoles;
+                if (iFromBottom <= iColumnHeights[iC] && !bHole) {
+                    iState[iR][iC] = ranFixture.nextInt(iTypes);
+                } else {
+                    iState[iR][iC] = -1;
+                }
+            }
+        }
+        return iState;
+    }
+
+    /**
+     * createBoard
+     *
+     * Method that builds a headless board holding a fixture.
+     *
+     * @param sFixture is the <code>String</code> with the fixture name.
+     * @return the <code>BoardPanel</code>.
+     */
+    public static BoardPanel createBoard(String sFixture) {
+        BoardPanel board = new BoardPanel(null);
+        board.setState(createState(sFixture));
+        return board;
+    }
+
+    /**
+     * createGame
+     *
+     * Method that builds a game that is being played on a fixture, with the
+     * first piece at its spawn point.
+     *
+     * @param sFixture is the <code>String</code> with the fixture name.
+     * @return the <code>Game</code>.
+     */
+    public static Game createGame(String sFixture) {
+        BoardPanel board = new BoardPanel(null);
+        Game game = new Game(board, new Random(SEED));
+        game.reset();
+        board.setState(createState(sFixture));
+        return game;
+    }
+
+    /**
+     * createProbes
+     *
+     * Method that builds positions to test pieces at: every piece, every
+     * rotation and every column, at rows spread over the whole board. The
+     * positions are shuffled with the fixture seed so the branch predictor
+     * can't learn their order.
+     *
+     * @return an <code>integer matrix</code> with one {type, column, row,
+     * rotation} entry per position.
+     */
+    public static int[][] createProbes() {
+        TileType[] ttTypes = TileType.values();
+        int iCount = ttTypes.length * 4 * BoardPanel.iColumns * 4;
+        int[][] iProbes = new int[iCount][];
+        int iP = 0;
+        for (int iT = 0; iT < ttTypes.length; iT++) {
+            for (int iRot = 0; iRot < 4; iRot++) {
+                for (int iC = -1; iC < BoardPanel.iColumns - 1; iC++) {
+                    for (int iR = 0; iR < BoardPanel.iRows; iR += 6) {
+                        iProbes[iP++] = new int[]{iT, iC, iR, iRot};
+                    }
+                }
+            }
+        }
+
+        Random ranShuffle = new Random(SEED);
+        for (int iI = iProbes.length - 1; iI > 0; iI--) {
+            int iJ = ranShuffle.nextInt(iI + 1);
+            int[] iSwap = iProbes[iI];
+            iProbes[iI] = iProbes[iJ];
+            iProbes[iJ] = iSwap;
+        }
+        return iProbes;
+    }
+}
@@ -0,0 +1,122 @@
+package tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class EvaluatorBenchmark
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code EvaluatorBenchmark} class measures scoring one lock position,
+ * which the bots do for every position of every piece they search: by
+ * copying the board, adding the piece and clearing the lines, and by asking
+ * the board what its features would be.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EvaluatorBenchmark {
+
+    // The name of the fixture the pieces are placed on.
+    @Param({BoardFixtures.EMPTY, BoardFixtures.MID_GAME,
+        BoardFixtures.NEAR_TOP})
+    public String sFixture;
+
+    // The playfield holding the fixture.
+    private Playfield pfField;
+
+    // The playfield a position is copied to.
+    private Playfield pfChild;
+
+    // The evaluator being measured.
+    private Evaluator evaluator;
+
+    // The features of the position scored.
+    private int[] iFeatures;
+
+    // The lock positions of every piece: type, column, row and rotation.
+    private int[][] iMoves;
+
+    // The position scored next.
+    private int iMove;
+
+    /**
+     * setUp
+     *
+     * Method that builds the playfield and finds the lock positions of
+     * every piece on it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        pfField = new Playfield();
+        pfField.copyFrom(BoardFixtures.createBoard(sFixture));
+        pfChild = new Playfield();
+        evaluator = new Evaluator();
+        iFeatures = new int[Evaluator.WEIGHTS];
+
+        MoveGenerator mgMoves = new MoveGenerator();
+        TileType[] ttTypes = TileType.values();
+        java.util.List<int[]> lstMoves = new java.util.ArrayList<>();
+        for (int iT = 0; iT < ttTypes.length; iT++) {
+            int iCount = mgMoves.generate(pfField, iT,
+                    ttTypes[iT].getSpawnColumn(), ttTypes[iT].getSpawnRow(),
+                    0);
+            for (int iM = 0; iM < iCount; iM++) {
+                lstMoves.add(new int[] {iT, mgMoves.getMoveColumn(iM),
+                    mgMoves.getMoveRow(iM), mgMoves.getMoveRotation(iM)});
+            }
+        }
+        iMoves = lstMoves.toArray(new int[lstMoves.size()][]);
+    }
+
+    /**
+     * copy
+     *
+     * Benchmark of scoring a position on a copy of the board.
+     *
+     * @return an <code>integer</code> with the score.
+     */
+    @Benchmark
+    public int copy() {
+        int[] iM = iMoves[iMove];
+        iMove = (iMove + 1) % iMoves.length;
+        pfChild.copyFrom(pfField);
+        pfChild.addPiece(iM[0], iM[1], iM[2], iM[3]);
+        return evaluator.evaluate(pfChild, pfChild.checkLines());
+    }
+
+    /**
+     * whatIf
+     *
+     * Benchmark of scoring a position without changing the board.
+     *
+     * @return an <code>integer</code> with the score.
+     */
+    @Benchmark
+    public int whatIf() {
+        int[] iM = iMoves[iMove];
+        iMove = (iMove + 1) % iMoves.length;
+        return evaluator.evaluate(pfField, iM[0], iM[1], iM[2], iM[3],
+                iFeatures);
+    }
+}
@@ -0,0 +1,133 @@
+package tetris;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class GameBenchmark
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code GameBenchmark} class measures the operations of the
+ * {@code Game} that go past a single board call: rotating the piece with its
+ * edge adjustments, and writing and reading a saved game. The saves go
+ * through byte arrays, so the numbers are the cost of the format and not of
+ * the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBenchmark {
+
+    // The name of the fixture the game is played on.
+    @Param({BoardFixtures.EMPTY, BoardFixtures.MID_GAME,
+        BoardFixtures.NEAR_TOP})
+    public String sFixture;
+
+    // The game being measured.
+    private Game game;
+
+    // The buffer the saves are written to, reused by every invocation.
+    private ByteArrayOutputStream baosSave;
+
+    // The stream the saves are written through.
+    private DataOutputStream dosSave;
+
+    // The saved fixture.
+    private byte[] bySaved;
+
+    // The stream the saved fixture is read back from.
+    private ByteArrayInputStream baisLoad;
+
+    // The stream the loads read through.
+    private DataInputStream disLoad;
+
+    /**
+     * setUp
+     *
+     * Method that builds the game and saves it once for the loads.
+     *
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        game = BoardFixtures.createGame(sFixture);
+
+        baosSave = new ByteArrayOutputStream(4096);
+        dosSave = new DataOutputStream(baosSave);
+        game.save(dosSave);
+        dosSave.flush();
+        bySaved = baosSave.toByteArray();
+
+        baisLoad = new ByteArrayInputStream(bySaved);
+        disLoad = new DataInputStream(baisLoad);
+    }
+
+    /**
+     * rotatePiece
+     *
+     * Benchmark of one clockwise rotation of the spawned piece, edge
+     * adjustments and collision test included.
+     *
+     * @return whether or not the piece rotated.
+     */
+    @Benchmark
+    public boolean rotatePiece() {
+        return game.rotateClockwise();
+    }
+
+    /**
+     * saveGame
+     *
+     * Benchmark of writing the game in the format of the save file.
+     *
+     * @return an <code>integer</code> with the size of the save.
+     * @throws IOException
+     */
+    @Benchmark
+    public int saveGame() throws IOException {
+        baosSave.reset();
+        game.save(dosSave);
+        dosSave.flush();
+        return baosSave.size();
+    }
+
+    /**
+     * loadGame
+     *
+     * Benchmark of reading the game back from the format of the save file.
+     *
+     * @return the <code>Game</code>, so the reads aren't removed.
+     * @throws IOException
+     */
+    @Benchmark
+    public Game loadGame() throws IOException {
+        baisLoad.reset();
+        game.load(disLoad);
+        return game;
+    }
+}
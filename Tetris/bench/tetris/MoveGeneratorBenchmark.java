@@ -0,0 +1,106 @@
+package tetris;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class MoveGeneratorBenchmark
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code MoveGeneratorBenchmark} class measures the search of every
+ * lock position of a piece, which the bots run once per piece they think
+ * about, and the {@code Playfield} tests it is made of.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoveGeneratorBenchmark {
+
+    // The name of the fixture the pieces are placed on.
+    @Param({BoardFixtures.EMPTY, BoardFixtures.MID_GAME,
+        BoardFixtures.NEAR_TOP})
+    public String sFixture;
+
+    // The playfield holding the fixture.
+    private Playfield pfField;
+
+    // The generator being measured.
+    private MoveGenerator mgMoves;
+
+    // The pieces, cached so the benchmark doesn't copy them.
+    private TileType[] ttTypes;
+
+    // The positions to test, shared with BoardBenchmark.
+    private int[][] iProbes;
+
+    // The piece searched next.
+    private int iType;
+
+    // The position tested next.
+    private int iProbe;
+
+    /**
+     * setUp
+     *
+     * Method that builds the playfield, the generator and the positions.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        pfField = new Playfield();
+        pfField.copyFrom(BoardFixtures.createBoard(sFixture));
+        mgMoves = new MoveGenerator();
+        ttTypes = TileType.values();
+        iProbes = BoardFixtures.createProbes();
+    }
+
+    /**
+     * generate
+     *
+     * Benchmark of a whole search from the spawn point, going through the
+     * pieces in turn.
+     *
+     * @return an <code>integer</code> with the number of lock positions.
+     */
+    @Benchmark
+    public int generate() {
+        iType = (iType + 1) % ttTypes.length;
+        return mgMoves.generate(pfField, iType,
+                ttTypes[iType].getSpawnColumn(), ttTypes[iType].getSpawnRow(),
+                0);
+    }
+
+    /**
+     * isValidAndEmpty
+     *
+     * Benchmark of the bit mask collision test, on the same positions as
+     * {@code BoardBenchmark.isValidAndEmpty}.
+     *
+     * @return whether or not the position is valid.
+     */
+    @Benchmark
+    public boolean isValidAndEmpty() {
+        int[] iP = iProbes[iProbe];
+        iProbe = (iProbe + 1) % iProbes.length;
+        return pfField.isValidAndEmpty(iP[0], iP[1], iP[2], iP[3]);
+    }
+}
@@ -0,0 +1,231 @@
+package tetris;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class AudioThread
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code AudioThread} class owns every audio line of the game: the sound
+ * effects of the {@code SoundBank} and the {@code MusicStream} of the themes.
+ * The game loop and the event dispatch thread never touch {@code javax.sound}
+ * themselves; they only put commands on a lock-free queue, which the audio
+ * thread runs in order between feeding the music line. A mixer that blocks
+ * for a while can delay the sound, but never a frame.
+ */
+public class AudioThread implements Runnable {
+
+    // The number of nanoseconds to wait when the music line is full.
+    private static final long lFeedWaitNanos = 5000000L;
+
+    // The commands waiting to be run on the audio thread.
+    private final ConcurrentLinkedQueue<Runnable> clqCommands
+            = new ConcurrentLinkedQueue<>();
+
+    // The thread that runs the commands and owns the lines.
+    private final Thread thrAudio;
+
+    // The number of voices of each sound effect.
+    private final int iVoices;
+
+    // The sound effects, by file name. Only used on the audio thread.
+    private final Map<String, SoundClip> mapEffects = new HashMap<>();
+
+    // The commands that play each sound effect, built once so that playing
+    // an effect doesn't allocate.
+    private final Map<String, Runnable> mapPlayCommands = new HashMap<>();
+
+    // The command that pauses the music.
+    private final Runnable rPauseMusic;
+
+    // The command that unpauses the music.
+    private final Runnable rUnpauseMusic;
+
+    // The bank with the decoded sound effects. Only used on the audio thread.
+    private SoundBank soundBank;
+
+    // The stream with the themes. Only used on the audio thread.
+    private MusicStream musicStream;
+
+    // The name of the theme that was last asked for.
+    private volatile String sTheme = "";
+
+    // Whether or not the thread was asked to close.
+    private volatile boolean bClosed;
+
+    /**
+     * AudioThread
+     *
+     * Constructor that starts the audio thread, which loads the sound
+     * effects before running any command.
+     *
+     * @param iVoices is the <code>integer</code> number of voices of each
+     * sound effect.
+     */
+    public AudioThread(int iVoices) {
+        this.iVoices = iVoices;
+        for (final String sEffect : new String[]{SoundBank.POPPED,
+            SoundBank.BOTTOM}) {
+            mapPlayCommands.put(sEffect, new Runnable() {
+                @Override
+                public void run() {
+                    SoundClip scEffect = mapEffects.get(sEffect);
+                    if (scEffect != null) {
+                        scEffect.play();
+                    }
+                }
+            });
+        }
+        rPauseMusic = new Runnable() {
+            @Override
+            public void run() {
+                musicStream.pause();
+            }
+        };
+        rUnpauseMusic = new Runnable() {
+            @Override
+            public void run() {
+                musicStream.unpause();
+            }
+        };
+
+        thrAudio = new Thread(this, "Tetris audio");
+        thrAudio.setDaemon(true);
+        thrAudio.start();
+    }
+
+    /**
+     * playTheme
+     *
+     * Method that asks for a theme to be looped from the start.
+     *
+     * @param sTheme is the <code>String</code> with the file of the theme.
+     */
+    public void playTheme(final String sTheme) {
+        this.sTheme = sTheme;
+        submit(new Runnable() {
+            @Override
+            public void run() {
+                musicStream.play(sTheme);
+            }
+        });
+    }
+
+    /**
+     * pauseMusic
+     *
+     * Method that asks for the theme to be paused.
+     */
+    public void pauseMusic() {
+        submit(rPauseMusic);
+    }
+
+    /**
+     * unpauseMusic
+     *
+     * Method that asks for the theme to continue from where it was paused.
+     */
+    public void unpauseMusic() {
+        submit(rUnpauseMusic);
+    }
+
+    /**
+     * playEffect
+     *
+     * Method that asks for a sound effect to be played.
+     *
+     * @param sEffect is the <code>String</code> with the file of the effect.
+     */
+    public void playEffect(String sEffect) {
+        Runnable rPlay = mapPlayCommands.get(sEffect);
+        if (rPlay != null) {
+            submit(rPlay);
+        }
+    }
+
+    /**
+     * getTheme
+     *
+     * Access method that returns the name of the theme last asked for.
+     *
+     * @return sTheme is a <code>String</code> with file name.
+     */
+    public String getTheme() {
+        return sTheme;
+    }
+
+    /**
+     * close
+     *
+     * Method that asks the audio thread to close every line and finish.
+     */
+    public void close() {
+        bClosed = true;
+        LockSupport.unpark(thrAudio);
+    }
+
+    /**
+     * submit
+     *
+     * Method that puts a command on the queue and wakes up the audio thread.
+     * Neither step blocks.
+     *
+     * @param rCommand is the <code>Runnable</code> command.
+     */
+    private void submit(Runnable rCommand) {
+        clqCommands.offer(rCommand);
+        LockSupport.unpark(thrAudio);
+    }
+
+    /**
+     * run
+     *
+     * Method run by the audio thread. Runs the queued commands and keeps the
+     * music line fed, and parks while there is nothing to do.
+     */
+    @Override
+    public void run() {
+        soundBank = new SoundBank();
+        musicStream = new MusicStream();
+        for (String sEffect : mapPlayCommands.keySet()) {
+            SoundClip scEffect = new SoundClip(soundBank, sEffect, iVoices);
+            scEffect.setLooping(false);
+            mapEffects.put(sEffect, scEffect);
+        }
+
+        while (!bClosed) {
+            Runnable rCommand;
+            while ((rCommand = clqCommands.poll()) != null) {
+                try {
+                    rCommand.run();
+                } catch (RuntimeException excCommand) {
+                    // A failing line must not take the rest of the audio down.
+                    excCommand.printStackTrace();
+                }
+            }
+
+            if (musicStream.isFeeding()) {
+                if (!musicStream.feed()) {
+                    LockSupport.parkNanos(this, lFeedWaitNanos);
+                }
+            } else if (clqCommands.isEmpty()) {
+                LockSupport.park(this);
+            }
+        }
+
+        musicStream.close();
+        for (SoundClip scEffect : mapEffects.values()) {
+            scEffect.release();
+        }
+        soundBank.close();
+    }
+}
@@ -0,0 +1,107 @@
+package tetris;
+
+/**
+ * Interface Board
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Board} interface is what {@code Game} needs from the board its
+ * pieces are placed on. {@code BoardPanel} is the board of the window, which
+ * keeps the piece of every tile to draw it; {@code Playfield} only keeps a
+ * bit per tile, so games with no window, like the sessions of
+ * {@code GameServer}, stay small.
+ */
+public interface Board {
+
+    /**
+     * clear
+     *
+     * Method that removes every tile.
+     */
+    void clear();
+
+    /**
+     * isValidAndEmpty
+     *
+     * Method that determines whether or not a piece can be placed at the
+     * coordinates.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return whether or not the position is valid.
+     */
+    boolean isValidAndEmpty(TileType ttType, int iX, int iY, int iRotation);
+
+    /**
+     * addPiece
+     *
+     * Method that adds a piece to the board, without checking the position
+     * first.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     */
+    void addPiece(TileType ttType, int iX, int iY, int iRotation);
+
+    /**
+     * checkLines
+     *
+     * Method that removes the full rows and shifts the rows above them down.
+     *
+     * @return an <code>integer</code> with the number of rows removed.
+     */
+    int checkLines();
+
+    /**
+     * getClearedRows
+     *
+     * Method that returns the rows removed by the last call to
+     * {@code checkLines}.
+     *
+     * @return an <code>integer</code> with one bit set for every removed
+     * row, bit 0 being the top row.
+     */
+    int getClearedRows();
+
+    /**
+     * getRowMask
+     *
+     * Method that returns the tiles of a row.
+     *
+     * @param iRow is the <code>integer</code> row.
+     * @return an <code>integer</code> with bit {@code n} set when column
+     * {@code n} is full.
+     */
+    int getRowMask(int iRow);
+
+    /**
+     * getState
+     *
+     * Method that returns the piece of every tile, as saved by
+     * {@code Game.save}.
+     *
+     * @return an <code>integer</code> matrix by row and column, with the
+     * piece of every tile or -1 when it's empty.
+     */
+    int[][] getState();
+
+    /**
+     * setState
+     *
+     * Method that sets the piece of every tile, as read by
+     * {@code Game.load}.
+     *
+     * @param iState is the <code>integer</code> matrix from
+     * {@code getState}.
+     */
+    void setState(int[][] iState);
+}
@@ -0,0 +1,443 @@
+package tetris;
+
+/**
+ * Class BoardBatch
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code BoardBatch} class holds many boards as one array of row masks,
+ * row by row: row 0 of every board, then row 1 of every board, and so on.
+ * Its kernels test a piece, add it, find the full rows and count the
+ * features of the {@code Evaluator} for every board at once, each as short
+ * loops over the boards that only shift, mask, add and compare, reading
+ * every row of every board in order. The features are kept the same way,
+ * feature by feature.
+ * <p>
+ * It doesn't pay off for the bots. {@code BoardBatchBenchmark} scores the
+ * lock positions of a piece in about 3.5 to 3.8 microseconds with a batch,
+ * on every fixture, and in about 1.2 with {@code Evaluator.evaluate} on one
+ * {@code Playfield}, which works out the features of a placement from the
+ * features it keeps and the rows and columns the piece touches, counting
+ * again only when a row clears, while the batch copies every row of every
+ * board and counts every feature again. The table lookups of
+ * {@code lSpread} and the bit counts aren't turned into vector instructions
+ * by the JIT either. So nothing in the game uses it; it's kept, with its
+ * benchmark, as the measure to beat for a batched evaluation.
+ * <p>
+ * It follows the rules of {@code Playfield} exactly: a board copied in,
+ * changed here and copied back out is the board {@code Playfield} would
+ * have made. A batch isn't thread safe; use one per thread.
+ */
+public class BoardBatch {
+
+    // The number of rows of a board.
+    private static final int iRowCount = Playfield.ROWS;
+
+    // The number of columns of a board.
+    private static final int iColumnCount = Playfield.COLUMNS;
+
+    // Every row mask spread to five bits per column, so adding it to a
+    // <code>long</code> counts a row for every column at once.
+    private static final long[] lSpread = new long[1 << iColumnCount];
+
+    static {
+        for (int iMask = 1; iMask < lSpread.length; iMask++) {
+            int iC = Integer.numberOfTrailingZeros(iMask);
+            lSpread[iMask] = lSpread[iMask & (iMask - 1)] | (1L << (5 * iC));
+        }
+    }
+
+    // The most boards the batch can hold.
+    private final int iCapacity;
+
+    // The rows of every board: [row * capacity + board].
+    private final int[] iRows;
+
+    // The features of every board: [feature * capacity + board].
+    private final int[] iFeatures;
+
+    // The heights of every board, with a full column on each side:
+    // [(column + 1) * capacity + board].
+    private final int[] iHeights;
+
+    // The rows above the row being looked at, by board.
+    private final int[] iAbove;
+
+    // The columns already covered, by board.
+    private final int[] iCovered;
+
+    // The heights of every column of every board, five bits per column.
+    private final long[] lCounts;
+
+    // The positions a piece hits, by board.
+    private final int[] iHits;
+
+    // The number of boards held.
+    private int iSize;
+
+    /**
+     * BoardBatch
+     *
+     * Constructor that creates an empty batch.
+     *
+     * @param iCapacity is the <code>integer</code> most boards it can hold.
+     */
+    public BoardBatch(int iCapacity) {
+        this.iCapacity = iCapacity;
+        iRows = new int[iRowCount * iCapacity];
+        iFeatures = new int[Evaluator.WEIGHTS * iCapacity];
+        iHeights = new int[(iColumnCount + 2) * iCapacity];
+        iAbove = new int[iCapacity];
+        iCovered = new int[iCapacity];
+        lCounts = new long[iCapacity];
+        iHits = new int[iCapacity];
+
+        /*
+        * The walls count as full columns for the wells.
+        */
+        int iRight = (iColumnCount + 1) * iCapacity;
+        for (int iB = 0; iB < iCapacity; iB++) {
+            iHeights[iB] = iRowCount;
+            iHeights[iRight + iB] = iRowCount;
+        }
+    }
+
+    /**
+     * getCapacity
+     *
+     * Access method that returns the most boards the batch can hold.
+     *
+     * @return an <code>integer</code> with the capacity.
+     */
+    public int getCapacity() {
+        return iCapacity;
+    }
+
+    /**
+     * getSize
+     *
+     * Access method that returns the number of boards held.
+     *
+     * @return an <code>integer</code> with the size.
+     */
+    public int getSize() {
+        return iSize;
+    }
+
+    /**
+     * clear
+     *
+     * Method that empties the batch.
+     */
+    public void clear() {
+        iSize = 0;
+    }
+
+    /**
+     * add
+     *
+     * Method that adds a copy of a board to the batch.
+     *
+     * @param pfField is the <code>Playfield</code> to copy.
+     * @return an <code>integer</code> with the index of the board.
+     */
+    public int add(Playfield pfField) {
+        if (iSize == iCapacity) {
+            throw new IllegalStateException("The batch holds " + iCapacity
+                    + " boards");
+        }
+        int iBoard = iSize++;
+        for (int iR = 0; iR < iRowCount; iR++) {
+            iRows[iR * iCapacity + iBoard] = pfField.getRowMask(iR);
+        }
+        iFeatures[Evaluator.LINES * iCapacity + iBoard] = 0;
+        return iBoard;
+    }
+
+    /**
+     * add
+     *
+     * Method that adds a copy of a board with a piece added to it, without
+     * clearing its lines, so every lock position of a piece can be put in a
+     * batch without touching the board.
+     *
+     * @param pfField is the <code>Playfield</code> to copy.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return an <code>integer</code> with the index of the board.
+     */
+    public int add(Playfield pfField, int iType, int iX, int iY,
+            int iRotation) {
+        int iBoard = add(pfField);
+        int iDim = Playfield.getDimension(iType);
+        for (int iR = 0; iR < iDim; iR++) {
+            int iMask = Playfield.getPieceMask(iType, iX, iR, iRotation);
+            if (iMask != 0) {
+                iRows[(iY + iR) * iCapacity + iBoard] |= iMask;
+            }
+        }
+        return iBoard;
+    }
+
+    /**
+     * copyTo
+     *
+     * Method that copies a board of the batch to a playfield.
+     *
+     * @param iBoard is the <code>integer</code> index of the board.
+     * @param pfField is the <code>Playfield</code> to copy to.
+     */
+    public void copyTo(int iBoard, Playfield pfField) {
+        pfField.setRowMasks(iRows, iBoard, iCapacity);
+    }
+
+    /**
+     * getRowMask
+     *
+     * Method that returns the tiles of a row of a board.
+     *
+     * @param iBoard is the <code>integer</code> index of the board.
+     * @param iRow is the <code>integer</code> row.
+     * @return an <code>integer</code> with a bit set per full column.
+     */
+    public int getRowMask(int iBoard, int iRow) {
+        return iRows[iRow * iCapacity + iBoard];
+    }
+
+    /**
+     * isValidAndEmpty
+     *
+     * Method that determines, for every board, whether or not a piece can
+     * be placed at the coordinates.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param bValid is the <code>boolean</code> array to write to, by board.
+     */
+    public void isValidAndEmpty(int iType, int iX, int iY, int iRotation,
+            boolean[] bValid) {
+        /*
+        * The edges are the same for every board, so the empty board tells
+        * whether the position is inside them.
+        */
+        if (!Playfield.isInside(iType, iX, iY, iRotation)) {
+            java.util.Arrays.fill(bValid, 0, iSize, false);
+            return;
+        }
+        java.util.Arrays.fill(iHits, 0, iSize, 0);
+        int iDim = Playfield.getDimension(iType);
+        for (int iR = 0; iR < iDim; iR++) {
+            int iMask = Playfield.getPieceMask(iType, iX, iR, iRotation);
+            if (iMask == 0) {
+                continue;
+            }
+            int iBase = (iY + iR) * iCapacity;
+            for (int iB = 0; iB < iSize; iB++) {
+                iHits[iB] |= iRows[iBase + iB] & iMask;
+            }
+        }
+        for (int iB = 0; iB < iSize; iB++) {
+            bValid[iB] = iHits[iB] == 0;
+        }
+    }
+
+    /**
+     * addPiece
+     *
+     * Method that adds the same piece to every board. Like
+     * {@code Playfield}, it doesn't check the position first.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     */
+    public void addPiece(int iType, int iX, int iY, int iRotation) {
+        int iDim = Playfield.getDimension(iType);
+        for (int iR = 0; iR < iDim; iR++) {
+            int iMask = Playfield.getPieceMask(iType, iX, iR, iRotation);
+            if (iMask == 0) {
+                continue;
+            }
+            int iBase = (iY + iR) * iCapacity;
+            for (int iB = 0; iB < iSize; iB++) {
+                iRows[iBase + iB] |= iMask;
+            }
+        }
+    }
+
+    /**
+     * checkLines
+     *
+     * Method that removes the full rows of every board, exactly like
+     * {@code Playfield.checkLines}. The lines each board cleared are kept
+     * as its {@code Evaluator.LINES} feature.
+     */
+    public void checkLines() {
+        int iLines = Evaluator.LINES * iCapacity;
+        java.util.Arrays.fill(iFeatures, iLines, iLines + iSize, 0);
+        for (int iR = 0; iR < iRowCount; iR++) {
+            int iBase = iR * iCapacity;
+            for (int iB = 0; iB < iSize; iB++) {
+                // Only a full row reaches the bit above the columns.
+                iFeatures[iLines + iB] += (iRows[iBase + iB] + 1)
+                        >>> iColumnCount;
+            }
+        }
+
+        /*
+        * Few boards clear anything, so the rows are only moved for those.
+        */
+        for (int iB = 0; iB < iSize; iB++) {
+            if (iFeatures[iLines + iB] == 0) {
+                continue;
+            }
+            int iTo = iRowCount - 1;
+            int iTopRow = iRows[iB];
+            for (int iFrom = iRowCount - 1; iFrom >= 0; iFrom--) {
+                int iRow = iRows[iFrom * iCapacity + iB];
+                if (iRow != Playfield.FULL_ROW) {
+                    iRows[iTo-- * iCapacity + iB] = iRow;
+                }
+            }
+            while (iTo >= 0) {
+                iRows[iTo-- * iCapacity + iB] = iTopRow;
+            }
+        }
+    }
+
+    /**
+     * countFeatures
+     *
+     * Method that counts the features of every board, as
+     * {@code Playfield} keeps them. The lines are the ones of the last
+     * {@code checkLines}.
+     */
+    public void countFeatures() {
+        int iHeight = Evaluator.HEIGHT * iCapacity;
+        int iHoles = Evaluator.HOLES * iCapacity;
+        int iBumpiness = Evaluator.BUMPINESS * iCapacity;
+        int iWells = Evaluator.WELLS * iCapacity;
+        int iRowTransitions = Evaluator.ROW_TRANSITIONS * iCapacity;
+        int iColumnTransitions = Evaluator.COLUMN_TRANSITIONS * iCapacity;
+        for (int iF = 0; iF < Evaluator.WEIGHTS; iF++) {
+            if (iF != Evaluator.LINES) {
+                java.util.Arrays.fill(iFeatures, iF * iCapacity,
+                        iF * iCapacity + iSize, 0);
+            }
+        }
+        java.util.Arrays.fill(lCounts, 0, iSize, 0L);
+        java.util.Arrays.fill(iCovered, 0, iSize, 0);
+        java.util.Arrays.fill(iAbove, 0, iSize, 0);
+
+        /*
+        * Going down the rows, the columns that were already covered give
+        * the holes of a row, and every covered column is a row higher, which
+        * is counted for all of them at once.
+        */
+        for (int iR = 0; iR < iRowCount; iR++) {
+            int iBase = iR * iCapacity;
+            for (int iB = 0; iB < iSize; iB++) {
+                int iRow = iRows[iBase + iB];
+                int iWalled = (iRow << 1) | 1 | (1 << (iColumnCount + 1));
+                iFeatures[iHoles + iB] += Integer.bitCount(iCovered[iB]
+                        & ~iRow);
+                iFeatures[iRowTransitions + iB] += Integer.bitCount(
+                        (iWalled ^ (iWalled >>> 1))
+                        & ((1 << (iColumnCount + 1)) - 1));
+                iFeatures[iColumnTransitions + iB] += Integer.bitCount(
+                        iAbove[iB] ^ iRow);
+                iCovered[iB] |= iRow;
+                iAbove[iB] = iRow;
+                lCounts[iB] += lSpread[iCovered[iB]];
+            }
+        }
+        for (int iB = 0; iB < iSize; iB++) {
+            // The floor counts as a full row.
+            iFeatures[iColumnTransitions + iB] += Integer.bitCount(
+                    ~iAbove[iB] & Playfield.FULL_ROW);
+        }
+
+        for (int iC = 1; iC <= iColumnCount; iC++) {
+            int iColumn = iC * iCapacity;
+            int iShift = 5 * (iC - 1);
+            for (int iB = 0; iB < iSize; iB++) {
+                int iH = (int) (lCounts[iB] >>> iShift) & 31;
+                iHeights[iColumn + iB] = iH;
+                iFeatures[iHeight + iB] += iH;
+            }
+        }
+
+        /*
+        * The walls are full columns on each side, so every column has two
+        * neighbours.
+        */
+        for (int iC = 1; iC <= iColumnCount; iC++) {
+            int iLeft = (iC - 1) * iCapacity;
+            int iColumn = iC * iCapacity;
+            int iRight = (iC + 1) * iCapacity;
+            for (int iB = 0; iB < iSize; iB++) {
+                int iH = iHeights[iColumn + iB];
+                int iDepth = Math.min(iHeights[iLeft + iB],
+                        iHeights[iRight + iB]) - iH;
+                iFeatures[iWells + iB] += Math.max(iDepth, 0);
+                if (iC > 1) {
+                    iFeatures[iBumpiness + iB] += Math.abs(iH
+                            - iHeights[iLeft + iB]);
+                }
+            }
+        }
+    }
+
+    /**
+     * getFeature
+     *
+     * Method that returns a feature of a board, as of the last
+     * {@code countFeatures}.
+     *
+     * @param iFeature is the <code>integer</code> index of the feature, as
+     * in {@code Evaluator}.
+     * @param iBoard is the <code>integer</code> index of the board.
+     * @return an <code>integer</code> with the feature.
+     */
+    public int getFeature(int iFeature, int iBoard) {
+        return iFeatures[iFeature * iCapacity + iBoard];
+    }
+
+    /**
+     * evaluate
+     *
+     * Method that scores every board with the features of the last
+     * {@code countFeatures}.
+     *
+     * @param evaluator is the <code>Evaluator</code> with the weights.
+     * @param iScores is the <code>integer</code> array to write to, by
+     * board.
+     */
+    public void evaluate(Evaluator evaluator, int[] iScores) {
+        int iLineWeight = evaluator.getWeight(Evaluator.LINES);
+        int iLines = Evaluator.LINES * iCapacity;
+        for (int iB = 0; iB < iSize; iB++) {
+            iScores[iB] = iLineWeight * iFeatures[iLines + iB];
+        }
+        for (int iF = 0; iF < Evaluator.WEIGHTS; iF++) {
+            int iWeight = evaluator.getWeight(iF);
+            if (iF == Evaluator.LINES || iWeight == 0) {
+                continue;
+            }
+            int iBase = iF * iCapacity;
+            for (int iB = 0; iB < iSize; iB++) {
+                iScores[iB] -= iWeight * iFeatures[iBase + iB];
+            }
+        }
+    }
+}
@@ -19,7 +19,7 @@ import javax.swing.JPanel;
  * The {@code BoardPanel} class is responsible for displaying the game grid and
  * handling things related to the game board.
  */
-public class BoardPanel extends JPanel {
+public class BoardPanel extends JPanel implements Board {
 
     // Serial Version UID.
     private static final long lSerialVersionUID = 5055679736784226108L;
@@ -81,6 +81,20 @@ public class BoardPanel extends JPanel {
     private int iAnim;
     private int iCont;
 
+    // The rows cleared by the last check for lines, one bit per row.
+    private int iClearedRows;
+
+    // How far the logic clock is into its current cycle (0 to 1). Only set
+    // when rendering actively, so passive painting snaps to whole rows.
+    private float fInterpolation;
+
+    // Reusable x coordinates for the tile polygons, so painting a frame
+    // doesn't allocate a new array for every triangle.
+    private final int[] iXPoints = new int[4];
+
+    // Reusable y coordinates for the tile polygons.
+    private final int[] iYPoints = new int[4];
+
     /**
      * BoardPanel
      * 
@@ -196,6 +210,7 @@ public class BoardPanel extends JPanel {
      */
     public int checkLines() {
         int iCompletedLines = 0;
+        iClearedRows = 0;
 
         /*
         * Here we loop through every line and check it to see if
@@ -208,11 +223,45 @@ public class BoardPanel extends JPanel {
         for (int iRow = 0; iRow < iRows; iRow++) {
             if (checkLine(iRow)) {
                 iCompletedLines++;
+                iClearedRows |= 1 << iRow;
             }
         }
         return iCompletedLines;
     }
 
+    /**
+     * getRowMask
+     * 
+     * Method that returns the tiles of a row as a bit mask, as used by
+     * {@code Playfield}.
+     *
+     * @param iRow is the <code>integer</code> row.
+     * @return An <code>integer</code> with bit {@code n} set when column
+     * {@code n} is full.
+     */
+    public int getRowMask(int iRow) {
+        int iMask = 0;
+        for (int iCol = 0; iCol < iColumns; iCol++) {
+            if (isOccupied(iCol, iRow)) {
+                iMask |= 1 << iCol;
+            }
+        }
+        return iMask;
+    }
+
+    /**
+     * getClearedRows
+     * 
+     * Method that returns the rows cleared by the last call to
+     * {@code checkLines}.
+     *
+     * @return An <code>integer</code> with one bit set for every cleared row,
+     * bit 0 being the top row.
+     */
+    public int getClearedRows() {
+        return iClearedRows;
+    }
+
     /**
      * checkLine
      * Method that checks whether or not {@code row} is full.
@@ -292,8 +341,25 @@ public class BoardPanel extends JPanel {
      */
     @Override
     public void paintComponent(Graphics graGraphic) {
+        Object oFrame = GameEvents.beginFrame();
         super.paintComponent(graGraphic);
+        drawFrame(graGraphic);
+        GameEvents.endFrame(oFrame, false);
+        // Close the latency of the keys this paint shows.
+        tetris.getInputLatency().painted(System.nanoTime());
+    }
 
+    /**
+     * drawFrame
+     * 
+     * Method that draws the contents of the board for the current game
+     * state. It is used both by {@code paintComponent} and by the
+     * {@code GameCanvas} when the game is rendered actively, in which case
+     * the background has already been cleared by the caller.
+     * 
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     */
+    public void drawFrame(Graphics graGraphic) {
         // This helps simplify the positioning of things.
         graGraphic.translate(iBorderWidth, iBorderWidth);
 
@@ -310,6 +376,34 @@ public class BoardPanel extends JPanel {
         graGraphic.setColor(Color.DARK_GRAY);
         graGraphic.drawRect(0, 0, iTileSize * iColumns,
                 iTileSize * iRowsVisible);
+        graGraphic.translate(-iBorderWidth, -iBorderWidth);
+    }
+
+    /**
+     * setInterpolation
+     * 
+     * Modifier method that sets how far the logic clock is into its current
+     * cycle, used to draw the falling piece between two logic ticks.
+     * 
+     * @param fInterpolation is a <code>float</code> between 0 and 1.
+     */
+    public void setInterpolation(float fInterpolation) {
+        this.fInterpolation = fInterpolation;
+    }
+
+    /**
+     * updateAnimation
+     * 
+     * Method that advances the animation of the current piece by one step.
+     * It's called once per logic frame while playing, so the animation runs
+     * at the same speed no matter how often the board is painted.
+     */
+    public void updateAnimation() {
+        if (iAnim < 25) {
+            iAnim++;
+        } else {
+            iAnim = 0;
+        }
     }
 
     /**
@@ -359,7 +453,8 @@ public class BoardPanel extends JPanel {
                 - graGraphic.getFontMetrics().stringWidth(msg) / 2, 100);
         
         graGraphic.setFont(fSmallFont);
-        msg = "Press Enter to Play" + (tetris.isNewGame() ? "" : " Again");
+        msg = tetris.isNewGame() ? "Press Enter to Play"
+                : "Press Enter to Play Again";
         graGraphic.drawString(msg, iCenterX
                 - graGraphic.getFontMetrics().stringWidth(msg) / 2, iCenterY);
         
@@ -385,13 +480,6 @@ public class BoardPanel extends JPanel {
     public void drawBoard(Graphics graGraphic) {
         // Draw the titles onto the board.
         drawTiles(graGraphic);
-        
-        // Controls the animations.
-        if (iAnim < 25) {
-            iAnim++;
-        } else {
-            iAnim = 0;
-        }
 
         // Draw the current piece. 
         drawCurrentTile(graGraphic);
@@ -399,11 +487,11 @@ public class BoardPanel extends JPanel {
         // Draw the background grid above the pieces (serves as a useful visual
         // for players, and makes the pieces look nicer by breaking them up.
         graGraphic.setColor(Color.LIGHT_GRAY);
+        for (int y = 0; y < iRowsVisible; y++) {
+            graGraphic.drawLine(0, y * iTileSize, iColumns * iTileSize, y * iTileSize);
+        }
         for (int x = 0; x < iColumns; x++) {
-            for (int y = 0; y < iRowsVisible; y++) {
-                graGraphic.drawLine(0, y * iTileSize, iColumns * iTileSize, y * iTileSize);
-                graGraphic.drawLine(x * iTileSize, 0, x * iTileSize, iRowsVisible * iTileSize);
-            }
+            graGraphic.drawLine(x * iTileSize, 0, x * iTileSize, iRowsVisible * iTileSize);
         }
     }
 
@@ -439,14 +527,22 @@ public class BoardPanel extends JPanel {
         int pieceRow = tetris.getPieceRow();
         int rotation = tetris.getPieceRotation();
 
+        // Slide the piece towards the next row if it is going to fall there
+        // on the next logic tick.
+        int iOffsetY = 0;
+        if (fInterpolation > 0 && isValidAndEmpty(type, pieceCol,
+                pieceRow + 1, rotation)) {
+            iOffsetY = (int) (fInterpolation * iTileSize);
+        }
+
         // Draw the piece onto the board.
         for (int col = 0; col < type.getDimension(); col++) {
             for (int row = 0; row < type.getDimension(); row++) {
                 if (pieceRow + row >= 2 && type.isTile(col, row,
                         rotation)) {
                     drawCurrentTile(type, (pieceCol + col) * iTileSize,
-                            (pieceRow + row - iRowsHidden) * iTileSize,
-                            graGraphic);
+                            (pieceRow + row - iRowsHidden) * iTileSize
+                            + iOffsetY, graGraphic);
                 }
             }
         }
@@ -474,31 +570,49 @@ public class BoardPanel extends JPanel {
      */
     public void drawGhost(Graphics graGraphic, TileType TTtype, int iPieceCol,
             int iPieceRow, int iRotation) {
-        Color base = TTtype.getBaseColor();
-        base = new Color(base.getRed(), base.getGreen(), base.getBlue(), 40);
-        for (int lowest = iPieceRow; lowest < iRows; lowest++) {
-            // If no collision is detected, try the next row.
-            if (isValidAndEmpty(TTtype, iPieceCol, lowest, iRotation))
-                continue;
-
-            // Draw the ghost one row higher than the row of collision.
-            lowest--;
-
-            // Draw the ghost piece.
-            for (int col = 0; col < TTtype.getDimension(); col++) {
-                for (int row = 0; row < TTtype.getDimension(); row++) {
-                    if (lowest + row >= 2 && TTtype.isTile(col, row, iRotation)) {
-                        drawTile(base, base.brighter(), base.darker(),
-                                (iPieceCol + col) * iTileSize,
-                                (lowest + row - iRowsHidden) * iTileSize,
-                                graGraphic);
-                    }
+        // Draw the ghost on the row the piece would land on.
+        int lowest = getLandingRow(TTtype, iPieceCol, iPieceRow, iRotation);
+
+        // Draw the ghost piece.
+        for (int col = 0; col < TTtype.getDimension(); col++) {
+            for (int row = 0; row < TTtype.getDimension(); row++) {
+                if (lowest + row >= 2 && TTtype.isTile(col, row, iRotation)) {
+                    drawTile(TTtype.getGhostBaseColor(),
+                            TTtype.getGhostLightColor(),
+                            TTtype.getGhostDarkColor(),
+                            (iPieceCol + col) * iTileSize,
+                            (lowest + row - iRowsHidden) * iTileSize,
+                            graGraphic);
                 }
             }
-            break;
         }
     }
 
+    /**
+     * getLandingRow
+     * 
+     * Method that returns the row a piece would land on if it was dropped
+     * straight down from where it is.
+     *
+     * @param TTtype is the <code>TileType</code> of the piece.
+     * @param iPieceCol is the <code>integer</code> with the column of the
+     * piece.
+     * @param iPieceRow is the <code>integer</code> with the row of the piece.
+     * @param iRotation is the <code>integer</code> with the rotation value.
+     * @return an <code>integer</code> with the landing row.
+     */
+    public int getLandingRow(TileType TTtype, int iPieceCol, int iPieceRow,
+            int iRotation) {
+        int lowest = iPieceRow;
+        // If no collision is detected, try the next row.
+        while (lowest < iRows
+                && isValidAndEmpty(TTtype, iPieceCol, lowest, iRotation)) {
+            lowest++;
+        }
+        // The piece lands one row higher than the row of collision.
+        return lowest - 1;
+    }
+
     /**
      * drawTile
      * 
@@ -578,18 +692,14 @@ public class BoardPanel extends JPanel {
      * @param graGraphic is the <code>Graphic</code> of the game.
      */
     public void drawTile0(int iX, int iY, Color cDark, Graphics graGraphic) {
-        int xPoints[] = {iX, iX, iX + (iTileSize / 2)};
-            int yPoints[] = {iY + iTileSize, iY, iY + (iTileSize / 2)};
-            int xPoints2[] = {iX + (iTileSize / 2), iX + iTileSize, iX + 
-                    iTileSize};
-            int yPoints2[] = {iY + (iTileSize / 2), iY + iTileSize, iY};
-            graGraphic.fillPolygon(xPoints, yPoints, 3);
-            graGraphic.fillPolygon(xPoints2, yPoints2, 3);
-            graGraphic.setColor(cDark);
-            int xPoints3[] = {iX, iX + iTileSize, iX + (iTileSize / 2)};
-            int yPoints3[] = {iY + iTileSize, iY + iTileSize, iY + 
-                    (iTileSize / 2)};
-            graGraphic.fillPolygon(xPoints3, yPoints3, 3);
+        int iHalf = iTileSize / 2;
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX, iY, iX + iHalf,
+                iY + iHalf);
+        fillTriangle(graGraphic, iX + iHalf, iY + iHalf, iX + iTileSize,
+                iY + iTileSize, iX + iTileSize, iY);
+        graGraphic.setColor(cDark);
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX + iTileSize,
+                iY + iTileSize, iX + iHalf, iY + iHalf);
     }
 
     /**
@@ -603,17 +713,13 @@ public class BoardPanel extends JPanel {
      * @param graGraphic is the <code>Graphic</code> of the game. 
      */
     public void drawTile13(int iX, int iY, Color cDark, Graphics graGraphic) {
-        int xPoints[] = {iX, iX, iX + (iTileSize / 2)};
-            int yPoints[] = {iY + iTileSize, iY, iY};
-            int xPoints2[] = {iX + (iTileSize / 2), iX + iTileSize, 
-                iX + iTileSize};
-            int yPoints2[] = {iY, iY + iTileSize, iY};
-            graGraphic.fillPolygon(xPoints, yPoints, 3);
-            graGraphic.fillPolygon(xPoints2, yPoints2, 3);
-            graGraphic.setColor(cDark);
-            int xPoints3[] = {iX, iX + iTileSize, iX + (iTileSize / 2)};
-            int yPoints3[] = {iY + iTileSize, iY + iTileSize, iY};
-            graGraphic.fillPolygon(xPoints3, yPoints3, 3);
+        int iHalf = iTileSize / 2;
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX, iY, iX + iHalf, iY);
+        fillTriangle(graGraphic, iX + iHalf, iY, iX + iTileSize,
+                iY + iTileSize, iX + iTileSize, iY);
+        graGraphic.setColor(cDark);
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX + iTileSize,
+                iY + iTileSize, iX + iHalf, iY);
     }
     
     /**
@@ -627,18 +733,9 @@ public class BoardPanel extends JPanel {
      * @param graGraphic is the <code>Graphic</code> of the game.
      */
     public void drawTile13minus(int iX, int iY, Color cDark, 
-            Graphics graGraphic){
-    int xPoints[] = {iX, iX, iX + (iTileSize / 2), iX + iAnim};
-            int yPoints[] = {iY, iY + iTileSize, iY + (iTileSize / 2) - iAnim, iY};
-            int xPoints2[] = {iX + iTileSize, iX + iTileSize, iX + (iTileSize / 2), iX + iTileSize - iAnim};
-            int yPoints2[] = {iY, iY + iTileSize, iY + (iTileSize / 2) - iAnim, iY};
-            graGraphic.fillPolygon(xPoints, yPoints, 4);
-            graGraphic.fillPolygon(xPoints2, yPoints2, 4);
-            graGraphic.setColor(cDark);
-            int xPoints3[] = {iX, iX + iTileSize, iX + (iTileSize / 2)};
-            int yPoints3[] = {iY + iTileSize, iY + iTileSize, iY + (iTileSize / 2) - iAnim};
-            graGraphic.fillPolygon(xPoints3, yPoints3, 3);
-}
+            Graphics graGraphic) {
+        drawAnimatedTile(iX, iY, iAnim, cDark, graGraphic);
+    }
     
     /**
      * drawTile13plus
@@ -652,17 +749,71 @@ public class BoardPanel extends JPanel {
      */
     public void drawTile13plus(int iX, int iY, Color cDark, 
             Graphics graGraphic) {
-        int iAnm = 26 - iAnim; // Variable para Animación
-            int xPoints[] = {iX, iX, iX + (iTileSize / 2), iX + iAnm};
-            int yPoints[] = {iY, iY + iTileSize, iY + (iTileSize / 2) - iAnm, iY};
-            int xPoints2[] = {iX + iTileSize, iX + iTileSize, iX + (iTileSize / 2), iX + iTileSize - iAnm};
-            int yPoints2[] = {iY, iY + iTileSize, iY + (iTileSize / 2) - iAnm, iY};
-            graGraphic.fillPolygon(xPoints, yPoints, 4);
-            graGraphic.fillPolygon(xPoints2, yPoints2, 4);
-            graGraphic.setColor(cDark);
-            int xPoints3[] = {iX, iX + iTileSize, iX + (iTileSize / 2)};
-            int yPoints3[] = {iY + iTileSize, iY + iTileSize, iY + (iTileSize / 2) - iAnm};
-            graGraphic.fillPolygon(xPoints3, yPoints3, 3);
+        drawAnimatedTile(iX, iY, 26 - iAnim, cDark, graGraphic);
+    }
+
+    /**
+     * drawAnimatedTile
+     * 
+     * Method that draws the folding triangles of the current tile for a
+     * given step of the animation.
+     * 
+     * @param iX is the <code>integer</code> with the column.
+     * @param iY is the <code>integer</code> with the row.
+     * @param iAnm is the <code>integer</code> with the animation step.
+     * @param cDark is the <code>dark color</code> of the tile.
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     */
+    private void drawAnimatedTile(int iX, int iY, int iAnm, Color cDark,
+            Graphics graGraphic) {
+        int iHalf = iTileSize / 2;
+        fillQuad(graGraphic, iX, iY, iX, iY + iTileSize, iX + iHalf,
+                iY + iHalf - iAnm, iX + iAnm, iY);
+        fillQuad(graGraphic, iX + iTileSize, iY, iX + iTileSize,
+                iY + iTileSize, iX + iHalf, iY + iHalf - iAnm,
+                iX + iTileSize - iAnm, iY);
+        graGraphic.setColor(cDark);
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX + iTileSize,
+                iY + iTileSize, iX + iHalf, iY + iHalf - iAnm);
+    }
+
+    /**
+     * fillTriangle
+     * 
+     * Method that fills a triangle using the reusable coordinate buffers.
+     * 
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     */
+    private void fillTriangle(Graphics graGraphic, int iX0, int iY0, int iX1,
+            int iY1, int iX2, int iY2) {
+        iXPoints[0] = iX0;
+        iXPoints[1] = iX1;
+        iXPoints[2] = iX2;
+        iYPoints[0] = iY0;
+        iYPoints[1] = iY1;
+        iYPoints[2] = iY2;
+        graGraphic.fillPolygon(iXPoints, iYPoints, 3);
+    }
+
+    /**
+     * fillQuad
+     * 
+     * Method that fills a four sided polygon using the reusable coordinate
+     * buffers.
+     * 
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     */
+    private void fillQuad(Graphics graGraphic, int iX0, int iY0, int iX1,
+            int iY1, int iX2, int iY2, int iX3, int iY3) {
+        iXPoints[0] = iX0;
+        iXPoints[1] = iX1;
+        iXPoints[2] = iX2;
+        iXPoints[3] = iX3;
+        iYPoints[0] = iY0;
+        iYPoints[1] = iY1;
+        iYPoints[2] = iY2;
+        iYPoints[3] = iY3;
+        graGraphic.fillPolygon(iXPoints, iYPoints, 4);
     }
     
     
@@ -688,18 +839,7 @@ public class BoardPanel extends JPanel {
 
         // Fill the triangles inside the tile
         graGraphic.setColor(cBase);
-
-        int xPoints[] = {iX, iX, iX + (iTileSize / 2)};
-        int yPoints[] = {iY + iTileSize, iY, iY + (iTileSize / 2)};
-        int xPoints2[] = {iX + (iTileSize / 2), iX + iTileSize, iX + iTileSize};
-        int yPoints2[] = {iY + (iTileSize / 2), iY + iTileSize, iY};
-        graGraphic.fillPolygon(xPoints, yPoints, 3);
-        graGraphic.fillPolygon(xPoints2, yPoints2, 3);
-        graGraphic.setColor(cDark);
-        int xPoints3[] = {iX, iX + iTileSize, iX + (iTileSize / 2)};
-        int yPoints3[] = {iY + iTileSize, iY + iTileSize, iY + (iTileSize / 2)};
-        graGraphic.fillPolygon(xPoints3, yPoints3, 3);
-
+        drawTile0(iX, iY, cDark, graGraphic);
     }
 
     /**
@@ -717,7 +857,7 @@ public class BoardPanel extends JPanel {
             for (int iJ = 0; iJ < iState[0].length; iJ++) {
 
                 if (iState[iC][iJ] != -1) {
-                    TTtiles[iC][iJ] = TileType.values()[iState[iC][iJ]];
+                    TTtiles[iC][iJ] = TileType.get(iState[iC][iJ]);
                 } else {
                     TTtiles[iC][iJ] = null;
                 }
@@ -0,0 +1,67 @@
+package tetris;
+
+/**
+ * Interface Bot
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Bot} interface is what {@code BotPlayer} needs to let a bot
+ * play the game on the screen: a placement for a piece before a deadline.
+ * {@code ExpectimaxBot} searches for it and {@code ExternalBot} asks a
+ * process of its own.
+ */
+public interface Bot {
+
+    /**
+     * think
+     *
+     * Method that picks where a piece goes before a deadline.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param ttNext is the <code>TileType</code> of the next piece.
+     * @param lDeadline is the <code>long</code> deadline, as in
+     * {@code System.nanoTime}.
+     * @param cPath is the <code>char</code> array the actions are written
+     * to, {@code MoveGenerator.MAX_PATH} long.
+     * @return an <code>integer</code> with the number of actions, 0 when the
+     * piece can't go anywhere.
+     */
+    int think(Playfield pfField, TileType ttType, int iCol, int iRow,
+            int iRotation, TileType ttNext, long lDeadline, char[] cPath);
+
+    /**
+     * getLastColumn
+     *
+     * Method that returns the column picked by the last call to think.
+     *
+     * @return an <code>integer</code> with the column.
+     */
+    int getLastColumn();
+
+    /**
+     * getLastRow
+     *
+     * Method that returns the row picked by the last call to think.
+     *
+     * @return an <code>integer</code> with the row.
+     */
+    int getLastRow();
+
+    /**
+     * getLastRotation
+     *
+     * Method that returns the rotation picked by the last call to think.
+     *
+     * @return an <code>integer</code> with the rotation.
+     */
+    int getLastRotation();
+}
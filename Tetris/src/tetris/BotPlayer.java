@@ -0,0 +1,256 @@
+package tetris;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class BotPlayer
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code BotPlayer} class lets a {@code Bot} play the game on the
+ * screen, on a thread of its own, with {@code -Dtetris.bot=true}: the
+ * {@code ExpectimaxBot}, or an {@code ExternalBot} when
+ * {@code -Dtetris.bot.engine} names the command of an engine.
+ * <p>
+ * The time the bot thinks about a piece comes from the game: gravity moves
+ * the piece one row every cycle of the logic clock, so the bot has about as
+ * many cycles as the piece can fall before it gets near the stack. At least
+ * half of that time is used, and more while the drop cool down lasts, since
+ * the piece couldn't be dropped any sooner anyway. {@code -Dtetris.bot.think}
+ * caps it, in milliseconds (500 by default). The bot returns the best move it
+ * found by then, so at high speeds it looks less far ahead instead of
+ * missing the piece.
+ * <p>
+ * The piece may have fallen while the bot was thinking, so every action is
+ * planned again from where the piece is, with {@code MoveGenerator}. The
+ * moves and rotations are played at once and the piece is dropped when it
+ * has to go down; if the place picked can't be reached anymore the bot picks
+ * again from where the piece is.
+ * <p>
+ * Between actions the bot waits on the lock of the game, which the game loop
+ * notifies after every tick, so it sleeps while the game is paused or on the
+ * title screen instead of looking at it again and again.
+ */
+public class BotPlayer implements Runnable {
+
+    // The rows kept between the piece and the stack when timing a search.
+    private static final int iSafetyRows = 2;
+
+    // The game window, to play the actions as keys would.
+    private final Tetris tetris;
+
+    // The game being played.
+    private final Game game;
+
+    // The lock of the game.
+    private final Object oGameLock;
+
+    // The bot that picks the moves.
+    private final Bot bot;
+
+    // The longest time a search can take, in nanoseconds.
+    private final long lMaxThinkNanos = TimeUnit.MILLISECONDS.toNanos(
+            Integer.getInteger("tetris.bot.think", 500));
+
+    // The board the bot looks at, copied from the game.
+    private final Playfield pfField = new Playfield();
+
+    // The move generator that plans the actions.
+    private final MoveGenerator mgMoves = new MoveGenerator();
+
+    // The actions of the plan.
+    private final char[] cPath = new char[MoveGenerator.MAX_PATH];
+
+    /**
+     * BotPlayer
+     *
+     * Constructor that creates the player of a game.
+     *
+     * @param tetris is the <code>Tetris</code> window.
+     * @param game is the <code>Game</code> to play.
+     * @param oGameLock is the <code>Object</code> that locks the game.
+     * @param bot is the <code>Bot</code> that picks the moves.
+     */
+    public BotPlayer(Tetris tetris, Game game, Object oGameLock, Bot bot) {
+        this.tetris = tetris;
+        this.game = game;
+        this.oGameLock = oGameLock;
+        this.bot = bot;
+    }
+
+    /**
+     * start
+     *
+     * Method that starts the thread of the player.
+     */
+    public void start() {
+        Thread thrBot = new Thread(this, "Tetris bot");
+        thrBot.setDaemon(true);
+        thrBot.start();
+    }
+
+    /**
+     * getThinkNanos
+     *
+     * Method that computes how long the bot can think about a piece.
+     *
+     * @param fCyclesPerSecond is the <code>float</code> speed of the logic
+     * clock.
+     * @param iCooldown is the <code>integer</code> frames of drop cool down.
+     * @param iFreeRows is the <code>integer</code> rows the piece can fall.
+     * @param lMaxNanos is the <code>long</code> longest time allowed.
+     * @return a <code>long</code> with the time in nanoseconds.
+     */
+    public static long getThinkNanos(float fCyclesPerSecond, int iCooldown,
+            int iFreeRows, long lMaxNanos) {
+        long lCycle = (long) (1e9 / fCyclesPerSecond);
+        long lGravity = Math.max(1, iFreeRows - iSafetyRows) * lCycle;
+        long lCooldown = iCooldown * Tetris.FRAME_NANOS;
+        long lThink = Math.min(lGravity, Math.max(lCooldown, lGravity / 2));
+        return Math.min(lThink, lMaxNanos);
+    }
+
+    @Override
+    public void run() {
+        try {
+            playPieces();
+        } catch (InterruptedException excInterrupted) {
+            // The thread was stopped, so the bot stops playing.
+        }
+    }
+
+    /**
+     * playPieces
+     *
+     * Method that plays every piece of every game, waiting for the next tick
+     * whenever there is nothing to do.
+     *
+     * @throws InterruptedException
+     */
+    private void playPieces() throws InterruptedException {
+        int iHandled = -1;
+        while (true) {
+            TileType ttType;
+            TileType ttNext;
+            int iCol;
+            int iRow;
+            int iRotation;
+            int iCooldown;
+            int iPiece;
+            synchronized (oGameLock) {
+                iPiece = game.getPieces();
+                if (tetris.isIdle()) {
+                    // A new game or a game loaded later starts over.
+                    iHandled = -1;
+                    iPiece = iHandled;
+                }
+                if (iPiece == iHandled) {
+                    // Nothing to play before the next tick.
+                    oGameLock.wait();
+                    continue;
+                }
+                ttType = game.getPieceType();
+                ttNext = game.getNextPieceType();
+                iCol = game.getPieceCol();
+                iRow = game.getPieceRow();
+                iRotation = game.getPieceRotation();
+                iCooldown = game.getDropCooldown();
+                pfField.copyFrom(game.getBoard());
+            }
+
+            int iLanding = iRow;
+            while (pfField.isValidAndEmpty(ttType, iCol, iLanding + 1,
+                    iRotation)) {
+                iLanding++;
+            }
+            long lThink = getThinkNanos(tetris.getCyclesPerSecond(), iCooldown,
+                    iLanding - iRow, lMaxThinkNanos);
+            bot.think(pfField, ttType, iCol, iRow, iRotation, ttNext,
+                    System.nanoTime() + lThink, cPath);
+            play(iPiece, ttType, ttNext);
+            iHandled = iPiece;
+        }
+    }
+
+    /**
+     * play
+     *
+     * Method that takes the piece to the place the bot picked, planning
+     * every action again from where the piece is, until it locks.
+     *
+     * @param iPiece is the <code>integer</code> number of the piece.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param ttNext is the <code>TileType</code> of the next piece.
+     * @throws InterruptedException
+     */
+    private void play(int iPiece, TileType ttType, TileType ttNext)
+            throws InterruptedException {
+        int iTargetCol = bot.getLastColumn();
+        int iTargetRow = bot.getLastRow();
+        int iTargetRotation = bot.getLastRotation();
+        while (true) {
+            boolean bWait = true;
+            boolean bReplan = false;
+            int iCol = 0;
+            int iRow = 0;
+            int iRotation = 0;
+            synchronized (oGameLock) {
+                if (game.getPieces() != iPiece || game.isGameOver()) {
+                    return;
+                }
+                if (!tetris.isIdle()) {
+                    iCol = game.getPieceCol();
+                    iRow = game.getPieceRow();
+                    iRotation = game.getPieceRotation();
+                    pfField.copyFrom(game.getBoard());
+                    int iMoves = mgMoves.generate(pfField, ttType, iCol, iRow,
+                            iRotation);
+                    int iTarget = -1;
+                    for (int iM = 0; iM < iMoves && iTarget < 0; iM++) {
+                        if (mgMoves.getMoveColumn(iM) == iTargetCol
+                                && mgMoves.getMoveRow(iM) == iTargetRow
+                                && mgMoves.getMoveRotation(iM)
+                                == iTargetRotation) {
+                            iTarget = iM;
+                        }
+                    }
+
+                    if (iTarget < 0 && iMoves > 0) {
+                        bReplan = true;
+                        bWait = false;
+                    } else if (iTarget < 0
+                            || (mgMoves.getPath(iTarget, cPath) > 0
+                            && cPath[0] == Replay.STEP)) {
+                        tetris.dropPiece();
+                    } else {
+                        tetris.playAction(cPath[0]);
+                        bWait = false;
+                    }
+                }
+                if (bWait) {
+                    // Nothing changes before the next tick.
+                    oGameLock.wait();
+                }
+            }
+            if (bReplan) {
+                /*
+                * The place can't be reached anymore, so pick again from
+                * here, with a tick to spare. The bot thinks on the copy of
+                * the board without holding the lock, so a slow engine
+                * doesn't stop the game, and the next pass plans the
+                * actions from where the piece is by then.
+                */
+                bot.think(pfField, ttType, iCol, iRow, iRotation, ttNext,
+                        System.nanoTime() + Tetris.FRAME_NANOS, cPath);
+                iTargetCol = bot.getLastColumn();
+                iTargetRow = bot.getLastRow();
+                iTargetRotation = bot.getLastRotation();
+            }
+        }
+    }
+}
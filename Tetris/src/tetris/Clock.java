@@ -54,6 +54,17 @@ public class Clock {
         this.fMillisPerCycle = (1.0f / fCyclesPerSecond) * 1000;
     }
 
+    /**
+     * getCyclesPerSecond
+     * 
+     * Returns the number of cycles that elapse per second.
+     *
+     * @return the number of cycles per second.
+     */
+    public float getCyclesPerSecond() {
+        return 1000.0f / fMillisPerCycle;
+    }
+
     /**
      * reset
      * 
@@ -107,6 +118,11 @@ public class Clock {
      * if the clock is paused.
      */
     public void setPaused(boolean bPaused) {
+        // The time spent paused never counts towards a cycle, even if the
+        // clock wasn't updated while it was paused.
+        if (bIsPaused && !bPaused) {
+            this.lLastUpdate = getCurrentTime();
+        }
         this.bIsPaused = bPaused;
     }
 
@@ -155,6 +171,29 @@ public class Clock {
         return (iElapsedCycles > 0);
     }
 
+    /**
+     * getInterpolation
+     * 
+     * Method that calculates how far the clock is into the cycle that has
+     * not elapsed yet, as a fraction between 0 and 1. Uses the nanosecond
+     * clock so that renderers running faster than the logic can draw
+     * smoothly between two cycles.
+     *
+     * @return A <code>float</code> value with the progress of the cycle.
+     */
+    public float getInterpolation() {
+        if (bIsPaused) {
+            return 0.0f;
+        }
+        double dDelta = System.nanoTime() / 1000000.0 - lLastUpdate
+                + fExcessCycles;
+        float fProgress = (float) (dDelta / fMillisPerCycle);
+        if (fProgress < 0.0f) {
+            return 0.0f;
+        }
+        return (fProgress < 1.0f) ? fProgress : 1.0f;
+    }
+
     /**
      * getCurrentTime
      * 
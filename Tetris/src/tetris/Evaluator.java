@@ -0,0 +1,218 @@
+package tetris;
+
+/**
+ * Class Evaluator
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Evaluator} class scores boards for the bots with the usual
+ * features of a Tetris heuristic: the sum of the column heights, the holes
+ * (empty tiles with a full one somewhere above them), the bumpiness (how
+ * much neighbouring columns differ in height), the wells (how far columns
+ * are below both of their neighbours, the walls counting as full), the lines
+ * a placement cleared, and the row and column transitions (how often the
+ * tiles change between full and empty along the rows, the walls counting as
+ * full, and down the columns, the floor counting as full). Each feature has
+ * an <code>integer</code> weight; the defaults are the ones of the greedy
+ * bot of {@code ReplaySuite}, which doesn't look at the wells or the
+ * transitions. The features themselves are kept by the {@code Playfield},
+ * which updates them as pieces are added, so scoring a board is a dot
+ * product.
+ */
+public class Evaluator {
+
+    // The index of the weight of the column heights.
+    public static final int HEIGHT = 0;
+
+    // The index of the weight of the holes.
+    public static final int HOLES = 1;
+
+    // The index of the weight of the bumpiness.
+    public static final int BUMPINESS = 2;
+
+    // The index of the weight of the wells.
+    public static final int WELLS = 3;
+
+    // The index of the weight of a cleared line.
+    public static final int LINES = 4;
+
+    // The index of the weight of the row transitions.
+    public static final int ROW_TRANSITIONS = 5;
+
+    // The index of the weight of the column transitions.
+    public static final int COLUMN_TRANSITIONS = 6;
+
+    // The number of weights.
+    public static final int WEIGHTS = 7;
+
+    // The default weights, by index.
+    private static final int[] iDefaults = {51, 36, 18, 0, 76, 0, 0};
+
+    // The weights, by index.
+    private final int[] iWeights;
+
+    /**
+     * Evaluator
+     *
+     * Constructor that uses the default weights.
+     */
+    public Evaluator() {
+        this(iDefaults);
+    }
+
+    /**
+     * Evaluator
+     *
+     * Constructor that uses the given weights, which are copied.
+     *
+     * @param iWeights is the <code>integer</code> array of weights, by index.
+     */
+    public Evaluator(int[] iWeights) {
+        if (iWeights.length != WEIGHTS) {
+            throw new IllegalArgumentException("Expected " + WEIGHTS
+                    + " weights, got " + iWeights.length);
+        }
+        this.iWeights = iWeights.clone();
+    }
+
+    /**
+     * parse
+     *
+     * Method that creates an evaluator from weights separated by commas, in
+     * the order of their indexes, as printed by {@code toString}.
+     *
+     * @param sWeights is the <code>String</code> with the weights.
+     * @return the <code>Evaluator</code>.
+     */
+    public static Evaluator parse(String sWeights) {
+        String[] sParts = sWeights.split(",");
+        int[] iParsed = new int[sParts.length];
+        for (int iW = 0; iW < sParts.length; iW++) {
+            iParsed[iW] = Integer.parseInt(sParts[iW].trim());
+        }
+        return new Evaluator(iParsed);
+    }
+
+    /**
+     * getWeights
+     *
+     * Access method that returns a copy of the weights.
+     *
+     * @return an <code>integer</code> array of weights, by index.
+     */
+    public int[] getWeights() {
+        return iWeights.clone();
+    }
+
+    /**
+     * getWeight
+     *
+     * Access method that returns one weight.
+     *
+     * @param iIndex is the <code>integer</code> index, such as {@code HOLES}.
+     * @return an <code>integer</code> with the weight.
+     */
+    public int getWeight(int iIndex) {
+        return iWeights[iIndex];
+    }
+
+    /**
+     * evaluate
+     *
+     * Method that scores a board after a placement.
+     *
+     * @param pfField is the <code>Playfield</code> after the lines were
+     * cleared.
+     * @param iCleared is the <code>integer</code> number of lines the
+     * placement cleared.
+     * @return an <code>integer</code>, the higher the better.
+     */
+    public int evaluate(Playfield pfField, int iCleared) {
+        return iCleared * iWeights[LINES] - getPenalty(pfField);
+    }
+
+    /**
+     * evaluate
+     *
+     * Method that scores a placement without making it, from the features
+     * the board would have after it.
+     *
+     * @param pfField is the <code>Playfield</code> before the placement.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param iFeatures is the <code>integer</code> array the features are
+     * written to, so the lines cleared can be read from it.
+     * @return an <code>integer</code>, the higher the better.
+     */
+    public int evaluate(Playfield pfField, int iType, int iX, int iY,
+            int iRotation, int[] iFeatures) {
+        pfField.getFeatures(iType, iX, iY, iRotation, iFeatures);
+        return evaluate(iFeatures);
+    }
+
+    /**
+     * evaluate
+     *
+     * Method that scores the features of a board after a placement.
+     *
+     * @param iFeatures is the <code>integer</code> array of the features,
+     * indexed like the weights.
+     * @return an <code>integer</code>, the higher the better.
+     */
+    public int evaluate(int[] iFeatures) {
+        return iWeights[LINES] * iFeatures[LINES]
+                - iWeights[HEIGHT] * iFeatures[HEIGHT]
+                - iWeights[HOLES] * iFeatures[HOLES]
+                - iWeights[BUMPINESS] * iFeatures[BUMPINESS]
+                - iWeights[WELLS] * iFeatures[WELLS]
+                - iWeights[ROW_TRANSITIONS] * iFeatures[ROW_TRANSITIONS]
+                - iWeights[COLUMN_TRANSITIONS]
+                * iFeatures[COLUMN_TRANSITIONS];
+    }
+
+    /**
+     * getPenalty
+     *
+     * Method that scores what a board looks like, without the lines that
+     * were cleared to get there.
+     *
+     * @param pfField is the <code>Playfield</code> to score.
+     * @return an <code>integer</code>, the lower the better.
+     */
+    public int getPenalty(Playfield pfField) {
+        int iPenalty = 0;
+        for (int iF = 0; iF < WEIGHTS; iF++) {
+            if (iF != LINES) {
+                iPenalty += iWeights[iF] * pfField.getFeature(iF);
+            }
+        }
+        return iPenalty;
+    }
+
+    /**
+     * toString
+     *
+     * Method that returns the weights separated by commas, as read by
+     * {@code parse}.
+     *
+     * @return a <code>String</code> with the weights.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sbWeights = new StringBuilder();
+        for (int iW = 0; iW < WEIGHTS; iW++) {
+            if (iW > 0) {
+                sbWeights.append(',');
+            }
+            sbWeights.append(iWeights[iW]);
+        }
+        return sbWeights.toString();
+    }
+}
@@ -0,0 +1,771 @@
+package tetris;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class ExpectimaxBot
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code ExpectimaxBot} class plays the game by searching ahead. It
+ * places the current piece, then the next piece it can see in the preview,
+ * then takes the average over the seven pieces that could follow, down to a
+ * depth counted in pieces: depth 1 only looks at the current piece, depth 2
+ * adds the preview and every level after that is a level of unknown pieces.
+ * Every lock position comes from {@code MoveGenerator}, so the bot also
+ * finds the placements that need a slide or a rotation under an overhang.
+ * <p>
+ * The lock positions of the current piece are searched in parallel on a
+ * {@code ForkJoinPool}. Below them only the best few positions of every
+ * piece, by the {@code Evaluator}, are searched further (the beam), and once
+ * a search has visited its budget of nodes the positions left are only
+ * scored, not searched. The nodes and the time of every search are kept to
+ * report the nodes per second.
+ * <p>
+ * A search can also be given a deadline. It then deepens one piece at a
+ * time, starting with the current piece alone, and returns the best move of
+ * the deepest search that finished in time; the search that runs past the
+ * deadline is dropped. The search of the current piece alone always
+ * finishes, so there's always a move.
+ * <p>
+ * With an {@code OpeningBook} the bot plays the positions of the book
+ * without searching, as long as the placement of the book is one of the lock
+ * positions of the piece. The book must have been built with the same
+ * settings for the moves to be the ones the search would pick.
+ * <p>
+ * The settings are read from {@code -Dtetris.bot.depth} (3),
+ * {@code -Dtetris.bot.beam} (6), {@code -Dtetris.bot.nodes} (2000000),
+ * {@code -Dtetris.bot.threads} (every processor when missing or 0) and
+ * {@code -Dtetris.bot.weights} (the defaults of {@code Evaluator}) and
+ * {@code -Dtetris.bot.book} (no book).
+ * Headless games are played with
+ * {@code java tetris.ExpectimaxBot [games] [pieces]}.
+ */
+public class ExpectimaxBot implements Bot {
+
+    // The value of a board on which the next piece can't spawn.
+    public static final double LOSS = -1e9;
+
+
+    // The scoring of the boards.
+    private final Evaluator evaluator;
+
+    // The depth of the search, in pieces.
+    private final int iDepth;
+
+    // The number of positions of every piece that are searched further.
+    private final int iBeam;
+
+    // The number of nodes after which the positions are only scored.
+    private final long lNodeBudget;
+
+    // The threads that search the positions of the current piece.
+    private final ForkJoinPool fjpPool;
+
+    // The search state of every thread of the pool.
+    private final ThreadLocal<Searcher> tlSearchers;
+
+    // The nodes visited by the search that is running.
+    private final AtomicLong alNodes = new AtomicLong();
+
+    // The positions of the current piece.
+    private final MoveGenerator mgRoot = new MoveGenerator();
+
+    // The board before the current piece.
+    private final Playfield pfRoot = new Playfield();
+
+    // The value of every position of the current piece, reused by every
+    // search.
+    private final double[] dRootValues = new double[MoveGenerator.MAX_MOVES];
+
+    // The placements of the first pieces, or null.
+    private OpeningBook obBook;
+
+    // The searches answered by the book.
+    private long lBookHits;
+
+    // The nodes of the last search.
+    private long lLastNodes;
+
+    // The time of the last search, in nanoseconds.
+    private long lLastNanos;
+
+    // The nodes of every search.
+    private long lTotalNodes;
+
+    // The time of every search, in nanoseconds.
+    private long lTotalNanos;
+
+    // The depth of the iteration that is running. It's written before the
+    // pool is invoked, which makes it visible to the tasks.
+    private int iLimit;
+
+    // Whether or not the search that is running has a deadline.
+    private boolean bTimed;
+
+    // The deadline of the search that is running, as in System.nanoTime.
+    private long lDeadline;
+
+    // Whether or not the iteration that is running ran past the deadline.
+    private volatile boolean bAborted;
+
+    // The depth of the last iteration that finished.
+    private int iLastDepth;
+
+    // The position picked by the last search.
+    private int iLastColumn;
+    private int iLastRow;
+    private int iLastRotation;
+
+    /**
+     * ExpectimaxBot
+     *
+     * Constructor that creates a bot with its own pool of threads.
+     *
+     * @param evaluator is the <code>Evaluator</code> that scores the boards.
+     * @param iDepth is the <code>integer</code> depth, in pieces, at least 1.
+     * @param iBeam is the <code>integer</code> number of positions of every
+     * piece searched further, at least 1.
+     * @param lNodeBudget is the <code>long</code> number of nodes after which
+     * the positions are only scored.
+     * @param iThreads is the <code>integer</code> number of threads.
+     */
+    public ExpectimaxBot(Evaluator evaluator, int iDepth, int iBeam,
+            long lNodeBudget, int iThreads) {
+        if (iDepth < 1 || iBeam < 1 || iThreads < 1) {
+            throw new IllegalArgumentException("The depth, the beam and the "
+                    + "threads must be at least 1");
+        }
+        this.evaluator = evaluator;
+        this.iDepth = iDepth;
+        this.iBeam = iBeam;
+        this.lNodeBudget = lNodeBudget;
+        this.fjpPool = new ForkJoinPool(iThreads);
+        this.tlSearchers = new ThreadLocal<Searcher>() {
+            @Override
+            protected Searcher initialValue() {
+                return new Searcher();
+            }
+        };
+    }
+
+    /**
+     * create
+     *
+     * Method that creates a bot with the settings of the system properties.
+     * The weights of the evaluator, separated by commas, can be given with
+     * {@code -Dtetris.bot.weights}, for example the ones found by
+     * {@code WeightTuner}, and an {@code OpeningBook} with
+     * {@code -Dtetris.bot.book}.
+     *
+     * @return the <code>ExpectimaxBot</code>.
+     */
+    public static ExpectimaxBot create() {
+        int iThreads = Integer.getInteger("tetris.bot.threads", 0);
+        if (iThreads < 1) {
+            iThreads = Runtime.getRuntime().availableProcessors();
+        }
+        String sWeights = System.getProperty("tetris.bot.weights");
+        ExpectimaxBot bot = new ExpectimaxBot((sWeights == null)
+                ? new Evaluator() : Evaluator.parse(sWeights),
+                Integer.getInteger("tetris.bot.depth", 3),
+                Integer.getInteger("tetris.bot.beam", 6),
+                Long.getLong("tetris.bot.nodes", 2000000L), iThreads);
+        String sBook = System.getProperty("tetris.bot.book");
+        if (sBook != null) {
+            try {
+                bot.setBook(new OpeningBook(new File(sBook)));
+            } catch (IOException ioe) {
+                bot.shutdown();
+                throw new UncheckedIOException(ioe);
+            }
+        }
+        return bot;
+    }
+
+    /**
+     * setBook
+     *
+     * Modifier method that sets the opening book of the bot.
+     *
+     * @param obBook is the <code>OpeningBook</code>, or null for none.
+     */
+    public synchronized void setBook(OpeningBook obBook) {
+        this.obBook = obBook;
+    }
+
+    /**
+     * think
+     *
+     * Method that picks where the current piece of a game goes. The game
+     * isn't changed; the actions that take the piece there and lock it are
+     * written to a buffer, to be played with {@code Replay.apply}. Only one
+     * search runs at a time.
+     *
+     * @param game is the <code>Game</code> being played.
+     * @param cPath is the <code>char</code> array the actions are written
+     * to, {@code MoveGenerator.MAX_PATH} long.
+     * @return an <code>integer</code> with the number of actions, 0 when the
+     * piece can't go anywhere.
+     */
+    public synchronized int think(Game game, char[] cPath) {
+        pfRoot.copyFrom(game.getBoard());
+        return search(game.getPieceType().ordinal(), game.getPieceCol(),
+                game.getPieceRow(), game.getPieceRotation(),
+                game.getNextPieceType().ordinal(), false, 0L, cPath);
+    }
+
+    /**
+     * think
+     *
+     * Method that picks where a piece goes on a board, searching at the
+     * full depth.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param ttNext is the <code>TileType</code> of the next piece.
+     * @param cPath is the <code>char</code> array the actions are written
+     * to, {@code MoveGenerator.MAX_PATH} long.
+     * @return an <code>integer</code> with the number of actions, 0 when the
+     * piece can't go anywhere.
+     */
+    public synchronized int think(Playfield pfField, TileType ttType,
+            int iCol, int iRow, int iRotation, TileType ttNext,
+            char[] cPath) {
+        pfRoot.copyFrom(pfField);
+        return search(ttType.ordinal(), iCol, iRow, iRotation,
+                ttNext.ordinal(), false, 0L, cPath);
+    }
+
+    /**
+     * think
+     *
+     * Method that picks where a piece goes before a deadline, searching
+     * deeper while there's time left.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param ttNext is the <code>TileType</code> of the next piece.
+     * @param lDeadline is the <code>long</code> deadline, as in
+     * {@code System.nanoTime}.
+     * @param cPath is the <code>char</code> array the actions are written
+     * to, {@code MoveGenerator.MAX_PATH} long.
+     * @return an <code>integer</code> with the number of actions, 0 when the
+     * piece can't go anywhere.
+     */
+    @Override
+    public synchronized int think(Playfield pfField, TileType ttType,
+            int iCol, int iRow, int iRotation, TileType ttNext, long lDeadline,
+            char[] cPath) {
+        pfRoot.copyFrom(pfField);
+        return search(ttType.ordinal(), iCol, iRow, iRotation,
+                ttNext.ordinal(), true, lDeadline, cPath);
+    }
+
+    /**
+     * search
+     *
+     * Method that searches the positions of the piece on the board of the
+     * root, at the full depth or deepening until a deadline.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param iNext is the <code>integer</code> ordinal of the next piece.
+     * @param bTimed is whether or not the search has a deadline.
+     * @param lDeadline is the <code>long</code> deadline.
+     * @param cPath is the <code>char</code> array the actions are written to.
+     * @return an <code>integer</code> with the number of actions.
+     */
+    private int search(int iType, int iCol, int iRow, int iRotation,
+            int iNext, boolean bTimed, long lDeadline, char[] cPath) {
+        long lStart = System.nanoTime();
+        int iMoves = mgRoot.generate(pfRoot, iType, iCol, iRow, iRotation);
+        iLastDepth = 0;
+        if (iMoves == 0) {
+            return 0;
+        }
+
+        /*
+        * A position of the book is played at once, at the full depth it
+        * was searched at when the book was built.
+        */
+        int iBest = findBookMove(iType, iNext);
+        if (iBest >= 0) {
+            lBookHits++;
+            iLastDepth = iDepth;
+            return finish(iBest, 0L, lStart, cPath);
+        }
+
+        double[] dValues = dRootValues;
+        iBest = 0;
+        long lNodes = 0;
+        this.bTimed = bTimed;
+        this.lDeadline = lDeadline;
+        for (int iD = bTimed ? 1 : iDepth; iD <= iDepth; iD++) {
+            iLimit = iD;
+            bAborted = false;
+            alNodes.set(iMoves);
+            fjpPool.invoke(new RootSearch(iType, iNext, iMoves, dValues));
+            lNodes += alNodes.get();
+            if (bAborted) {
+                break;
+            }
+
+            iBest = 0;
+            for (int iM = 1; iM < iMoves; iM++) {
+                if (dValues[iM] > dValues[iBest]) {
+                    iBest = iM;
+                }
+            }
+            iLastDepth = iD;
+            if (bTimed && System.nanoTime() - lDeadline >= 0) {
+                break;
+            }
+        }
+
+        return finish(iBest, lNodes, lStart, cPath);
+    }
+
+    /**
+     * findBookMove
+     *
+     * Method that looks up the position of the root in the book and finds
+     * the lock position of the root it places the piece at.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iNext is the <code>integer</code> ordinal of the next piece.
+     * @return an <code>integer</code> with the index of the lock position,
+     * or -1 if the position isn't in the book or can't be reached.
+     */
+    private int findBookMove(int iType, int iNext) {
+        if (obBook == null) {
+            return -1;
+        }
+        int iMove = obBook.find(pfRoot, iType, iNext);
+        if (iMove < 0) {
+            return -1;
+        }
+        int iCol = OpeningBook.getMoveColumn(iMove);
+        int iRow = OpeningBook.getMoveRow(iMove);
+        int iRotation = OpeningBook.getMoveRotation(iMove);
+        for (int iM = 0; iM < mgRoot.getCount(); iM++) {
+            if (mgRoot.getMoveColumn(iM) == iCol
+                    && mgRoot.getMoveRow(iM) == iRow
+                    && mgRoot.getMoveRotation(iM) == iRotation) {
+                return iM;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * finish
+     *
+     * Method that keeps the move picked by a search and its statistics and
+     * writes its actions.
+     *
+     * @param iBest is the <code>integer</code> index of the lock position.
+     * @param lNodes is the <code>long</code> number of nodes visited.
+     * @param lStart is the <code>long</code> start of the search, as in
+     * {@code System.nanoTime}.
+     * @param cPath is the <code>char</code> array the actions are written to.
+     * @return an <code>integer</code> with the number of actions.
+     */
+    private int finish(int iBest, long lNodes, long lStart, char[] cPath) {
+        iLastColumn = mgRoot.getMoveColumn(iBest);
+        iLastRow = mgRoot.getMoveRow(iBest);
+        iLastRotation = mgRoot.getMoveRotation(iBest);
+        lLastNodes = lNodes;
+        lLastNanos = System.nanoTime() - lStart;
+        lTotalNodes += lLastNodes;
+        lTotalNanos += lLastNanos;
+        return mgRoot.getPath(iBest, cPath);
+    }
+
+    /**
+     * shutdown
+     *
+     * Method that stops the threads of the bot.
+     */
+    public void shutdown() {
+        fjpPool.shutdown();
+    }
+
+    /**
+     * getLastNodes
+     *
+     * Access method that returns the nodes visited by the last search.
+     *
+     * @return a <code>long</code> with the nodes.
+     */
+    public synchronized long getLastNodes() {
+        return lLastNodes;
+    }
+
+    /**
+     * getLastDepth
+     *
+     * Access method that returns the depth of the deepest search that
+     * finished during the last call to {@code think}.
+     *
+     * @return an <code>integer</code> with the depth, 0 if there was no move.
+     */
+    public synchronized int getLastDepth() {
+        return iLastDepth;
+    }
+
+    /**
+     * getLastColumn
+     *
+     * Access method that returns the column the last search picked.
+     *
+     * @return an <code>integer</code> with the column.
+     */
+    @Override
+    public synchronized int getLastColumn() {
+        return iLastColumn;
+    }
+
+    /**
+     * getLastRow
+     *
+     * Access method that returns the row the last search picked.
+     *
+     * @return an <code>integer</code> with the row.
+     */
+    @Override
+    public synchronized int getLastRow() {
+        return iLastRow;
+    }
+
+    /**
+     * getLastRotation
+     *
+     * Access method that returns the rotation the last search picked.
+     *
+     * @return an <code>integer</code> with the rotation.
+     */
+    @Override
+    public synchronized int getLastRotation() {
+        return iLastRotation;
+    }
+
+    /**
+     * getLastNanos
+     *
+     * Access method that returns the time the last search took.
+     *
+     * @return a <code>long</code> with the time in nanoseconds.
+     */
+    public synchronized long getLastNanos() {
+        return lLastNanos;
+    }
+
+    /**
+     * getBookHits
+     *
+     * Access method that returns the number of searches the book answered.
+     *
+     * @return a <code>long</code> with the book hits.
+     */
+    public synchronized long getBookHits() {
+        return lBookHits;
+    }
+
+    /**
+     * getNodesPerSecond
+     *
+     * Access method that returns the nodes per second of every search.
+     *
+     * @return a <code>double</code> with the nodes per second.
+     */
+    public synchronized double getNodesPerSecond() {
+        return (lTotalNanos == 0) ? 0.0 : lTotalNodes * 1e9 / lTotalNanos;
+    }
+
+    /**
+     * Class RootSearch
+     *
+     * The {@code RootSearch} class searches every position of the current
+     * piece as a task of its own.
+     */
+    private final class RootSearch extends RecursiveAction {
+
+        // Serial Version UID.
+        private static final long serialVersionUID = 6264416520834960531L;
+
+        // The ordinal of the current piece.
+        private final int iType;
+
+        // The ordinal of the next piece.
+        private final int iNext;
+
+        // The value of every position, written by the tasks.
+        private final double[] dValues;
+
+        // The number of positions.
+        private final int iMoves;
+
+        // The position searched, or -1 to split them into tasks.
+        private final int iMove;
+
+        /**
+         * RootSearch
+         *
+         * Constructor that creates the task that splits the positions.
+         *
+         * @param iType is the <code>integer</code> ordinal of the piece.
+         * @param iNext is the <code>integer</code> ordinal of the next piece.
+         * @param iMoves is the <code>integer</code> number of positions.
+         * @param dValues is the <code>double</code> array of the values, at
+         * least {@code iMoves} long.
+         */
+        RootSearch(int iType, int iNext, int iMoves, double[] dValues) {
+            this(iType, iNext, iMoves, dValues, -1);
+        }
+
+        /**
+         * RootSearch
+         *
+         * Constructor that creates the task of one position.
+         *
+         * @param iType is the <code>integer</code> ordinal of the piece.
+         * @param iNext is the <code>integer</code> ordinal of the next piece.
+         * @param iMoves is the <code>integer</code> number of positions.
+         * @param dValues is the <code>double</code> array of the values.
+         * @param iMove is the <code>integer</code> index of the position.
+         */
+        private RootSearch(int iType, int iNext, int iMoves, double[] dValues,
+                int iMove) {
+            this.iType = iType;
+            this.iNext = iNext;
+            this.iMoves = iMoves;
+            this.dValues = dValues;
+            this.iMove = iMove;
+        }
+
+        @Override
+        protected void compute() {
+            if (iMove < 0) {
+                RootSearch[] rsTasks = new RootSearch[iMoves];
+                for (int iM = 0; iM < rsTasks.length; iM++) {
+                    rsTasks[iM] = new RootSearch(iType, iNext, iMoves,
+                            dValues, iM);
+                }
+                invokeAll(rsTasks);
+                return;
+            }
+
+            Searcher srcSearch = tlSearchers.get();
+            Playfield pfChild = srcSearch.pfStack[1];
+            pfChild.copyFrom(pfRoot);
+            pfChild.addPiece(iType, mgRoot.getMoveColumn(iMove),
+                    mgRoot.getMoveRow(iMove), mgRoot.getMoveRotation(iMove));
+            int iCleared = pfChild.checkLines();
+            if (iLimit == 1) {
+                dValues[iMove] = evaluator.evaluate(pfChild, iCleared);
+            } else {
+                dValues[iMove] = iCleared * evaluator.getWeight(Evaluator.LINES)
+                        + srcSearch.searchPiece(pfChild, iNext, 1);
+            }
+        }
+    }
+
+    /**
+     * Class Searcher
+     *
+     * The {@code Searcher} class holds what one thread needs to search below
+     * a position: a board, a move generator and the scores of the positions
+     * for every depth, so the search allocates nothing.
+     */
+    private final class Searcher {
+
+        // The board before the piece of every depth.
+        private final Playfield[] pfStack = new Playfield[iDepth + 1];
+
+        // The move generator of every depth.
+        private final MoveGenerator[] mgStack = new MoveGenerator[iDepth];
+
+        // The score of every position of every depth.
+        private final int[][] iScores = new int[iDepth][];
+
+        // The lines cleared by every position of every depth.
+        private final int[][] iCleared = new int[iDepth][];
+
+        // The positions of every depth, best first once sorted.
+        private final int[][] iOrder = new int[iDepth][];
+
+        // The features of the position being scored.
+        private final int[] iFeatures = new int[Evaluator.WEIGHTS];
+
+        /**
+         * Searcher
+         *
+         * Constructor that allocates everything a search needs.
+         */
+        Searcher() {
+            for (int iD = 0; iD <= iDepth; iD++) {
+                pfStack[iD] = new Playfield();
+            }
+            for (int iD = 1; iD < iDepth; iD++) {
+                mgStack[iD] = new MoveGenerator();
+                iScores[iD] = new int[MoveGenerator.MAX_MOVES];
+                iCleared[iD] = new int[MoveGenerator.MAX_MOVES];
+                iOrder[iD] = new int[MoveGenerator.MAX_MOVES];
+            }
+        }
+
+        /**
+         * searchPiece
+         *
+         * Method that returns the value of the best position of a known
+         * piece.
+         *
+         * @param pfField is the <code>Playfield</code> before the piece.
+         * @param iType is the <code>integer</code> ordinal of the piece.
+         * @param iPly is the <code>integer</code> depth of the piece.
+         * @return a <code>double</code> with the value.
+         */
+        double searchPiece(Playfield pfField, int iType, int iPly) {
+            if (bTimed && (bAborted || System.nanoTime() - lDeadline >= 0)) {
+                // The iteration is dropped, so the value doesn't matter.
+                bAborted = true;
+                return LOSS;
+            }
+            MoveGenerator mgMoves = mgStack[iPly];
+            int iMoves = mgMoves.generate(pfField, iType,
+                    TileType.get(iType).getSpawnColumn(),
+                    TileType.get(iType).getSpawnRow(), 0);
+            if (iMoves == 0) {
+                return LOSS;
+            }
+            long lNodes = alNodes.addAndGet(iMoves);
+
+            /*
+            * Score every position. At the last depth, or once the budget is
+            * spent, the best score is the value.
+            */
+            int[] iScore = iScores[iPly];
+            int[] iLines = iCleared[iPly];
+            int iBestScore = Integer.MIN_VALUE;
+            for (int iM = 0; iM < iMoves; iM++) {
+                iScore[iM] = evaluator.evaluate(pfField, iType,
+                        mgMoves.getMoveColumn(iM), mgMoves.getMoveRow(iM),
+                        mgMoves.getMoveRotation(iM), iFeatures);
+                iLines[iM] = iFeatures[Evaluator.LINES];
+                iBestScore = Math.max(iBestScore, iScore[iM]);
+            }
+            if (iPly + 1 >= iLimit || lNodes >= lNodeBudget) {
+                return iBestScore;
+            }
+
+            /*
+            * Only the best positions by score are searched further.
+            */
+            int[] iSorted = iOrder[iPly];
+            for (int iM = 0; iM < iMoves; iM++) {
+                iSorted[iM] = iM;
+            }
+            int iKept = Math.min(iBeam, iMoves);
+            for (int iK = 0; iK < iKept; iK++) {
+                int iBest = iK;
+                for (int iM = iK + 1; iM < iMoves; iM++) {
+                    if (iScore[iSorted[iM]] > iScore[iSorted[iBest]]) {
+                        iBest = iM;
+                    }
+                }
+                int iSwap = iSorted[iK];
+                iSorted[iK] = iSorted[iBest];
+                iSorted[iBest] = iSwap;
+            }
+
+            Playfield pfChild = pfStack[iPly + 1];
+            double dBest = LOSS;
+            int iLineWeight = evaluator.getWeight(Evaluator.LINES);
+            for (int iK = 0; iK < iKept; iK++) {
+                int iM = iSorted[iK];
+                pfChild.copyFrom(pfField);
+                pfChild.addPiece(iType, mgMoves.getMoveColumn(iM),
+                        mgMoves.getMoveRow(iM), mgMoves.getMoveRotation(iM));
+                pfChild.checkLines();
+                dBest = Math.max(dBest, iLines[iM] * iLineWeight
+                        + searchChance(pfChild, iPly + 1));
+            }
+            return dBest;
+        }
+
+        /**
+         * searchChance
+         *
+         * Method that returns the average value of the seven pieces that
+         * could come next.
+         *
+         * @param pfField is the <code>Playfield</code> before the piece.
+         * @param iPly is the <code>integer</code> depth of the piece.
+         * @return a <code>double</code> with the value.
+         */
+        double searchChance(Playfield pfField, int iPly) {
+            double dTotal = 0.0;
+            for (int iT = 0; iT < TileType.getCount(); iT++) {
+                dTotal += searchPiece(pfField, iT, iPly);
+            }
+            return dTotal / TileType.getCount();
+        }
+    }
+
+    /**
+     * main
+     *
+     * Method that plays headless games with the bot and prints how they
+     * went and how fast it searched.
+     *
+     * @param args is the <code>String</code> array with the number of games
+     * and the pieces a game stops at.
+     */
+    public static void main(String[] args) {
+        int iGames = (args.length > 0) ? Integer.parseInt(args[0]) : 1;
+        int iMaxPieces = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+
+        ExpectimaxBot bot = create();
+        Game game = new Game(new Playfield(), new Random());
+        char[] cPath = new char[MoveGenerator.MAX_PATH];
+        for (int iG = 1; iG <= iGames; iG++) {
+            game.reset(iG);
+            while (!game.isGameOver() && game.getPieces() < iMaxPieces) {
+                int iLength = bot.think(game, cPath);
+                int iLocked = game.getPieces();
+                for (int iA = 0; iA < iLength && !game.isGameOver(); iA++) {
+                    Replay.apply(game, cPath[iA]);
+                }
+                // A path always locks the piece; this is only a safeguard.
+                while (game.getPieces() == iLocked && !game.isGameOver()) {
+                    game.step();
+                }
+            }
+            System.out.println(String.format("Game %d: %d pieces, %d lines, "
+                    + "score %d, %.0f nodes/s, %d book moves", iG,
+                    game.getPieces(), game.getLines(), game.getScore(),
+                    bot.getNodesPerSecond(), bot.getBookHits()));
+        }
+        bot.shutdown();
+    }
+}
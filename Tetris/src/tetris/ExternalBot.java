@@ -0,0 +1,720 @@
+package tetris;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class ExternalBot
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code ExternalBot} class lets a bot written in any language play the
+ * game. The engine is a process of its own, started from the command in
+ * {@code -Dtetris.bot.engine}, and the game talks to it over its standard
+ * input and output, one line of ASCII per message. The game sends:
+ * <pre>
+ * tetris 1 &lt;columns&gt; &lt;rows&gt;
+ * move &lt;id&gt; &lt;ms&gt; &lt;piece&gt; &lt;col&gt; &lt;row&gt; &lt;rot&gt; &lt;next&gt; &lt;board&gt;
+ * quit
+ * </pre>
+ * The first line is sent once, when the engine starts. A {@code move} asks
+ * where a piece goes: {@code id} is any number the game picks, {@code ms}
+ * the milliseconds the engine has (0 for no limit), the pieces are letters
+ * ({@code I J L O S T Z}) and the column, row and rotation are where the
+ * piece is now, as in {@code Game}. The board is every row from the top,
+ * each as 3 hexadecimal digits with bit {@code n} set when column {@code n}
+ * is full. The engine answers every move with one of:
+ * <pre>
+ * place &lt;id&gt; &lt;col&gt; &lt;row&gt; &lt;rot&gt;
+ * keys &lt;id&gt; &lt;actions&gt;
+ * </pre>
+ * {@code place} names the lock position of the piece and {@code keys} the
+ * actions that take it there, as in {@code Replay} ({@code L R C A D}, or
+ * {@code -} for none); the piece is dropped after the last action until it
+ * locks. Lines that start with {@code #} are skipped, so the engine can
+ * log.
+ * <p>
+ * The game doesn't wait for an answer before sending more moves, and the
+ * answers can come in any order, matched by their id. Headless games are
+ * played many at a time with {@code java tetris.ExternalBot [games]
+ * [pieces]}: every game has a move in flight, the requests of every answer
+ * read at once are written in one go, and an engine that answers a batch
+ * of moves before flushing isn't held back by the time a round trip takes.
+ * In the game window there's one game, so one move is in flight at a time.
+ * <p>
+ * A placement that can't be reached from where the piece is, like one on a
+ * board that changed meanwhile, drops the piece where it is instead, and so
+ * does a move the window asked for that isn't answered in time.
+ */
+public class ExternalBot implements Bot {
+
+    // The version of the protocol.
+    public static final int VERSION = 1;
+
+    // The letters of the pieces, in the order of TileType.
+    private static final String sLetters = "IJLOSTZ";
+
+    // The hexadecimal digits of the board.
+    private static final char[] cDigits = "0123456789abcdef".toCharArray();
+
+    // The time between two looks at the engine while waiting for an answer.
+    private static final long lPollNanos = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // The time the engine has to quit before it's stopped.
+    private static final long lQuitMillis = 1000;
+
+
+    // The process of the engine.
+    private final Process procEngine;
+
+    // The requests to the engine.
+    private final Writer wrtOut;
+
+    // The answers of the engine.
+    private final BufferedReader brIn;
+
+    // The line of a request, built again for every move.
+    private final StringBuilder sbLine = new StringBuilder(128);
+
+    // The line of an answer, as far as it has been read.
+    private final StringBuilder sbAnswer = new StringBuilder(128);
+
+    // The move generator that checks the answers.
+    private final MoveGenerator mgMoves = new MoveGenerator();
+
+    // The board the actions of an answer are played on.
+    private final Playfield pfTry = new Playfield();
+
+    // The id of the next move asked from think.
+    private int iNextId;
+
+    // The last answer read: its id, whether it has actions, the placement
+    // and the actions.
+    private int iAnswerId;
+    private boolean bAnswerKeys;
+    private int iAnswerColumn;
+    private int iAnswerRow;
+    private int iAnswerRotation;
+    private String sAnswerKeys;
+
+    // The position picked by the last answer.
+    private int iLastColumn;
+    private int iLastRow;
+    private int iLastRotation;
+
+    /**
+     * ExternalBot
+     *
+     * Constructor that starts an engine and greets it.
+     *
+     * @param sCommand is the <code>String</code> command of the engine, its
+     * words separated by spaces.
+     * @throws IOException
+     */
+    public ExternalBot(String sCommand) throws IOException {
+        ProcessBuilder pbEngine = new ProcessBuilder(
+                sCommand.trim().split("\\s+"));
+        pbEngine.redirectError(ProcessBuilder.Redirect.INHERIT);
+        procEngine = pbEngine.start();
+        wrtOut = new BufferedWriter(new OutputStreamWriter(
+                procEngine.getOutputStream(), StandardCharsets.US_ASCII));
+        brIn = new BufferedReader(new InputStreamReader(
+                procEngine.getInputStream(), StandardCharsets.US_ASCII));
+        wrtOut.write("tetris " + VERSION + " " + Playfield.COLUMNS + " "
+                + Playfield.ROWS + "\n");
+        wrtOut.flush();
+    }
+
+    /**
+     * create
+     *
+     * Method that starts the engine of {@code -Dtetris.bot.engine}.
+     *
+     * @return the <code>ExternalBot</code>.
+     */
+    public static ExternalBot create() {
+        String sCommand = System.getProperty("tetris.bot.engine");
+        if (sCommand == null || sCommand.trim().isEmpty()) {
+            throw new IllegalStateException("-Dtetris.bot.engine is missing");
+        }
+        try {
+            return new ExternalBot(sCommand);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * request
+     *
+     * Method that asks the engine where a piece goes. The request is only
+     * written once {@code flush} is called, so many can be sent together.
+     *
+     * @param iId is the <code>integer</code> id of the move.
+     * @param lMillis is the <code>long</code> milliseconds the engine has,
+     * 0 for no limit.
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param ttNext is the <code>TileType</code> of the next piece.
+     * @throws IOException
+     */
+    public void request(int iId, long lMillis, Playfield pfField,
+            TileType ttType, int iCol, int iRow, int iRotation,
+            TileType ttNext) throws IOException {
+        sbLine.setLength(0);
+        sbLine.append("move ").append(iId).append(' ').append(lMillis)
+                .append(' ').append(getLetter(ttType)).append(' ')
+                .append(iCol).append(' ').append(iRow).append(' ')
+                .append(iRotation).append(' ').append(getLetter(ttNext))
+                .append(' ');
+        appendBoard(sbLine, pfField);
+        sbLine.append('\n');
+        wrtOut.append(sbLine);
+    }
+
+    /**
+     * flush
+     *
+     * Method that sends the requests written so far.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        wrtOut.flush();
+    }
+
+    /**
+     * isAnswerReady
+     *
+     * Method that tells whether or not an answer can be read without
+     * waiting for the engine.
+     *
+     * @return whether or not an answer is ready.
+     * @throws IOException
+     */
+    public boolean isAnswerReady() throws IOException {
+        return brIn.ready();
+    }
+
+    /**
+     * receive
+     *
+     * Method that reads the next answer of the engine, waiting for it. The
+     * answer is then turned into actions with {@code getPath}.
+     *
+     * @return an <code>integer</code> with the id of the move answered.
+     * @throws IOException
+     */
+    public int receive() throws IOException {
+        return receive(false, 0);
+    }
+
+    /**
+     * receive
+     *
+     * Method that reads the next answer of the engine, waiting for it until
+     * a deadline at most. A line cut short by the deadline is kept, and the
+     * next call goes on reading it.
+     *
+     * @param lDeadline is the <code>long</code> deadline, as in
+     * {@code System.nanoTime}.
+     * @return an <code>integer</code> with the id of the move answered, or
+     * -1 if there was no answer by the deadline.
+     * @throws IOException
+     */
+    public int receive(long lDeadline) throws IOException {
+        return receive(true, lDeadline);
+    }
+
+    /**
+     * receive
+     *
+     * Method that reads answers until one makes sense.
+     *
+     * @param bTimed is whether or not there's a deadline.
+     * @param lDeadline is the <code>long</code> deadline, as in
+     * {@code System.nanoTime}.
+     * @return an <code>integer</code> with the id of the move answered, or
+     * -1 if there was no answer by the deadline.
+     * @throws IOException
+     */
+    private int receive(boolean bTimed, long lDeadline) throws IOException {
+        while (true) {
+            String sAnswer = readLine(bTimed, lDeadline);
+            if (sAnswer == null) {
+                return -1;
+            }
+            if (sAnswer.isEmpty() || sAnswer.charAt(0) == '#') {
+                continue;
+            }
+            String[] sWords = sAnswer.trim().split("\\s+");
+            try {
+                if (sWords[0].equals("place") && sWords.length == 5) {
+                    iAnswerId = Integer.parseInt(sWords[1]);
+                    bAnswerKeys = false;
+                    iAnswerColumn = Integer.parseInt(sWords[2]);
+                    iAnswerRow = Integer.parseInt(sWords[3]);
+                    iAnswerRotation = Integer.parseInt(sWords[4]);
+                    return iAnswerId;
+                } else if (sWords[0].equals("keys") && sWords.length == 3) {
+                    iAnswerId = Integer.parseInt(sWords[1]);
+                    bAnswerKeys = true;
+                    sAnswerKeys = sWords[2];
+                    return iAnswerId;
+                }
+            } catch (NumberFormatException nfe) {
+                // Reported below, like any other line that makes no sense.
+            }
+            throw new IOException("Not an answer of the protocol: "
+                    + sAnswer);
+        }
+    }
+
+    /**
+     * readLine
+     *
+     * Method that reads a line of the engine a character at a time, so a
+     * deadline can stop it in the middle of a line without losing what was
+     * read.
+     *
+     * @param bTimed is whether or not there's a deadline.
+     * @param lDeadline is the <code>long</code> deadline, as in
+     * {@code System.nanoTime}.
+     * @return the <code>String</code> line, or null if it wasn't complete
+     * by the deadline.
+     * @throws IOException
+     */
+    private String readLine(boolean bTimed, long lDeadline)
+            throws IOException {
+        while (true) {
+            if (bTimed && !brIn.ready()) {
+                if (!procEngine.isAlive()) {
+                    throw new IOException("The engine closed its output");
+                }
+                if (System.nanoTime() - lDeadline >= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(lPollNanos);
+                continue;
+            }
+            int iChar = brIn.read();
+            if (iChar < 0) {
+                throw new IOException("The engine closed its output");
+            }
+            if (iChar == '\n') {
+                int iLength = sbAnswer.length();
+                if (iLength > 0 && sbAnswer.charAt(iLength - 1) == '\r') {
+                    sbAnswer.setLength(iLength - 1);
+                }
+                String sLine = sbAnswer.toString();
+                sbAnswer.setLength(0);
+                return sLine;
+            }
+            sbAnswer.append((char) iChar);
+        }
+    }
+
+    /**
+     * getPath
+     *
+     * Method that turns the last answer into the actions that take the
+     * piece to its lock position, from where the piece was when the move
+     * was asked.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param cPath is the <code>char</code> array the actions are written
+     * to, {@code MoveGenerator.MAX_PATH} long.
+     * @return an <code>integer</code> with the number of actions, 0 when the
+     * piece can't go anywhere.
+     */
+    public int getPath(Playfield pfField, TileType ttType, int iCol,
+            int iRow, int iRotation, char[] cPath) {
+        int iType = ttType.ordinal();
+        int iMoves = mgMoves.generate(pfField, iType, iCol, iRow, iRotation);
+        if (iMoves == 0) {
+            return 0;
+        }
+
+        /*
+        * Actions are played on the board until the piece locks, which
+        * always is a lock position; a placement may not be one.
+        */
+        int iMove;
+        if (bAnswerKeys) {
+            iMove = playKeys(pfField, iType, iCol, iRow, iRotation,
+                    sAnswerKeys);
+        } else {
+            iMove = findMove(iType, iAnswerColumn, iAnswerRow,
+                    iAnswerRotation);
+        }
+        if (iMove < 0) {
+            iMove = playKeys(pfField, iType, iCol, iRow, iRotation, "-");
+        }
+
+        iLastColumn = mgMoves.getMoveColumn(iMove);
+        iLastRow = mgMoves.getMoveRow(iMove);
+        iLastRotation = mgMoves.getMoveRotation(iMove);
+        return mgMoves.getPath(iMove, cPath);
+    }
+
+    /**
+     * playKeys
+     *
+     * Method that plays the actions of an answer on the board, the same way
+     * {@code Game} would, and drops the piece until it locks.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param sKeys is the <code>String</code> with the actions.
+     * @return an <code>integer</code> with the lock position, as in the
+     * move generator.
+     */
+    private int playKeys(Playfield pfField, int iType, int iCol, int iRow,
+            int iRotation, String sKeys) {
+        pfTry.copyFrom(pfField);
+        int iX = iCol;
+        int iY = iRow;
+        int iRot = iRotation;
+        for (int iK = 0; iK < sKeys.length(); iK++) {
+            char cAction = sKeys.charAt(iK);
+            if (cAction == Replay.STEP) {
+                if (!pfTry.isValidAndEmpty(iType, iX, iY + 1, iRot)) {
+                    return findMove(iType, iX, iY, iRot);
+                }
+                iY++;
+            } else if (cAction == Replay.MOVE_LEFT
+                    || cAction == Replay.MOVE_RIGHT) {
+                int iNewX = iX + ((cAction == Replay.MOVE_LEFT) ? -1 : 1);
+                if (pfTry.isValidAndEmpty(iType, iNewX, iY, iRot)) {
+                    iX = iNewX;
+                }
+            } else if (cAction == Replay.ROTATE_CLOCKWISE
+                    || cAction == Replay.ROTATE_ANTICLOCKWISE) {
+                int iNewRot = (iRot + ((cAction == Replay.ROTATE_CLOCKWISE)
+                        ? 1 : 3)) & 3;
+                int iNewX = Playfield.getRotatedColumn(iType, iX, iNewRot);
+                int iNewY = Playfield.getRotatedRow(iType, iY, iNewRot);
+                if (pfTry.isValidAndEmpty(iType, iNewX, iNewY, iNewRot)) {
+                    iX = iNewX;
+                    iY = iNewY;
+                    iRot = iNewRot;
+                }
+            }
+        }
+        while (pfTry.isValidAndEmpty(iType, iX, iY + 1, iRot)) {
+            iY++;
+        }
+        return findMove(iType, iX, iY, iRot);
+    }
+
+    /**
+     * findMove
+     *
+     * Method that finds the lock position of the move generator that
+     * covers the same tiles as a position, since positions that do (like
+     * the rotations of the O piece) are only generated once.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iCol is the <code>integer</code> column of the position.
+     * @param iRow is the <code>integer</code> row of the position.
+     * @param iRotation is the <code>integer</code> rotation of the position.
+     * @return an <code>integer</code> with the lock position, or -1 if
+     * there's none.
+     */
+    private int findMove(int iType, int iCol, int iRow, int iRotation) {
+        if (iRotation < 0 || iRotation > 3
+                || !Playfield.isInside(iType, iCol, iRow, iRotation)) {
+            return -1;
+        }
+        int iDim = Playfield.getDimension(iType);
+        for (int iM = 0; iM < mgMoves.getCount(); iM++) {
+            int iX = mgMoves.getMoveColumn(iM);
+            int iY = mgMoves.getMoveRow(iM);
+            int iRot = mgMoves.getMoveRotation(iM);
+            boolean bSame = true;
+            for (int iR = Math.min(iRow, iY); iR < Math.max(iRow, iY) + iDim
+                    && bSame; iR++) {
+                bSame = Playfield.getPieceMask(iType, iCol, iR - iRow,
+                        iRotation) == Playfield.getPieceMask(iType, iX,
+                        iR - iY, iRot);
+            }
+            if (bSame) {
+                return iM;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * think
+     *
+     * Method that asks the engine where a piece goes and waits for the
+     * answer until the deadline, skipping answers to moves asked before.
+     * With no answer by then the piece is dropped where it is, and the
+     * answer that comes later is skipped by the next call.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param ttNext is the <code>TileType</code> of the next piece.
+     * @param lDeadline is the <code>long</code> deadline, as in
+     * {@code System.nanoTime}; the engine gets at least a millisecond.
+     * @param cPath is the <code>char</code> array the actions are written
+     * to, {@code MoveGenerator.MAX_PATH} long.
+     * @return an <code>integer</code> with the number of actions, 0 when the
+     * piece can't go anywhere.
+     */
+    @Override
+    public synchronized int think(Playfield pfField, TileType ttType,
+            int iCol, int iRow, int iRotation, TileType ttNext, long lDeadline,
+            char[] cPath) {
+        long lMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                lDeadline - System.nanoTime()));
+        long lWaitUntil = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(lMillis);
+        int iId = iNextId++;
+        try {
+            request(iId, lMillis, pfField, ttType, iCol, iRow, iRotation,
+                    ttNext);
+            flush();
+            int iAnswered;
+            do {
+                // An older id is an answer that came too late for its piece.
+                iAnswered = receive(lWaitUntil);
+            } while (iAnswered >= 0 && iAnswered != iId);
+            if (iAnswered < 0) {
+                bAnswerKeys = true;
+                sAnswerKeys = "-";
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return getPath(pfField, ttType, iCol, iRow, iRotation, cPath);
+    }
+
+    /**
+     * getLastColumn
+     *
+     * Access method that returns the column of the last answer.
+     *
+     * @return an <code>integer</code> with the column.
+     */
+    @Override
+    public synchronized int getLastColumn() {
+        return iLastColumn;
+    }
+
+    /**
+     * getLastRow
+     *
+     * Access method that returns the row of the last answer.
+     *
+     * @return an <code>integer</code> with the row.
+     */
+    @Override
+    public synchronized int getLastRow() {
+        return iLastRow;
+    }
+
+    /**
+     * getLastRotation
+     *
+     * Access method that returns the rotation of the last answer.
+     *
+     * @return an <code>integer</code> with the rotation.
+     */
+    @Override
+    public synchronized int getLastRotation() {
+        return iLastRotation;
+    }
+
+    /**
+     * close
+     *
+     * Method that tells the engine to quit and waits a moment for it, then
+     * stops it.
+     */
+    public void close() {
+        try {
+            wrtOut.write("quit\n");
+            wrtOut.close();
+        } catch (IOException ioe) {
+            // The engine is gone already.
+        }
+        try {
+            if (!procEngine.waitFor(lQuitMillis, TimeUnit.MILLISECONDS)) {
+                procEngine.destroy();
+            }
+        } catch (InterruptedException ie) {
+            procEngine.destroy();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * getLetter
+     *
+     * Method that returns the letter of a piece in the protocol.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @return a <code>char</code> with the letter.
+     */
+    public static char getLetter(TileType ttType) {
+        return sLetters.charAt(ttType.ordinal());
+    }
+
+    /**
+     * appendBoard
+     *
+     * Method that writes a board the way the protocol sends it: every row
+     * from the top, as 3 hexadecimal digits.
+     *
+     * @param sbOut is the <code>StringBuilder</code> to write to.
+     * @param board is the <code>Board</code> to write.
+     */
+    public static void appendBoard(StringBuilder sbOut, Board board) {
+        for (int iR = 0; iR < Playfield.ROWS; iR++) {
+            int iMask = board.getRowMask(iR);
+            sbOut.append(cDigits[(iMask >>> 8) & 15])
+                    .append(cDigits[(iMask >>> 4) & 15])
+                    .append(cDigits[iMask & 15]);
+        }
+    }
+
+    /**
+     * getType
+     *
+     * Method that returns the piece of a letter of the protocol.
+     *
+     * @param cLetter is the <code>char</code> letter.
+     * @return the <code>TileType</code>, or null if there's none.
+     */
+    public static TileType getType(char cLetter) {
+        int iIndex = sLetters.indexOf(cLetter);
+        return (iIndex < 0) ? null : TileType.get(iIndex);
+    }
+
+    /**
+     * main
+     *
+     * Method that plays headless games with the engine of
+     * {@code -Dtetris.bot.engine}, all of them at the same time, and prints
+     * how they went and how fast the engine answered.
+     *
+     * @param args is the <code>String</code> array with the number of games
+     * and the pieces a game stops at.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        int iGames = (args.length > 0) ? Integer.parseInt(args[0]) : 1;
+        int iMaxPieces = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+
+        ExternalBot bot = create();
+        Game[] games = new Game[iGames];
+        Playfield[] pfFields = new Playfield[iGames];
+        char[] cPath = new char[MoveGenerator.MAX_PATH];
+        long lStart = System.nanoTime();
+        int iInFlight = 0;
+        for (int iG = 0; iG < iGames; iG++) {
+            games[iG] = new Game(new Playfield(), new Random());
+            games[iG].reset(iG + 1);
+            pfFields[iG] = new Playfield();
+            if (ask(bot, games[iG], pfFields[iG], iG)) {
+                iInFlight++;
+            }
+        }
+        bot.flush();
+
+        /*
+        * Every answer read is played at once, and the next move of its game
+        * is asked once there's no other answer waiting to be read.
+        */
+        long lMoves = 0;
+        while (iInFlight > 0) {
+            int iG = bot.receive();
+            if (iG < 0 || iG >= iGames) {
+                throw new IOException("An answer to no move: " + iG);
+            }
+            Game game = games[iG];
+            int iLength = bot.getPath(pfFields[iG], game.getPieceType(),
+                    game.getPieceCol(), game.getPieceRow(),
+                    game.getPieceRotation(), cPath);
+            int iLocked = game.getPieces();
+            for (int iA = 0; iA < iLength && !game.isGameOver(); iA++) {
+                Replay.apply(game, cPath[iA]);
+            }
+            // A path always locks the piece; this is only a safeguard.
+            while (game.getPieces() == iLocked && !game.isGameOver()) {
+                game.step();
+            }
+            lMoves++;
+            if (game.isGameOver() || game.getPieces() >= iMaxPieces) {
+                iInFlight--;
+                System.out.println(String.format("Game %d: %d pieces, "
+                        + "%d lines, score %d", iG + 1, game.getPieces(),
+                        game.getLines(), game.getScore()));
+            } else {
+                ask(bot, game, pfFields[iG], iG);
+            }
+            if (!bot.isAnswerReady()) {
+                bot.flush();
+            }
+        }
+        double dSeconds = (System.nanoTime() - lStart) / 1e9;
+        System.out.println(String.format("%d moves in %.2f s, %.0f moves/s",
+                lMoves, dSeconds, lMoves / dSeconds));
+        bot.close();
+    }
+
+    /**
+     * ask
+     *
+     * Method that asks the engine for the move of a game, with no limit of
+     * time.
+     *
+     * @param bot is the <code>ExternalBot</code> of the engine.
+     * @param game is the <code>Game</code> being played.
+     * @param pfField is the <code>Playfield</code> of the game, copied from
+     * its board.
+     * @param iId is the <code>integer</code> id of the move, the game.
+     * @return whether or not a move was asked, not when the game is over.
+     * @throws IOException
+     */
+    private static boolean ask(ExternalBot bot, Game game, Playfield pfField,
+            int iId) throws IOException {
+        if (game.isGameOver()) {
+            return false;
+        }
+        pfField.copyFrom(game.getBoard());
+        bot.request(iId, 0, pfField, game.getPieceType(), game.getPieceCol(),
+                game.getPieceRow(), game.getPieceRotation(),
+                game.getNextPieceType());
+        return true;
+    }
+}
@@ -0,0 +1,328 @@
+package tetris;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class FrameMetrics
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code FrameMetrics} class records where the time of every frame of the
+ * game loop goes: the logic clock update, the game update, the render, the
+ * sleep and how much the sleep overshot, plus the frames that started late.
+ * Every interval (10 seconds unless {@code -Dtetris.metrics.interval} says
+ * otherwise) the histograms are rolled over; the last complete interval is
+ * exported through JMX, and appended to a CSV file when
+ * {@code -Dtetris.metrics.csv} names one.
+ */
+public class FrameMetrics implements FrameMetricsMXBean {
+
+    // The time spent in Clock.update.
+    public static final int CLOCK = 0;
+
+    // The time spent in Tetris.updateGame.
+    public static final int UPDATE = 1;
+
+    // The time spent in Tetris.renderGame.
+    public static final int RENDER = 2;
+
+    // The time slept between frames.
+    public static final int SLEEP = 3;
+
+    // How much longer than asked a sleep took.
+    public static final int OVERSHOOT = 4;
+
+    // The time spent working on a frame (everything but the sleep).
+    public static final int FRAME = 5;
+
+    // The names of the metrics, as written to the CSV file.
+    private static final String[] sNames = {"clock", "update", "render",
+        "sleep", "overshoot", "frame"};
+
+    // The histograms being recorded in the current interval.
+    private final Histogram[] hCurrent = new Histogram[sNames.length];
+
+    // The histograms of the last complete interval.
+    private final Histogram[] hLast = new Histogram[sNames.length];
+
+    // The budget of a frame in nanoseconds.
+    private final long lBudgetNanos;
+
+    // The length of an interval in nanoseconds.
+    private final long lIntervalNanos;
+
+    // The time the current interval started.
+    private long lIntervalStart;
+
+    // The number of frames run.
+    private volatile long lFrames;
+
+    // The number of frames that started more than a frame late.
+    private volatile long lMissed;
+
+    // The file the intervals are appended to, or null.
+    private final String sCsvFile;
+
+    // The thread that writes the CSV file, so the game loop never does I/O.
+    private final ExecutorService esWriter;
+
+    /**
+     * FrameMetrics
+     *
+     * Constructor that creates the histograms and reads the interval and the
+     * CSV file from the system properties.
+     *
+     * @param lBudgetNanos is the <code>long</code> budget of a frame in
+     * nanoseconds.
+     */
+    public FrameMetrics(long lBudgetNanos) {
+        this.lBudgetNanos = lBudgetNanos;
+        this.lIntervalNanos = Long.getLong("tetris.metrics.interval", 10L)
+                * 1000000000L;
+        this.sCsvFile = System.getProperty("tetris.metrics.csv");
+        for (int iM = 0; iM < sNames.length; iM++) {
+            hCurrent[iM] = new Histogram();
+            hLast[iM] = new Histogram();
+        }
+        if (sCsvFile != null) {
+            esWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable rTask) {
+                    Thread thrWriter = new Thread(rTask, "Tetris metrics");
+                    thrWriter.setDaemon(true);
+                    return thrWriter;
+                }
+            });
+        } else {
+            esWriter = null;
+        }
+        this.lIntervalStart = System.nanoTime();
+    }
+
+    /**
+     * register
+     *
+     * Method that registers the metrics with the platform MBean server. A
+     * failure only means the metrics aren't visible through JMX.
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("tetris:type=FrameMetrics"));
+        } catch (JMException excJmx) {
+            System.err.println("Frame metrics not registered: " + excJmx);
+        }
+    }
+
+    /**
+     * record
+     *
+     * Method that records a duration for one of the metrics.
+     *
+     * @param iMetric is the <code>integer</code> metric, such as
+     * {@code RENDER}.
+     * @param lNanos is the <code>long</code> duration in nanoseconds.
+     */
+    public void record(int iMetric, long lNanos) {
+        hCurrent[iMetric].record(lNanos);
+    }
+
+    /**
+     * recordMissedDeadline
+     *
+     * Method that counts a frame that started more than a frame late.
+     */
+    public void recordMissedDeadline() {
+        lMissed++;
+    }
+
+    /**
+     * endFrame
+     *
+     * Method called by the game loop at the end of every frame. Rolls the
+     * histograms over when the interval is complete.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public void endFrame(long lNow) {
+        lFrames++;
+        if (lNow - lIntervalStart >= lIntervalNanos) {
+            roll(lNow);
+        }
+    }
+
+    /**
+     * restart
+     *
+     * Method that moves the start of the current interval to now, used when
+     * the loop comes back from waiting for input so the time spent idle
+     * doesn't close an interval that has hardly any frames in it.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public void restart(long lNow) {
+        lIntervalStart = lNow;
+    }
+
+    /**
+     * getHistogram
+     *
+     * Access method that returns the histogram of the last complete interval
+     * of a metric.
+     *
+     * @param iMetric is the <code>integer</code> metric.
+     * @return the <code>Histogram</code>.
+     */
+    public Histogram getHistogram(int iMetric) {
+        return hLast[iMetric];
+    }
+
+    /**
+     * roll
+     *
+     * Method that keeps the current interval as the last complete one,
+     * starts a new one and queues the CSV rows.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    private void roll(long lNow) {
+        for (int iM = 0; iM < sNames.length; iM++) {
+            hCurrent[iM].copyTo(hLast[iM]);
+            hCurrent[iM].reset();
+        }
+        lIntervalStart = lNow;
+
+        if (esWriter != null) {
+            final StringBuilder sbRows = new StringBuilder();
+            long lTime = System.currentTimeMillis();
+            for (int iM = 0; iM < sNames.length; iM++) {
+                sbRows.append(lTime).append(',').append(sNames[iM])
+                        .append(',').append(hLast[iM].getCount())
+                        .append(',').append(toMicros(hLast[iM], 50.0))
+                        .append(',').append(toMicros(hLast[iM], 99.0))
+                        .append(',').append(hLast[iM].getMax() / 1000L)
+                        .append(',').append(lMissed)
+                        .append(System.lineSeparator());
+            }
+            esWriter.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeCsv(sbRows.toString());
+                }
+            });
+        }
+    }
+
+    /**
+     * writeCsv
+     *
+     * Method that appends rows to the CSV file, writing the header first if
+     * the file is new.
+     *
+     * @param sRows is the <code>String</code> with the rows.
+     */
+    private void writeCsv(String sRows) {
+        boolean bNew = !new File(sCsvFile).exists();
+        try (PrintWriter pwCsv = new PrintWriter(new FileWriter(sCsvFile,
+                true))) {
+            if (bNew) {
+                pwCsv.println("time,metric,count,p50_us,p99_us,max_us,missed");
+            }
+            pwCsv.print(sRows);
+        } catch (IOException excWrite) {
+            System.err.println("Frame metrics not written: " + excWrite);
+        }
+    }
+
+    /**
+     * toMicros
+     *
+     * Method that returns a percentile of a histogram in microseconds.
+     *
+     * @param hHistogram is the <code>Histogram</code> in nanoseconds.
+     * @param dPercentile is the <code>double</code> percentile.
+     * @return a <code>long</code> value in microseconds.
+     */
+    private static long toMicros(Histogram hHistogram, double dPercentile) {
+        return hHistogram.getPercentile(dPercentile) / 1000L;
+    }
+
+    @Override
+    public long getIntervalSeconds() {
+        return lIntervalNanos / 1000000000L;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return lFrames;
+    }
+
+    @Override
+    public long getMissedDeadlines() {
+        return lMissed;
+    }
+
+    @Override
+    public long getFrameBudgetMicros() {
+        return lBudgetNanos / 1000L;
+    }
+
+    @Override
+    public long getFrameP50Micros() {
+        return toMicros(hLast[FRAME], 50.0);
+    }
+
+    @Override
+    public long getFrameP99Micros() {
+        return toMicros(hLast[FRAME], 99.0);
+    }
+
+    @Override
+    public long getFrameMaxMicros() {
+        return hLast[FRAME].getMax() / 1000L;
+    }
+
+    @Override
+    public long getClockP99Micros() {
+        return toMicros(hLast[CLOCK], 99.0);
+    }
+
+    @Override
+    public long getUpdateP99Micros() {
+        return toMicros(hLast[UPDATE], 99.0);
+    }
+
+    @Override
+    public long getRenderP99Micros() {
+        return toMicros(hLast[RENDER], 99.0);
+    }
+
+    @Override
+    public long getSleepP99Micros() {
+        return toMicros(hLast[SLEEP], 99.0);
+    }
+
+    @Override
+    public long getOvershootP99Micros() {
+        return toMicros(hLast[OVERSHOOT], 99.0);
+    }
+
+    @Override
+    public long getOvershootMaxMicros() {
+        return hLast[OVERSHOOT].getMax() / 1000L;
+    }
+}
@@ -0,0 +1,98 @@
+package tetris;
+
+/**
+ * Interface FrameMetricsMXBean
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code FrameMetricsMXBean} interface is the management view of the
+ * {@code FrameMetrics}, registered as {@code tetris:type=FrameMetrics}. Times
+ * are in microseconds and describe the last complete interval, so a monitor
+ * can alert when the p99 frame time goes over the budget.
+ */
+public interface FrameMetricsMXBean {
+
+    /**
+     * Gets the length of a reporting interval.
+     * @return The interval in seconds.
+     */
+    long getIntervalSeconds();
+
+    /**
+     * Gets the number of frames run since the game started.
+     * @return The number of frames.
+     */
+    long getFrameCount();
+
+    /**
+     * Gets the number of frames that started more than a frame late since
+     * the game started.
+     * @return The number of missed deadlines.
+     */
+    long getMissedDeadlines();
+
+    /**
+     * Gets the budget of a frame.
+     * @return The budget in microseconds.
+     */
+    long getFrameBudgetMicros();
+
+    /**
+     * Gets the median time spent working on a frame.
+     * @return The p50 in microseconds.
+     */
+    long getFrameP50Micros();
+
+    /**
+     * Gets the 99th percentile of the time spent working on a frame.
+     * @return The p99 in microseconds.
+     */
+    long getFrameP99Micros();
+
+    /**
+     * Gets the longest time spent working on a frame.
+     * @return The maximum in microseconds.
+     */
+    long getFrameMaxMicros();
+
+    /**
+     * Gets the 99th percentile of {@code Clock.update}.
+     * @return The p99 in microseconds.
+     */
+    long getClockP99Micros();
+
+    /**
+     * Gets the 99th percentile of {@code Tetris.updateGame}.
+     * @return The p99 in microseconds.
+     */
+    long getUpdateP99Micros();
+
+    /**
+     * Gets the 99th percentile of {@code Tetris.renderGame}.
+     * @return The p99 in microseconds.
+     */
+    long getRenderP99Micros();
+
+    /**
+     * Gets the 99th percentile of the time slept between frames.
+     * @return The p99 in microseconds.
+     */
+    long getSleepP99Micros();
+
+    /**
+     * Gets the 99th percentile of how much longer than asked a sleep took.
+     * @return The p99 in microseconds.
+     */
+    long getOvershootP99Micros();
+
+    /**
+     * Gets the longest oversleep.
+     * @return The maximum in microseconds.
+     */
+    long getOvershootMaxMicros();
+}
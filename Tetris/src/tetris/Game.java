@@ -0,0 +1,617 @@
+package tetris;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Class Game
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Game} class holds the rules of Tetris and the state they work
+ * on: the current and next pieces, the score, the level and the speed. It
+ * knows nothing about windows, clocks or sounds, so the same rules run in the
+ * {@code Tetris} window and headless (for example in the benchmarks). The
+ * caller decides when a gravity step happens and reacts to what it returns.
+ * The pieces go on a {@code Board}: the {@code BoardPanel} of the window, or
+ * a {@code Playfield} when nothing is drawn.
+ */
+public class Game {
+
+    // The number of pieces that exist.
+    private static final int TYPE_COUNT = TileType.getCount();
+
+    // The number of frames after a lock before the next piece can be dropped.
+    public static final int DROP_COOLDOWN = 25;
+
+    // The value returned by step when the piece just moved down a row.
+    public static final int MOVED = -1;
+
+    // The board the pieces are placed on.
+    private Board board;
+
+    // The random number generator.
+    // This is used to spit out pieces randomly.
+    private Random random;
+
+    // Boolean to know whether or not we've played a game yet.
+    private boolean isNewGame;
+
+    // Boolean to know whether or not the game is over.
+    private boolean isGameOver;
+
+    // Integer with the current level we're on.
+    private int level;
+
+    // Integer with the current score.
+    private int score;
+
+    // The current type of tile.
+    private TileType currentType;
+
+    // The next type of tile.
+    private TileType nextType;
+
+    // Integer with the current column of our tile.
+    private int currentCol;
+
+    // Integer with the current row of our tile.
+    private int currentRow;
+
+    // Integer with the current rotation of our tile.
+    private int currentRotation;
+
+    // Integer that ensures that a certain amount of time passes after
+    // a piece is spawned before we can drop it.
+    private int dropCooldown;
+
+    // Integer with the speed of the game.
+    private float gameSpeed;
+
+    // Integer with the number of pieces locked in this game.
+    private int iPieces;
+
+    // Integer with the number of lines cleared in this game.
+    private int iLines;
+
+    /**
+     * Game
+     *
+     * Constructor that creates a game on the title screen.
+     *
+     * @param board is the <code>Board</code> the pieces are placed on.
+     * @param random is the <code>Random</code> that picks the pieces.
+     */
+    public Game(Board board, Random random) {
+        this.board = board;
+        this.random = random;
+        this.isNewGame = true;
+        this.gameSpeed = 1.0f;
+    }
+
+    /**
+     * reset
+     *
+     * Method that resets the game variables to their default values at the
+     * start of a new game.
+     */
+    public void reset() {
+        this.level = 1;
+        this.score = 0;
+        this.iPieces = 0;
+        this.iLines = 0;
+        this.gameSpeed = 1.0f;
+        this.nextType = TileType.get(random.nextInt(TYPE_COUNT));
+        this.isNewGame = false;
+        this.isGameOver = false;
+        board.clear();
+        spawnPiece();
+    }
+
+    /**
+     * reset
+     *
+     * Method that starts a new game whose pieces come from a seed, so the
+     * same inputs always give the same game.
+     *
+     * @param lSeed is the <code>long</code> seed of the pieces.
+     */
+    public void reset(long lSeed) {
+        random.setSeed(lSeed);
+        reset();
+    }
+
+    /**
+     * step
+     *
+     * Method that moves the current piece down one row, or locks it when it
+     * can't move any further. Locking clears the full lines, adds the score,
+     * speeds the game up and spawns the next piece.
+     *
+     * @return {@code MOVED} if the piece moved down, otherwise the
+     * <code>integer</code> number of lines cleared by the lock.
+     */
+    public int step() {
+        /*
+        * Check to see if the piece's position can move down to the next row.
+        */
+        if (board.isValidAndEmpty(currentType, currentCol, currentRow + 1, currentRotation)) {
+            // Increment the current row if it's safe to do so.
+            currentRow++;
+            return MOVED;
+        }
+
+        /*
+        * We've either reached the bottom of the board, or landed on another piece, so
+        * we need to add the piece to the board.
+        */
+        board.addPiece(currentType, currentCol, currentRow, currentRotation);
+        GameEvents.pieceLocked(currentType, currentCol, currentRow,
+                currentRotation);
+
+        /*
+        * Check to see if adding the new piece resulted in any cleared lines. If so,
+        * increase the player's score. (Up to 4 lines can be cleared in a single go;
+        * [1 = 100pts, 2 = 200pts, 3 = 400pts, 4 = 800pts]).
+        */
+        int cleared = board.checkLines();
+        iPieces++;
+        iLines += cleared;
+        if (cleared > 0) {
+            GameEvents.linesCleared(cleared, board.getClearedRows());
+            score += 50 << cleared;
+        }
+
+        /*
+        * Increase the speed slightly for the next piece.
+        */
+        gameSpeed += 0.035f;
+
+        /*
+        * Set the drop cooldown so the next piece doesn't automatically come flying
+        * in from the heavens immediately after this piece hits if we've not reacted
+        * yet. (~0.5 second buffer).
+        */
+        dropCooldown = DROP_COOLDOWN;
+
+        /*
+        * Update the difficulty level. This has no effect on the game, and is only
+        * used in the "Level" string in the SidePanel.
+        */
+        level = (int) (gameSpeed * 1.70f);
+
+        /*
+        * Spawn a new piece to control.
+        */
+        spawnPiece();
+        return cleared;
+    }
+
+    /**
+     * tickFrame
+     *
+     * Method that counts down the drop cool down by one frame.
+     */
+    public void tickFrame() {
+        if (dropCooldown > 0) {
+            dropCooldown--;
+        }
+    }
+
+    /**
+     * spawnPiece
+     *
+     * Method that spawns a new piece and resets our piece's variables to their default
+     * values. If the spawn point is taken the game is over.
+     */
+    private void spawnPiece() {
+        /*
+        * Poll the last piece and reset our position and rotation to
+        * their default variables, then pick the next piece to use.
+         */
+        this.currentType = nextType;
+        this.currentCol = currentType.getSpawnColumn();
+        this.currentRow = currentType.getSpawnRow();
+        this.currentRotation = 0;
+        this.nextType = TileType.get(random.nextInt(TYPE_COUNT));
+        GameEvents.pieceSpawned(currentType, currentCol, currentRow);
+
+        /*
+        * If the spawn point is invalid, we flag that we've lost because it
+        * means that the pieces on the board have gotten too high.
+         */
+        if (!board.isValidAndEmpty(currentType, currentCol, currentRow, currentRotation)) {
+            this.isGameOver = true;
+            GameEvents.gameOver(this);
+        }
+    }
+
+    /**
+     * moveLeft
+     *
+     * Method that moves the piece one column to the left if that position
+     * is valid.
+     *
+     * @return Whether or not the piece moved.
+     */
+    public boolean moveLeft() {
+        if (board.isValidAndEmpty(currentType, currentCol - 1, currentRow, currentRotation)) {
+            currentCol--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * moveRight
+     *
+     * Method that moves the piece one column to the right if that position
+     * is valid.
+     *
+     * @return Whether or not the piece moved.
+     */
+    public boolean moveRight() {
+        if (board.isValidAndEmpty(currentType, currentCol + 1, currentRow, currentRotation)) {
+            currentCol++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * rotateClockwise
+     *
+     * Method that attempts to rotate the piece clockwise.
+     *
+     * @return Whether or not the piece rotated.
+     */
+    public boolean rotateClockwise() {
+        return rotatePiece((currentRotation == 3) ? 0 : currentRotation + 1);
+    }
+
+    /**
+     * rotateAnticlockwise
+     *
+     * Method that attempts to rotate the piece anticlockwise.
+     *
+     * @return Whether or not the piece rotated.
+     */
+    public boolean rotateAnticlockwise() {
+        return rotatePiece((currentRotation == 0) ? 3 : currentRotation - 1);
+    }
+
+    /**
+     * rotatePiece
+     *
+     * Method that attempts to set the rotation of the current piece to newRotation.
+     *
+     * @param newRotation The rotation of the new piece.
+     * @return Whether or not the piece rotated.
+     */
+    public boolean rotatePiece(int newRotation) {
+        /*
+        * Sometimes pieces will need to be moved when rotated to avoid clipping
+        * out of the board (the I piece is a good example of this). Here we
+        * work out the column and row in case we need to move the tile as well.
+         */
+        int newColumn = getRotatedColumn(currentType, currentCol, newRotation);
+        int newRow = getRotatedRow(currentType, currentRow, newRotation);
+
+        /*
+        * Check to see if the new position is acceptable. If it is, update the rotation and
+        * position of the piece.
+         */
+        if (board.isValidAndEmpty(currentType, newColumn, newRow, newRotation)) {
+            currentRotation = newRotation;
+            currentRow = newRow;
+            currentCol = newColumn;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * getRotatedColumn
+     *
+     * Method that returns the column a piece ends up in when it's rotated. If
+     * the piece is too far to the left or right, it's moved away from the
+     * edges so that it doesn't clip out of the map and automatically become
+     * invalid.
+     *
+     * @param type is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param newRotation is the <code>integer</code> new rotation.
+     * @return An <code>integer</code> with the new column.
+     */
+    public static int getRotatedColumn(TileType type, int iCol, int newRotation) {
+        int left = type.getLeftInset(newRotation);
+        int right = type.getRightInset(newRotation);
+        if (iCol < -left) {
+            return iCol - (iCol - left);
+        } else if (iCol + type.getDimension() - right >= BoardPanel.iColumns) {
+            return iCol - ((iCol + type.getDimension() - right) - BoardPanel.iColumns + 1);
+        }
+        return iCol;
+    }
+
+    /**
+     * getRotatedRow
+     *
+     * Method that returns the row a piece ends up in when it's rotated. If
+     * the piece is too far to the top or bottom, it's moved away from the
+     * edges so that it doesn't clip out of the map and automatically become
+     * invalid.
+     *
+     * @param type is the <code>TileType</code> of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param newRotation is the <code>integer</code> new rotation.
+     * @return An <code>integer</code> with the new row.
+     */
+    public static int getRotatedRow(TileType type, int iRow, int newRotation) {
+        int top = type.getTopInset(newRotation);
+        int bottom = type.getBottomInset(newRotation);
+        if (iRow < -top) {
+            return iRow - (iRow - top);
+        } else if (iRow + type.getDimension() - bottom >= BoardPanel.iRows) {
+            return iRow - ((iRow + type.getDimension() - bottom) - BoardPanel.iRows + 1);
+        }
+        return iRow;
+    }
+
+    /**
+     * canDrop
+     *
+     * Method that checks whether the drop cool down is over, so the piece
+     * can be dropped faster.
+     *
+     * @return Whether or not the piece can be dropped.
+     */
+    public boolean canDrop() {
+        return dropCooldown == 0;
+    }
+
+    /**
+     * getDropCooldown
+     *
+     * Method that returns how many frames are left before the piece can be
+     * dropped faster.
+     *
+     * @return An <code>integer</code> with the frames, 0 if it can be
+     * dropped.
+     */
+    public int getDropCooldown() {
+        return dropCooldown;
+    }
+
+    /**
+     * save
+     *
+     * Method that writes the game in the format of the save file.
+     *
+     * @param dataOut is the <code>DataOutput</code> to write to.
+     * @throws IOException
+     */
+    public void save(DataOutput dataOut) throws IOException {
+        dataOut.writeInt(this.level);
+        dataOut.writeInt(this.score);
+        dataOut.writeInt(this.currentCol);
+        dataOut.writeInt(this.currentRow);
+        dataOut.writeInt(this.currentRotation);
+        dataOut.writeInt(currentType.getType());
+        dataOut.writeInt(nextType.getType());
+        dataOut.writeFloat(this.gameSpeed);
+        dataOut.writeBoolean(this.isGameOver);
+        dataOut.writeBoolean(this.isNewGame);
+
+        int matStatus[][] = board.getState();
+
+        dataOut.writeInt(matStatus.length);
+        dataOut.writeInt(matStatus[0].length);
+        for (int iR = 0; iR < matStatus.length; iR++) {
+            for (int iC = 0; iC < matStatus[0].length; iC++) {
+                dataOut.writeInt(matStatus[iR][iC]);
+            }
+        }
+
+        // The statistics go last, so older files can still be read.
+        dataOut.writeInt(this.iPieces);
+        dataOut.writeInt(this.iLines);
+    }
+
+    /**
+     * load
+     *
+     * Method that reads a game written by {@code save}.
+     *
+     * @param dataIn is the <code>DataInput</code> to read from.
+     * @throws IOException
+     */
+    public void load(DataInput dataIn) throws IOException {
+        this.level = dataIn.readInt();
+        this.score = dataIn.readInt();
+        this.currentCol = dataIn.readInt();
+        this.currentRow = dataIn.readInt();
+        this.currentRotation = dataIn.readInt();
+        this.currentType = TileType.get(dataIn.readInt());
+        this.nextType = TileType.get(dataIn.readInt());
+        this.gameSpeed = dataIn.readFloat();
+        this.isGameOver = dataIn.readBoolean();
+        this.isNewGame = dataIn.readBoolean();
+
+        int iI = dataIn.readInt();
+        int iJ = dataIn.readInt();
+        int matBoard[][] = new int[iI][iJ];
+
+        for (int iR = 0; iR < iI; iR++) {
+            for (int iC = 0; iC < iJ; iC++) {
+                matBoard[iR][iC] = dataIn.readInt();
+            }
+        }
+
+        board.clear();
+        board.setState(matBoard);
+
+        /*
+        * Files saved before the statistics were kept end with the board,
+        * and start them over.
+        */
+        try {
+            this.iPieces = dataIn.readInt();
+            this.iLines = dataIn.readInt();
+        } catch (EOFException eofe) {
+            this.iPieces = 0;
+            this.iLines = 0;
+        }
+    }
+
+    /**
+     * getBoard
+     *
+     * Method that returns the board the pieces are placed on.
+     *
+     * @return The <code>Board</code>.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * isGameOver
+     *
+     * Method that checks to see whether or not the game is over.
+     *
+     * @return Whether or not the game is over.
+     */
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    /**
+     * isNewGame
+     *
+     * Method that checks to see whether or not we're on a new game.
+     *
+     * @return Whether or not this is a new game.
+     */
+    public boolean isNewGame() {
+        return isNewGame;
+    }
+
+    /**
+     * getScore
+     *
+     * Method that returns the current score.
+     *
+     * @return is the <code>integer</code> score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * getLevel
+     *
+     * Method that returns the current level.
+     *
+     * @return is the <code>integer</code> level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * getPieces
+     *
+     * Method that returns the number of pieces locked in this game.
+     *
+     * @return is the <code>integer</code> number of pieces.
+     */
+    public int getPieces() {
+        return iPieces;
+    }
+
+    /**
+     * getLines
+     *
+     * Method that returns the number of lines cleared in this game.
+     *
+     * @return is the <code>integer</code> number of lines.
+     */
+    public int getLines() {
+        return iLines;
+    }
+
+    /**
+     * getGameSpeed
+     *
+     * Method that returns the number of gravity steps per second.
+     *
+     * @return is the <code>float</code> speed.
+     */
+    public float getGameSpeed() {
+        return gameSpeed;
+    }
+
+    /**
+     * getPieceType
+     *
+     * Method that returns the current type of piece we're using.
+     *
+     * @return The piece type.
+     */
+    public TileType getPieceType() {
+        return currentType;
+    }
+
+    /**
+     * getNextPieceType
+     *
+     * Method that returns the next type of piece we're using.
+     *
+     * @return The next piece.
+     */
+    public TileType getNextPieceType() {
+        return nextType;
+    }
+
+    /**
+     * getPieceCol
+     *
+     * Method that returns the column of the current piece.
+     *
+     * @return The column.
+     */
+    public int getPieceCol() {
+        return currentCol;
+    }
+
+    /**
+     * getPieceRow
+     *
+     * Method that returns the row of the current piece.
+     *
+     * @return The row.
+     */
+    public int getPieceRow() {
+        return currentRow;
+    }
+
+    /**
+     * getPieceRotation
+     *
+     * Method that gets the rotation of the current piece.
+     *
+     * @return The rotation.
+     */
+    public int getPieceRotation() {
+        return currentRotation;
+    }
+}
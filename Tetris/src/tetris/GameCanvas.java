@@ -0,0 +1,202 @@
+package tetris;
+
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.DisplayMode;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Class GameCanvas
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code GameCanvas} class draws the board and the side panel directly
+ * into a {@code BufferStrategy} from the game loop (active rendering), instead
+ * of asking Swing to repaint them. It is enabled with
+ * {@code -Dtetris.render=active}, and {@code -Dtetris.fps} chooses the target
+ * frame rate: a number of frames per second, {@code vsync} to follow the
+ * refresh rate of the display, or {@code uncapped}.
+ */
+public class GameCanvas extends Canvas {
+
+    // Serial Version UID.
+    private static final long serialVersionUID = 3819054027706415327L;
+
+    // The refresh rate assumed when the display doesn't report one.
+    private static final int iDefaultRefreshRate = 60;
+
+    // The BoardPanel used to draw the board.
+    private BoardPanel board;
+
+    // The SidePanel used to draw the side panel.
+    private SidePanel side;
+
+    // The width of the board, which never changes, read once.
+    private final int iBoardWidth;
+
+    // The buffer strategy we draw into, created once the canvas is shown.
+    private BufferStrategy bsStrategy;
+
+    // The number of nanoseconds between two frames (0 when uncapped).
+    private long lFrameNanos;
+
+    // Whether or not we sync with the display after showing a frame.
+    private boolean bVsync;
+
+    /**
+     * GameCanvas
+     *
+     * Constructor that creates a canvas big enough to hold the board and the
+     * side panel, and reads the target frame rate.
+     *
+     * @param board is the <code>BoardPanel</code> used to draw the board.
+     * @param side is the <code>SidePanel</code> used to draw the side panel.
+     */
+    public GameCanvas(BoardPanel board, SidePanel side) {
+        this.board = board;
+        this.side = side;
+
+        Dimension dimBoard = board.getPreferredSize();
+        Dimension dimSide = side.getPreferredSize();
+        iBoardWidth = dimBoard.width;
+        setPreferredSize(new Dimension(dimBoard.width + dimSide.width,
+                Math.max(dimBoard.height, dimSide.height)));
+
+        // We draw every frame ourselves, and key events belong to the frame.
+        setIgnoreRepaint(true);
+        setFocusable(false);
+
+        setTargetFps(System.getProperty("tetris.fps", "60"));
+    }
+
+    /**
+     * isActiveRendering
+     *
+     * Method that checks whether the game was asked to render actively.
+     *
+     * @return A <code>boolean</code> value that is true for active rendering.
+     */
+    public static boolean isActiveRendering() {
+        return "active".equalsIgnoreCase(System.getProperty("tetris.render"));
+    }
+
+    /**
+     * setTargetFps
+     *
+     * Modifier method that sets the target frame rate. Accepts a number of
+     * frames per second, "vsync" or "uncapped". Anything that can't be read
+     * falls back to 60 frames per second.
+     *
+     * @param sFps is the <code>String</code> with the target frame rate.
+     */
+    public void setTargetFps(String sFps) {
+        bVsync = false;
+        if ("uncapped".equalsIgnoreCase(sFps)) {
+            lFrameNanos = 0;
+            return;
+        }
+        int iFps;
+        if ("vsync".equalsIgnoreCase(sFps)) {
+            bVsync = true;
+            iFps = getRefreshRate();
+        } else {
+            try {
+                iFps = Integer.parseInt(sFps.trim());
+            } catch (NumberFormatException excNumber) {
+                iFps = iDefaultRefreshRate;
+            }
+        }
+        lFrameNanos = (iFps > 0) ? 1000000000L / iFps : 0;
+    }
+
+    /**
+     * getFrameNanos
+     *
+     * Access method that returns the time between two frames.
+     *
+     * @return A <code>long</code> value with the nanoseconds per frame, or 0
+     * if the frame rate is uncapped.
+     */
+    public long getFrameNanos() {
+        return lFrameNanos;
+    }
+
+    /**
+     * render
+     *
+     * Method that draws one frame of the board and the side panel into the
+     * back buffer and shows it.
+     *
+     * @param fInterpolation is the <code>float</code> progress of the logic
+     * clock into its current cycle.
+     */
+    public void render(float fInterpolation) {
+        if (bsStrategy == null) {
+            if (!isDisplayable()) {
+                return;
+            }
+            createBufferStrategy(2);
+            bsStrategy = getBufferStrategy();
+        }
+
+        board.setInterpolation(fInterpolation);
+
+        /*
+        * The contents of the buffers can be lost at any time (for example when
+        * the display mode changes), so we redraw until the frame sticks.
+        */
+        do {
+            do {
+                Graphics graGraphic = bsStrategy.getDrawGraphics();
+                try {
+                    graGraphic.setColor(board.getBackground());
+                    graGraphic.fillRect(0, 0, iBoardWidth, getHeight());
+                    board.drawFrame(graGraphic);
+
+                    graGraphic.translate(iBoardWidth, 0);
+                    graGraphic.setColor(side.getBackground());
+                    graGraphic.fillRect(0, 0, getWidth() - iBoardWidth,
+                            getHeight());
+                    side.drawFrame(graGraphic);
+                } finally {
+                    graGraphic.dispose();
+                }
+            } while (bsStrategy.contentsRestored());
+
+            bsStrategy.show();
+        } while (bsStrategy.contentsLost());
+
+        if (bVsync) {
+            Toolkit.getDefaultToolkit().sync();
+        }
+    }
+
+    /**
+     * getRefreshRate
+     *
+     * Method that returns the refresh rate of the default screen.
+     *
+     * @return An <code>integer</code> with the refresh rate in hertz.
+     */
+    private static int getRefreshRate() {
+        try {
+            DisplayMode dmMode = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode();
+            int iRate = dmMode.getRefreshRate();
+            if (iRate != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                return iRate;
+            }
+        } catch (RuntimeException excDisplay) {
+        }
+        return iDefaultRefreshRate;
+    }
+}
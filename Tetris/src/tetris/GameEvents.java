@@ -0,0 +1,349 @@
+package tetris;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Class GameEvents
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code GameEvents} class emits the Java Flight Recorder events of the
+ * game (category "Tetris"): a piece spawned, a piece locked, lines cleared,
+ * game over, a frame rendered and a game saved or loaded. A recording can
+ * then line up the garbage collector, safepoints and the JIT with what was
+ * happening in the game, for example with
+ * {@code -XX:StartFlightRecording=filename=tetris.jfr}.
+ * <p>
+ * Every method checks first whether the event is enabled; when it isn't the
+ * event object never escapes, so the JIT removes it and nothing is
+ * allocated. On a JVM without {@code jdk.jfr} every method does nothing.
+ */
+public final class GameEvents {
+
+    // Whether or not the JVM has the flight recorder API.
+    private static final boolean bAvailable = isJfrAvailable();
+
+    /**
+     * GameEvents
+     *
+     * Constructor that is never used, the events are emitted statically.
+     */
+    private GameEvents() {
+    }
+
+    /**
+     * pieceSpawned
+     *
+     * Method that emits the event of a new piece.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column it spawned at.
+     * @param iRow is the <code>integer</code> row it spawned at.
+     */
+    public static void pieceSpawned(TileType ttType, int iCol, int iRow) {
+        if (bAvailable) {
+            PieceSpawnedEvent.emit(ttType, iCol, iRow);
+        }
+    }
+
+    /**
+     * pieceLocked
+     *
+     * Method that emits the event of a piece added to the board.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column it locked at.
+     * @param iRow is the <code>integer</code> row it locked at.
+     * @param iRotation is the <code>integer</code> rotation it locked with.
+     */
+    public static void pieceLocked(TileType ttType, int iCol, int iRow,
+            int iRotation) {
+        if (bAvailable) {
+            PieceLockedEvent.emit(ttType, iCol, iRow, iRotation);
+        }
+    }
+
+    /**
+     * linesCleared
+     *
+     * Method that emits the event of lines being cleared.
+     *
+     * @param iCount is the <code>integer</code> number of lines.
+     * @param iRows is the <code>integer</code> with one bit per cleared row.
+     */
+    public static void linesCleared(int iCount, int iRows) {
+        if (bAvailable) {
+            LinesClearedEvent.emit(iCount, iRows);
+        }
+    }
+
+    /**
+     * gameOver
+     *
+     * Method that emits the event of a game that's over.
+     *
+     * @param game is the <code>Game</code> that ended.
+     */
+    public static void gameOver(Game game) {
+        if (bAvailable) {
+            GameOverEvent.emit(game);
+        }
+    }
+
+    /**
+     * beginFrame
+     *
+     * Method that starts timing a frame: a render of the canvas, or the
+     * paint of a panel on the event dispatch thread.
+     *
+     * @return an <code>Object</code> to pass to {@code endFrame}, null when
+     * the event is disabled.
+     */
+    public static Object beginFrame() {
+        return bAvailable ? FrameEvent.start() : null;
+    }
+
+    /**
+     * endFrame
+     *
+     * Method that emits the event of a frame started by {@code beginFrame}.
+     *
+     * @param oFrame is the <code>Object</code> returned by
+     * {@code beginFrame}.
+     * @param bActive is whether the frame was rendered actively.
+     */
+    public static void endFrame(Object oFrame, boolean bActive) {
+        if (oFrame != null) {
+            FrameEvent.finish(oFrame, bActive);
+        }
+    }
+
+    /**
+     * beginFile
+     *
+     * Method that starts timing a save or a load.
+     *
+     * @return an <code>Object</code> to pass to {@code endFile}, null when
+     * the event is disabled.
+     */
+    public static Object beginFile() {
+        return bAvailable ? GameFileEvent.start() : null;
+    }
+
+    /**
+     * endFile
+     *
+     * Method that emits the event of a save or load started by
+     * {@code beginFile}.
+     *
+     * @param oFile is the <code>Object</code> returned by {@code beginFile}.
+     * @param sOperation is the <code>String</code> "save" or "load".
+     * @param lBytes is the <code>long</code> number of bytes written or read.
+     */
+    public static void endFile(Object oFile, String sOperation, long lBytes) {
+        if (oFile != null) {
+            GameFileEvent.finish(oFile, sOperation, lBytes);
+        }
+    }
+
+    /**
+     * isJfrAvailable
+     *
+     * Method that checks whether the JVM has the flight recorder API, which
+     * older Java 8 runtimes don't.
+     *
+     * @return a <code>boolean</code> value.
+     */
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError excMissing) {
+            return false;
+        }
+    }
+
+    @Name("tetris.PieceSpawned")
+    @Label("Piece Spawned")
+    @Category("Tetris")
+    @Description("A new piece entered the board")
+    static final class PieceSpawnedEvent extends Event {
+
+        @Label("Piece")
+        String sPiece;
+
+        @Label("Column")
+        int iColumn;
+
+        @Label("Row")
+        int iRow;
+
+        static void emit(TileType ttType, int iCol, int iRow) {
+            PieceSpawnedEvent evtSpawn = new PieceSpawnedEvent();
+            if (evtSpawn.isEnabled()) {
+                evtSpawn.sPiece = ttType.name();
+                evtSpawn.iColumn = iCol;
+                evtSpawn.iRow = iRow;
+                evtSpawn.commit();
+            }
+        }
+    }
+
+    @Name("tetris.PieceLocked")
+    @Label("Piece Locked")
+    @Category("Tetris")
+    @Description("A piece was added to the board")
+    static final class PieceLockedEvent extends Event {
+
+        @Label("Piece")
+        String sPiece;
+
+        @Label("Column")
+        int iColumn;
+
+        @Label("Row")
+        int iRow;
+
+        @Label("Rotation")
+        int iRotation;
+
+        static void emit(TileType ttType, int iCol, int iRow, int iRotation) {
+            PieceLockedEvent evtLock = new PieceLockedEvent();
+            if (evtLock.isEnabled()) {
+                evtLock.sPiece = ttType.name();
+                evtLock.iColumn = iCol;
+                evtLock.iRow = iRow;
+                evtLock.iRotation = iRotation;
+                evtLock.commit();
+            }
+        }
+    }
+
+    @Name("tetris.LinesCleared")
+    @Label("Lines Cleared")
+    @Category("Tetris")
+    @Description("Full lines were removed from the board")
+    static final class LinesClearedEvent extends Event {
+
+        @Label("Count")
+        int iCount;
+
+        @Label("Rows")
+        @Description("The cleared rows, counted from the top")
+        String sRows;
+
+        static void emit(int iCount, int iRows) {
+            LinesClearedEvent evtLines = new LinesClearedEvent();
+            if (evtLines.isEnabled()) {
+                evtLines.iCount = iCount;
+                StringBuilder sbRows = new StringBuilder();
+                for (int iR = 0; iR < BoardPanel.iRows; iR++) {
+                    if ((iRows & (1 << iR)) != 0) {
+                        if (sbRows.length() > 0) {
+                            sbRows.append(',');
+                        }
+                        sbRows.append(iR);
+                    }
+                }
+                evtLines.sRows = sbRows.toString();
+                evtLines.commit();
+            }
+        }
+    }
+
+    @Name("tetris.GameOver")
+    @Label("Game Over")
+    @Category("Tetris")
+    @Description("A new piece had no room to spawn")
+    static final class GameOverEvent extends Event {
+
+        @Label("Score")
+        int iScore;
+
+        @Label("Level")
+        int iLevel;
+
+        @Label("Lines")
+        int iLines;
+
+        @Label("Pieces")
+        int iPieces;
+
+        static void emit(Game game) {
+            GameOverEvent evtOver = new GameOverEvent();
+            if (evtOver.isEnabled()) {
+                evtOver.iScore = game.getScore();
+                evtOver.iLevel = game.getLevel();
+                evtOver.iLines = game.getLines();
+                evtOver.iPieces = game.getPieces();
+                evtOver.commit();
+            }
+        }
+    }
+
+    @Name("tetris.Frame")
+    @Label("Frame Rendered")
+    @Category("Tetris")
+    @Description("The board and side panel were drawn together by the "
+            + "canvas, or one of them by Swing")
+    static final class FrameEvent extends Event {
+
+        @Label("Active Rendering")
+        boolean bActive;
+
+        static Object start() {
+            FrameEvent evtFrame = new FrameEvent();
+            if (!evtFrame.isEnabled()) {
+                return null;
+            }
+            evtFrame.begin();
+            return evtFrame;
+        }
+
+        static void finish(Object oFrame, boolean bActive) {
+            FrameEvent evtFrame = (FrameEvent) oFrame;
+            evtFrame.end();
+            evtFrame.bActive = bActive;
+            evtFrame.commit();
+        }
+    }
+
+    @Name("tetris.GameFile")
+    @Label("Game Saved or Loaded")
+    @Category("Tetris")
+    @Description("The game was written to or read from its file")
+    static final class GameFileEvent extends Event {
+
+        @Label("Operation")
+        String sOperation;
+
+        @Label("Bytes")
+        long lBytes;
+
+        static Object start() {
+            GameFileEvent evtFile = new GameFileEvent();
+            if (!evtFile.isEnabled()) {
+                return null;
+            }
+            evtFile.begin();
+            return evtFile;
+        }
+
+        static void finish(Object oFile, String sOperation, long lBytes) {
+            GameFileEvent evtFile = (GameFileEvent) oFile;
+            evtFile.end();
+            evtFile.sOperation = sOperation;
+            evtFile.lBytes = lBytes;
+            evtFile.commit();
+        }
+    }
+}
@@ -0,0 +1,767 @@
+package tetris;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class GameServer
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code GameServer} class hosts many games in one JVM, for tournaments
+ * and load tests, with no window. Every game is a {@code GameSession}. The
+ * sessions are spread over a few shards, one thread each (one per processor
+ * by default, {@code -Dtetris.server.threads}), and every shard ticks all of
+ * its sessions once per logic frame, 50 times a second like the window
+ * ({@code -Dtetris.server.tps}, 0 to tick as fast as possible). A thread per
+ * game wouldn't scale to thousands of games, while the shards keep every
+ * processor busy with a handful of threads and no locks on the games.
+ * <p>
+ * Players connect on {@code localhost} ({@code -Dtetris.server.port},
+ * 7460) and speak lines of ASCII, like the engines of {@code ExternalBot}.
+ * One connection can play any number of sessions:
+ * <pre>
+ * new [seed]                 answered with: session &lt;id&gt; &lt;seed&gt;
+ * keys &lt;id&gt; &lt;actions&gt;
+ * close &lt;id&gt;
+ * quit
+ * </pre>
+ * The actions are those of {@code Replay} and are played at the next tick, with
+ * the rules of the window: a {@code D} drops the piece as the drop key does,
+ * once the drop cool down is over. A player that queues more than
+ * {@code GameSession.MAX_PENDING} actions for one tick is disconnected.
+ * Every new piece is reported with a {@code state} line and the end of the
+ * game with an {@code over} line, as in {@code GameSession.report}, and
+ * mistakes with an {@code error} line. All the connections are served by one thread with a
+ * {@code Selector}; it only parses lines and copies bytes, the shards do the
+ * rest.
+ * <p>
+ * {@code java tetris.GameServer} runs the server and prints how many ticks
+ * it plays per second. {@code java tetris.GameServer load sessions seconds}
+ * runs a load test with no sockets instead: every session plays a random
+ * action every tick and starts a new game when one ends.
+ */
+public class GameServer {
+
+    // The line sent to a connection that isn't understood.
+    private static final String sUsage = "error expected: new [seed], "
+            + "keys <id> <actions>, close <id> or quit\n";
+
+    // The longest line a connection can send.
+    private static final int iMaxLine = 4096;
+
+    // The most characters queued for a connection that doesn't read them.
+    private static final int iMaxPending = 256 * 1024;
+
+    // The time between two reports of the ticks per second.
+    private static final long lReportNanos = TimeUnit.SECONDS.toNanos(10);
+
+    // The time of a tick, in nanoseconds, or 0 to tick at once.
+    private final long lTickNanos;
+
+    // The threads that tick the sessions.
+    private final Shard[] shards;
+
+    // The sessions that are being played, by id.
+    private final ConcurrentHashMap<Integer, GameSession> chmSessions =
+            new ConcurrentHashMap<>();
+
+    // The id of the next session.
+    private final AtomicInteger aiNextId = new AtomicInteger(1);
+
+    // The selector of the connections, or null for a load test.
+    private Selector selConnections;
+
+    // The connections with lines to write, queued by the shards.
+    private final ConcurrentLinkedQueue<Connection> clqWriting =
+            new ConcurrentLinkedQueue<>();
+
+    // Whether or not the server is running.
+    private volatile boolean bRunning = true;
+
+    /**
+     * GameServer
+     *
+     * Constructor that creates a server that isn't running yet.
+     *
+     * @param iThreads is the <code>integer</code> number of shards.
+     * @param iTicksPerSecond is the <code>integer</code> ticks per second
+     * of every session, or 0 to tick as fast as possible.
+     * @param bLoad is whether or not the sessions play random actions.
+     */
+    public GameServer(int iThreads, int iTicksPerSecond, boolean bLoad) {
+        if (iThreads < 1) {
+            throw new IllegalArgumentException("At least one thread");
+        }
+        lTickNanos = (iTicksPerSecond > 0)
+                ? TimeUnit.SECONDS.toNanos(1) / iTicksPerSecond : 0L;
+        shards = new Shard[iThreads];
+        for (int iS = 0; iS < iThreads; iS++) {
+            shards[iS] = new Shard(iS, bLoad);
+        }
+    }
+
+    /**
+     * start
+     *
+     * Method that starts the threads of the shards.
+     */
+    public void start() {
+        for (Shard shard : shards) {
+            Thread thrShard = new Thread(shard, "Tetris shard "
+                    + shard.iIndex);
+            thrShard.setDaemon(true);
+            thrShard.start();
+        }
+    }
+
+    /**
+     * stop
+     *
+     * Method that stops the shards and the connections.
+     */
+    public void stop() {
+        bRunning = false;
+        if (selConnections != null) {
+            selConnections.wakeup();
+        }
+    }
+
+    /**
+     * open
+     *
+     * Method that creates a session and gives it to a shard.
+     *
+     * @param conOwner is the <code>Connection</code> that plays it, or null.
+     * @param lSeed is the <code>long</code> seed of the pieces.
+     * @return the <code>GameSession</code>.
+     */
+    public GameSession open(Connection conOwner, long lSeed) {
+        int iId = aiNextId.getAndIncrement();
+        GameSession session = new GameSession(iId, conOwner, lSeed);
+        chmSessions.put(iId, session);
+        shards[iId % shards.length].clqAdded.add(session);
+        return session;
+    }
+
+    /**
+     * getTicks
+     *
+     * Method that returns the ticks played by every session so far.
+     *
+     * @return a <code>long</code> with the ticks.
+     */
+    public long getTicks() {
+        long lTicks = 0;
+        for (Shard shard : shards) {
+            lTicks += shard.lTicks;
+        }
+        return lTicks;
+    }
+
+    /**
+     * getSessionCount
+     *
+     * Method that returns the number of sessions being played.
+     *
+     * @return an <code>integer</code> with the sessions.
+     */
+    public int getSessionCount() {
+        return chmSessions.size();
+    }
+
+    /**
+     * getMissedTicks
+     *
+     * Method that returns the number of rounds of ticks that started a
+     * whole tick late, when the shards can't keep up.
+     *
+     * @return a <code>long</code> with the late rounds.
+     */
+    public long getMissedTicks() {
+        long lMissed = 0;
+        for (Shard shard : shards) {
+            lMissed += shard.lMissed;
+        }
+        return lMissed;
+    }
+
+    /**
+     * Class Shard
+     *
+     * The {@code Shard} class ticks its share of the sessions on a thread
+     * of its own and queues what they report.
+     */
+    private final class Shard implements Runnable {
+
+        // The number of the shard.
+        private final int iIndex;
+
+        // Whether or not the sessions play random actions.
+        private final boolean bLoad;
+
+        // The sessions given to the shard and not ticked yet.
+        private final ConcurrentLinkedQueue<GameSession> clqAdded =
+                new ConcurrentLinkedQueue<>();
+
+        // The sessions of the shard.
+        private final ArrayList<GameSession> alSessions = new ArrayList<>();
+
+        // The line being reported.
+        private final StringBuilder sbLine = new StringBuilder(128);
+
+        // The state of the random actions of a load test.
+        private long lRandom;
+
+        // The ticks played by the sessions of the shard.
+        private volatile long lTicks;
+
+        // The rounds that started a whole tick late.
+        private volatile long lMissed;
+
+        /**
+         * Shard
+         *
+         * Constructor that creates an empty shard.
+         *
+         * @param iIndex is the <code>integer</code> number of the shard.
+         * @param bLoad is whether or not the sessions play random actions.
+         */
+        private Shard(int iIndex, boolean bLoad) {
+            this.iIndex = iIndex;
+            this.bLoad = bLoad;
+            this.lRandom = 0x9E3779B97F4A7C15L * (iIndex + 1);
+        }
+
+        @Override
+        public void run() {
+            long lNextTick = System.nanoTime();
+            while (bRunning) {
+                GameSession session;
+                while ((session = clqAdded.poll()) != null) {
+                    alSessions.add(session);
+                }
+                tickAll();
+
+                /*
+                * Like the loop of the window: wait for the next tick and
+                * don't try to catch up after a long stall.
+                */
+                if (lTickNanos > 0) {
+                    lNextTick += lTickNanos;
+                    long lWait = lNextTick - System.nanoTime();
+                    if (lWait > 0) {
+                        LockSupport.parkNanos(lWait);
+                    } else if (-lWait >= lTickNanos) {
+                        lMissed++;
+                        lNextTick = System.nanoTime();
+                    }
+                } else if (alSessions.isEmpty()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+        }
+
+        /**
+         * tickAll
+         *
+         * Method that ticks every session once, reports what changed and
+         * drops the sessions that are done.
+         */
+        private void tickAll() {
+            int iSize = alSessions.size();
+            for (int iS = 0; iS < iSize; iS++) {
+                GameSession session = alSessions.get(iS);
+                if (bLoad) {
+                    playRandom(session);
+                }
+                session.tick();
+                Connection conOwner = (Connection) session.getOwner();
+                if (conOwner != null && !session.isClosed()
+                        && session.hasNews()) {
+                    sbLine.setLength(0);
+                    session.report(sbLine);
+                    conOwner.send(sbLine);
+                }
+                if (session.isFinished()) {
+                    if (bLoad && !session.isClosed()) {
+                        session.restart(lRandom);
+                        continue;
+                    }
+                    chmSessions.remove(session.getId());
+                    alSessions.set(iS, alSessions.get(iSize - 1));
+                    alSessions.remove(--iSize);
+                    iS--;
+                }
+            }
+            lTicks += iSize;
+            if (!clqWriting.isEmpty() && selConnections != null) {
+                selConnections.wakeup();
+            }
+        }
+
+        /**
+         * playRandom
+         *
+         * Method that plays a random action on a session, mostly moving the
+         * piece down so the games keep going.
+         *
+         * @param session is the <code>GameSession</code> to play on.
+         */
+        private void playRandom(GameSession session) {
+            lRandom ^= lRandom << 13;
+            lRandom ^= lRandom >>> 7;
+            lRandom ^= lRandom << 17;
+            switch ((int) (lRandom >>> 61)) {
+                case 0:
+                    session.apply(Replay.MOVE_LEFT);
+                    break;
+                case 1:
+                    session.apply(Replay.MOVE_RIGHT);
+                    break;
+                case 2:
+                    session.apply(Replay.ROTATE_CLOCKWISE);
+                    break;
+                default:
+                    session.apply(Replay.STEP);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Class Connection
+     *
+     * The {@code Connection} class is a player connected to the server. It
+     * is only used by the thread of the selector, except for the lines the
+     * shards queue with {@code send}.
+     */
+    public final class Connection {
+
+        // The channel of the player.
+        private final SocketChannel scChannel;
+
+        // The bytes read and not parsed yet.
+        private final ByteBuffer bbIn = ByteBuffer.allocate(iMaxLine);
+
+        // The bytes being written.
+        private final ByteBuffer bbOut = ByteBuffer.allocate(64 * 1024);
+
+        // The lines queued and not written yet, guarded by itself.
+        private final StringBuilder sbQueued = new StringBuilder(256);
+
+        // Whether or not the player fell more than iMaxPending behind.
+        private volatile boolean bBehind;
+
+        // Whether or not the player quit, so the channel is closed once
+        // everything queued is written.
+        private boolean bQuitting;
+
+        // The key of the channel in the selector.
+        private SelectionKey skKey;
+
+        /**
+         * Connection
+         *
+         * Constructor that creates the connection of a channel.
+         *
+         * @param scChannel is the <code>SocketChannel</code> of the player.
+         */
+        private Connection(SocketChannel scChannel) {
+            this.scChannel = scChannel;
+            bbOut.flip();
+        }
+
+        /**
+         * send
+         *
+         * Method that queues a line to write to the player. Called from
+         * any thread. A player that lets more than {@code iMaxPending}
+         * characters pile up is disconnected, instead of the lines growing
+         * until the server runs out of memory.
+         *
+         * @param csLine is the <code>CharSequence</code> with the line.
+         */
+        public void send(CharSequence csLine) {
+            boolean bFirst;
+            synchronized (sbQueued) {
+                if (bBehind) {
+                    return;
+                }
+                bFirst = sbQueued.length() == 0;
+                if (sbQueued.length() + csLine.length() > iMaxPending) {
+                    // The selector thread closes it when it sees the flag.
+                    bBehind = true;
+                    bFirst = true;
+                } else {
+                    sbQueued.append(csLine);
+                }
+            }
+            if (bFirst) {
+                clqWriting.add(this);
+            }
+        }
+
+        /**
+         * read
+         *
+         * Method that reads what the player sent and runs every whole line.
+         *
+         * @return whether or not the connection is still open.
+         * @throws IOException
+         */
+        private boolean read() throws IOException {
+            if (scChannel.read(bbIn) < 0) {
+                return false;
+            }
+            bbIn.flip();
+            int iStart = 0;
+            for (int iP = 0; iP < bbIn.limit(); iP++) {
+                if (bbIn.get(iP) == '\n') {
+                    if (!run(new String(bbIn.array(), iStart, iP - iStart,
+                            StandardCharsets.US_ASCII).trim())) {
+                        return false;
+                    }
+                    iStart = iP + 1;
+                }
+            }
+            bbIn.position(iStart);
+            bbIn.compact();
+            if (!bbIn.hasRemaining()) {
+                send("error line too long\n");
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * run
+         *
+         * Method that runs one line of the player.
+         *
+         * @param sLine is the <code>String</code> line.
+         * @return whether or not the connection is still open.
+         */
+        private boolean run(String sLine) {
+            if (sLine.isEmpty()) {
+                return true;
+            }
+            String[] sWords = sLine.split("\\s+");
+            try {
+                switch (sWords[0]) {
+                    case "new":
+                        long lSeed = (sWords.length > 1)
+                                ? Long.parseLong(sWords[1])
+                                : System.nanoTime();
+                        GameSession session = open(this, lSeed);
+                        send("session " + session.getId() + " " + lSeed
+                                + "\n");
+                        return true;
+                    case "keys":
+                        if (sWords.length == 3) {
+                            GameSession sesKeys = find(sWords[1]);
+                            if (sesKeys == null) {
+                                return true;
+                            }
+                            if (!sesKeys.push(sWords[2])) {
+                                send("error too many keys\n");
+                                return false;
+                            }
+                            return true;
+                        }
+                        break;
+                    case "close":
+                        if (sWords.length == 2) {
+                            GameSession sesClose = find(sWords[1]);
+                            if (sesClose != null) {
+                                sesClose.close();
+                            }
+                            return true;
+                        }
+                        break;
+                    case "quit":
+                        return false;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException nfe) {
+                // Answered with the usage, like any other mistake.
+            }
+            send(sUsage);
+            return true;
+        }
+
+        /**
+         * find
+         *
+         * Method that finds a session of this player by its id.
+         *
+         * @param sId is the <code>String</code> id.
+         * @return the <code>GameSession</code>, or null after reporting an
+         * error if it isn't one of this player's.
+         */
+        private GameSession find(String sId) {
+            GameSession session = chmSessions.get(Integer.parseInt(sId));
+            if (session == null || session.getOwner() != this) {
+                send("error no session " + sId + "\n");
+                return null;
+            }
+            return session;
+        }
+
+        /**
+         * write
+         *
+         * Method that writes the lines queued, as far as the channel takes
+         * them, and waits to be writable if it didn't take them all. A player
+         * that quit is closed once everything is written.
+         *
+         * @throws IOException
+         */
+        private void write() throws IOException {
+            if (bBehind) {
+                throw new IOException("The player fell behind");
+            }
+            int iRead = bQuitting ? 0 : SelectionKey.OP_READ;
+            while (true) {
+                if (!bbOut.hasRemaining()) {
+                    bbOut.clear();
+                    synchronized (sbQueued) {
+                        int iCount = Math.min(sbQueued.length(),
+                                bbOut.capacity());
+                        for (int iC = 0; iC < iCount; iC++) {
+                            bbOut.put((byte) sbQueued.charAt(iC));
+                        }
+                        sbQueued.delete(0, iCount);
+                    }
+                    bbOut.flip();
+                    if (!bbOut.hasRemaining()) {
+                        if (bQuitting) {
+                            close();
+                        } else {
+                            skKey.interestOps(iRead);
+                        }
+                        return;
+                    }
+                }
+                scChannel.write(bbOut);
+                if (bbOut.hasRemaining()) {
+                    skKey.interestOps(iRead | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * quit
+         *
+         * Method that ends the sessions of a player that quit or stopped
+         * sending, and stops reading from it. The channel is closed by
+         * {@code write} once the lines queued are written.
+         *
+         * @throws IOException
+         */
+        private void quit() throws IOException {
+            closeSessions();
+            bQuitting = true;
+            write();
+        }
+
+        /**
+         * closeSessions
+         *
+         * Method that ends the sessions of the player.
+         */
+        private void closeSessions() {
+            for (GameSession session : chmSessions.values()) {
+                if (session.getOwner() == this) {
+                    session.close();
+                }
+            }
+        }
+
+        /**
+         * close
+         *
+         * Method that closes the channel and the sessions of the player.
+         */
+        private void close() {
+            closeSessions();
+            skKey.cancel();
+            try {
+                scChannel.close();
+            } catch (IOException ioe) {
+                // Nothing more can be done with the channel.
+            }
+        }
+    }
+
+    /**
+     * serve
+     *
+     * Method that accepts the players on a port of localhost and serves
+     * them until the server stops, on the calling thread.
+     *
+     * @param iPort is the <code>integer</code> port.
+     * @throws IOException
+     */
+    public void serve(int iPort) throws IOException {
+        selConnections = Selector.open();
+        try (ServerSocketChannel sscServer = ServerSocketChannel.open()) {
+            sscServer.bind(new InetSocketAddress(
+                    InetAddress.getLoopbackAddress(), iPort));
+            sscServer.configureBlocking(false);
+            sscServer.register(selConnections, SelectionKey.OP_ACCEPT);
+            System.out.println("Listening on " + sscServer.getLocalAddress()
+                    + " with " + shards.length + " shards");
+
+            long lNextReport = System.nanoTime() + lReportNanos;
+            long lReportedTicks = 0;
+            while (bRunning) {
+                selConnections.select(TimeUnit.NANOSECONDS.toMillis(
+                        lReportNanos));
+                Iterator<SelectionKey> itKeys =
+                        selConnections.selectedKeys().iterator();
+                while (itKeys.hasNext()) {
+                    SelectionKey skKey = itKeys.next();
+                    itKeys.remove();
+                    if (!skKey.isValid()) {
+                        continue;
+                    }
+                    if (skKey.isAcceptable()) {
+                        accept(sscServer);
+                        continue;
+                    }
+                    Connection con = (Connection) skKey.attachment();
+                    try {
+                        if (skKey.isReadable() && !con.bQuitting
+                                && !con.read()) {
+                            con.quit();
+                            continue;
+                        }
+                        if (skKey.isValid() && skKey.isWritable()) {
+                            con.write();
+                        }
+                    } catch (IOException ioe) {
+                        con.close();
+                    }
+                }
+
+                Connection con;
+                while ((con = clqWriting.poll()) != null) {
+                    if (con.skKey.isValid()) {
+                        try {
+                            con.write();
+                        } catch (IOException ioe) {
+                            con.close();
+                        }
+                    }
+                }
+
+                long lNow = System.nanoTime();
+                if (lNow - lNextReport >= 0) {
+                    long lTicks = getTicks();
+                    if (lTicks != lReportedTicks) {
+                        System.out.println(String.format("%d sessions, "
+                                + "%.0f ticks/s, %d late rounds",
+                                getSessionCount(), (lTicks - lReportedTicks)
+                                * 1e9 / (lNow - lNextReport + lReportNanos),
+                                getMissedTicks()));
+                    }
+                    lReportedTicks = lTicks;
+                    lNextReport = lNow + lReportNanos;
+                }
+            }
+        } finally {
+            selConnections.close();
+        }
+    }
+
+    /**
+     * accept
+     *
+     * Method that accepts a player and registers its channel.
+     *
+     * @param sscServer is the <code>ServerSocketChannel</code> listening.
+     * @throws IOException
+     */
+    private void accept(ServerSocketChannel sscServer) throws IOException {
+        SocketChannel scChannel = sscServer.accept();
+        if (scChannel == null) {
+            return;
+        }
+        scChannel.configureBlocking(false);
+        scChannel.socket().setTcpNoDelay(true);
+        Connection con = new Connection(scChannel);
+        con.skKey = scChannel.register(selConnections, SelectionKey.OP_READ,
+                con);
+    }
+
+    /**
+     * main
+     *
+     * Method that runs the server, or a load test with the arguments
+     * {@code load sessions seconds}.
+     *
+     * @param args is the <code>String</code> array with the arguments.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        int iThreads = Integer.getInteger("tetris.server.threads", 0);
+        if (iThreads < 1) {
+            iThreads = Runtime.getRuntime().availableProcessors();
+        }
+        int iTicksPerSecond = Integer.getInteger("tetris.server.tps", 50);
+
+        if (args.length == 0 || !args[0].equals("load")) {
+            GameServer server = new GameServer(iThreads, iTicksPerSecond,
+                    false);
+            server.start();
+            server.serve(Integer.getInteger("tetris.server.port", 7460));
+            return;
+        }
+
+        int iSessions = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        int iSeconds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        GameServer server = new GameServer(iThreads, iTicksPerSecond, true);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long lUsed = runtime.totalMemory() - runtime.freeMemory();
+        for (int iS = 0; iS < iSessions; iS++) {
+            server.open(null, iS);
+        }
+        System.gc();
+        lUsed = runtime.totalMemory() - runtime.freeMemory() - lUsed;
+        server.start();
+        long lStart = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(iSeconds));
+        long lTicks = server.getTicks();
+        double dSeconds = (System.nanoTime() - lStart) / 1e9;
+        server.stop();
+        System.out.println(String.format("%d sessions on %d threads: "
+                + "%.0f ticks/s, %d late rounds, %.0f bytes of heap per "
+                + "session", iSessions, iThreads, lTicks / dSeconds,
+                server.getMissedTicks(), (double) lUsed / iSessions));
+    }
+}
@@ -0,0 +1,335 @@
+package tetris;
+
+import java.util.Random;
+
+/**
+ * Class GameSession
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code GameSession} class is one game hosted by {@code GameServer}.
+ * It runs the same rules as the {@code Tetris} window, one logic frame per
+ * tick: gravity moves the piece one row every cycle of a clock that goes as
+ * fast as the game, a lock sets the clock to the new speed, and the drop cool
+ * down counts down every frame. A {@code Replay.STEP} is the drop key: once the
+ * cool down is over it makes the clock run at {@code Tetris.DROP_SPEED} until
+ * the piece locks, and before that it does nothing, so a player can't drop
+ * pieces any faster than in the window. The clock counts ticks instead of
+ * reading the time, so a session plays the same on a loaded server as on an
+ * idle one, and the same actions on the same ticks give the same game.
+ * <p>
+ * The actions of the player, as in {@code Replay}, are queued by the thread of
+ * the connection with {@code push} and played at the start of the next tick, on
+ * the thread that ticks the session; nothing else of the session is shared. At
+ * most {@code MAX_PENDING} actions wait for a tick, so a player can't queue
+ * more than the session can ever play. A session is a {@code Game} on a
+ * {@code Playfield} and a few numbers, about a kilobyte, so a server holds
+ * thousands of them.
+ */
+public class GameSession {
+
+    // The most actions queued for one tick.
+    public static final int MAX_PENDING = 64;
+
+    // The time of a tick, in milliseconds, as in the window.
+    private static final float fFrameMillis = Tetris.FRAME_NANOS / 1e6f;
+
+    // The id of the session.
+    private final int iId;
+
+    // The connection that plays the session, or null.
+    private final Object oOwner;
+
+    // The game being played.
+    private final Game game;
+
+    // The actions queued and not played yet, guarded by itself.
+    private final StringBuilder sbPending = new StringBuilder(8);
+
+    // The actions being played, moved from the queue every tick.
+    private final StringBuilder sbPlaying = new StringBuilder(8);
+
+    // The milliseconds of a cycle of the gravity clock.
+    private float fMillisPerCycle;
+
+    // The milliseconds past the last whole cycle.
+    private float fExcessMillis;
+
+    // The cycles elapsed and not played yet.
+    private int iElapsedCycles;
+
+    // The ticks played.
+    private long lTicks;
+
+    // The pieces locked when the game was last reported.
+    private int iReported = -1;
+
+    // Whether or not the session was closed before its game ended.
+    private volatile boolean bClosed;
+
+    /**
+     * GameSession
+     *
+     * Constructor that creates a session and starts its game.
+     *
+     * @param iId is the <code>integer</code> id of the session.
+     * @param oOwner is the <code>Object</code> that plays it, or null.
+     * @param lSeed is the <code>long</code> seed of the pieces.
+     */
+    public GameSession(int iId, Object oOwner, long lSeed) {
+        this.iId = iId;
+        this.oOwner = oOwner;
+        this.game = new Game(new Playfield(), new Random());
+        restart(lSeed);
+    }
+
+    /**
+     * restart
+     *
+     * Method that starts a new game in the session.
+     *
+     * @param lSeed is the <code>long</code> seed of the pieces.
+     */
+    public void restart(long lSeed) {
+        game.reset(lSeed);
+        setSpeed(game.getGameSpeed());
+        iReported = -1;
+    }
+
+    /**
+     * push
+     *
+     * Method that queues actions to play at the start of the next tick.
+     * Called from any thread. Nothing is queued if the actions would make
+     * more than {@code MAX_PENDING}.
+     *
+     * @param sActions is the <code>String</code> with the actions.
+     * @return whether or not the actions were queued.
+     */
+    public boolean push(CharSequence sActions) {
+        synchronized (sbPending) {
+            if (sbPending.length() + sActions.length() > MAX_PENDING) {
+                return false;
+            }
+            sbPending.append(sActions);
+            return true;
+        }
+    }
+
+    /**
+     * tick
+     *
+     * Method that plays one logic frame: the actions queued, a gravity step
+     * if a cycle has elapsed and the drop cool down.
+     *
+     * @return whether or not a piece locked during the frame.
+     */
+    public boolean tick() {
+        if (game.isGameOver()) {
+            return false;
+        }
+        int iPieces = game.getPieces();
+        synchronized (sbPending) {
+            if (sbPending.length() > 0) {
+                sbPlaying.append(sbPending);
+                sbPending.setLength(0);
+            }
+        }
+        for (int iA = 0; iA < sbPlaying.length(); iA++) {
+            apply(sbPlaying.charAt(iA));
+        }
+        sbPlaying.setLength(0);
+
+        /*
+        * Like Clock.update and Tetris.tickGame, with a tick as the time
+        * that passed.
+        */
+        if (!game.isGameOver()) {
+            float fDelta = fExcessMillis + fFrameMillis;
+            iElapsedCycles += (int) (fDelta / fMillisPerCycle);
+            fExcessMillis = fDelta % fMillisPerCycle;
+            if (iElapsedCycles > 0) {
+                iElapsedCycles--;
+                step();
+            }
+            game.tickFrame();
+        }
+        lTicks++;
+        return game.getPieces() != iPieces;
+    }
+
+    /**
+     * apply
+     *
+     * Method that plays one action at once, the same way a key would.
+     *
+     * @param cAction is the <code>char</code> action, such as
+     * {@code Replay.MOVE_LEFT}; anything else is skipped.
+     */
+    public void apply(char cAction) {
+        if (game.isGameOver()) {
+            return;
+        }
+        if (cAction == Replay.STEP) {
+            // Like Tetris.dropPiece, the clock runs faster until the lock.
+            if (game.canDrop()) {
+                fMillisPerCycle = 1000.0f / Tetris.DROP_SPEED;
+            }
+        } else {
+            Replay.apply(game, cAction);
+        }
+    }
+
+    /**
+     * step
+     *
+     * Method that moves the piece down a row or locks it, setting the
+     * clock to the speed of the game after a lock, like
+     * {@code Tetris.updateGame}.
+     */
+    private void step() {
+        if (game.step() != Game.MOVED) {
+            setSpeed(game.getGameSpeed());
+        }
+    }
+
+    /**
+     * setSpeed
+     *
+     * Method that sets the cycles per second of the gravity clock and
+     * starts a new cycle.
+     *
+     * @param fCyclesPerSecond is the <code>float</code> speed.
+     */
+    private void setSpeed(float fCyclesPerSecond) {
+        fMillisPerCycle = 1000.0f / fCyclesPerSecond;
+        fExcessMillis = 0.0f;
+        iElapsedCycles = 0;
+    }
+
+    /**
+     * hasNews
+     *
+     * Method that tells whether or not the game changed in a way the player
+     * is told about: a new piece or the end of the game.
+     *
+     * @return whether or not there's something to report.
+     */
+    public boolean hasNews() {
+        return iReported != game.getPieces() || game.isGameOver();
+    }
+
+    /**
+     * report
+     *
+     * Method that writes the state of the game for the player:
+     * <pre>
+     * state &lt;id&gt; &lt;tick&gt; &lt;pieces&gt; &lt;lines&gt; &lt;score&gt; &lt;piece&gt; &lt;col&gt; &lt;row&gt; &lt;rot&gt; &lt;next&gt; &lt;board&gt;
+     * over &lt;id&gt; &lt;tick&gt; &lt;pieces&gt; &lt;lines&gt; &lt;score&gt;
+     * </pre>
+     * with the pieces and the board as in {@code ExternalBot}.
+     *
+     * @param sbOut is the <code>StringBuilder</code> the line is added to.
+     */
+    public void report(StringBuilder sbOut) {
+        iReported = game.getPieces();
+        sbOut.append(game.isGameOver() ? "over " : "state ").append(iId)
+                .append(' ').append(lTicks).append(' ')
+                .append(game.getPieces()).append(' ')
+                .append(game.getLines()).append(' ')
+                .append(game.getScore());
+        if (!game.isGameOver()) {
+            sbOut.append(' ')
+                    .append(ExternalBot.getLetter(game.getPieceType()))
+                    .append(' ').append(game.getPieceCol()).append(' ')
+                    .append(game.getPieceRow()).append(' ')
+                    .append(game.getPieceRotation()).append(' ')
+                    .append(ExternalBot.getLetter(game.getNextPieceType()))
+                    .append(' ');
+            ExternalBot.appendBoard(sbOut, game.getBoard());
+        }
+        sbOut.append('\n');
+    }
+
+    /**
+     * close
+     *
+     * Method that ends the session before its game is over. Called from any
+     * thread; the session is dropped at its next tick.
+     */
+    public void close() {
+        bClosed = true;
+    }
+
+    /**
+     * isFinished
+     *
+     * Method that tells whether or not the session can be dropped.
+     *
+     * @return whether or not it was closed or its game is over.
+     */
+    public boolean isFinished() {
+        return bClosed || game.isGameOver();
+    }
+
+    /**
+     * isClosed
+     *
+     * Method that tells whether or not the session was closed.
+     *
+     * @return whether or not it was closed.
+     */
+    public boolean isClosed() {
+        return bClosed;
+    }
+
+    /**
+     * getId
+     *
+     * Access method that returns the id of the session.
+     *
+     * @return an <code>integer</code> with the id.
+     */
+    public int getId() {
+        return iId;
+    }
+
+    /**
+     * getOwner
+     *
+     * Access method that returns what plays the session.
+     *
+     * @return the <code>Object</code> owner, or null.
+     */
+    public Object getOwner() {
+        return oOwner;
+    }
+
+    /**
+     * getGame
+     *
+     * Access method that returns the game of the session. Only the thread
+     * that ticks the session may look at it.
+     *
+     * @return the <code>Game</code>.
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * getTicks
+     *
+     * Access method that returns the ticks played.
+     *
+     * @return a <code>long</code> with the ticks.
+     */
+    public long getTicks() {
+        return lTicks;
+    }
+}
@@ -0,0 +1,194 @@
+package tetris;
+
+/**
+ * Class Histogram
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Histogram} class counts durations (or any positive values) in
+ * log-linear buckets: every power of two is split into 16 buckets, so any
+ * value is known within about 6%. Recording a value is a couple of shifts and
+ * an increment into a fixed array, so it can be done every frame without
+ * allocating anything.
+ */
+public class Histogram {
+
+    // The number of bits used to split each power of two.
+    private static final int iSubBits = 4;
+
+    // The number of buckets in each power of two.
+    private static final int iSubBuckets = 1 << iSubBits;
+
+    // The total number of buckets, enough for any positive long: the last
+    // one holds Long.MAX_VALUE.
+    private static final int iBuckets = (64 - iSubBits) * iSubBuckets;
+
+    // The number of values recorded in each bucket.
+    private final long[] lCounts = new long[iBuckets];
+
+    // The number of values recorded.
+    private long lCount;
+
+    // The sum of the values recorded.
+    private long lSum;
+
+    // The largest value recorded.
+    private long lMax;
+
+    /**
+     * record
+     *
+     * Method that records a value. Negative values are counted as 0.
+     *
+     * @param lValue is the <code>long</code> value to record.
+     */
+    public synchronized void record(long lValue) {
+        if (lValue < 0) {
+            lValue = 0;
+        }
+        lCounts[getIndex(lValue)]++;
+        lCount++;
+        lSum += lValue;
+        if (lValue > lMax) {
+            lMax = lValue;
+        }
+    }
+
+    /**
+     * getCount
+     *
+     * Access method that returns the number of values recorded.
+     *
+     * @return a <code>long</code> value with the count.
+     */
+    public synchronized long getCount() {
+        return lCount;
+    }
+
+    /**
+     * getMax
+     *
+     * Access method that returns the largest value recorded.
+     *
+     * @return a <code>long</code> value with the maximum, 0 if empty.
+     */
+    public synchronized long getMax() {
+        return lMax;
+    }
+
+    /**
+     * getMean
+     *
+     * Access method that returns the average of the values recorded.
+     *
+     * @return a <code>double</code> value with the mean, 0 if empty.
+     */
+    public synchronized double getMean() {
+        return (lCount == 0) ? 0.0 : (double) lSum / lCount;
+    }
+
+    /**
+     * getPercentile
+     *
+     * Method that returns the value below which the given percentage of the
+     * recorded values fall. The answer is the top of the bucket holding that
+     * value, so it's never lower than the real percentile.
+     *
+     * @param dPercentile is the <code>double</code> percentile (0 to 100).
+     * @return a <code>long</code> value with the percentile, 0 if empty.
+     */
+    public synchronized long getPercentile(double dPercentile) {
+        if (lCount == 0) {
+            return 0;
+        }
+        long lRank = (long) Math.ceil(dPercentile / 100.0 * lCount);
+        if (lRank < 1) {
+            lRank = 1;
+        }
+        long lSeen = 0;
+        for (int iB = 0; iB < iBuckets; iB++) {
+            lSeen += lCounts[iB];
+            if (lSeen >= lRank) {
+                return Math.min(getUpperBound(iB), lMax);
+            }
+        }
+        return lMax;
+    }
+
+    /**
+     * copyTo
+     *
+     * Method that copies every count of this histogram into another one,
+     * replacing what it held.
+     *
+     * @param hTarget is the <code>Histogram</code> to copy into.
+     */
+    public synchronized void copyTo(Histogram hTarget) {
+        synchronized (hTarget) {
+            System.arraycopy(lCounts, 0, hTarget.lCounts, 0, iBuckets);
+            hTarget.lCount = lCount;
+            hTarget.lSum = lSum;
+            hTarget.lMax = lMax;
+        }
+    }
+
+    /**
+     * reset
+     *
+     * Method that forgets every value recorded.
+     */
+    public synchronized void reset() {
+        for (int iB = 0; iB < iBuckets; iB++) {
+            lCounts[iB] = 0;
+        }
+        lCount = 0;
+        lSum = 0;
+        lMax = 0;
+    }
+
+    /**
+     * getIndex
+     *
+     * Method that returns the bucket a value falls into. Values below 16 get
+     * a bucket each; above that, the position of the highest bit picks the
+     * power of two and the next four bits the bucket inside it.
+     *
+     * @param lValue is the <code>long</code> value, not negative.
+     * @return an <code>integer</code> with the index of the bucket.
+     */
+    private static int getIndex(long lValue) {
+        if (lValue < iSubBuckets) {
+            return (int) lValue;
+        }
+        int iShift = 63 - Long.numberOfLeadingZeros(lValue) - iSubBits;
+        return (iShift + 1) * iSubBuckets
+                + (int) ((lValue >>> iShift) & (iSubBuckets - 1));
+    }
+
+    /**
+     * getUpperBound
+     *
+     * Method that returns the largest value that falls into a bucket.
+     *
+     * @param iIndex is the <code>integer</code> index of the bucket.
+     * @return a <code>long</code> value with the top of the bucket.
+     */
+    private static long getUpperBound(int iIndex) {
+        if (iIndex < iSubBuckets) {
+            return iIndex;
+        }
+        if (iIndex >= iBuckets - 1) {
+            // The top bucket ends at Long.MAX_VALUE; shifting past it would
+            // wrap around.
+            return Long.MAX_VALUE;
+        }
+        int iShift = iIndex / iSubBuckets - 1;
+        long lLower = (long) (iSubBuckets + iIndex % iSubBuckets) << iShift;
+        return lLower + (1L << iShift) - 1;
+    }
+}
@@ -0,0 +1,233 @@
+package tetris;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class InputLatency
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code InputLatency} class measures what the player feels: the time
+ * from a key being pressed to the first paint that shows what it did. Each
+ * key is stamped when the event is created, the stamp is carried to the
+ * point where the game applies it (right away for a move or a rotation, the
+ * next gravity step for a drop) and is closed by the first paint after that.
+ * Keys that don't change anything, like a move into a wall, aren't counted.
+ * The distributions are kept per action and exported through JMX.
+ */
+public class InputLatency implements InputLatencyMXBean {
+
+    // A move to the left.
+    public static final int LEFT = 0;
+
+    // A move to the right.
+    public static final int RIGHT = 1;
+
+    // A clockwise rotation.
+    public static final int ROTATE_CLOCKWISE = 2;
+
+    // An anticlockwise rotation.
+    public static final int ROTATE_ANTICLOCKWISE = 3;
+
+    // A faster drop.
+    public static final int DROP = 4;
+
+    // The names of the actions, as shown through JMX.
+    private static final String[] sNames = {"left", "right",
+        "rotateClockwise", "rotateAnticlockwise", "drop"};
+
+    // The stamp of the oldest key of each action not painted yet, or 0.
+    private final long[] lPressed = new long[sNames.length];
+
+    // Whether or not the game has applied the pending key of each action.
+    private final boolean[] bApplied = new boolean[sNames.length];
+
+    // The time from a key to the change it made, by action.
+    private final Histogram[] hApply = new Histogram[sNames.length];
+
+    // The time from a key to the paint that showed it, by action.
+    private final Histogram[] hPaint = new Histogram[sNames.length];
+
+    // The time from a key to the paint that showed it, for every action.
+    private final Histogram hPaintAll = new Histogram();
+
+    // The number of applied keys waiting for a paint, so a paint with
+    // nothing to close doesn't take the lock.
+    private volatile int iWaiting;
+
+    /**
+     * InputLatency
+     *
+     * Constructor that creates the histograms.
+     */
+    public InputLatency() {
+        for (int iA = 0; iA < sNames.length; iA++) {
+            hApply[iA] = new Histogram();
+            hPaint[iA] = new Histogram();
+        }
+    }
+
+    /**
+     * register
+     *
+     * Method that registers the latencies with the platform MBean server. A
+     * failure only means the latencies aren't visible through JMX.
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("tetris:type=InputLatency"));
+        } catch (JMException excJmx) {
+            System.err.println("Input latency not registered: " + excJmx);
+        }
+    }
+
+    /**
+     * getStamp
+     *
+     * Method that turns the time a key event was created, in milliseconds
+     * since the epoch, into the clock of {@code System.nanoTime}, so the
+     * time the event spent waiting in the queue is counted too.
+     *
+     * @param lWhen is the <code>long</code> time of the event.
+     * @return a <code>long</code> stamp in nanoseconds.
+     */
+    public static long getStamp(long lWhen) {
+        long lNow = System.nanoTime();
+        long lQueued = System.currentTimeMillis() - lWhen;
+        if (lQueued < 0 || lQueued > 1000L) {
+            // The clocks disagree, so only the handling can be measured.
+            return lNow;
+        }
+        return lNow - lQueued * 1000000L;
+    }
+
+    /**
+     * pressed
+     *
+     * Method that notes a key of an action. While an older key of the same
+     * action hasn't been painted the older stamp is kept, so held keys are
+     * measured from the first press the player is waiting on.
+     *
+     * @param iAction is the <code>integer</code> action, such as
+     * {@code LEFT}.
+     * @param lStamp is the <code>long</code> stamp from {@code getStamp}.
+     */
+    public synchronized void pressed(int iAction, long lStamp) {
+        if (lPressed[iAction] == 0) {
+            lPressed[iAction] = lStamp;
+            bApplied[iAction] = false;
+        }
+    }
+
+    /**
+     * applied
+     *
+     * Method that notes that the game has applied the pending key of an
+     * action, if there is one.
+     *
+     * @param iAction is the <code>integer</code> action.
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public synchronized void applied(int iAction, long lNow) {
+        if (lPressed[iAction] != 0 && !bApplied[iAction]) {
+            bApplied[iAction] = true;
+            hApply[iAction].record(lNow - lPressed[iAction]);
+            iWaiting++;
+        }
+    }
+
+    /**
+     * painted
+     *
+     * Method called after every paint of the board. Closes every key the
+     * game has applied since the last paint.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public void painted(long lNow) {
+        if (iWaiting == 0) {
+            return;
+        }
+        synchronized (this) {
+            for (int iA = 0; iA < sNames.length; iA++) {
+                if (bApplied[iA]) {
+                    long lLatency = lNow - lPressed[iA];
+                    hPaint[iA].record(lLatency);
+                    hPaintAll.record(lLatency);
+                    lPressed[iA] = 0;
+                    bApplied[iA] = false;
+                }
+            }
+            iWaiting = 0;
+        }
+    }
+
+    /**
+     * getPaintP99Nanos
+     *
+     * Access method that returns the 99th percentile of the time from a key
+     * to its paint, for every action together.
+     *
+     * @return a <code>long</code> value in nanoseconds, 0 if there's none.
+     */
+    public long getPaintP99Nanos() {
+        return hPaintAll.getPercentile(99.0);
+    }
+
+    /**
+     * toMap
+     *
+     * Method that reads a value of every histogram of a kind, by action.
+     *
+     * @param hHistograms is the <code>Histogram</code> array of the kind.
+     * @param dPercentile is the <code>double</code> percentile, or a
+     * negative number for the count.
+     * @return a <code>Map</code> from the action to the value, in
+     * microseconds.
+     */
+    private static Map<String, Long> toMap(Histogram[] hHistograms,
+            double dPercentile) {
+        Map<String, Long> mapValues = new LinkedHashMap<>();
+        for (int iA = 0; iA < sNames.length; iA++) {
+            mapValues.put(sNames[iA], (dPercentile < 0)
+                    ? hHistograms[iA].getCount()
+                    : hHistograms[iA].getPercentile(dPercentile) / 1000L);
+        }
+        return mapValues;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return toMap(hPaint, -1.0);
+    }
+
+    @Override
+    public Map<String, Long> getApplyP99Micros() {
+        return toMap(hApply, 99.0);
+    }
+
+    @Override
+    public Map<String, Long> getPaintP50Micros() {
+        return toMap(hPaint, 50.0);
+    }
+
+    @Override
+    public Map<String, Long> getPaintP99Micros() {
+        return toMap(hPaint, 99.0);
+    }
+
+    @Override
+    public Map<String, Long> getPaintMaxMicros() {
+        return toMap(hPaint, 100.0);
+    }
+}
@@ -0,0 +1,54 @@
+package tetris;
+
+import java.util.Map;
+
+/**
+ * Interface InputLatencyMXBean
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code InputLatencyMXBean} interface is the management view of the
+ * {@code InputLatency}, registered as {@code tetris:type=InputLatency}. Every
+ * map is keyed by the action (left, right, rotateClockwise,
+ * rotateAnticlockwise, drop) and covers every input since the game started.
+ * Times are in microseconds.
+ */
+public interface InputLatencyMXBean {
+
+    /**
+     * Gets the number of inputs measured up to the paint that showed them.
+     * @return The counts by action.
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * Gets the 99th percentile of the time from a key to the change it
+     * makes to the game.
+     * @return The p99 by action, in microseconds.
+     */
+    Map<String, Long> getApplyP99Micros();
+
+    /**
+     * Gets the median time from a key to the first paint that shows it.
+     * @return The p50 by action, in microseconds.
+     */
+    Map<String, Long> getPaintP50Micros();
+
+    /**
+     * Gets the 99th percentile of the time from a key to the first paint
+     * that shows it.
+     * @return The p99 by action, in microseconds.
+     */
+    Map<String, Long> getPaintP99Micros();
+
+    /**
+     * Gets the longest time from a key to the first paint that shows it.
+     * @return The maximum by action, in microseconds.
+     */
+    Map<String, Long> getPaintMaxMicros();
+}
@@ -0,0 +1,372 @@
+package tetris;
+
+/**
+ * Class MoveGenerator
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code MoveGenerator} class finds every place a piece can lock in, and
+ * the shortest way to get there. It runs a breadth first search over the
+ * (column, row, rotation) states of the piece, moving it left, right, down
+ * and rotating it with the same edge adjustments as {@code Game.rotatePiece},
+ * so it also finds the places that need a slide under an overhang or a
+ * rotation against a wall. A state the piece can't move down from is a lock
+ * position; positions that cover the same tiles (like the rotations of the
+ * O piece) are only returned once.
+ * <p>
+ * Every array is allocated with the generator, so a search allocates
+ * nothing. A generator isn't thread safe; use one per thread.
+ */
+public class MoveGenerator {
+
+    // The most lock positions a search can find, one per state.
+    public static final int MAX_MOVES = 4 * 32 * 16;
+
+    // The longest path a move can have, every state plus the final step.
+    public static final int MAX_PATH = MAX_MOVES + 1;
+
+    // The number of states: 4 rotations, 32 rows and 16 columns.
+    private static final int iStates = MAX_MOVES;
+
+    // The offset added to columns and rows so they're never negative.
+    private static final int iOffset = 4;
+
+    // The size of the table of the covered tiles, a power of two.
+    private static final int iKeySlots = 1024;
+
+    // The search each state was last reached in.
+    private final int[] iSeen = new int[iStates];
+
+    // The state each state was reached from, or -1 for the start.
+    private final int[] iParents = new int[iStates];
+
+    // The action each state was reached with, as in Replay.
+    private final char[] cActions = new char[iStates];
+
+    // The queue of the search.
+    private final int[] iQueue = new int[iStates];
+
+    // The lock positions found, as states.
+    private final int[] iLocks = new int[iStates];
+
+    // The tiles covered by the lock positions found, to skip duplicates.
+    private final long[] lKeys = new long[iKeySlots];
+
+    // The search each slot of the table was last written in.
+    private final int[] iKeySeen = new int[iKeySlots];
+
+    // The number of the current search.
+    private int iSearch;
+
+    // The number of lock positions found.
+    private int iCount;
+
+    /**
+     * generate
+     *
+     * Method that finds every lock position of a piece from where it is.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return an <code>integer</code> with the number of lock positions.
+     */
+    public int generate(Playfield pfField, TileType ttType, int iCol,
+            int iRow, int iRotation) {
+        return generate(pfField, ttType.ordinal(), iCol, iRow, iRotation);
+    }
+
+    /**
+     * generate
+     *
+     * Method that finds every lock position of a piece, given by its index,
+     * from where it is.
+     *
+     * @param pfField is the <code>Playfield</code> the piece is on.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return an <code>integer</code> with the number of lock positions.
+     */
+    public int generate(Playfield pfField, int iType, int iCol, int iRow,
+            int iRotation) {
+        startSearch();
+        if (!pfField.isValidAndEmpty(iType, iCol, iRow, iRotation)) {
+            return 0;
+        }
+
+        int iHead = 0;
+        int iTail = 0;
+        int iStart = encode(iCol, iRow, iRotation);
+        iSeen[iStart] = iSearch;
+        iParents[iStart] = -1;
+        iQueue[iTail++] = iStart;
+
+        while (iHead < iTail) {
+            int iState = iQueue[iHead++];
+            int iX = getColumn(iState);
+            int iY = getRow(iState);
+            int iRot = getRotation(iState);
+
+            /*
+            * Moving down either reaches a new state or locks the piece.
+            */
+            if (pfField.isValidAndEmpty(iType, iX, iY + 1, iRot)) {
+                iTail = visit(iState, iX, iY + 1, iRot, Replay.STEP, iTail);
+            } else if (addKey(getKey(iType, iX, iY, iRot))) {
+                iLocks[iCount++] = iState;
+            }
+
+            if (pfField.isValidAndEmpty(iType, iX - 1, iY, iRot)) {
+                iTail = visit(iState, iX - 1, iY, iRot, Replay.MOVE_LEFT,
+                        iTail);
+            }
+            if (pfField.isValidAndEmpty(iType, iX + 1, iY, iRot)) {
+                iTail = visit(iState, iX + 1, iY, iRot, Replay.MOVE_RIGHT,
+                        iTail);
+            }
+
+            /*
+            * Rotations move the piece away from the edges first, like the
+            * game does.
+            */
+            int iClockwise = (iRot + 1) & 3;
+            int iNewX = Playfield.getRotatedColumn(iType, iX, iClockwise);
+            int iNewY = Playfield.getRotatedRow(iType, iY, iClockwise);
+            if (pfField.isValidAndEmpty(iType, iNewX, iNewY, iClockwise)) {
+                iTail = visit(iState, iNewX, iNewY, iClockwise,
+                        Replay.ROTATE_CLOCKWISE, iTail);
+            }
+            int iAnticlockwise = (iRot + 3) & 3;
+            iNewX = Playfield.getRotatedColumn(iType, iX, iAnticlockwise);
+            iNewY = Playfield.getRotatedRow(iType, iY, iAnticlockwise);
+            if (pfField.isValidAndEmpty(iType, iNewX, iNewY, iAnticlockwise)) {
+                iTail = visit(iState, iNewX, iNewY, iAnticlockwise,
+                        Replay.ROTATE_ANTICLOCKWISE, iTail);
+            }
+        }
+        return iCount;
+    }
+
+    /**
+     * getCount
+     *
+     * Method that returns the number of lock positions of the last search.
+     *
+     * @return an <code>integer</code> with the count.
+     */
+    public int getCount() {
+        return iCount;
+    }
+
+    /**
+     * getMoveColumn
+     *
+     * Method that returns the column of a lock position.
+     *
+     * @param iMove is the <code>integer</code> index of the position.
+     * @return an <code>integer</code> with the column.
+     */
+    public int getMoveColumn(int iMove) {
+        return getColumn(iLocks[iMove]);
+    }
+
+    /**
+     * getMoveRow
+     *
+     * Method that returns the row of a lock position.
+     *
+     * @param iMove is the <code>integer</code> index of the position.
+     * @return an <code>integer</code> with the row.
+     */
+    public int getMoveRow(int iMove) {
+        return getRow(iLocks[iMove]);
+    }
+
+    /**
+     * getMoveRotation
+     *
+     * Method that returns the rotation of a lock position.
+     *
+     * @param iMove is the <code>integer</code> index of the position.
+     * @return an <code>integer</code> with the rotation.
+     */
+    public int getMoveRotation(int iMove) {
+        return getRotation(iLocks[iMove]);
+    }
+
+    /**
+     * getPath
+     *
+     * Method that writes the shortest list of actions that takes the piece
+     * from where it started to a lock position and locks it there. The
+     * actions are those of {@code Replay}, ending with a {@code STEP}.
+     *
+     * @param iMove is the <code>integer</code> index of the position.
+     * @param cPath is the <code>char</code> array to write to, at least
+     * {@code MAX_PATH} long to be safe.
+     * @return an <code>integer</code> with the number of actions written.
+     */
+    public int getPath(int iMove, char[] cPath) {
+        int iLength = 1;
+        for (int iState = iLocks[iMove]; iParents[iState] >= 0;
+                iState = iParents[iState]) {
+            iLength++;
+        }
+        cPath[iLength - 1] = Replay.STEP;
+        int iP = iLength - 2;
+        for (int iState = iLocks[iMove]; iParents[iState] >= 0;
+                iState = iParents[iState]) {
+            cPath[iP--] = cActions[iState];
+        }
+        return iLength;
+    }
+
+    /**
+     * startSearch
+     *
+     * Method that starts a new search. The states and the table of covered
+     * tiles are stamped with the number of the search instead of cleared.
+     */
+    private void startSearch() {
+        iCount = 0;
+        iSearch++;
+        if (iSearch == 0) {
+            // The stamps wrapped around, so clear them once.
+            java.util.Arrays.fill(iSeen, 0);
+            java.util.Arrays.fill(iKeySeen, 0);
+            iSearch = 1;
+        }
+    }
+
+    /**
+     * visit
+     *
+     * Method that queues a state if this search hasn't reached it yet.
+     *
+     * @param iFrom is the <code>integer</code> state it's reached from.
+     * @param iX is the <code>integer</code> column.
+     * @param iY is the <code>integer</code> row.
+     * @param iRot is the <code>integer</code> rotation.
+     * @param cAction is the <code>char</code> action that reaches it.
+     * @param iTail is the <code>integer</code> end of the queue.
+     * @return an <code>integer</code> with the new end of the queue.
+     */
+    private int visit(int iFrom, int iX, int iY, int iRot, char cAction,
+            int iTail) {
+        int iState = encode(iX, iY, iRot);
+        if (iSeen[iState] == iSearch) {
+            return iTail;
+        }
+        iSeen[iState] = iSearch;
+        iParents[iState] = iFrom;
+        cActions[iState] = cAction;
+        iQueue[iTail] = iState;
+        return iTail + 1;
+    }
+
+    /**
+     * getKey
+     *
+     * Method that packs the tiles a piece covers into a <code>long</code>:
+     * the first covered row and the masks of up to four rows below it.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column.
+     * @param iY is the <code>integer</code> row.
+     * @param iRot is the <code>integer</code> rotation.
+     * @return a <code>long</code> that's equal for equal tiles.
+     */
+    private static long getKey(int iType, int iX, int iY, int iRot) {
+        int iDim = Playfield.getDimension(iType);
+        int iFirst = 0;
+        while (Playfield.getPieceMask(iType, iX, iFirst, iRot) == 0) {
+            iFirst++;
+        }
+        long lKey = iY + iFirst + iOffset;
+        for (int iR = iFirst; iR < iFirst + 4; iR++) {
+            lKey = (lKey << 10) | (iR < iDim
+                    ? Playfield.getPieceMask(iType, iX, iR, iRot) : 0);
+        }
+        return lKey;
+    }
+
+    /**
+     * addKey
+     *
+     * Method that adds covered tiles to the table of this search.
+     *
+     * @param lKey is the <code>long</code> from {@code getKey}.
+     * @return whether or not the tiles weren't in the table yet.
+     */
+    private boolean addKey(long lKey) {
+        int iSlot = (int) (lKey ^ (lKey >>> 17) ^ (lKey >>> 31)) & (iKeySlots - 1);
+        while (iKeySeen[iSlot] == iSearch) {
+            if (lKeys[iSlot] == lKey) {
+                return false;
+            }
+            iSlot = (iSlot + 1) & (iKeySlots - 1);
+        }
+        iKeySeen[iSlot] = iSearch;
+        lKeys[iSlot] = lKey;
+        return true;
+    }
+
+    /**
+     * encode
+     *
+     * Method that packs a column, row and rotation into a state.
+     *
+     * @param iX is the <code>integer</code> column.
+     * @param iY is the <code>integer</code> row.
+     * @param iRot is the <code>integer</code> rotation.
+     * @return an <code>integer</code> with the state.
+     */
+    private static int encode(int iX, int iY, int iRot) {
+        return (iRot << 9) | ((iY + iOffset) << 4) | (iX + iOffset);
+    }
+
+    /**
+     * getColumn
+     *
+     * Method that returns the column of a state.
+     *
+     * @param iState is the <code>integer</code> state.
+     * @return an <code>integer</code> with the column.
+     */
+    private static int getColumn(int iState) {
+        return (iState & 15) - iOffset;
+    }
+
+    /**
+     * getRow
+     *
+     * Method that returns the row of a state.
+     *
+     * @param iState is the <code>integer</code> state.
+     * @return an <code>integer</code> with the row.
+     */
+    private static int getRow(int iState) {
+        return ((iState >>> 4) & 31) - iOffset;
+    }
+
+    /**
+     * getRotation
+     *
+     * Method that returns the rotation of a state.
+     *
+     * @param iState is the <code>integer</code> state.
+     * @return an <code>integer</code> with the rotation.
+     */
+    private static int getRotation(int iState) {
+        return iState >>> 9;
+    }
+}
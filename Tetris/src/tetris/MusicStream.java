@@ -0,0 +1,293 @@
+package tetris;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Class MusicStream
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code MusicStream} class plays the background themes by streaming them
+ * into a {@code SourceDataLine}, instead of decoding the whole file into a
+ * {@code Clip}. The theme is decoded into a small ring buffer that feeds the
+ * line, and the file is reopened as soon as it ends so the loop has no gap.
+ * Memory use is the same no matter how long the theme is.
+ *
+ * A {@code MusicStream} is owned by the {@code AudioThread}: every method is
+ * called from that thread, which calls {@code feed} whenever it's idle.
+ */
+public class MusicStream {
+
+    // The size in bytes of the ring buffer between the file and the line.
+    private static final int iRingSize = 64 * 1024;
+
+    // The size in bytes of the line's own buffer (about a quarter second).
+    private static final int iLineBufferSize = 44100;
+
+    // The ring buffer with decoded audio that hasn't reached the line yet.
+    private final byte[] byteRing = new byte[iRingSize];
+
+    // The index of the first byte in the ring buffer.
+    private int iRingStart;
+
+    // The number of bytes in the ring buffer.
+    private int iRingCount;
+
+    // The usable size of the ring buffer, a whole number of frames.
+    private int iRingCapacity;
+
+    // The stream with the theme being played.
+    private AudioInputStream aiStream;
+
+    // The line the theme is played on.
+    private SourceDataLine sdlLine;
+
+    // String with the name of the theme file that was asked for.
+    private String sFilename = "";
+
+    // Whether or not the theme should be playing.
+    private boolean bPlaying;
+
+    // Whether or not the theme is paused.
+    private boolean bPaused;
+
+    /**
+     * play
+     *
+     * Method that starts looping a theme from the start, replacing the one
+     * that was playing.
+     *
+     * @param sFilename is the <code>String</code> with the name of the file.
+     */
+    public void play(String sFilename) {
+        this.sFilename = sFilename;
+        this.bPlaying = true;
+        this.bPaused = false;
+        open(sFilename);
+        if (isFeeding()) {
+            // Prime the line before starting it so it doesn't underrun.
+            feed();
+            sdlLine.start();
+        }
+    }
+
+    /**
+     * stop
+     *
+     * Method that stops the theme. Playing it again starts from the start.
+     */
+    public void stop() {
+        this.bPlaying = false;
+        closeStream();
+        if (sdlLine != null) {
+            sdlLine.stop();
+            sdlLine.flush();
+        }
+    }
+
+    /**
+     * pause
+     *
+     * Method that pauses the theme, keeping its position.
+     */
+    public void pause() {
+        this.bPaused = true;
+        if (sdlLine != null) {
+            sdlLine.stop();
+        }
+    }
+
+    /**
+     * unpause
+     *
+     * Method that plays the theme again from where it was paused.
+     */
+    public void unpause() {
+        this.bPaused = false;
+        if (sdlLine != null && isFeeding()) {
+            sdlLine.start();
+        }
+    }
+
+    /**
+     * close
+     *
+     * Method that stops the theme and closes the line.
+     */
+    public void close() {
+        stop();
+        if (sdlLine != null) {
+            sdlLine.close();
+            sdlLine = null;
+        }
+    }
+
+    /**
+     * getFilename
+     *
+     * Access method that returns the name of the theme file.
+     *
+     * @return sFilename is a <code>String</code> with file name.
+     */
+    public String getFilename() {
+        return sFilename;
+    }
+
+    /**
+     * isFeeding
+     *
+     * Method that checks whether the line should be fed right now.
+     *
+     * @return a <code>boolean</code> value.
+     */
+    public boolean isFeeding() {
+        return bPlaying && !bPaused && aiStream != null && sdlLine != null;
+    }
+
+    /**
+     * open
+     *
+     * Method that drops whatever was queued and opens a theme from the start,
+     * reopening the line only if the format of the theme is different.
+     *
+     * @param sTheme is the <code>String</code> with the name of the file.
+     */
+    private void open(String sTheme) {
+        closeStream();
+        iRingStart = 0;
+        iRingCount = 0;
+        if (sdlLine != null) {
+            sdlLine.stop();
+            sdlLine.flush();
+        }
+        if (!openStream(sTheme)) {
+            return;
+        }
+        AudioFormat afFormat = aiStream.getFormat();
+        if (sdlLine != null && !sdlLine.getFormat().matches(afFormat)) {
+            sdlLine.close();
+            sdlLine = null;
+        }
+        if (sdlLine == null) {
+            try {
+                sdlLine = AudioSystem.getSourceDataLine(afFormat);
+                sdlLine.open(afFormat, iLineBufferSize
+                        - iLineBufferSize % afFormat.getFrameSize());
+            } catch (LineUnavailableException e) {
+                sdlLine = null;
+            } catch (IllegalArgumentException e) {
+                sdlLine = null;
+            }
+        }
+        if (sdlLine == null) {
+            // Without a line there is nothing to feed.
+            closeStream();
+            return;
+        }
+        iRingCapacity = iRingSize - iRingSize % afFormat.getFrameSize();
+    }
+
+    /**
+     * openStream
+     *
+     * Method that opens the stream of a theme file.
+     *
+     * @param sTheme is the <code>String</code> with the name of the file.
+     * @return a <code>boolean</code> value to know if it was opened.
+     */
+    private boolean openStream(String sTheme) {
+        InputStream isFile = getClass().getResourceAsStream(sTheme);
+        if (isFile == null) {
+            return false;
+        }
+        try {
+            aiStream = AudioSystem.getAudioInputStream(
+                    new BufferedInputStream(isFile));
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (UnsupportedAudioFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * closeStream
+     *
+     * Method that closes the stream of the current theme, if any.
+     */
+    private void closeStream() {
+        if (aiStream != null) {
+            try {
+                aiStream.close();
+            } catch (IOException e) {
+            }
+            aiStream = null;
+        }
+    }
+
+    /**
+     * feed
+     *
+     * Method that tops up the ring buffer from the theme and writes as much
+     * of it as the line can take without blocking. When the theme ends it's
+     * opened again right away, so the line never runs dry between loops.
+     *
+     * @return a <code>boolean</code> value that is false if nothing moved.
+     */
+    public boolean feed() {
+        if (!isFeeding()) {
+            return false;
+        }
+        boolean bMoved = false;
+        int iFrameSize = sdlLine.getFormat().getFrameSize();
+
+        // Decode into the free part of the ring buffer.
+        if (iRingCount < iRingCapacity) {
+            int iEnd = (iRingStart + iRingCount) % iRingCapacity;
+            int iFree = Math.min(iRingCapacity - iRingCount,
+                    iRingCapacity - iEnd);
+            int iRead;
+            try {
+                iRead = aiStream.read(byteRing, iEnd, iFree);
+            } catch (IOException e) {
+                iRead = -1;
+            }
+            if (iRead > 0) {
+                iRingCount += iRead;
+                bMoved = true;
+            } else if (iRead < 0) {
+                closeStream();
+                if (!openStream(sFilename)) {
+                    return false;
+                }
+                bMoved = true;
+            }
+        }
+
+        // Write what the line has room for.
+        int iWrite = Math.min(sdlLine.available(),
+                Math.min(iRingCount, iRingCapacity - iRingStart));
+        iWrite -= iWrite % iFrameSize;
+        if (iWrite > 0) {
+            sdlLine.write(byteRing, iRingStart, iWrite);
+            iRingStart = (iRingStart + iWrite) % iRingCapacity;
+            iRingCount -= iWrite;
+            bMoved = true;
+        }
+        return bMoved;
+    }
+}
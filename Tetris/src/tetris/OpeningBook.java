@@ -0,0 +1,379 @@
+package tetris;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Class OpeningBook
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code OpeningBook} class holds the placements the
+ * {@code ExpectimaxBot} picks for the first pieces of a game, so it can play
+ * them without searching. A position is the board, the piece and the next
+ * piece in the preview, found by {@code PositionDatabase.getKey}; looking one
+ * up is a probe of a hash table in memory.
+ * <p>
+ * The book is built offline by playing the bot from an empty board for
+ * every sequence of the first pieces: every position it reaches is searched
+ * once, at the full depth, and the placement it picks leads to the positions
+ * of the next piece. The positions are kept in a {@code PositionDatabase}
+ * next to the book, so a build that was stopped goes on where it was, and
+ * positions reached by more than one sequence are only searched once. The
+ * book file then holds every position as its 8 byte hash and a 2 byte
+ * placement. It's built from the command line:
+ * <pre>
+ * java tetris.OpeningBook book [pieces]
+ * </pre>
+ * with the same {@code -Dtetris.bot.*} settings as the bot that will use it,
+ * which loads it with {@code -Dtetris.bot.book}.
+ */
+public class OpeningBook {
+
+    // The first bytes of a book file.
+    private static final int iMagic = 0x54424B31;
+
+    // The offset added to columns and rows so they're never negative.
+    private static final int iOffset = 4;
+
+
+    // The hashes of the positions, 0 for an empty slot.
+    private final long[] lKeys;
+
+    // The placements of the positions.
+    private final short[] sMoves;
+
+    // The number of positions.
+    private final int iSize;
+
+    /**
+     * OpeningBook
+     *
+     * Constructor that loads a book file.
+     *
+     * @param fileBook is the <code>File</code> of the book.
+     * @throws IOException
+     */
+    public OpeningBook(File fileBook) throws IOException {
+        try (DataInputStream disIn = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileBook)))) {
+            if (disIn.readInt() != iMagic) {
+                throw new IOException("Not an opening book: " + fileBook);
+            }
+            iSize = disIn.readInt();
+
+            /*
+            * The table is at most half full, so a probe is short.
+            */
+            int iSlots = Integer.highestOneBit(Math.max(1, iSize)) << 2;
+            lKeys = new long[iSlots];
+            sMoves = new short[iSlots];
+            for (int iP = 0; iP < iSize; iP++) {
+                long lKey = disIn.readLong();
+                int iSlot = probe(lKey);
+                lKeys[iSlot] = lKey;
+                sMoves[iSlot] = disIn.readShort();
+            }
+        }
+    }
+
+    /**
+     * getSize
+     *
+     * Access method that returns the number of positions of the book.
+     *
+     * @return an <code>integer</code> with the size.
+     */
+    public int getSize() {
+        return iSize;
+    }
+
+    /**
+     * find
+     *
+     * Method that looks up the placement of a position.
+     *
+     * @param pfField is the <code>Playfield</code> before the piece.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iNext is the <code>integer</code> ordinal of the next piece.
+     * @return an <code>integer</code> with the placement, to read with
+     * {@code getMoveColumn}, {@code getMoveRow} and
+     * {@code getMoveRotation}, or -1 if the position isn't in the book.
+     */
+    public int find(Playfield pfField, int iType, int iNext) {
+        int iSlot = probe(PositionDatabase.getKey(pfField, iType, iNext));
+        return (lKeys[iSlot] == 0) ? -1 : sMoves[iSlot];
+    }
+
+    /**
+     * getMoveColumn
+     *
+     * Method that returns the column of a placement.
+     *
+     * @param iMove is the <code>integer</code> placement from {@code find}.
+     * @return an <code>integer</code> with the column.
+     */
+    public static int getMoveColumn(int iMove) {
+        return (iMove & 31) - iOffset;
+    }
+
+    /**
+     * getMoveRow
+     *
+     * Method that returns the row of a placement.
+     *
+     * @param iMove is the <code>integer</code> placement from {@code find}.
+     * @return an <code>integer</code> with the row.
+     */
+    public static int getMoveRow(int iMove) {
+        return ((iMove >>> 5) & 31) - iOffset;
+    }
+
+    /**
+     * getMoveRotation
+     *
+     * Method that returns the rotation of a placement.
+     *
+     * @param iMove is the <code>integer</code> placement from {@code find}.
+     * @return an <code>integer</code> with the rotation.
+     */
+    public static int getMoveRotation(int iMove) {
+        return iMove >>> 10;
+    }
+
+    /**
+     * write
+     *
+     * Method that writes the best placement of every position of a
+     * database to a book file, replacing it in one step.
+     *
+     * @param pdPositions is the <code>PositionDatabase</code> to read.
+     * @param fileBook is the <code>File</code> of the book.
+     * @return an <code>integer</code> with the number of positions written.
+     * @throws IOException
+     */
+    public static int write(PositionDatabase pdPositions, File fileBook)
+            throws IOException {
+        int iCount = 0;
+        for (long lSlot = 0; lSlot < pdPositions.getSlots(); lSlot++) {
+            if (pdPositions.getKeyAt(lSlot) != 0
+                    && pdPositions.hasBest(lSlot)) {
+                iCount++;
+            }
+        }
+
+        File fileTemp = new File(fileBook.getPath() + ".tmp");
+        try (DataOutputStream dosOut = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileTemp)))) {
+            dosOut.writeInt(iMagic);
+            dosOut.writeInt(iCount);
+            for (long lSlot = 0; lSlot < pdPositions.getSlots(); lSlot++) {
+                long lKey = pdPositions.getKeyAt(lSlot);
+                if (lKey != 0 && pdPositions.hasBest(lSlot)) {
+                    dosOut.writeLong(lKey);
+                    dosOut.writeShort(
+                            ((pdPositions.getBestRotation(lSlot)) << 10)
+                            | ((pdPositions.getBestRow(lSlot) + iOffset) << 5)
+                            | (pdPositions.getBestColumn(lSlot) + iOffset));
+                }
+            }
+        }
+        Files.move(fileTemp.toPath(), fileBook.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return iCount;
+    }
+
+    /**
+     * probe
+     *
+     * Method that finds the slot of a hash, or the empty slot where it
+     * would go.
+     *
+     * @param lKey is the <code>long</code> hash.
+     * @return an <code>integer</code> with the slot.
+     */
+    private int probe(long lKey) {
+        int iMask = lKeys.length - 1;
+        int iSlot = (int) lKey & iMask;
+        while (lKeys[iSlot] != 0 && lKeys[iSlot] != lKey) {
+            iSlot = (iSlot + 1) & iMask;
+        }
+        return iSlot;
+    }
+
+    /**
+     * Class Builder
+     *
+     * The {@code Builder} class plays the bot through every sequence of the
+     * first pieces and keeps the placement of every position it reaches.
+     */
+    private static final class Builder {
+
+        // The bot that picks the placements.
+        private final ExpectimaxBot bot;
+
+        // The positions found so far.
+        private final PositionDatabase pdPositions;
+
+        // The pieces the book covers.
+        private final int iPieces;
+
+        // The board of every piece, the empty board first.
+        private final Playfield[] pfStack;
+
+        // The actions of a placement, not used.
+        private final char[] cPath = new char[MoveGenerator.MAX_PATH];
+
+        // The positions searched by this build.
+        private long lSearched;
+
+        // The positions reached, searched or not.
+        private long lReached;
+
+        /**
+         * Builder
+         *
+         * Constructor that creates the builder of a book.
+         *
+         * @param bot is the <code>ExpectimaxBot</code> that picks.
+         * @param pdPositions is the <code>PositionDatabase</code> to fill.
+         * @param iPieces is the <code>integer</code> number of pieces.
+         */
+        Builder(ExpectimaxBot bot, PositionDatabase pdPositions,
+                int iPieces) {
+            this.bot = bot;
+            this.pdPositions = pdPositions;
+            this.iPieces = iPieces;
+            pfStack = new Playfield[iPieces + 1];
+            for (int iP = 0; iP <= iPieces; iP++) {
+                pfStack[iP] = new Playfield();
+            }
+        }
+
+        /**
+         * build
+         *
+         * Method that goes through every pair of first pieces.
+         *
+         * @throws IOException
+         */
+        void build() throws IOException {
+            for (int iType = 0; iType < TileType.getCount(); iType++) {
+                for (int iNext = 0; iNext < TileType.getCount(); iNext++) {
+                    visit(0, iType, iNext);
+                }
+            }
+        }
+
+        /**
+         * visit
+         *
+         * Method that finds the placement of a position, searching it if
+         * it's new, and goes on with every piece that could follow.
+         *
+         * @param iPiece is the <code>integer</code> number of the piece.
+         * @param iType is the <code>integer</code> ordinal of the piece.
+         * @param iNext is the <code>integer</code> ordinal of the next piece.
+         * @throws IOException
+         */
+        private void visit(int iPiece, int iType, int iNext)
+                throws IOException {
+            Playfield pfField = pfStack[iPiece];
+            long lKey = PositionDatabase.getKey(pfField, iType, iNext);
+            long lSlot = pdPositions.find(lKey);
+            lReached++;
+
+            int iCol;
+            int iRow;
+            int iRotation;
+            if (lSlot >= 0) {
+                iCol = pdPositions.getBestColumn(lSlot);
+                iRow = pdPositions.getBestRow(lSlot);
+                iRotation = pdPositions.getBestRotation(lSlot);
+            } else {
+                TileType ttType = TileType.get(iType);
+                if (bot.think(pfField, ttType, ttType.getSpawnColumn(),
+                        ttType.getSpawnRow(), 0, TileType.get(iNext),
+                        cPath) == 0) {
+                    // The game is over, so there's nothing to keep.
+                    return;
+                }
+                iCol = bot.getLastColumn();
+                iRow = bot.getLastRow();
+                iRotation = bot.getLastRotation();
+                pdPositions.record(lKey, iCol, iRow, iRotation, 0.0);
+                lSearched++;
+            }
+
+            if (iPiece + 1 < iPieces) {
+                Playfield pfChild = pfStack[iPiece + 1];
+                pfChild.copyFrom(pfField);
+                pfChild.addPiece(iType, iCol, iRow, iRotation);
+                pfChild.checkLines();
+                for (int iAfter = 0; iAfter < TileType.getCount(); iAfter++) {
+                    visit(iPiece + 1, iNext, iAfter);
+                }
+            }
+        }
+    }
+
+    /**
+     * main
+     *
+     * Method that builds a book from the command line.
+     *
+     * @param args is the <code>String</code> array with the book file and
+     * the number of pieces it covers.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBook book [pieces]");
+            System.exit(2);
+        }
+        File fileBook = new File(args[0]);
+        int iPieces = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+        /*
+        * Every piece can be followed by any of the seven, so the positions
+        * grow sevenfold with every piece.
+        */
+        long lExpected = 0;
+        long lLevel = TileType.getCount();
+        for (int iP = 0; iP < iPieces; iP++) {
+            lLevel *= TileType.getCount();
+            lExpected += lLevel;
+        }
+        PositionDatabase pdPositions = new PositionDatabase(
+                new File(fileBook.getPath() + ".db"), lExpected);
+        ExpectimaxBot bot = ExpectimaxBot.create();
+        // Every position is searched, even if the bot was given a book.
+        bot.setBook(null);
+        Builder bldBook = new Builder(bot, pdPositions, iPieces);
+        long lStart = System.nanoTime();
+        bldBook.build();
+        long lNanos = System.nanoTime() - lStart;
+        int iCount = write(pdPositions, fileBook);
+        pdPositions.close();
+        bot.shutdown();
+
+        System.out.println(String.format("%d pieces: %d positions reached, "
+                + "%d searched in %.1f s, %d in the book (%d bytes)",
+                iPieces, bldBook.lReached, bldBook.lSearched, lNanos / 1e9,
+                iCount, fileBook.length()));
+    }
+}
@@ -0,0 +1,293 @@
+package tetris;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Class PerfCounters
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code PerfCounters} class feeds the performance overlay drawn by the
+ * {@code SidePanel} (toggled with F3): frames and logic ticks per second, the
+ * p99 frame time, the allocation rate, the garbage collector pauses, the
+ * pieces locked per second, the time from the first input on a piece to
+ * its lock and the p99 time from a key to the paint that shows it. While the
+ * overlay is off every counting method returns right away, and the
+ * management beans are only sampled once a second while it's on.
+ */
+public class PerfCounters {
+
+    // The number of nanoseconds between two samples.
+    private static final long lSampleNanos = 1000000000L;
+
+    // The metrics with the frame time histograms.
+    private final FrameMetrics metrics;
+
+    // The latency from a key to the paint that shows it.
+    private final InputLatency latency;
+
+    // Whether or not the overlay is shown.
+    private volatile boolean bEnabled;
+
+    // The frames rendered since the last sample.
+    private int iFrames;
+
+    // The logic ticks run since the last sample.
+    private int iTicks;
+
+    // The pieces locked since the last sample.
+    private int iPieces;
+
+    // The time of the first input on the current piece, or 0.
+    private volatile long lFirstInput;
+
+    // The sum of the input to lock latencies since the last sample.
+    private long lLatencySum;
+
+    // The number of input to lock latencies since the last sample.
+    private int iLatencies;
+
+    // The time the current sample started.
+    private long lSampleStart;
+
+    // The bytes allocated by every thread at the start of the sample.
+    private long lAllocated;
+
+    // The time spent in the garbage collectors at the start of the sample.
+    private long lGcTime;
+
+    // The number of collections at the start of the sample.
+    private long lGcCount;
+
+    // The lines of the overlay, rebuilt once per sample.
+    private volatile String[] sLines = new String[0];
+
+    /**
+     * PerfCounters
+     *
+     * Constructor that creates the counters, turned off.
+     *
+     * @param metrics is the <code>FrameMetrics</code> of the game loop.
+     * @param latency is the <code>InputLatency</code> of the keys.
+     */
+    public PerfCounters(FrameMetrics metrics, InputLatency latency) {
+        this.metrics = metrics;
+        this.latency = latency;
+    }
+
+    /**
+     * isEnabled
+     *
+     * Method that checks to see whether the overlay is shown.
+     *
+     * @return a <code>boolean</code> value.
+     */
+    public boolean isEnabled() {
+        return bEnabled;
+    }
+
+    /**
+     * setEnabled
+     *
+     * Modifier method that shows or hides the overlay. Showing it starts a
+     * new sample from scratch.
+     *
+     * @param bEnabled is a <code>boolean</code> value.
+     */
+    public void setEnabled(boolean bEnabled) {
+        if (bEnabled && !this.bEnabled) {
+            sLines = new String[]{"Measuring..."};
+            startSample(System.nanoTime());
+        }
+        this.bEnabled = bEnabled;
+    }
+
+    /**
+     * countFrame
+     *
+     * Method that counts a rendered frame.
+     */
+    public void countFrame() {
+        if (bEnabled) {
+            iFrames++;
+        }
+    }
+
+    /**
+     * countTick
+     *
+     * Method that counts a logic tick and takes a sample when it's due.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public void countTick(long lNow) {
+        if (!bEnabled) {
+            return;
+        }
+        iTicks++;
+        if (lNow - lSampleStart >= lSampleNanos) {
+            sample(lNow);
+        }
+    }
+
+    /**
+     * countInput
+     *
+     * Method that notes the time of an input that moves the current piece,
+     * if it's the first one on this piece.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public void countInput(long lNow) {
+        if (bEnabled && lFirstInput == 0) {
+            lFirstInput = lNow;
+        }
+    }
+
+    /**
+     * countLock
+     *
+     * Method that counts a locked piece and its input to lock latency.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    public void countLock(long lNow) {
+        if (!bEnabled) {
+            return;
+        }
+        iPieces++;
+        long lInput = lFirstInput;
+        if (lInput != 0) {
+            lLatencySum += lNow - lInput;
+            iLatencies++;
+            lFirstInput = 0;
+        }
+    }
+
+    /**
+     * getLines
+     *
+     * Access method that returns the lines to draw in the overlay.
+     *
+     * @return a <code>String</code> array, rebuilt once per second.
+     */
+    public String[] getLines() {
+        return sLines;
+    }
+
+    /**
+     * sample
+     *
+     * Method that turns the counters of the sample that just ended into the
+     * lines of the overlay, and starts a new sample.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    private void sample(long lNow) {
+        double dSeconds = (lNow - lSampleStart) / 1000000000.0;
+        long lAllocatedNow = getAllocatedBytes();
+        long lGcTimeNow = getGcTime();
+        long lGcCountNow = getGcCount();
+
+        String sAlloc = (lAllocatedNow < 0) ? "n/a" : String.format("%.1f MB/s",
+                Math.max(0, lAllocatedNow - lAllocated) / dSeconds / 1e6);
+        String sLatency = (iLatencies == 0) ? "-" : String.format("%.0f ms",
+                lLatencySum / (double) iLatencies / 1e6);
+
+        sLines = new String[]{
+            String.format("FPS: %.0f", iFrames / dSeconds),
+            String.format("Ticks/s: %.0f", iTicks / dSeconds),
+            "Frame p99: " + metrics.getFrameP99Micros() + " us",
+            "Alloc: " + sAlloc,
+            "GC: " + (lGcCountNow - lGcCount) + " in "
+                    + (lGcTimeNow - lGcTime) + " ms",
+            String.format("Pieces/s: %.2f", iPieces / dSeconds),
+            "Input to lock: " + sLatency,
+            String.format("Input to paint p99: %.0f ms",
+                    latency.getPaintP99Nanos() / 1e6)
+        };
+        startSample(lNow);
+    }
+
+    /**
+     * startSample
+     *
+     * Method that clears the counters and takes the starting values of the
+     * management beans.
+     *
+     * @param lNow is the <code>long</code> current time in nanoseconds.
+     */
+    private void startSample(long lNow) {
+        iFrames = 0;
+        iTicks = 0;
+        iPieces = 0;
+        lLatencySum = 0;
+        iLatencies = 0;
+        lAllocated = getAllocatedBytes();
+        lGcTime = getGcTime();
+        lGcCount = getGcCount();
+        lSampleStart = lNow;
+    }
+
+    /**
+     * getAllocatedBytes
+     *
+     * Method that adds up the bytes allocated by every live thread.
+     *
+     * @return a <code>long</code> value, or -1 if the JVM can't tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean tmxThreads = ManagementFactory.getThreadMXBean();
+        if (!(tmxThreads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long[] lBytes = ((com.sun.management.ThreadMXBean) tmxThreads)
+                .getThreadAllocatedBytes(tmxThreads.getAllThreadIds());
+        long lTotal = 0;
+        for (long lThread : lBytes) {
+            if (lThread > 0) {
+                lTotal += lThread;
+            }
+        }
+        return lTotal;
+    }
+
+    /**
+     * getGcTime
+     *
+     * Method that adds up the time spent in every garbage collector.
+     *
+     * @return a <code>long</code> value in milliseconds.
+     */
+    private static long getGcTime() {
+        long lTotal = 0;
+        for (GarbageCollectorMXBean gcBean
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            lTotal += Math.max(0, gcBean.getCollectionTime());
+        }
+        return lTotal;
+    }
+
+    /**
+     * getGcCount
+     *
+     * Method that adds up the collections of every garbage collector.
+     *
+     * @return a <code>long</code> value.
+     */
+    private static long getGcCount() {
+        long lTotal = 0;
+        for (GarbageCollectorMXBean gcBean
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            lTotal += Math.max(0, gcBean.getCollectionCount());
+        }
+        return lTotal;
+    }
+}
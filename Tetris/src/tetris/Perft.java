@@ -0,0 +1,351 @@
+package tetris;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class Perft
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Perft} class counts, like perft does for chess engines, every
+ * sequence of lock positions the pieces of a seed can be placed in down to a
+ * depth: depth 1 is the number of lock positions of the first piece, depth 2
+ * adds every lock position of the second piece after each of them, and so
+ * on. Lines are cleared between the pieces and a piece with no room to spawn
+ * ends its branch. The counts only depend on the board, the seed and the
+ * rules, so they check {@code MoveGenerator}, {@code Playfield} and the
+ * rotations, and the time they take is a pure measure of the move
+ * generation. The pieces follow {@code Game.reset(long)} with the same seed.
+ * <p>
+ * The lock positions of the first piece can be split between threads. It's
+ * run from the command line:
+ * <pre>
+ * java tetris.Perft depth [seed] [threads] [saved game]
+ * </pre>
+ * which prints the count, the time and the nodes per second of every depth
+ * up to the one given, starting from an empty board or from the board of a
+ * saved game. Without a number of threads, or with 0, every processor is
+ * used. {@code -Dtetris.perft.divide=true} also prints the count under
+ * every lock position of the first piece, to find where two versions
+ * disagree.
+ */
+public class Perft {
+
+    // The seed used when none is given.
+    public static final long DEFAULT_SEED = 20160301L;
+
+
+    // The board the count starts from.
+    private final Playfield pfRoot = new Playfield();
+
+    // The pieces, by ordinal, in the order they're played.
+    private final int[] iSequence;
+
+    /**
+     * Perft
+     *
+     * Constructor that prepares a count from a board, with the pieces of a
+     * seed.
+     *
+     * @param board is the <code>Board</code> to start from.
+     * @param lSeed is the <code>long</code> seed of the pieces.
+     * @param iMaxDepth is the <code>integer</code> deepest count needed.
+     */
+    public Perft(Board board, long lSeed, int iMaxDepth) {
+        pfRoot.copyFrom(board);
+        iSequence = new int[iMaxDepth];
+        Random ranPieces = new Random(lSeed);
+        for (int iP = 0; iP < iMaxDepth; iP++) {
+            iSequence[iP] = ranPieces.nextInt(TileType.getCount());
+        }
+    }
+
+    /**
+     * count
+     *
+     * Method that counts the sequences of lock positions down to a depth on
+     * the calling thread.
+     *
+     * @param iDepth is the <code>integer</code> depth.
+     * @return a <code>long</code> with the count.
+     */
+    public long count(int iDepth) {
+        if (iDepth == 0) {
+            return 1;
+        }
+        return new Walker(iDepth).count(pfRoot, 0);
+    }
+
+    /**
+     * divide
+     *
+     * Method that counts the sequences under every lock position of the
+     * first piece, splitting them between threads.
+     *
+     * @param iDepth is the <code>integer</code> depth, at least 1.
+     * @param iThreads is the <code>integer</code> number of threads.
+     * @return a <code>long</code> array with a count per lock position of the
+     * first piece, in the order of {@code MoveGenerator}.
+     * @throws InterruptedException
+     */
+    public long[] divide(final int iDepth, int iThreads)
+            throws InterruptedException {
+        MoveGenerator mgMoves = new MoveGenerator();
+        int iType = iSequence[0];
+        int iMoves = mgMoves.generate(pfRoot, iType,
+                TileType.get(iType).getSpawnColumn(),
+                TileType.get(iType).getSpawnRow(), 0);
+        long[] lCounts = new long[iMoves];
+        if (iDepth == 1) {
+            for (int iM = 0; iM < iMoves; iM++) {
+                lCounts[iM] = 1;
+            }
+            return lCounts;
+        }
+
+        /*
+        * The first piece only has a few dozen lock positions at most, too
+        * few to keep many threads busy, so the work is split into every
+        * position of the first piece followed by every position of the
+        * second one.
+        */
+        final Playfield[] pfFirst = new Playfield[iMoves];
+        final List<int[]> lstTasks = new ArrayList<>();
+        int iSecond = iSequence[1];
+        MoveGenerator mgSecond = new MoveGenerator();
+        for (int iM = 0; iM < iMoves; iM++) {
+            pfFirst[iM] = new Playfield();
+            pfFirst[iM].copyFrom(pfRoot);
+            pfFirst[iM].addPiece(iType, mgMoves.getMoveColumn(iM),
+                    mgMoves.getMoveRow(iM), mgMoves.getMoveRotation(iM));
+            pfFirst[iM].checkLines();
+            int iSecondMoves = mgSecond.generate(pfFirst[iM], iSecond,
+                    TileType.get(iSecond).getSpawnColumn(),
+                    TileType.get(iSecond).getSpawnRow(), 0);
+            for (int iS = 0; iS < iSecondMoves; iS++) {
+                lstTasks.add(new int[]{iM, mgSecond.getMoveColumn(iS),
+                    mgSecond.getMoveRow(iS), mgSecond.getMoveRotation(iS)});
+            }
+        }
+
+        /*
+        * Every thread takes the next task nobody has taken yet, so a thread
+        * that got small subtrees takes more of them.
+        */
+        final long[] lTaskCounts = new long[lstTasks.size()];
+        final AtomicInteger aiNext = new AtomicInteger();
+        ExecutorService esWorkers = Executors.newFixedThreadPool(iThreads,
+                new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable rTask) {
+                Thread thrWorker = new Thread(rTask, "Tetris perft");
+                thrWorker.setDaemon(true);
+                return thrWorker;
+            }
+        });
+        try {
+            List<Future<Void>> lstFutures = new ArrayList<>();
+            for (int iT = 0; iT < iThreads; iT++) {
+                lstFutures.add(esWorkers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        Walker wlkChild = new Walker(iDepth);
+                        Playfield pfChild = new Playfield();
+                        for (int iK = aiNext.getAndIncrement();
+                                iK < lTaskCounts.length;
+                                iK = aiNext.getAndIncrement()) {
+                            int[] iTask = lstTasks.get(iK);
+                            pfChild.copyFrom(pfFirst[iTask[0]]);
+                            pfChild.addPiece(iSequence[1], iTask[1], iTask[2],
+                                    iTask[3]);
+                            pfChild.checkLines();
+                            lTaskCounts[iK] = wlkChild.count(pfChild, 2);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> futWorker : lstFutures) {
+                futWorker.get();
+            }
+        } catch (ExecutionException excWorker) {
+            throw new IllegalStateException(excWorker.getCause());
+        } finally {
+            esWorkers.shutdownNow();
+        }
+
+        for (int iK = 0; iK < lTaskCounts.length; iK++) {
+            lCounts[lstTasks.get(iK)[0]] += lTaskCounts[iK];
+        }
+        return lCounts;
+    }
+
+    /**
+     * count
+     *
+     * Method that counts the sequences of lock positions down to a depth,
+     * splitting the first piece between threads.
+     *
+     * @param iDepth is the <code>integer</code> depth.
+     * @param iThreads is the <code>integer</code> number of threads.
+     * @return a <code>long</code> with the count.
+     * @throws InterruptedException
+     */
+    public long count(int iDepth, int iThreads) throws InterruptedException {
+        if (iDepth < 2 || iThreads < 2) {
+            return count(iDepth);
+        }
+        long lTotal = 0;
+        for (long lCount : divide(iDepth, iThreads)) {
+            lTotal += lCount;
+        }
+        return lTotal;
+    }
+
+    /**
+     * Class Walker
+     *
+     * The {@code Walker} class walks the tree on one thread, with a
+     * playfield and a move generator per depth so nothing is allocated.
+     */
+    private final class Walker {
+
+        // The depth the walk stops at.
+        private final int iDepth;
+
+        // The board of every depth.
+        private final Playfield[] pfStack;
+
+        // The move generator of every depth.
+        private final MoveGenerator[] mgStack;
+
+        /**
+         * Walker
+         *
+         * Constructor that allocates everything a walk to a depth needs.
+         *
+         * @param iDepth is the <code>integer</code> depth.
+         */
+        Walker(int iDepth) {
+            this.iDepth = iDepth;
+            pfStack = new Playfield[iDepth];
+            mgStack = new MoveGenerator[iDepth];
+            for (int iD = 0; iD < iDepth; iD++) {
+                pfStack[iD] = new Playfield();
+                mgStack[iD] = new MoveGenerator();
+            }
+        }
+
+        /**
+         * count
+         *
+         * Method that counts the sequences below a board. The last piece
+         * only counts its lock positions instead of visiting them.
+         *
+         * @param pfField is the <code>Playfield</code> before the piece.
+         * @param iPly is the <code>integer</code> index of the piece.
+         * @return a <code>long</code> with the count.
+         */
+        long count(Playfield pfField, int iPly) {
+            if (iPly == iDepth) {
+                return 1;
+            }
+            int iType = iSequence[iPly];
+            TileType ttType = TileType.get(iType);
+            MoveGenerator mgMoves = mgStack[iPly];
+            int iMoves = mgMoves.generate(pfField, iType,
+                    ttType.getSpawnColumn(), ttType.getSpawnRow(), 0);
+            if (iPly == iDepth - 1) {
+                return iMoves;
+            }
+
+            long lTotal = 0;
+            Playfield pfChild = pfStack[iPly + 1];
+            for (int iM = 0; iM < iMoves; iM++) {
+                pfChild.copyFrom(pfField);
+                pfChild.addPiece(iType, mgMoves.getMoveColumn(iM),
+                        mgMoves.getMoveRow(iM), mgMoves.getMoveRotation(iM));
+                pfChild.checkLines();
+                lTotal += count(pfChild, iPly + 1);
+            }
+            return lTotal;
+        }
+    }
+
+    /**
+     * main
+     *
+     * Method that runs the count from the command line.
+     *
+     * @param args is the <code>String</code> array with the depth and,
+     * optionally, the seed, the number of threads and a saved game.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: Perft depth [seed] [threads] "
+                    + "[saved game]");
+            System.exit(2);
+        }
+        int iDepth = Integer.parseInt(args[0]);
+        long lSeed = (args.length > 1) ? Long.parseLong(args[1])
+                : DEFAULT_SEED;
+        int iThreads = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+        if (iThreads < 1) {
+            iThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        Playfield board = new Playfield();
+        if (args.length > 3) {
+            Game game = new Game(board, new Random());
+            try (DataInputStream disSave = new DataInputStream(
+                    new FileInputStream(new File(args[3])))) {
+                game.load(disSave);
+            }
+        }
+
+        Perft perft = new Perft(board, lSeed, iDepth);
+        System.out.println("Seed " + lSeed + ", " + iThreads + " threads");
+        for (int iD = 1; iD <= iDepth; iD++) {
+            long lStart = System.nanoTime();
+            long lCount = perft.count(iD, iThreads);
+            long lNanos = System.nanoTime() - lStart;
+            System.out.println(String.format("Depth %d: %d nodes in %.3f s, "
+                    + "%.0f nodes/s", iD, lCount, lNanos / 1e9,
+                    lCount * 1e9 / Math.max(1L, lNanos)));
+        }
+
+        if (Boolean.getBoolean("tetris.perft.divide") && iDepth > 0) {
+            MoveGenerator mgRoot = new MoveGenerator();
+            TileType ttType = TileType.get(perft.iSequence[0]);
+            mgRoot.generate(perft.pfRoot, ttType, ttType.getSpawnColumn(),
+                    ttType.getSpawnRow(), 0);
+            long[] lCounts = perft.divide(iDepth, iThreads);
+            for (int iM = 0; iM < lCounts.length; iM++) {
+                System.out.println(String.format("%s col %d row %d rot %d: %d",
+                        ttType, mgRoot.getMoveColumn(iM), mgRoot.getMoveRow(iM),
+                        mgRoot.getMoveRotation(iM), lCounts[iM]));
+            }
+        }
+    }
+}
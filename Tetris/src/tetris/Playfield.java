@@ -0,0 +1,817 @@
+package tetris;
+
+/**
+ * Class Playfield
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Playfield} class is a board reduced to what the rules need:
+ * one <code>integer</code> per row with a bit per column (bit 0 is the left
+ * column). The pieces are turned into the same kind of row masks once, so
+ * testing a position is a few shifts and ands instead of a loop over every
+ * tile, and copying a board is copying 22 integers. It follows exactly the
+ * rules of {@code BoardPanel}, so the bots and the move generator can try
+ * thousands of positions without touching the board that's drawn.
+ * <p>
+ * The playfield also keeps the features the {@code Evaluator} scores, in
+ * the order of its weights: the column heights, holes, bumpiness, wells, row
+ * and column transitions, and the lines the last {@code checkLines} cleared.
+ * Adding a piece only counts again the rows and columns it touched. A clear
+ * moves every row above it, so the features are counted again from the rows
+ * then, which is no slower than scoring the board from scratch once. The
+ * features of a placement can also be found without adding the piece, with
+ * {@code getFeatures(type, column, row, rotation, features)}, which neither
+ * changes nor copies the board.
+ * <p>
+ * A playfield is also a {@code Board} a {@code Game} can be played on
+ * without a window. It doesn't know which piece a tile came from, so its
+ * state has every full tile as the first piece.
+ */
+public class Playfield implements Board {
+
+    // The number of columns.
+    public static final int COLUMNS = BoardPanel.iColumns;
+
+    // The number of rows.
+    public static final int ROWS = BoardPanel.iRows;
+
+    // The mask of a full row.
+    public static final int FULL_ROW = (1 << COLUMNS) - 1;
+
+    // The number of pieces.
+    private static final int iTypes = TileType.getCount();
+
+    // The row masks of every piece and rotation, with the piece in the
+    // leftmost column of its grid: [type][rotation][row of the grid].
+    private static final int[][][] iPieceMasks = new int[iTypes][4][];
+
+    // The dimension of the grid of every piece.
+    private static final int[] iDimensions = new int[iTypes];
+
+    // The insets of every piece and rotation, as in TileType.
+    private static final int[][] iLeftInsets = new int[iTypes][4];
+    private static final int[][] iRightInsets = new int[iTypes][4];
+    private static final int[][] iTopInsets = new int[iTypes][4];
+    private static final int[][] iBottomInsets = new int[iTypes][4];
+
+    static {
+        for (TileType ttType : TileType.values()) {
+            int iT = ttType.ordinal();
+            int iDim = ttType.getDimension();
+            iDimensions[iT] = iDim;
+            for (int iRot = 0; iRot < 4; iRot++) {
+                iPieceMasks[iT][iRot] = new int[iDim];
+                for (int iY = 0; iY < iDim; iY++) {
+                    for (int iX = 0; iX < iDim; iX++) {
+                        if (ttType.isTile(iX, iY, iRot)) {
+                            iPieceMasks[iT][iRot][iY] |= 1 << iX;
+                        }
+                    }
+                }
+                iLeftInsets[iT][iRot] = ttType.getLeftInset(iRot);
+                iRightInsets[iT][iRot] = ttType.getRightInset(iRot);
+                iTopInsets[iT][iRot] = ttType.getTopInset(iRot);
+                iBottomInsets[iT][iRot] = ttType.getBottomInset(iRot);
+            }
+        }
+    }
+
+    // The rows of the board, top row first.
+    private final int[] iRows = new int[ROWS];
+
+    // The features of the board, indexed like the weights of Evaluator.
+    private final int[] iFeatures = new int[Evaluator.WEIGHTS];
+
+    // The height of every column.
+    private final int[] iHeights = new int[COLUMNS];
+
+    // The heights of the last placement tried without adding it.
+    private final int[] iTryHeights = new int[COLUMNS];
+
+    // The number of full tiles.
+    private int iCells;
+
+    // The rows removed by the last checkLines, bit 0 being the top row.
+    private int iClearedRows;
+
+    /**
+     * Playfield
+     *
+     * Constructor that creates an empty playfield.
+     */
+    public Playfield() {
+        count();
+    }
+
+    /**
+     * copyFrom
+     *
+     * Method that makes this playfield hold the tiles of a board.
+     *
+     * @param board is the <code>Board</code> to copy.
+     */
+    public void copyFrom(Board board) {
+        for (int iR = 0; iR < ROWS; iR++) {
+            iRows[iR] = board.getRowMask(iR);
+        }
+        count();
+    }
+
+    /**
+     * copyFrom
+     *
+     * Method that makes this playfield hold the tiles of another one.
+     *
+     * @param pfOther is the <code>Playfield</code> to copy.
+     */
+    public void copyFrom(Playfield pfOther) {
+        System.arraycopy(pfOther.iRows, 0, iRows, 0, ROWS);
+        System.arraycopy(pfOther.iFeatures, 0, iFeatures, 0,
+                Evaluator.WEIGHTS);
+        System.arraycopy(pfOther.iHeights, 0, iHeights, 0, COLUMNS);
+        iCells = pfOther.iCells;
+    }
+
+    /**
+     * clear
+     *
+     * Method that empties every row.
+     */
+    @Override
+    public void clear() {
+        for (int iR = 0; iR < ROWS; iR++) {
+            iRows[iR] = 0;
+        }
+        count();
+    }
+
+    /**
+     * getRowMask
+     *
+     * Method that returns the tiles of a row.
+     *
+     * @param iRow is the <code>integer</code> row.
+     * @return an <code>integer</code> with a bit set per full column.
+     */
+    @Override
+    public int getRowMask(int iRow) {
+        return iRows[iRow];
+    }
+
+    /**
+     * setRowMask
+     *
+     * Method that sets the tiles of a row. The features are counted again
+     * from every row.
+     *
+     * @param iRow is the <code>integer</code> row.
+     * @param iMask is the <code>integer</code> with a bit per full column.
+     */
+    public void setRowMask(int iRow, int iMask) {
+        iRows[iRow] = iMask & FULL_ROW;
+        count();
+    }
+
+    /**
+     * setRowMasks
+     *
+     * Method that sets the tiles of every row from an array, counting the
+     * features once at the end instead of once per row.
+     *
+     * @param iMasks is the <code>integer</code> array with the rows.
+     * @param iOffset is the <code>integer</code> index of the top row.
+     * @param iStride is the <code>integer</code> distance from a row to the
+     * next one in the array.
+     */
+    public void setRowMasks(int[] iMasks, int iOffset, int iStride) {
+        for (int iR = 0; iR < ROWS; iR++) {
+            iRows[iR] = iMasks[iOffset + iR * iStride] & FULL_ROW;
+        }
+        count();
+    }
+
+    /**
+     * isValidAndEmpty
+     *
+     * Method that determines whether or not a piece can be placed at the
+     * coordinates, with the same rules as {@code BoardPanel}.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return whether or not the position is valid.
+     */
+    @Override
+    public boolean isValidAndEmpty(TileType ttType, int iX, int iY,
+            int iRotation) {
+        return isValidAndEmpty(ttType.ordinal(), iX, iY, iRotation);
+    }
+
+    /**
+     * isValidAndEmpty
+     *
+     * Method that determines whether or not a piece, given by its index,
+     * can be placed at the coordinates.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return whether or not the position is valid.
+     */
+    public boolean isValidAndEmpty(int iType, int iX, int iY, int iRotation) {
+        if (!isInside(iType, iX, iY, iRotation)) {
+            return false;
+        }
+        int iTop = iTopInsets[iType][iRotation];
+        int iBottom = iDimensions[iType] - iBottomInsets[iType][iRotation];
+        int[] iMasks = iPieceMasks[iType][iRotation];
+        for (int iR = iTop; iR <= iBottom; iR++) {
+            if ((iRows[iY + iR] & shift(iMasks[iR], iX)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * getLandingRow
+     *
+     * Method that returns the row a piece would land on if it was dropped
+     * straight down from where it is, as {@code BoardPanel} does.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return an <code>integer</code> with the landing row.
+     */
+    public int getLandingRow(TileType ttType, int iX, int iY, int iRotation) {
+        int iType = ttType.ordinal();
+        int iLowest = iY;
+        while (iLowest < ROWS && isValidAndEmpty(iType, iX, iLowest,
+                iRotation)) {
+            iLowest++;
+        }
+        return iLowest - 1;
+    }
+
+    /**
+     * addPiece
+     *
+     * Method that adds a piece to the playfield without checking the
+     * position first.
+     *
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     */
+    @Override
+    public void addPiece(TileType ttType, int iX, int iY, int iRotation) {
+        addPiece(ttType.ordinal(), iX, iY, iRotation);
+    }
+
+    /**
+     * addPiece
+     *
+     * Method that adds a piece to the playfield. Like {@code BoardPanel}, it
+     * doesn't check the position first.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     */
+    public void addPiece(int iType, int iX, int iY, int iRotation) {
+        iCells = place(iType, iX, iY, iRotation, iFeatures, iHeights, false);
+        int[] iMasks = iPieceMasks[iType][iRotation];
+        int iBottom = iDimensions[iType] - iBottomInsets[iType][iRotation];
+        for (int iR = iTopInsets[iType][iRotation]; iR <= iBottom; iR++) {
+            iRows[iY + iR] |= shift(iMasks[iR], iX);
+        }
+    }
+
+    /**
+     * checkLines
+     *
+     * Method that removes the full rows and shifts the rows above them
+     * down, exactly like {@code BoardPanel.checkLines}.
+     *
+     * @return an <code>integer</code> with the number of rows removed.
+     */
+    @Override
+    public int checkLines() {
+        int iCleared = 0;
+        int iTo = ROWS - 1;
+        iClearedRows = 0;
+        // BoardPanel leaves the top row in place when it shifts the rows
+        // down, so the rows that come in at the top are copies of it.
+        int iTopRow = iRows[0];
+        for (int iFrom = ROWS - 1; iFrom >= 0; iFrom--) {
+            if (iRows[iFrom] == FULL_ROW) {
+                iCleared++;
+                iClearedRows |= 1 << iFrom;
+            } else {
+                iRows[iTo--] = iRows[iFrom];
+            }
+        }
+        while (iTo >= 0) {
+            iRows[iTo--] = iTopRow;
+        }
+        if (iCleared > 0) {
+            count();
+        }
+        iFeatures[Evaluator.LINES] = iCleared;
+        return iCleared;
+    }
+
+    /**
+     * getClearedRows
+     *
+     * Method that returns the rows removed by the last call to
+     * {@code checkLines}.
+     *
+     * @return an <code>integer</code> with one bit set for every removed
+     * row, bit 0 being the top row.
+     */
+    @Override
+    public int getClearedRows() {
+        return iClearedRows;
+    }
+
+    /**
+     * getState
+     *
+     * Method that returns the tiles as a state of {@code BoardPanel}, with
+     * every full tile as the first piece.
+     *
+     * @return an <code>integer</code> matrix by row and column, 0 for a full
+     * tile and -1 for an empty one.
+     */
+    @Override
+    public int[][] getState() {
+        int[][] iState = new int[ROWS][COLUMNS];
+        for (int iR = 0; iR < ROWS; iR++) {
+            for (int iC = 0; iC < COLUMNS; iC++) {
+                iState[iR][iC] = ((iRows[iR] >>> iC) & 1) - 1;
+            }
+        }
+        return iState;
+    }
+
+    /**
+     * setState
+     *
+     * Method that sets the tiles from a state of {@code BoardPanel}; every
+     * tile that isn't -1 is full.
+     *
+     * @param iState is the <code>integer</code> matrix by row and column.
+     */
+    @Override
+    public void setState(int[][] iState) {
+        for (int iR = 0; iR < ROWS; iR++) {
+            int iMask = 0;
+            for (int iC = 0; iC < COLUMNS; iC++) {
+                if (iState[iR][iC] != -1) {
+                    iMask |= 1 << iC;
+                }
+            }
+            iRows[iR] = iMask;
+        }
+        count();
+    }
+
+    /**
+     * getFeature
+     *
+     * Method that returns one feature of the board.
+     *
+     * @param iIndex is the <code>integer</code> index of the feature, as in
+     * {@code Evaluator}, such as {@code Evaluator.HOLES}.
+     * @return an <code>integer</code> with the feature.
+     */
+    public int getFeature(int iIndex) {
+        return iFeatures[iIndex];
+    }
+
+    /**
+     * getFeatures
+     *
+     * Method that copies the features of the board.
+     *
+     * @param iOut is the <code>integer</code> array to write to, indexed
+     * like the weights of {@code Evaluator}.
+     */
+    public void getFeatures(int[] iOut) {
+        System.arraycopy(iFeatures, 0, iOut, 0, Evaluator.WEIGHTS);
+    }
+
+    /**
+     * getFeatures
+     *
+     * Method that finds the features the board would have after adding a
+     * piece and clearing the full rows, without changing the board. The
+     * lines are the ones the piece would clear.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param iOut is the <code>integer</code> array to write to, indexed
+     * like the weights of {@code Evaluator}.
+     */
+    public void getFeatures(int iType, int iX, int iY, int iRotation,
+            int[] iOut) {
+        if (place(iType, iX, iY, iRotation, iOut, iTryHeights, true) < 0) {
+            count(iType, iX, iY, iRotation, iOut, iTryHeights);
+        }
+    }
+
+    /**
+     * getColumnHeight
+     *
+     * Method that returns the height of a column: the rows from the floor
+     * up to its highest full tile.
+     *
+     * @param iCol is the <code>integer</code> column.
+     * @return an <code>integer</code> with the height.
+     */
+    public int getColumnHeight(int iCol) {
+        return iHeights[iCol];
+    }
+
+    /**
+     * count
+     *
+     * Method that counts every feature of the board again from its rows.
+     */
+    private void count() {
+        iCells = count(-1, 0, 0, 0, iFeatures, iHeights);
+    }
+
+    /**
+     * count
+     *
+     * Method that counts the features of the board going down its rows,
+     * with a piece added and the full rows cleared like {@code checkLines}
+     * would, or as it is when there's no piece.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece, or -1
+     * for none.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param iOut is the <code>integer</code> array of the features.
+     * @param iOutHeights is the <code>integer</code> array of the heights.
+     * @return an <code>integer</code> with the number of full tiles.
+     */
+    private int count(int iType, int iX, int iY, int iRotation, int[] iOut,
+            int[] iOutHeights) {
+        int[] iMasks = null;
+        int iFirst = ROWS;
+        int iLast = -1;
+        if (iType >= 0) {
+            iMasks = iPieceMasks[iType][iRotation];
+            iFirst = iY + iTopInsets[iType][iRotation];
+            iLast = iY + iDimensions[iType] - iBottomInsets[iType][iRotation];
+        }
+
+        /*
+        * The cleared rows are replaced by copies of the top row at the top,
+        * like checkLines does.
+        */
+        int iCleared = 0;
+        if (iType >= 0) {
+            for (int iR = 0; iR < ROWS; iR++) {
+                if (getRow(iR, iMasks, iX, iY, iFirst, iLast) == FULL_ROW) {
+                    iCleared++;
+                }
+            }
+        }
+        int iTopRow = getRow(0, iMasks, iX, iY, iFirst, iLast);
+
+        int iCellCount = 0;
+        int iHeightSum = 0;
+        int iRowTransitions = 0;
+        int iColumnTransitions = 0;
+        int iCovered = 0;
+        int iAbove = 0;
+        int iHeight = ROWS;
+        java.util.Arrays.fill(iOutHeights, 0);
+        for (int iFrom = -iCleared; iFrom < ROWS; iFrom++) {
+            int iRow = iTopRow;
+            if (iFrom >= 0) {
+                iRow = getRow(iFrom, iMasks, iX, iY, iFirst, iLast);
+                if (iType >= 0 && iRow == FULL_ROW) {
+                    continue;
+                }
+            }
+            iCellCount += Integer.bitCount(iRow);
+            iRowTransitions += getRowTransitions(iRow);
+            iColumnTransitions += Integer.bitCount(iAbove ^ iRow);
+            for (int iBits = iRow & ~iCovered; iBits != 0;
+                    iBits &= iBits - 1) {
+                iOutHeights[Integer.numberOfTrailingZeros(iBits)] = iHeight;
+                iHeightSum += iHeight;
+            }
+            iCovered |= iRow;
+            iAbove = iRow;
+            iHeight--;
+        }
+        // The floor counts as a full row.
+        iColumnTransitions += Integer.bitCount(~iAbove & FULL_ROW);
+
+        iOut[Evaluator.HEIGHT] = iHeightSum;
+        iOut[Evaluator.HOLES] = iHeightSum - iCellCount;
+        int iShape = getShape(iOutHeights, 0, COLUMNS - 1);
+        iOut[Evaluator.BUMPINESS] = iShape >>> 16;
+        iOut[Evaluator.WELLS] = iShape & 0xFFFF;
+        iOut[Evaluator.LINES] = iCleared;
+        iOut[Evaluator.ROW_TRANSITIONS] = iRowTransitions;
+        iOut[Evaluator.COLUMN_TRANSITIONS] = iColumnTransitions;
+        return iCellCount;
+    }
+
+    /**
+     * place
+     *
+     * Method that finds the features of the board with a piece added and
+     * no rows cleared, from the features it has now and the rows and
+     * columns the piece touches. It can write over the features of the
+     * board, since they're read first; otherwise only the heights next to
+     * the piece are written.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @param iOut is the <code>integer</code> array of the features.
+     * @param iOutHeights is the <code>integer</code> array of the heights.
+     * @param bStopOnFull is the <code>boolean</code> that stops before
+     * writing anything when the piece fills a row.
+     * @return an <code>integer</code> with the number of full tiles, or -1
+     * if it stopped.
+     */
+    private int place(int iType, int iX, int iY, int iRotation, int[] iOut,
+            int[] iOutHeights, boolean bStopOnFull) {
+        int[] iMasks = iPieceMasks[iType][iRotation];
+        int iFirst = iTopInsets[iType][iRotation];
+        int iLast = iDimensions[iType] - iBottomInsets[iType][iRotation];
+        int iCellCount = iCells;
+        int iRowTransitions = iFeatures[Evaluator.ROW_TRANSITIONS];
+        int iColumnTransitions = iFeatures[Evaluator.COLUMN_TRANSITIONS];
+
+        /*
+        * Only the rows of the piece change, and the column transitions
+        * between them and the rows next to them.
+        */
+        int iColumns = 0;
+        int iAbove = (iY + iFirst > 0) ? iRows[iY + iFirst - 1] : 0;
+        int iAboveAfter = iAbove;
+        for (int iR = iFirst; iR <= iLast; iR++) {
+            int iRow = iRows[iY + iR];
+            int iMask = shift(iMasks[iR], iX);
+            int iAfter = iRow | iMask;
+            if (bStopOnFull && iAfter == FULL_ROW) {
+                return -1;
+            }
+            iCellCount += Integer.bitCount(iMask & ~iRow);
+            iRowTransitions += getRowTransitions(iAfter)
+                    - getRowTransitions(iRow);
+            iColumnTransitions += Integer.bitCount(iAboveAfter ^ iAfter)
+                    - Integer.bitCount(iAbove ^ iRow);
+            iColumns |= iMask;
+            iAbove = iRow;
+            iAboveAfter = iAfter;
+        }
+        int iBelow = (iY + iLast + 1 < ROWS) ? iRows[iY + iLast + 1] : FULL_ROW;
+        iColumnTransitions += Integer.bitCount(iAboveAfter ^ iBelow)
+                - Integer.bitCount(iAbove ^ iBelow);
+
+        /*
+        * Only the columns of the piece can get higher, so the bumpiness and
+        * the wells only change next to them.
+        */
+        int iLeft = Integer.numberOfTrailingZeros(iColumns);
+        int iRight = 31 - Integer.numberOfLeadingZeros(iColumns);
+        int iShape = getShape(iHeights, iLeft, iRight);
+        int iBumpiness = iFeatures[Evaluator.BUMPINESS] - (iShape >>> 16);
+        int iWells = iFeatures[Evaluator.WELLS] - (iShape & 0xFFFF);
+        int iHeightSum = iFeatures[Evaluator.HEIGHT];
+        if (iOutHeights != iHeights) {
+            // The wells next to the piece look one column further.
+            int iFrom = Math.max(0, iLeft - 2);
+            System.arraycopy(iHeights, iFrom, iOutHeights, iFrom,
+                    Math.min(COLUMNS - 1, iRight + 2) - iFrom + 1);
+        }
+        for (int iR = iFirst; iR <= iLast; iR++) {
+            int iHeight = ROWS - iY - iR;
+            for (int iBits = shift(iMasks[iR], iX); iBits != 0;
+                    iBits &= iBits - 1) {
+                int iC = Integer.numberOfTrailingZeros(iBits);
+                if (iHeight > iOutHeights[iC]) {
+                    iHeightSum += iHeight - iOutHeights[iC];
+                    iOutHeights[iC] = iHeight;
+                }
+            }
+        }
+        iShape = getShape(iOutHeights, iLeft, iRight);
+        iBumpiness += iShape >>> 16;
+        iWells += iShape & 0xFFFF;
+
+        iOut[Evaluator.HEIGHT] = iHeightSum;
+        iOut[Evaluator.HOLES] = iHeightSum - iCellCount;
+        iOut[Evaluator.BUMPINESS] = iBumpiness;
+        iOut[Evaluator.WELLS] = iWells;
+        iOut[Evaluator.LINES] = 0;
+        iOut[Evaluator.ROW_TRANSITIONS] = iRowTransitions;
+        iOut[Evaluator.COLUMN_TRANSITIONS] = iColumnTransitions;
+        return iCellCount;
+    }
+
+    /**
+     * getRow
+     *
+     * Method that returns a row with the tiles of a piece added, if the
+     * row is one of the piece.
+     *
+     * @param iR is the <code>integer</code> row.
+     * @param iMasks is the <code>integer</code> array of the piece masks,
+     * or <code>null</code> for no piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iFirst is the <code>integer</code> first row of the piece.
+     * @param iLast is the <code>integer</code> last row of the piece.
+     * @return an <code>integer</code> with the row mask.
+     */
+    private int getRow(int iR, int[] iMasks, int iX, int iY, int iFirst,
+            int iLast) {
+        return (iR < iFirst || iR > iLast) ? iRows[iR]
+                : iRows[iR] | shift(iMasks[iR - iY], iX);
+    }
+
+    /**
+     * getRowTransitions
+     *
+     * Method that counts the changes between full and empty tiles along a
+     * row, the walls counting as full.
+     *
+     * @param iRow is the <code>integer</code> row mask.
+     * @return an <code>integer</code> with the transitions.
+     */
+    private static int getRowTransitions(int iRow) {
+        int iWalled = (iRow << 1) | 1 | (1 << (COLUMNS + 1));
+        return Integer.bitCount((iWalled ^ (iWalled >>> 1))
+                & ((1 << (COLUMNS + 1)) - 1));
+    }
+
+    /**
+     * getShape
+     *
+     * Method that adds the bumpiness and the wells a range of columns and
+     * their neighbours are part of: the height differences of neighbouring
+     * columns, and how far each column is below both of its neighbours, the
+     * walls counting as full.
+     *
+     * @param iColumnHeights is the <code>integer</code> array of heights.
+     * @param iLeft is the <code>integer</code> first column of the range.
+     * @param iRight is the <code>integer</code> last column of the range.
+     * @return an <code>integer</code> with the bumpiness in the high 16 bits
+     * and the wells in the low 16 bits.
+     */
+    private static int getShape(int[] iColumnHeights, int iLeft, int iRight) {
+        int iBumpiness = 0;
+        int iWells = 0;
+        int iFrom = Math.max(0, iLeft - 1);
+        int iTo = Math.min(COLUMNS - 1, iRight + 1);
+        int iLast = (iFrom > 0) ? iColumnHeights[iFrom - 1] : ROWS;
+        int iHeight = iColumnHeights[iFrom];
+        for (int iC = iFrom; iC <= iTo; iC++) {
+            int iNext = (iC < COLUMNS - 1) ? iColumnHeights[iC + 1] : ROWS;
+            if (iC >= iLeft && iC > 0) {
+                iBumpiness += Math.abs(iHeight - iLast);
+            }
+            int iWall = Math.min(iLast, iNext);
+            if (iWall > iHeight) {
+                iWells += iWall - iHeight;
+            }
+            iLast = iHeight;
+            iHeight = iNext;
+        }
+        return (iBumpiness << 16) | iWells;
+    }
+
+    /**
+     * isInside
+     *
+     * Method that determines whether or not a piece is inside the edges of
+     * the board at the coordinates, whatever the tiles of the board.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iY is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return whether or not the piece is inside.
+     */
+    public static boolean isInside(int iType, int iX, int iY, int iRotation) {
+        int iDim = iDimensions[iType];
+        return iX >= -iLeftInsets[iType][iRotation]
+                && iX + iDim - iRightInsets[iType][iRotation] < COLUMNS
+                && iY >= -iTopInsets[iType][iRotation]
+                && iY + iDim - iBottomInsets[iType][iRotation] < ROWS;
+    }
+
+    /**
+     * getPieceMask
+     *
+     * Method that returns the tiles a piece covers in one of its rows, at a
+     * column.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iX is the <code>integer</code> column of the piece.
+     * @param iRow is the <code>integer</code> row of the grid of the piece.
+     * @param iRotation is the <code>integer</code> rotation of the piece.
+     * @return an <code>integer</code> with a bit per covered column.
+     */
+    public static int getPieceMask(int iType, int iX, int iRow, int iRotation) {
+        int[] iMasks = iPieceMasks[iType][iRotation];
+        return (iRow < 0 || iRow >= iMasks.length) ? 0 : shift(iMasks[iRow], iX);
+    }
+
+    /**
+     * getDimension
+     *
+     * Method that returns the dimension of the grid of a piece.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @return an <code>integer</code> with the dimension.
+     */
+    public static int getDimension(int iType) {
+        return iDimensions[iType];
+    }
+
+    /**
+     * getRotatedColumn
+     *
+     * Method that returns the column a piece ends up in when it's rotated,
+     * with the same edge adjustments as {@code Game.getRotatedColumn}.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iCol is the <code>integer</code> column of the piece.
+     * @param iRotation is the <code>integer</code> new rotation.
+     * @return an <code>integer</code> with the new column.
+     */
+    public static int getRotatedColumn(int iType, int iCol, int iRotation) {
+        int iLeft = iLeftInsets[iType][iRotation];
+        int iEnd = iCol + iDimensions[iType] - iRightInsets[iType][iRotation];
+        if (iCol < -iLeft) {
+            return iLeft;
+        } else if (iEnd >= COLUMNS) {
+            return iCol - (iEnd - COLUMNS + 1);
+        }
+        return iCol;
+    }
+
+    /**
+     * getRotatedRow
+     *
+     * Method that returns the row a piece ends up in when it's rotated,
+     * with the same edge adjustments as {@code Game.getRotatedRow}.
+     *
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iRow is the <code>integer</code> row of the piece.
+     * @param iRotation is the <code>integer</code> new rotation.
+     * @return an <code>integer</code> with the new row.
+     */
+    public static int getRotatedRow(int iType, int iRow, int iRotation) {
+        int iTop = iTopInsets[iType][iRotation];
+        int iEnd = iRow + iDimensions[iType] - iBottomInsets[iType][iRotation];
+        if (iRow < -iTop) {
+            return iTop;
+        } else if (iEnd >= ROWS) {
+            return iRow - (iEnd - ROWS + 1);
+        }
+        return iRow;
+    }
+
+    /**
+     * shift
+     *
+     * Method that moves a row mask of a piece to a column, which can be
+     * negative when the left columns of the grid are empty.
+     *
+     * @param iMask is the <code>integer</code> mask at column 0.
+     * @param iX is the <code>integer</code> column.
+     * @return an <code>integer</code> with the moved mask.
+     */
+    private static int shift(int iMask, int iX) {
+        return (iX >= 0) ? iMask << iX : iMask >>> -iX;
+    }
+}
@@ -0,0 +1,799 @@
+package tetris;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Class PositionDatabase
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code PositionDatabase} class keeps statistics about positions, a
+ * board and the piece to place on it, in a file: how often the position was
+ * seen, the average outcome that followed, and the placement with the best
+ * outcome. The file is a hash table with open addressing that is mapped into
+ * memory, so it lives outside the heap, can be much larger than it, costs
+ * the garbage collector nothing, and is read by every process that maps it
+ * through the same pages.
+ * <p>
+ * A position is found by a 64 bit hash of the tiles of the board, as in
+ * {@code BoardPanel.getState}, and the piece; only the hash is kept, so two
+ * positions with the same hash share their statistics, which is unlikely
+ * enough for analysis. Every position takes 32 bytes:
+ * <pre>
+ *  0  long    hash, 0 for an empty slot
+ *  8  int     visits
+ * 12  byte[3] column, row and rotation of the best placement
+ * 15  byte    1 when there is a best placement
+ * 16  double  sum of the outcomes
+ * 24  double  best outcome
+ * </pre>
+ * after a header of 64 bytes with the format, the number of slots and the
+ * number of positions. The table doubles, into a new file that replaces the
+ * old one, when it's three quarters full.
+ * <p>
+ * One process can write a database at a time, which the lock of a file next
+ * to it, ending in {@code .lock}, makes sure of; the writer holds it from
+ * open to close, while the table grows too, and the lock file is left in
+ * place. Any number can open the database to read. A reader keeps seeing
+ * the table it opened, so it should open it again after the writer has grown
+ * it.
+ * <p>
+ * The segments of a table are unmapped as soon as it's closed or replaced,
+ * so a table that grew doesn't keep the old file's pages and disk space
+ * until the garbage collector gets to its buffers. Java 8 has no method for
+ * that, so the cleaner of the buffer is called through reflection, and if
+ * that isn't allowed the buffers are left to the collector as before. The
+ * methods of one instance are synchronized, so threads can share it, and
+ * none may be called after {@code close}.
+ */
+public class PositionDatabase {
+
+    // The first bytes of a database file.
+    private static final long lMagic = 0x5445545249534442L;
+
+    // The version of the format.
+    private static final int iVersion = 1;
+
+    // The bytes of the header.
+    private static final int iHeaderBytes = 64;
+
+    // The bytes of a position.
+    private static final int iSlotBytes = 32;
+
+    // The offsets of the header fields.
+    private static final int iSlotsOffset = 16;
+    private static final int iSizeOffset = 24;
+
+    // The offsets of the fields of a position.
+    private static final int iVisitsOffset = 8;
+    private static final int iBestOffset = 12;
+    private static final int iSumOffset = 16;
+    private static final int iBestOutcomeOffset = 24;
+
+    // The number of pieces, to tell the next piece from the current one.
+    private static final int iTypes = TileType.getCount();
+
+    // The bytes of a mapped segment, a multiple of the bytes of a position
+    // so a position never spans two.
+    private static final int iSegmentShift = 30;
+
+    // The fewest slots a database is created with.
+    private static final long lMinSlots = 1024;
+
+    // The object and method that unmap a buffer on Java 9 and later, or
+    // null.
+    private static final Object oUnsafe;
+    private static final Method mtdInvokeCleaner;
+
+    static {
+        Object oFound = null;
+        Method mtdFound = null;
+        try {
+            Class<?> clsUnsafe = Class.forName("sun.misc.Unsafe");
+            mtdFound = clsUnsafe.getMethod("invokeCleaner", ByteBuffer.class);
+            Field fldUnsafe = clsUnsafe.getDeclaredField("theUnsafe");
+            fldUnsafe.setAccessible(true);
+            oFound = fldUnsafe.get(null);
+        } catch (ReflectiveOperationException | RuntimeException excNone) {
+            // Java 8, where the buffer's own cleaner is called instead.
+            mtdFound = null;
+        }
+        oUnsafe = oFound;
+        mtdInvokeCleaner = mtdFound;
+    }
+
+    // The file of the database.
+    private final File fileData;
+
+    // Whether or not the database can be written.
+    private final boolean bWritable;
+
+    // The channel of the file.
+    private FileChannel fcData;
+
+    // The channel of the lock file of the writer, or null.
+    private FileChannel fcLock;
+
+    // The lock of the writer, or null.
+    private FileLock flWriter;
+
+    // The mapped segments of the file.
+    private MappedByteBuffer[] mbbSegments;
+
+    // The number of slots, a power of two.
+    private long lSlots;
+
+    // The number of positions.
+    private long lSize;
+
+    /**
+     * PositionDatabase
+     *
+     * Constructor that opens a database to read it.
+     *
+     * @param fileData is the <code>File</code> of the database.
+     * @throws IOException
+     */
+    public PositionDatabase(File fileData) throws IOException {
+        this(fileData, false);
+    }
+
+    /**
+     * PositionDatabase
+     *
+     * Constructor that opens a database without locking it, for a table
+     * being grown by the writer that holds the lock.
+     *
+     * @param fileData is the <code>File</code> of the database.
+     * @param bWritable is whether or not it's opened to write.
+     * @throws IOException
+     */
+    private PositionDatabase(File fileData, boolean bWritable)
+            throws IOException {
+        this.fileData = fileData;
+        this.bWritable = bWritable;
+        map();
+    }
+
+    /**
+     * PositionDatabase
+     *
+     * Constructor that opens a database to write it, creating it if the
+     * file doesn't exist.
+     *
+     * @param fileData is the <code>File</code> of the database.
+     * @param lExpected is the <code>long</code> number of positions it's
+     * expected to hold, to create it large enough.
+     * @throws IOException
+     */
+    public PositionDatabase(File fileData, long lExpected) throws IOException {
+        this.fileData = fileData;
+        this.bWritable = true;
+        lock();
+        try {
+            if (!fileData.exists()) {
+                create(fileData, getSlots(lExpected));
+            }
+            map();
+        } catch (IOException | RuntimeException exc) {
+            unlock();
+            throw exc;
+        }
+    }
+
+    /**
+     * getKey
+     *
+     * Method that returns the hash of a position from the tiles of a board,
+     * as {@code BoardPanel.getState} returns them.
+     *
+     * @param iState is the <code>integer matrix</code> of the board, by row
+     * and column, with -1 for an empty tile.
+     * @param ttType is the <code>TileType</code> of the piece.
+     * @return a <code>long</code> with the hash, never 0.
+     */
+    public static long getKey(int[][] iState, TileType ttType) {
+        long lKey = 0;
+        for (int[] iRow : iState) {
+            int iMask = 0;
+            for (int iC = 0; iC < iRow.length; iC++) {
+                if (iRow[iC] >= 0) {
+                    iMask |= 1 << iC;
+                }
+            }
+            lKey = mix(lKey ^ iMask);
+        }
+        return finish(lKey, ttType.ordinal());
+    }
+
+    /**
+     * getKey
+     *
+     * Method that returns the hash of a position from a playfield, the same
+     * as for the board it was copied from.
+     *
+     * @param pfField is the <code>Playfield</code> of the board.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @return a <code>long</code> with the hash, never 0.
+     */
+    public static long getKey(Playfield pfField, int iType) {
+        long lKey = 0;
+        for (int iR = 0; iR < Playfield.ROWS; iR++) {
+            lKey = mix(lKey ^ pfField.getRowMask(iR));
+        }
+        return finish(lKey, iType);
+    }
+
+    /**
+     * getKey
+     *
+     * Method that returns the hash of a position whose next piece is known
+     * too, as the bots see it with the preview. It never equals the hash of
+     * the same board and piece without the next one.
+     *
+     * @param pfField is the <code>Playfield</code> of the board.
+     * @param iType is the <code>integer</code> ordinal of the piece.
+     * @param iNext is the <code>integer</code> ordinal of the next piece.
+     * @return a <code>long</code> with the hash, never 0.
+     */
+    public static long getKey(Playfield pfField, int iType, int iNext) {
+        long lKey = 0;
+        for (int iR = 0; iR < Playfield.ROWS; iR++) {
+            lKey = mix(lKey ^ pfField.getRowMask(iR));
+        }
+        return finish(lKey, (iNext + 1) * iTypes + iType);
+    }
+
+    /**
+     * find
+     *
+     * Method that finds the slot of a position.
+     *
+     * @param lKey is the <code>long</code> hash from {@code getKey}.
+     * @return a <code>long</code> with the slot, or -1 if it isn't there.
+     */
+    public synchronized long find(long lKey) {
+        long lSlot = probe(lKey);
+        return (getLong(lSlot, 0) == lKey) ? lSlot : -1;
+    }
+
+    /**
+     * record
+     *
+     * Method that adds a visit to a position with the placement played and
+     * the outcome that followed, adding the position if it's new.
+     *
+     * @param lKey is the <code>long</code> hash from {@code getKey}.
+     * @param iCol is the <code>integer</code> column of the placement.
+     * @param iRow is the <code>integer</code> row of the placement.
+     * @param iRotation is the <code>integer</code> rotation of the placement.
+     * @param dOutcome is the <code>double</code> outcome, the higher the
+     * better.
+     * @return a <code>long</code> with the slot of the position.
+     * @throws IOException
+     */
+    public synchronized long record(long lKey, int iCol, int iRow,
+            int iRotation, double dOutcome) throws IOException {
+        if (!bWritable) {
+            throw new IllegalStateException("The database is read only");
+        }
+        long lSlot = probe(lKey);
+        if (getLong(lSlot, 0) != lKey) {
+            if ((lSize + 1) * 4 > lSlots * 3) {
+                grow();
+                lSlot = probe(lKey);
+            }
+            putLong(lSlot, 0, lKey);
+            putDouble(lSlot, iBestOutcomeOffset, Double.NEGATIVE_INFINITY);
+            lSize++;
+            mbbSegments[0].putLong(iSizeOffset, lSize);
+        }
+        putInt(lSlot, iVisitsOffset, getInt(lSlot, iVisitsOffset) + 1);
+        putDouble(lSlot, iSumOffset, getDouble(lSlot, iSumOffset) + dOutcome);
+        if (dOutcome > getDouble(lSlot, iBestOutcomeOffset)) {
+            putDouble(lSlot, iBestOutcomeOffset, dOutcome);
+            putInt(lSlot, iBestOffset, (iCol & 0xFF) | ((iRow & 0xFF) << 8)
+                    | ((iRotation & 0xFF) << 16) | (1 << 24));
+        }
+        return lSlot;
+    }
+
+    /**
+     * getVisits
+     *
+     * Method that returns how often a position was seen.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return an <code>integer</code> with the visits.
+     */
+    public synchronized int getVisits(long lSlot) {
+        return getInt(lSlot, iVisitsOffset);
+    }
+
+    /**
+     * getAverageOutcome
+     *
+     * Method that returns the average outcome after a position.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return a <code>double</code> with the average.
+     */
+    public synchronized double getAverageOutcome(long lSlot) {
+        return getDouble(lSlot, iSumOffset) / getInt(lSlot, iVisitsOffset);
+    }
+
+    /**
+     * getBestOutcome
+     *
+     * Method that returns the best outcome after a position.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return a <code>double</code> with the outcome.
+     */
+    public synchronized double getBestOutcome(long lSlot) {
+        return getDouble(lSlot, iBestOutcomeOffset);
+    }
+
+    /**
+     * hasBest
+     *
+     * Method that determines whether or not a position has a best
+     * placement.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return whether or not it has one.
+     */
+    public synchronized boolean hasBest(long lSlot) {
+        return (getInt(lSlot, iBestOffset) >>> 24) != 0;
+    }
+
+    /**
+     * getBestColumn
+     *
+     * Method that returns the column of the best placement of a position.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return an <code>integer</code> with the column.
+     */
+    public synchronized int getBestColumn(long lSlot) {
+        return (byte) getInt(lSlot, iBestOffset);
+    }
+
+    /**
+     * getBestRow
+     *
+     * Method that returns the row of the best placement of a position.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return an <code>integer</code> with the row.
+     */
+    public synchronized int getBestRow(long lSlot) {
+        return (byte) (getInt(lSlot, iBestOffset) >> 8);
+    }
+
+    /**
+     * getBestRotation
+     *
+     * Method that returns the rotation of the best placement of a position.
+     *
+     * @param lSlot is the <code>long</code> slot from {@code find}.
+     * @return an <code>integer</code> with the rotation.
+     */
+    public synchronized int getBestRotation(long lSlot) {
+        return (getInt(lSlot, iBestOffset) >> 16) & 0xFF;
+    }
+
+    /**
+     * getKeyAt
+     *
+     * Method that returns the hash kept in a slot, to go through every
+     * position.
+     *
+     * @param lSlot is the <code>long</code> slot, below {@code getSlots}.
+     * @return a <code>long</code> with the hash, or 0 for an empty slot.
+     */
+    public synchronized long getKeyAt(long lSlot) {
+        return getLong(lSlot, 0);
+    }
+
+    /**
+     * getSize
+     *
+     * Method that returns the number of positions.
+     *
+     * @return a <code>long</code> with the size.
+     */
+    public synchronized long getSize() {
+        return lSize;
+    }
+
+    /**
+     * getSlots
+     *
+     * Method that returns the number of slots of the table.
+     *
+     * @return a <code>long</code> with the slots.
+     */
+    public synchronized long getSlots() {
+        return lSlots;
+    }
+
+    /**
+     * close
+     *
+     * Method that writes what's left to the file, unmaps and closes it, and
+     * lets another writer open it.
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        try {
+            unmap();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * lock
+     *
+     * Method that takes the lock of the writer, on the lock file next to
+     * the database.
+     *
+     * @throws IOException
+     */
+    private void lock() throws IOException {
+        fcLock = new RandomAccessFile(fileData.getPath() + ".lock", "rw")
+                .getChannel();
+        try {
+            flWriter = fcLock.tryLock();
+        } catch (OverlappingFileLockException excLocked) {
+            // This process already writes it.
+            flWriter = null;
+        }
+        if (flWriter == null) {
+            fcLock.close();
+            fcLock = null;
+            throw new IOException("The database is already being written: "
+                    + fileData);
+        }
+    }
+
+    /**
+     * unlock
+     *
+     * Method that releases the lock of the writer, if it's held.
+     *
+     * @throws IOException
+     */
+    private void unlock() throws IOException {
+        if (fcLock != null) {
+            // Closing the channel releases the lock.
+            fcLock.close();
+            fcLock = null;
+            flWriter = null;
+        }
+    }
+
+    /**
+     * map
+     *
+     * Method that opens the file, checks its header and maps it.
+     *
+     * @throws IOException
+     */
+    private void map() throws IOException {
+        fcData = new RandomAccessFile(fileData, bWritable ? "rw" : "r")
+                .getChannel();
+        long lBytes = fcData.size();
+        if (lBytes < iHeaderBytes) {
+            fcData.close();
+            throw new IOException("Not a position database: " + fileData);
+        }
+        FileChannel.MapMode mmMode = bWritable ? FileChannel.MapMode.READ_WRITE
+                : FileChannel.MapMode.READ_ONLY;
+        long lSegment = 1L << iSegmentShift;
+        mbbSegments = new MappedByteBuffer[(int) ((lBytes + lSegment - 1)
+                / lSegment)];
+        for (int iS = 0; iS < mbbSegments.length; iS++) {
+            long lStart = iS * lSegment;
+            mbbSegments[iS] = fcData.map(mmMode, lStart,
+                    Math.min(lSegment, lBytes - lStart));
+            mbbSegments[iS].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        MappedByteBuffer mbbHeader = mbbSegments[0];
+        if (mbbHeader.getLong(0) != lMagic || mbbHeader.getInt(8) != iVersion
+                || mbbHeader.getInt(12) != iSlotBytes) {
+            unmap();
+            throw new IOException("Not a position database: " + fileData);
+        }
+        lSlots = mbbHeader.getLong(iSlotsOffset);
+        lSize = mbbHeader.getLong(iSizeOffset);
+        if (Long.bitCount(lSlots) != 1
+                || iHeaderBytes + lSlots * iSlotBytes > lBytes) {
+            unmap();
+            throw new IOException("The database is cut short: " + fileData);
+        }
+    }
+
+    /**
+     * unmap
+     *
+     * Method that writes what's left to the file, releases its segments
+     * and closes it, keeping the lock of the writer.
+     *
+     * @throws IOException
+     */
+    private void unmap() throws IOException {
+        MappedByteBuffer[] mbbOld = mbbSegments;
+        mbbSegments = null;
+        try {
+            if (bWritable) {
+                for (MappedByteBuffer mbbSegment : mbbOld) {
+                    mbbSegment.force();
+                }
+            }
+        } finally {
+            fcData.close();
+            for (MappedByteBuffer mbbSegment : mbbOld) {
+                release(mbbSegment);
+            }
+        }
+    }
+
+    /**
+     * release
+     *
+     * Method that unmaps a segment at once, when the JVM lets it, instead of
+     * when the garbage collector finds the buffer. The buffer can't be used
+     * after.
+     *
+     * @param mbbSegment is the <code>MappedByteBuffer</code> to unmap.
+     */
+    private static void release(MappedByteBuffer mbbSegment) {
+        try {
+            if (mtdInvokeCleaner != null) {
+                mtdInvokeCleaner.invoke(oUnsafe, mbbSegment);
+            } else {
+                Method mtdCleaner = mbbSegment.getClass().getMethod(
+                        "cleaner");
+                mtdCleaner.setAccessible(true);
+                Object oCleaner = mtdCleaner.invoke(mbbSegment);
+                if (oCleaner != null) {
+                    oCleaner.getClass().getMethod("clean").invoke(oCleaner);
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException excDenied) {
+            // The garbage collector unmaps it once the buffer is unreachable.
+        }
+    }
+
+    /**
+     * grow
+     *
+     * Method that moves every position to a table twice as large, written
+     * next to the file and then moved over it. The lock of the writer is
+     * held all along, and the old table is unmapped once it's replaced.
+     *
+     * @throws IOException
+     */
+    private void grow() throws IOException {
+        File fileGrown = new File(fileData.getPath() + ".grow");
+        create(fileGrown, lSlots * 2);
+        PositionDatabase pdGrown = new PositionDatabase(fileGrown, true);
+        for (long lSlot = 0; lSlot < lSlots; lSlot++) {
+            long lKey = getLong(lSlot, 0);
+            if (lKey != 0) {
+                long lTo = pdGrown.probe(lKey);
+                for (int iB = 0; iB < iSlotBytes; iB += 8) {
+                    pdGrown.putLong(lTo, iB, getLong(lSlot, iB));
+                }
+            }
+        }
+        pdGrown.lSize = lSize;
+        pdGrown.mbbSegments[0].putLong(iSizeOffset, lSize);
+        pdGrown.unmap();
+
+        unmap();
+        Files.move(fileGrown.toPath(), fileData.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        map();
+    }
+
+    /**
+     * create
+     *
+     * Method that writes an empty database.
+     *
+     * @param fileNew is the <code>File</code> to write.
+     * @param lNewSlots is the <code>long</code> number of slots.
+     * @throws IOException
+     */
+    private static void create(File fileNew, long lNewSlots)
+            throws IOException {
+        try (RandomAccessFile rafNew = new RandomAccessFile(fileNew, "rw")) {
+            // The file is sparse, so the empty slots cost no disk.
+            rafNew.setLength(0);
+            rafNew.setLength(iHeaderBytes + lNewSlots * iSlotBytes);
+            MappedByteBuffer mbbHeader = rafNew.getChannel().map(
+                    FileChannel.MapMode.READ_WRITE, 0, iHeaderBytes);
+            mbbHeader.order(ByteOrder.LITTLE_ENDIAN);
+            mbbHeader.putLong(0, lMagic);
+            mbbHeader.putInt(8, iVersion);
+            mbbHeader.putInt(12, iSlotBytes);
+            mbbHeader.putLong(iSlotsOffset, lNewSlots);
+            mbbHeader.putLong(iSizeOffset, 0);
+            mbbHeader.force();
+            release(mbbHeader);
+        }
+    }
+
+    /**
+     * getSlots
+     *
+     * Method that returns the slots a table needs to hold some positions
+     * below three quarters full.
+     *
+     * @param lExpected is the <code>long</code> number of positions.
+     * @return a <code>long</code> with a power of two.
+     */
+    private static long getSlots(long lExpected) {
+        long lNeeded = Math.max(lMinSlots, lExpected + lExpected / 3 + 1);
+        return Long.highestOneBit(lNeeded - 1) << 1;
+    }
+
+    /**
+     * probe
+     *
+     * Method that finds the slot of a hash, or the empty slot where it
+     * would go.
+     *
+     * @param lKey is the <code>long</code> hash.
+     * @return a <code>long</code> with the slot.
+     */
+    private long probe(long lKey) {
+        long lMask = lSlots - 1;
+        long lSlot = lKey & lMask;
+        while (true) {
+            long lFound = getLong(lSlot, 0);
+            if (lFound == lKey || lFound == 0) {
+                return lSlot;
+            }
+            lSlot = (lSlot + 1) & lMask;
+        }
+    }
+
+    /**
+     * mix
+     *
+     * Method that mixes the bits of a hash, as the finalizer of SplitMix64.
+     *
+     * @param lHash is the <code>long</code> hash.
+     * @return a <code>long</code> with the mixed hash.
+     */
+    private static long mix(long lHash) {
+        lHash = (lHash ^ (lHash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        lHash = (lHash ^ (lHash >>> 27)) * 0x94D049BB133111EBL;
+        return lHash ^ (lHash >>> 31);
+    }
+
+    /**
+     * finish
+     *
+     * Method that adds the pieces to the hash of a board.
+     *
+     * @param lKey is the <code>long</code> hash of the board.
+     * @param iPieces is the <code>integer</code> code of the pieces.
+     * @return a <code>long</code> with the hash, never 0.
+     */
+    private static long finish(long lKey, int iPieces) {
+        lKey = mix(lKey ^ (0x9E3779B97F4A7C15L * (iPieces + 1)));
+        return (lKey == 0) ? 1 : lKey;
+    }
+
+    /**
+     * getLong
+     *
+     * Method that reads a <code>long</code> field of a slot, from the
+     * segment that holds it.
+     *
+     * @param lSlot is the <code>long</code> slot.
+     * @param iOffset is the <code>integer</code> offset of the field.
+     * @return a <code>long</code> with the field.
+     */
+    private long getLong(long lSlot, int iOffset) {
+        long lAt = iHeaderBytes + lSlot * iSlotBytes + iOffset;
+        return mbbSegments[(int) (lAt >>> iSegmentShift)].getLong(
+                (int) (lAt & ((1L << iSegmentShift) - 1)));
+    }
+
+    /**
+     * putLong
+     *
+     * Method that writes a <code>long</code> field of a slot.
+     *
+     * @param lSlot is the <code>long</code> slot.
+     * @param iOffset is the <code>integer</code> offset of the field.
+     * @param lValue is the <code>long</code> to write.
+     */
+    private void putLong(long lSlot, int iOffset, long lValue) {
+        long lAt = iHeaderBytes + lSlot * iSlotBytes + iOffset;
+        mbbSegments[(int) (lAt >>> iSegmentShift)].putLong(
+                (int) (lAt & ((1L << iSegmentShift) - 1)), lValue);
+    }
+
+    /**
+     * getInt
+     *
+     * Method that reads an <code>integer</code> field of a slot.
+     *
+     * @param lSlot is the <code>long</code> slot.
+     * @param iOffset is the <code>integer</code> offset of the field.
+     * @return an <code>integer</code> with the field.
+     */
+    private int getInt(long lSlot, int iOffset) {
+        long lAt = iHeaderBytes + lSlot * iSlotBytes + iOffset;
+        return mbbSegments[(int) (lAt >>> iSegmentShift)].getInt(
+                (int) (lAt & ((1L << iSegmentShift) - 1)));
+    }
+
+    /**
+     * putInt
+     *
+     * Method that writes an <code>integer</code> field of a slot.
+     *
+     * @param lSlot is the <code>long</code> slot.
+     * @param iOffset is the <code>integer</code> offset of the field.
+     * @param iValue is the <code>integer</code> to write.
+     */
+    private void putInt(long lSlot, int iOffset, int iValue) {
+        long lAt = iHeaderBytes + lSlot * iSlotBytes + iOffset;
+        mbbSegments[(int) (lAt >>> iSegmentShift)].putInt(
+                (int) (lAt & ((1L << iSegmentShift) - 1)), iValue);
+    }
+
+    /**
+     * getDouble
+     *
+     * Method that reads a <code>double</code> field of a slot.
+     *
+     * @param lSlot is the <code>long</code> slot.
+     * @param iOffset is the <code>integer</code> offset of the field.
+     * @return a <code>double</code> with the field.
+     */
+    private double getDouble(long lSlot, int iOffset) {
+        return Double.longBitsToDouble(getLong(lSlot, iOffset));
+    }
+
+    /**
+     * putDouble
+     *
+     * Method that writes a <code>double</code> field of a slot.
+     *
+     * @param lSlot is the <code>long</code> slot.
+     * @param iOffset is the <code>integer</code> offset of the field.
+     * @param dValue is the <code>double</code> to write.
+     */
+    private void putDouble(long lSlot, int iOffset, double dValue) {
+        putLong(lSlot, iOffset, Double.doubleToRawLongBits(dValue));
+    }
+}
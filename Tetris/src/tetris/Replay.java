@@ -0,0 +1,295 @@
+package tetris;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Class Replay
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code Replay} class is a recorded game: the seed of its pieces, every
+ * action taken on the pieces in order (one character each, gravity steps
+ * included) and how the game ended. Playing the actions on a {@code Game}
+ * reset with the same seed has to end the same way, so a replay checks the
+ * rules as well as giving the game something to run. Replays are saved as
+ * small text files:
+ * <pre>
+ * tetris-replay 1
+ * seed 42
+ * actions DDLLCDDDD...
+ * score 300
+ * lines 3
+ * pieces 31
+ * board 5f3a91c2
+ * </pre>
+ */
+public class Replay {
+
+    // The action that moves the piece one column to the left.
+    public static final char MOVE_LEFT = 'L';
+
+    // The action that moves the piece one column to the right.
+    public static final char MOVE_RIGHT = 'R';
+
+    // The action that rotates the piece clockwise.
+    public static final char ROTATE_CLOCKWISE = 'C';
+
+    // The action that rotates the piece anticlockwise.
+    public static final char ROTATE_ANTICLOCKWISE = 'A';
+
+    // The action that moves the piece down a row, or locks it.
+    public static final char STEP = 'D';
+
+    // The first line of every replay file.
+    private static final String sHeader = "tetris-replay 1";
+
+    // The seed of the pieces.
+    private long lSeed;
+
+    // The actions, in the order they were taken.
+    private StringBuilder sbActions;
+
+    // The score at the end of the game.
+    private int iScore;
+
+    // The lines cleared at the end of the game.
+    private int iLines;
+
+    // The pieces locked at the end of the game.
+    private int iPieces;
+
+    // The hash of the board at the end of the game.
+    private int iBoardHash;
+
+    /**
+     * Replay
+     *
+     * Constructor that starts recording a game.
+     *
+     * @param lSeed is the <code>long</code> seed of the pieces.
+     */
+    public Replay(long lSeed) {
+        this.lSeed = lSeed;
+        this.sbActions = new StringBuilder(4096);
+    }
+
+    /**
+     * record
+     *
+     * Method that adds an action to the end of the replay.
+     *
+     * @param cAction is the <code>char</code> action, such as {@code STEP}.
+     */
+    public void record(char cAction) {
+        sbActions.append(cAction);
+    }
+
+    /**
+     * finish
+     *
+     * Method that stores how the recorded game ended.
+     *
+     * @param game is the <code>Game</code> that was recorded.
+     */
+    public void finish(Game game) {
+        this.iScore = game.getScore();
+        this.iLines = game.getLines();
+        this.iPieces = game.getPieces();
+        this.iBoardHash = getBoardHash(game.getBoard());
+    }
+
+    /**
+     * play
+     *
+     * Method that resets a game with the seed of the replay and plays every
+     * action on it. The game stops taking actions once it's over.
+     *
+     * @param game is the <code>Game</code> to play on.
+     */
+    public void play(Game game) {
+        game.reset(lSeed);
+        int iLength = sbActions.length();
+        for (int iA = 0; iA < iLength && !game.isGameOver(); iA++) {
+            apply(game, sbActions.charAt(iA));
+        }
+    }
+
+    /**
+     * apply
+     *
+     * Method that plays one action on a game, the same way a key would.
+     *
+     * @param game is the <code>Game</code> to play on.
+     * @param cAction is the <code>char</code> action, such as
+     * {@code MOVE_LEFT}.
+     * @return whether or not the action changed the game.
+     */
+    public static boolean apply(Game game, char cAction) {
+        switch (cAction) {
+            case MOVE_LEFT:
+                return game.moveLeft();
+            case MOVE_RIGHT:
+                return game.moveRight();
+            case ROTATE_CLOCKWISE:
+                return game.rotateClockwise();
+            case ROTATE_ANTICLOCKWISE:
+                return game.rotateAnticlockwise();
+            case STEP:
+                game.step();
+                return true;
+            default:
+                throw new IllegalStateException("Unknown action: " + cAction);
+        }
+    }
+
+    /**
+     * check
+     *
+     * Method that compares a game that played this replay with the way the
+     * recorded game ended.
+     *
+     * @param game is the <code>Game</code> the replay was played on.
+     * @return a <code>String</code> describing the first difference, or
+     * null if the game ended the same way.
+     */
+    public String check(Game game) {
+        if (game.getPieces() != iPieces) {
+            return "pieces " + game.getPieces() + " != " + iPieces;
+        }
+        if (game.getLines() != iLines) {
+            return "lines " + game.getLines() + " != " + iLines;
+        }
+        if (game.getScore() != iScore) {
+            return "score " + game.getScore() + " != " + iScore;
+        }
+        int iHash = getBoardHash(game.getBoard());
+        if (iHash != iBoardHash) {
+            return "board " + Integer.toHexString(iHash) + " != "
+                    + Integer.toHexString(iBoardHash);
+        }
+        return null;
+    }
+
+    /**
+     * getPieces
+     *
+     * Method that returns the number of pieces locked in the recorded game.
+     *
+     * @return an <code>integer</code> with the number of pieces.
+     */
+    public int getPieces() {
+        return iPieces;
+    }
+
+    /**
+     * getActionCount
+     *
+     * Method that returns the number of actions recorded.
+     *
+     * @return an <code>integer</code> with the number of actions.
+     */
+    public int getActionCount() {
+        return sbActions.length();
+    }
+
+    /**
+     * write
+     *
+     * Method that saves the replay to a file.
+     *
+     * @param fileReplay is the <code>File</code> to write.
+     * @throws IOException
+     */
+    public void write(File fileReplay) throws IOException {
+        try (PrintWriter pwReplay = new PrintWriter(new FileWriter(fileReplay))) {
+            pwReplay.println(sHeader);
+            pwReplay.println("seed " + lSeed);
+            pwReplay.println("actions " + sbActions);
+            pwReplay.println("score " + iScore);
+            pwReplay.println("lines " + iLines);
+            pwReplay.println("pieces " + iPieces);
+            pwReplay.println("board " + Integer.toHexString(iBoardHash));
+        }
+    }
+
+    /**
+     * read
+     *
+     * Method that loads a replay saved by {@code write}.
+     *
+     * @param fileReplay is the <code>File</code> to read.
+     * @return the <code>Replay</code>.
+     * @throws IOException if the file can't be read or isn't a replay.
+     */
+    public static Replay read(File fileReplay) throws IOException {
+        try (BufferedReader brReplay = new BufferedReader(
+                new FileReader(fileReplay))) {
+            if (!sHeader.equals(brReplay.readLine())) {
+                throw new IOException(fileReplay + " is not a replay");
+            }
+            Replay replay = new Replay(0L);
+            String sLine;
+            while ((sLine = brReplay.readLine()) != null) {
+                int iSpace = sLine.indexOf(' ');
+                if (iSpace < 0) {
+                    continue;
+                }
+                String sKey = sLine.substring(0, iSpace);
+                String sValue = sLine.substring(iSpace + 1).trim();
+                try {
+                    switch (sKey) {
+                        case "seed":
+                            replay.lSeed = Long.parseLong(sValue);
+                            break;
+                        case "actions":
+                            replay.sbActions.append(sValue);
+                            break;
+                        case "score":
+                            replay.iScore = Integer.parseInt(sValue);
+                            break;
+                        case "lines":
+                            replay.iLines = Integer.parseInt(sValue);
+                            break;
+                        case "pieces":
+                            replay.iPieces = Integer.parseInt(sValue);
+                            break;
+                        case "board":
+                            replay.iBoardHash = (int) Long.parseLong(sValue, 16);
+                            break;
+                    }
+                } catch (NumberFormatException excNumber) {
+                    throw new IOException(fileReplay + ": bad " + sKey, excNumber);
+                }
+            }
+            return replay;
+        }
+    }
+
+    /**
+     * getBoardHash
+     *
+     * Method that returns a hash of which tiles of a board are full. Only
+     * the row masks are hashed, so a {@code BoardPanel} and a
+     * {@code Playfield} holding the same stack hash the same.
+     *
+     * @param board is the <code>Board</code>.
+     * @return an <code>integer</code> with the hash.
+     */
+    public static int getBoardHash(Board board) {
+        int iHash = 1;
+        for (int iR = 0; iR < Playfield.ROWS; iR++) {
+            iHash = 31 * iHash + board.getRowMask(iR);
+        }
+        return iHash;
+    }
+}
@@ -0,0 +1,458 @@
+package tetris;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Class ReplaySuite
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code ReplaySuite} class runs a folder of recorded games headless and
+ * checks that every game still ends with the same pieces, lines, score and
+ * board, which every replay stores, so the rules haven't changed. Those are
+ * the same on every machine. With {@code -Dtetris.replay.baseline=<file>}
+ * it also checks that the simulated pieces per second and the bytes
+ * allocated per piece are still within a tolerance of the baseline in that
+ * file; those depend on the machine and the JVM, so the baseline is stored
+ * by {@code update} on the machine that checks it and isn't kept with the
+ * replays. It's run from the command line:
+ * <pre>
+ * java tetris.ReplaySuite check    replays     check the games, the baseline
+ * java tetris.ReplaySuite update   replays     store a new baseline
+ * java tetris.ReplaySuite generate replays 8   record 8 games by a bot
+ * </pre>
+ * The tolerance (0.25 unless {@code -Dtetris.replay.tolerance} says
+ * otherwise) is a fraction of the baseline, and the timed rounds can be set
+ * with {@code -Dtetris.replay.rounds}.
+ */
+public class ReplaySuite {
+
+    // The extension of the replay files.
+    private static final String sReplayExtension = ".replay";
+
+    // The number of pieces a generated game stops at.
+    private static final int iGeneratedPieces = 300;
+
+    // The replays being run.
+    private final List<Replay> lstReplays = new ArrayList<>();
+
+    // The names of the replays, in the same order.
+    private final List<String> lstNames = new ArrayList<>();
+
+    // The game the replays are played on.
+    private final Game game;
+
+    /**
+     * ReplaySuite
+     *
+     * Constructor that creates a suite with no replays.
+     */
+    public ReplaySuite() {
+        this.game = new Game(new Playfield(), new Random());
+    }
+
+    /**
+     * load
+     *
+     * Method that reads every replay of a folder, sorted by name.
+     *
+     * @param fileDir is the <code>File</code> with the folder.
+     * @throws IOException
+     */
+    public void load(File fileDir) throws IOException {
+        File[] fileReplays = fileDir.listFiles();
+        if (fileReplays == null) {
+            throw new IOException(fileDir + " is not a folder");
+        }
+        Arrays.sort(fileReplays);
+        for (File fileReplay : fileReplays) {
+            if (fileReplay.getName().endsWith(sReplayExtension)) {
+                lstReplays.add(Replay.read(fileReplay));
+                lstNames.add(fileReplay.getName());
+            }
+        }
+        if (lstReplays.isEmpty()) {
+            throw new IOException("No replays in " + fileDir);
+        }
+    }
+
+    /**
+     * checkRules
+     *
+     * Method that plays every replay once and reports the ones that end
+     * differently from the recording.
+     *
+     * @return an <code>integer</code> with the number of mismatches.
+     */
+    public int checkRules() {
+        int iMismatches = 0;
+        for (int iR = 0; iR < lstReplays.size(); iR++) {
+            lstReplays.get(iR).play(game);
+            String sMismatch = lstReplays.get(iR).check(game);
+            if (sMismatch != null) {
+                System.out.println("MISMATCH " + lstNames.get(iR) + ": "
+                        + sMismatch);
+                iMismatches++;
+            }
+        }
+        return iMismatches;
+    }
+
+    /**
+     * measure
+     *
+     * Method that plays every replay over and over, first to warm up and
+     * then timed, and returns the pieces per second and the bytes allocated
+     * per piece of the timed rounds.
+     *
+     * @param iRounds is the <code>integer</code> number of timed rounds.
+     * @return a <code>double</code> array with the pieces per second and the
+     * bytes per piece (-1 if the JVM can't count them).
+     */
+    public double[] measure(int iRounds) {
+        for (int iW = 0; iW < iRounds; iW++) {
+            playAll();
+        }
+
+        long lAllocatedStart = getAllocatedBytes();
+        long lStart = System.nanoTime();
+        long lPieces = 0;
+        for (int iR = 0; iR < iRounds; iR++) {
+            lPieces += playAll();
+        }
+        long lNanos = System.nanoTime() - lStart;
+        long lAllocated = getAllocatedBytes() - lAllocatedStart;
+
+        double dPiecesPerSecond = lPieces * 1e9 / lNanos;
+        double dBytesPerPiece = (lAllocatedStart < 0) ? -1.0
+                : (double) lAllocated / lPieces;
+        return new double[]{dPiecesPerSecond, dBytesPerPiece};
+    }
+
+    /**
+     * playAll
+     *
+     * Method that plays every replay once.
+     *
+     * @return a <code>long</code> with the number of pieces locked.
+     */
+    private long playAll() {
+        long lPieces = 0;
+        for (Replay replay : lstReplays) {
+            replay.play(game);
+            lPieces += game.getPieces();
+        }
+        return lPieces;
+    }
+
+    /**
+     * getAllocatedBytes
+     *
+     * Method that returns the bytes allocated by the current thread.
+     *
+     * @return a <code>long</code> value, or -1 if the JVM can't tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean tmxThreads = ManagementFactory.getThreadMXBean();
+        if (!(tmxThreads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) tmxThreads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * generate
+     *
+     * Method that records games played by a simple greedy bot, one per
+     * seed, and saves them in a folder. Every piece is put where it leaves
+     * the lowest stack with the fewest holes.
+     *
+     * @param fileDir is the <code>File</code> with the folder.
+     * @param iCount is the <code>integer</code> number of games.
+     * @throws IOException
+     */
+    public static void generate(File fileDir, int iCount) throws IOException {
+        if (!fileDir.isDirectory() && !fileDir.mkdirs()) {
+            throw new IOException("Can't create " + fileDir);
+        }
+        Playfield board = new Playfield();
+        Playfield boardScratch = new Playfield();
+        Game game = new Game(board, new Random());
+        for (int iG = 1; iG <= iCount; iG++) {
+            Replay replay = new Replay(iG);
+            game.reset(iG);
+            while (!game.isGameOver() && game.getPieces() < iGeneratedPieces) {
+                playPiece(game, board, boardScratch, replay);
+            }
+            replay.finish(game);
+            File fileReplay = new File(fileDir, String.format("game-%02d%s",
+                    iG, sReplayExtension));
+            replay.write(fileReplay);
+            System.out.println(fileReplay + ": " + game.getPieces()
+                    + " pieces, " + game.getLines() + " lines");
+        }
+    }
+
+    /**
+     * playPiece
+     *
+     * Method that picks a place for the current piece, moves it there and
+     * drops it, recording every action.
+     *
+     * @param game is the <code>Game</code> being played.
+     * @param board is the <code>Playfield</code> of the game.
+     * @param boardScratch is a <code>Playfield</code> to try places on.
+     * @param replay is the <code>Replay</code> being recorded.
+     */
+    private static void playPiece(Game game, Playfield board,
+            Playfield boardScratch, Replay replay) {
+        TileType ttType = game.getPieceType();
+        int[][] iState = board.getState();
+
+        /*
+        * Try every rotation and column from the spawn row, and keep the one
+        * that leaves the best board.
+        */
+        int iBestRotation = 0;
+        int iBestCol = game.getPieceCol();
+        int iBestScore = Integer.MIN_VALUE;
+        for (int iRot = 0; iRot < 4; iRot++) {
+            for (int iC = -2; iC < Playfield.COLUMNS; iC++) {
+                int iRow = game.getPieceRow();
+                if (!board.isValidAndEmpty(ttType, iC, iRow, iRot)) {
+                    continue;
+                }
+                int iLanding = board.getLandingRow(ttType, iC, iRow, iRot);
+                boardScratch.setState(iState);
+                boardScratch.addPiece(ttType, iC, iLanding, iRot);
+                int iCleared = boardScratch.checkLines();
+                int iScore = iCleared * 76 - evaluate(boardScratch.getState());
+                if (iScore > iBestScore) {
+                    iBestScore = iScore;
+                    iBestRotation = iRot;
+                    iBestCol = iC;
+                }
+            }
+        }
+
+        /*
+        * Rotate, then move sideways until the column is reached or the piece
+        * is blocked, then let it fall until it locks.
+        */
+        for (int iRot = 0; iRot < iBestRotation; iRot++) {
+            replay.record(Replay.ROTATE_CLOCKWISE);
+            game.rotateClockwise();
+        }
+        while (game.getPieceCol() > iBestCol) {
+            replay.record(Replay.MOVE_LEFT);
+            if (!game.moveLeft()) {
+                break;
+            }
+        }
+        while (game.getPieceCol() < iBestCol) {
+            replay.record(Replay.MOVE_RIGHT);
+            if (!game.moveRight()) {
+                break;
+            }
+        }
+        int iLocked = game.getPieces();
+        while (game.getPieces() == iLocked && !game.isGameOver()) {
+            replay.record(Replay.STEP);
+            game.step();
+        }
+    }
+
+    /**
+     * evaluate
+     *
+     * Method that scores a board with the usual weights of a greedy bot:
+     * the sum of the column heights, the empty tiles with a full one above
+     * them, and how much neighbouring columns differ in height.
+     *
+     * @param iState is the <code>integer matrix</code> with the board.
+     * @return an <code>integer</code>, the lower the better.
+     */
+    private static int evaluate(int[][] iState) {
+        int iHeights = 0;
+        int iHoles = 0;
+        int iBumpiness = 0;
+        int iLastHeight = -1;
+        for (int iC = 0; iC < BoardPanel.iColumns; iC++) {
+            int iHeight = 0;
+            for (int iR = 0; iR < BoardPanel.iRows; iR++) {
+                if (iState[iR][iC] != -1) {
+                    if (iHeight == 0) {
+                        iHeight = BoardPanel.iRows - iR;
+                    }
+                } else if (iHeight > 0) {
+                    iHoles++;
+                }
+            }
+            iHeights += iHeight;
+            if (iLastHeight >= 0) {
+                iBumpiness += Math.abs(iHeight - iLastHeight);
+            }
+            iLastHeight = iHeight;
+        }
+        return 51 * iHeights + 36 * iHoles + 18 * iBumpiness;
+    }
+
+    /**
+     * readBaseline
+     *
+     * Method that reads the baseline of this machine.
+     *
+     * @param fileBaseline is the <code>File</code> with the baseline.
+     * @return the <code>Properties</code>, empty if there's no baseline.
+     * @throws IOException
+     */
+    private static Properties readBaseline(File fileBaseline)
+            throws IOException {
+        Properties proBaseline = new Properties();
+        if (fileBaseline.exists()) {
+            try (Reader rdBaseline = new FileReader(fileBaseline)) {
+                proBaseline.load(rdBaseline);
+            }
+        }
+        return proBaseline;
+    }
+
+    /**
+     * writeBaseline
+     *
+     * Method that stores the measurements as the baseline of this machine.
+     *
+     * @param fileBaseline is the <code>File</code> with the baseline.
+     * @param dMeasured is the <code>double</code> array from {@code measure}.
+     * @throws IOException
+     */
+    private static void writeBaseline(File fileBaseline, double[] dMeasured)
+            throws IOException {
+        Properties proBaseline = new Properties();
+        proBaseline.setProperty("pieces.per.second",
+                String.format(Locale.ROOT, "%.0f", dMeasured[0]));
+        proBaseline.setProperty("bytes.per.piece",
+                String.format(Locale.ROOT, "%.1f", dMeasured[1]));
+        File fileParent = fileBaseline.getAbsoluteFile().getParentFile();
+        if (fileParent != null) {
+            fileParent.mkdirs();
+        }
+        try (Writer wrBaseline = new FileWriter(fileBaseline)) {
+            proBaseline.store(wrBaseline, "Replay suite baseline, written by "
+                    + "'ReplaySuite update'");
+        }
+    }
+
+    /**
+     * main
+     *
+     * Method that runs the suite from the command line. Exits with 1 when a
+     * replay ends differently or the measurements fall out of the tolerance.
+     *
+     * @param args is the <code>String</code> array with the command, the
+     * folder and, to generate, the number of games.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        String sCommand = (args.length > 0) ? args[0] : "check";
+        File fileDir = new File((args.length > 1) ? args[1] : "replays");
+
+        if ("generate".equals(sCommand)) {
+            generate(fileDir, (args.length > 2) ? Integer.parseInt(args[2]) : 8);
+            return;
+        }
+        if (!"check".equals(sCommand) && !"update".equals(sCommand)) {
+            System.err.println("Usage: ReplaySuite check|update|generate "
+                    + "<folder> [games]");
+            System.exit(2);
+        }
+
+        double dTolerance = Double.parseDouble(System.getProperty(
+                "tetris.replay.tolerance", "0.25"));
+        int iRounds = Integer.getInteger("tetris.replay.rounds", 200);
+        String sBaseline = System.getProperty("tetris.replay.baseline");
+        if ("update".equals(sCommand) && sBaseline == null) {
+            System.err.println("Set -Dtetris.replay.baseline to the file of "
+                    + "the baseline");
+            System.exit(2);
+        }
+
+        ReplaySuite rsSuite = new ReplaySuite();
+        rsSuite.load(fileDir);
+        int iMismatches = rsSuite.checkRules();
+        System.out.println(rsSuite.lstReplays.size() + " replays, "
+                + iMismatches + " mismatches");
+
+        // The speed is only measured when there's a baseline to keep.
+        if (sBaseline == null) {
+            System.out.println(iMismatches > 0 ? "FAILED" : "PASSED");
+            if (iMismatches > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+        File fileBaseline = new File(sBaseline);
+
+        double[] dMeasured = rsSuite.measure(iRounds);
+        System.out.println(String.format("Pieces/s: %.0f", dMeasured[0]));
+        System.out.println(String.format("Bytes/piece: %.1f", dMeasured[1]));
+
+        if ("update".equals(sCommand)) {
+            if (iMismatches > 0) {
+                System.out.println("Not updating the baseline, the rules "
+                        + "don't match the replays");
+                System.exit(1);
+            }
+            writeBaseline(fileBaseline, dMeasured);
+            System.out.println("Baseline updated");
+            return;
+        }
+
+        boolean bFailed = iMismatches > 0;
+        Properties proBaseline = readBaseline(fileBaseline);
+        String sPieces = proBaseline.getProperty("pieces.per.second");
+        String sBytes = proBaseline.getProperty("bytes.per.piece");
+        if (sPieces == null || sBytes == null) {
+            System.out.println("No baseline in " + fileBaseline
+                    + ", run 'update' to store one");
+        } else {
+            double dBasePieces = Double.parseDouble(sPieces);
+            double dBaseBytes = Double.parseDouble(sBytes);
+            if (dMeasured[0] < dBasePieces * (1.0 - dTolerance)) {
+                System.out.println(String.format("REGRESSION pieces/s %.0f "
+                        + "below baseline %.0f", dMeasured[0], dBasePieces));
+                bFailed = true;
+            }
+            // A few bytes of slack, so a baseline of zero doesn't fail on noise.
+            if (dMeasured[1] >= 0
+                    && dMeasured[1] > dBaseBytes * (1.0 + dTolerance) + 16.0) {
+                System.out.println(String.format("REGRESSION bytes/piece %.1f "
+                        + "above baseline %.1f", dMeasured[1], dBaseBytes));
+                bFailed = true;
+            }
+        }
+        System.out.println(bFailed ? "FAILED" : "PASSED");
+        if (bFailed) {
+            System.exit(1);
+        }
+    }
+}
@@ -73,6 +73,30 @@ public class SidePanel extends JPanel {
     // The Tetris instance.
     private Tetris tetris;
 
+    // Reusable x coordinates for the tile polygons of the preview.
+    private final int[] iXPoints = new int[3];
+
+    // Reusable y coordinates for the tile polygons of the preview.
+    private final int[] iYPoints = new int[3];
+
+    // The level shown by the cached level label.
+    private int iShownLevel = -1;
+
+    // The cached "Level: " label, rebuilt only when the level changes.
+    private String sLevelLabel;
+
+    // The score shown by the cached score label.
+    private int iShownScore = -1;
+
+    // The cached "Score: " label, rebuilt only when the score changes.
+    private String sScoreLabel;
+
+    // The theme shown by the cached music label.
+    private String sShownMusic;
+
+    // The cached "Music: " label, rebuilt only when the theme changes.
+    private String sMusicLabel;
+
     /**
      * SidePanel
      * 
@@ -89,7 +113,22 @@ public class SidePanel extends JPanel {
 
     @Override
     public void paintComponent(Graphics graGraphic) {
+        Object oFrame = GameEvents.beginFrame();
         super.paintComponent(graGraphic);
+        drawFrame(graGraphic);
+        GameEvents.endFrame(oFrame, false);
+    }
+
+    /**
+     * drawFrame
+     * 
+     * Method that draws the contents of the side panel. It is used both by
+     * {@code paintComponent} and by the {@code GameCanvas} when the game is
+     * rendered actively.
+     * 
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     */
+    public void drawFrame(Graphics graGraphic) {
         //Set the color for drawing.
         graGraphic.setColor(cDrawColor);
         //This variable stores the current y coordinate of the string.
@@ -100,12 +139,18 @@ public class SidePanel extends JPanel {
         graGraphic.setFont(fLargeFont);
         graGraphic.drawString("Stats", iSmallInset, iOffset = iStatsInset);
         graGraphic.setFont(fSmallFont);
-        graGraphic.drawString("Level: " + tetris.getLevel(), iLargeInset, iOffset += iTextStride);
-        graGraphic.drawString("Score: " + tetris.getScore(), iLargeInset, iOffset += iTextStride);
-        drawControls(graGraphic, iOffset); // Draw the "Controls" category.
+        graGraphic.drawString(getLevelLabel(), iLargeInset, iOffset += iTextStride);
+        graGraphic.drawString(getScoreLabel(), iLargeInset, iOffset += iTextStride);
+        // Draw the "Controls" category, or the performance overlay in its
+        // place when it's turned on.
+        PerfCounters perf = tetris.getPerfCounters();
+        if (perf != null && perf.isEnabled()) {
+            drawPerformance(graGraphic, perf);
+        } else {
+            drawControls(graGraphic, iOffset);
+        }
         graGraphic.setFont(fSmallFont); // Draw music theme playing.
-        graGraphic.drawString("Music: " + tetris.getMusic(), 
-                iLargeInset * 2, 15);
+        graGraphic.drawString(getMusicLabel(), iLargeInset * 2, 15);
         // Draw the next piece preview box.
         graGraphic.setFont(fLargeFont);
         graGraphic.drawString("Next Piece", iSmallInset, 70);
@@ -114,6 +159,57 @@ public class SidePanel extends JPanel {
         drawPreview(graGraphic);
     }
 
+    /**
+     * getLevelLabel
+     * 
+     * Method that returns the level label, building a new string only when
+     * the level has changed since the last frame.
+     * 
+     * @return the <code>String</code> with the level label.
+     */
+    private String getLevelLabel() {
+        int iLevel = tetris.getLevel();
+        if (sLevelLabel == null || iLevel != iShownLevel) {
+            iShownLevel = iLevel;
+            sLevelLabel = "Level: " + iLevel;
+        }
+        return sLevelLabel;
+    }
+
+    /**
+     * getScoreLabel
+     * 
+     * Method that returns the score label, building a new string only when
+     * the score has changed since the last frame.
+     * 
+     * @return the <code>String</code> with the score label.
+     */
+    private String getScoreLabel() {
+        int iScore = tetris.getScore();
+        if (sScoreLabel == null || iScore != iShownScore) {
+            iShownScore = iScore;
+            sScoreLabel = "Score: " + iScore;
+        }
+        return sScoreLabel;
+    }
+
+    /**
+     * getMusicLabel
+     * 
+     * Method that returns the music label, building a new string only when
+     * the theme has changed since the last frame.
+     * 
+     * @return the <code>String</code> with the music label.
+     */
+    private String getMusicLabel() {
+        String sMusic = tetris.getMusic();
+        if (sMusicLabel == null || sMusic != sShownMusic) {
+            sShownMusic = sMusic;
+            sMusicLabel = "Music: " + sMusic;
+        }
+        return sMusicLabel;
+    }
+
     /**
      * drawControls
      * 
@@ -148,6 +244,26 @@ public class SidePanel extends JPanel {
                 iOffset += iTextStride);
     }
     
+    /**
+     * drawPerformance
+     * 
+     * Method that draws the performance overlay in the SidePanel, where the
+     * controls usually are.
+     * 
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     * @param perf is the <code>PerfCounters</code> with the lines to draw.
+     */
+    public void drawPerformance(Graphics graGraphic, PerfCounters perf) {
+        int iOffset;
+        graGraphic.setFont(fLargeFont);
+        graGraphic.drawString("Performance (F3)", iSmallInset,
+                iOffset = iControlsInset);
+        graGraphic.setFont(fSmallFont);
+        for (String sLine : perf.getLines()) {
+            graGraphic.drawString(sLine, iLargeInset, iOffset += iTextStride);
+        }
+    }
+    
     /**
      * drawPreview
      * 
@@ -202,16 +318,32 @@ public class SidePanel extends JPanel {
 
         // Fill the bottom and right edges of the tile with the dark shading color.
         graGraphic.setColor(ttType.getBaseColor());
-        int xPoints[] = {iX, iX, iX + (iTileSize / 2)};
-        int yPoints[] = {iY + iTileSize, iY, iY + (iTileSize / 2)};
-        int xPoints2[] = {iX + (iTileSize / 2), iX + iTileSize, iX + iTileSize};
-        int yPoints2[] = {iY + (iTileSize / 2), iY + iTileSize, iY};
-        graGraphic.fillPolygon(xPoints, yPoints, 3);
-        graGraphic.fillPolygon(xPoints2, yPoints2, 3);
+        int iHalf = iTileSize / 2;
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX, iY, iX + iHalf,
+                iY + iHalf);
+        fillTriangle(graGraphic, iX + iHalf, iY + iHalf, iX + iTileSize,
+                iY + iTileSize, iX + iTileSize, iY);
 
         graGraphic.setColor(ttType.getDarkColor());
-        int xPoints3[] = {iX, iX + iTileSize, iX + (iTileSize / 2)};
-        int yPoints3[] = {iY + iTileSize, iY + iTileSize, iY + (iTileSize / 2)};
-        graGraphic.fillPolygon(xPoints3, yPoints3, 3);
+        fillTriangle(graGraphic, iX, iY + iTileSize, iX + iTileSize,
+                iY + iTileSize, iX + iHalf, iY + iHalf);
+    }
+
+    /**
+     * fillTriangle
+     * 
+     * Method that fills a triangle using the reusable coordinate buffers.
+     * 
+     * @param graGraphic is the <code>Graphic</code> of the game.
+     */
+    private void fillTriangle(Graphics graGraphic, int iX0, int iY0, int iX1,
+            int iY1, int iX2, int iY2) {
+        iXPoints[0] = iX0;
+        iXPoints[1] = iX1;
+        iXPoints[2] = iX2;
+        iYPoints[0] = iY0;
+        iYPoints[1] = iY1;
+        iYPoints[2] = iY2;
+        graGraphic.fillPolygon(iXPoints, iYPoints, 3);
     }
 }
@@ -0,0 +1,169 @@
+package tetris;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Class SoundBank
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code SoundBank} class loads and decodes the sound effects of the game
+ * once, and hands out {@code Clip}s that are already opened with that data.
+ * Clips are given back to the bank when they are no longer needed and reused
+ * for the next request of the same file, so playing an effect neither decodes
+ * the file again nor opens new mixer lines. The themes are long, so they are
+ * streamed by {@code MusicStream} instead of being decoded here.
+ */
+public class SoundBank {
+
+    // The themes that can be chosen with the number keys, in key order.
+    // They are played by MusicStream, but can still be loaded on demand.
+    public static final String[] THEMES = {"Classic.wav", "Horror.wav",
+        "Move.wav", "Pop.wav", "Relaxed.wav"};
+
+    // The sound of a horizontal line popped.
+    public static final String POPPED = "popped.wav";
+
+    // The sound of a tile at the bottom.
+    public static final String BOTTOM = "bottom.wav";
+
+    // The decoded audio data of every file, by file name.
+    private final Map<String, byte[]> mapData = new HashMap<>();
+
+    // The format of the decoded audio data, by file name.
+    private final Map<String, AudioFormat> mapFormats = new HashMap<>();
+
+    // The opened clips that aren't in use, by file name.
+    private final Map<String, ArrayDeque<Clip>> mapIdle = new HashMap<>();
+
+    /**
+     * SoundBank
+     *
+     * Constructor that loads and decodes the sound effects.
+     */
+    public SoundBank() {
+        load(POPPED);
+        load(BOTTOM);
+    }
+
+    /**
+     * load
+     *
+     * Method that reads and decodes an audio file into memory. Files that are
+     * missing or can't be decoded are skipped, and will play as silence.
+     *
+     * @param sFilename is the <code>String</code> with the name of the file.
+     * @return a <code>boolean</code> value to know if the file was loaded.
+     */
+    public synchronized boolean load(String sFilename) {
+        if (mapData.containsKey(sFilename)) {
+            return true;
+        }
+        URL url = getClass().getResource(sFilename);
+        if (url == null) {
+            return false;
+        }
+        try (AudioInputStream aiSample = AudioSystem.getAudioInputStream(url)) {
+            ByteArrayOutputStream baosData = new ByteArrayOutputStream();
+            byte[] byteBuffer = new byte[8192];
+            int iRead;
+            while ((iRead = aiSample.read(byteBuffer)) > 0) {
+                baosData.write(byteBuffer, 0, iRead);
+            }
+            mapData.put(sFilename, baosData.toByteArray());
+            mapFormats.put(sFilename, aiSample.getFormat());
+            mapIdle.put(sFilename, new ArrayDeque<Clip>());
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (UnsupportedAudioFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * acquire
+     *
+     * Method that returns a clip opened with the data of a file, reusing an
+     * idle one when there is one.
+     *
+     * @param sFilename is the <code>String</code> with the name of the file.
+     * @return a <code>Clip</code>, or <code>null</code> if the file isn't
+     * loaded or no line is available.
+     */
+    public synchronized Clip acquire(String sFilename) {
+        ArrayDeque<Clip> dqIdle = mapIdle.get(sFilename);
+        if (dqIdle == null) {
+            return null;
+        }
+        Clip cClip = dqIdle.pollFirst();
+        if (cClip != null) {
+            return cClip;
+        }
+        byte[] byteData = mapData.get(sFilename);
+        try {
+            cClip = AudioSystem.getClip();
+            cClip.open(mapFormats.get(sFilename), byteData, 0,
+                    byteData.length);
+            return cClip;
+        } catch (LineUnavailableException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * release
+     *
+     * Method that gives a clip back to the bank so it can be reused. The clip
+     * is stopped and rewound but stays open.
+     *
+     * @param sFilename is the <code>String</code> with the name of the file
+     * the clip was acquired for.
+     * @param cClip is the <code>Clip</code> to give back.
+     */
+    public synchronized void release(String sFilename, Clip cClip) {
+        if (cClip == null) {
+            return;
+        }
+        cClip.stop();
+        cClip.setFramePosition(0);
+        ArrayDeque<Clip> dqIdle = mapIdle.get(sFilename);
+        if (dqIdle != null) {
+            dqIdle.addFirst(cClip);
+        } else {
+            cClip.close();
+        }
+    }
+
+    /**
+     * close
+     *
+     * Method that closes every idle clip and frees their mixer lines.
+     */
+    public synchronized void close() {
+        for (ArrayDeque<Clip> dqIdle : mapIdle.values()) {
+            for (Clip cClip : dqIdle) {
+                cClip.close();
+            }
+            dqIdle.clear();
+        }
+    }
+}
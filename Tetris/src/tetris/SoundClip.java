@@ -39,6 +39,19 @@ public class SoundClip {
     // Long number with the actual time of reproduction of the audio.
     private long lClipTime = 0;
 
+    // The SoundBank the clip was taken from, if any.
+    private SoundBank sbBank;
+
+    // The voices of a polyphonic sound effect, or null for a single clip.
+    // The first voice is also kept in cClip.
+    private Clip[] cVoices;
+
+    // The time each voice was last started, used to steal the oldest one.
+    private long[] lVoiceStarts;
+
+    // The voice where the search for a free voice starts (round-robin).
+    private int iNextVoice;
+
     /**
      * Default constructor of class SoundClip.
      */
@@ -64,6 +77,65 @@ public class SoundClip {
         load(sFilename);
     }
 
+    /**
+     * Constructor that takes an already decoded and opened clip from a
+     * SoundBank instead of loading the file again.
+     *
+     * @param sbBank is the <code>SoundBank</code> that holds the file.
+     * @param sFilename is the <code>String</code> with the name of the file.
+     */
+    public SoundClip(SoundBank sbBank, String sFilename) {
+        this.sbBank = sbBank;
+        setFilename(sFilename);
+        cClip = sbBank.acquire(sFilename);
+    }
+
+    /**
+     * Constructor for a polyphonic sound effect. Takes several clips of the
+     * same file from a SoundBank, so that playing the effect again while it's
+     * still sounding starts another voice instead of cutting it off.
+     *
+     * @param sbBank is the <code>SoundBank</code> that holds the file.
+     * @param sFilename is the <code>String</code> with the name of the file.
+     * @param iVoices is the <code>integer</code> number of voices.
+     */
+    public SoundClip(SoundBank sbBank, String sFilename, int iVoices) {
+        this(sbBank, sFilename);
+        if (cClip == null || iVoices < 2) {
+            return;
+        }
+        cVoices = new Clip[iVoices];
+        lVoiceStarts = new long[iVoices];
+        cVoices[0] = cClip;
+        for (int iV = 1; iV < iVoices; iV++) {
+            cVoices[iV] = sbBank.acquire(sFilename);
+        }
+    }
+
+    /**
+     * Method that stops the audio and gives the clip back to its SoundBank,
+     * or closes it if it wasn't taken from one. The SoundClip can't be
+     * played afterwards.
+     */
+    public void release() {
+        if (cClip == null) {
+            return;
+        }
+        if (cVoices != null) {
+            for (Clip cVoice : cVoices) {
+                sbBank.release(sFilename, cVoice);
+            }
+            cVoices = null;
+        } else if (sbBank != null) {
+            sbBank.release(sFilename, cClip);
+        } else {
+            cClip.stop();
+            cClip.close();
+        }
+        cClip = null;
+        aiSample = null;
+    }
+
     /**
      * Access method that returns a type Clip object.
      *
@@ -135,7 +207,7 @@ public class SoundClip {
      * @return aiSample is a<code>sample object</code>.
      */
     public boolean isLoaded() {
-        return (boolean) (aiSample != null);
+        return cClip != null && (aiSample != null || sbBank != null);
     }
 
     /**
@@ -186,22 +258,69 @@ public class SoundClip {
         if (!isLoaded()) {
             return;
         }
+        // Polyphonic effects start on a voice of their own.
+        Clip cVoice = (cVoices != null) ? nextVoice() : cClip;
+
         // Starts playing from the start of the file.
-        cClip.setFramePosition(0);
+        cVoice.setFramePosition(0);
 
         // Play with the looping option.
         if (bLooping) {
-            cClip.loop(Clip.LOOP_CONTINUOUSLY);
+            cVoice.loop(Clip.LOOP_CONTINUOUSLY);
         } else {
-            cClip.loop(iRepeat);
+            cVoice.loop(iRepeat);
+        }
+    }
+
+    /**
+     * Method that picks the voice to play a polyphonic effect on. Starting
+     * from the round-robin position it takes the first voice that's silent,
+     * and if every voice is sounding it steals the one started longest ago.
+     * The pool is small and fixed, so this takes constant time.
+     *
+     * @return the <code>Clip</code> of the chosen voice, already stopped.
+     */
+    private Clip nextVoice() {
+        int iVoices = cVoices.length;
+        int iChosen = -1;
+        int iOldest = iNextVoice;
+        for (int iV = 0; iV < iVoices; iV++) {
+            int iIndex = (iNextVoice + iV) % iVoices;
+            if (cVoices[iIndex] == null) {
+                continue;
+            }
+            if (!cVoices[iIndex].isRunning()) {
+                iChosen = iIndex;
+                break;
+            }
+            if (lVoiceStarts[iIndex] < lVoiceStarts[iOldest]
+                    || cVoices[iOldest] == null) {
+                iOldest = iIndex;
+            }
+        }
+        if (iChosen == -1) {
+            // Every voice is busy, so the oldest one gets cut off.
+            iChosen = (cVoices[iOldest] != null) ? iOldest : 0;
+            cVoices[iChosen].stop();
         }
+        lVoiceStarts[iChosen] = System.nanoTime();
+        iNextVoice = (iChosen + 1) % iVoices;
+        return cVoices[iChosen];
     }
 
     /**
      * Method that stops the audio.
      */
     public void stop() {
-        cClip.stop();
+        if (cVoices != null) {
+            for (Clip cVoice : cVoices) {
+                if (cVoice != null) {
+                    cVoice.stop();
+                }
+            }
+        } else if (cClip != null) {
+            cClip.stop();
+        }
         
         // Set the clip time in 0, so it starts again if needed.
         lClipTime = 0;
@@ -211,6 +330,9 @@ public class SoundClip {
      * Method that pauses the audio.
      */
     public void pause() {
+        if (!isLoaded()) {
+            return;
+        }
         // Get the actual position and save it for later.
         lClipTime = cClip.getMicrosecondPosition();
         cClip.stop();
@@ -221,6 +343,9 @@ public class SoundClip {
      * Method that plays again the audio from where it left.
      */
     public void unpause() {
+        if (!isLoaded()) {
+            return;
+        }
         // Play from where it left the last time.
         cClip.setMicrosecondPosition(lClipTime);
 
@@ -0,0 +1,905 @@
+package tetris;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class SpectatorStream
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code SpectatorStream} class sends a game to spectators as a stream
+ * of changes. Every tick of the game it compares the board, the piece and
+ * the score with what it sent last and writes a frame with only what
+ * changed: the rows whose tiles changed, as the bits that flipped, the
+ * piece, and the score, level and lines. A tick where nothing changed sends
+ * nothing, so the stream grows with what happens in the game and not with
+ * the size of the board; a piece falling a row is 8 bytes. Every
+ * {@code -Dtetris.spectate.keyframe} ticks (250, 5 seconds) a keyframe
+ * with everything is sent, so a viewer can start in the middle.
+ * <p>
+ * The stream starts with the magic number and the version, then every frame
+ * is, big endian:
+ * <pre>
+ * byte   flags: KEYFRAME, CELLS, PIECE, SCORE and OVER
+ * short  ticks since the last frame
+ * CELLS: byte rows, then for every row: byte row, short flipped columns
+ * PIECE: byte column, byte row, byte rotation, byte piece, byte next
+ * SCORE: int score, short level, int lines
+ * </pre>
+ * A keyframe starts from an empty board, with every part. A frame with no
+ * parts (only OVER, if the game is over) is sent when 65535 ticks pass
+ * without a change, so the count of ticks never has to be cut short.
+ * <p>
+ * The stream is written to a file ({@code -Dtetris.spectate.file}), and to
+ * every viewer connected to a port of localhost
+ * ({@code -Dtetris.spectate.port}). The game only encodes every frame once
+ * and hands it to a thread of its own, which writes the file and serves the
+ * viewers with a {@code Selector}, so the game never waits for the disk or
+ * a viewer. A new viewer gets the last keyframe and the frames since. The
+ * bytes waiting for a viewer start in a small buffer that grows as it falls
+ * behind, and a viewer more than {@code iMaxPending} bytes behind is
+ * disconnected instead of slowing down the game. {@code close} sends the
+ * frames left and closes the file.
+ * {@code java tetris.SpectatorStream file|port} shows a stream.
+ */
+public class SpectatorStream {
+
+    // The first bytes of a stream, "TSPC".
+    public static final int MAGIC = 0x54535043;
+
+    // The version of the format.
+    public static final int VERSION = 1;
+
+    // The flags of a frame.
+    public static final int CELLS = 1;
+    public static final int PIECE = 2;
+    public static final int SCORE = 4;
+    public static final int OVER = 8;
+    public static final int KEYFRAME = 0x80;
+
+    // The most bytes a viewer can fall behind.
+    private static final int iMaxPending = 256 * 1024;
+
+    // The bytes first kept for a viewer, before it falls behind.
+    private static final int iFirstPending = 4096;
+
+    // The largest frame: the flags, the ticks, every row, piece and score.
+    private static final int iMaxFrame = 3 + 1 + 3 * Playfield.ROWS + 5 + 10;
+
+    // The ticks between two keyframes.
+    private final int iKeyframeTicks;
+
+    // The writer of the file and the server of the viewers.
+    private final Broadcaster broadcaster;
+
+    // The thread of the broadcaster.
+    private final Thread thrBroadcaster;
+
+    // The frame being written.
+    private final byte[] bFrame = new byte[iMaxFrame];
+
+    // The length of the frame being written.
+    private int iLength;
+
+    // The rows sent last.
+    private final int[] iRows = new int[Playfield.ROWS];
+
+    // The piece sent last: column, row, rotation, piece and next piece.
+    private final int[] iPiece = new int[5];
+
+    // The piece of this tick.
+    private final int[] iNewPiece = new int[5];
+
+    // The score, level and lines sent last.
+    private int iScore;
+    private int iLevel;
+    private int iLines;
+
+    // Whether or not the game was over in the last frame.
+    private boolean bOver;
+
+    // The ticks since the last frame.
+    private int iIdleTicks;
+
+    // The ticks until the next keyframe, 0 for the next tick.
+    private int iTicksToKeyframe;
+
+    /**
+     * SpectatorStream
+     *
+     * Constructor that creates a stream to a file, to viewers, or both.
+     *
+     * @param osFile is the <code>OutputStream</code> of the file, or null.
+     * @param iPort is the <code>integer</code> port of the viewers, 0 for
+     * none.
+     * @param iKeyframeTicks is the <code>integer</code> ticks between two
+     * keyframes.
+     * @throws IOException
+     */
+    public SpectatorStream(OutputStream osFile, int iPort, int iKeyframeTicks)
+            throws IOException {
+        this.iKeyframeTicks = Math.max(1, iKeyframeTicks);
+        if (osFile != null) {
+            writeHeader(osFile);
+        }
+        broadcaster = new Broadcaster(osFile, iPort);
+        thrBroadcaster = new Thread(broadcaster, "Tetris spectators");
+        thrBroadcaster.setDaemon(true);
+        thrBroadcaster.start();
+    }
+
+    /**
+     * create
+     *
+     * Method that creates the stream of {@code -Dtetris.spectate.file} and
+     * {@code -Dtetris.spectate.port}.
+     *
+     * @return the <code>SpectatorStream</code>, or null if neither is set.
+     */
+    public static SpectatorStream create() {
+        String sFile = System.getProperty("tetris.spectate.file");
+        int iPort = Integer.getInteger("tetris.spectate.port", 0);
+        if (sFile == null && iPort <= 0) {
+            return null;
+        }
+        try {
+            return new SpectatorStream((sFile == null) ? null
+                    : new BufferedOutputStream(new FileOutputStream(sFile)),
+                    iPort, Integer.getInteger("tetris.spectate.keyframe",
+                    250));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * publish
+     *
+     * Method that sends what changed in a game since the last tick. Called
+     * once per tick, while holding the lock of the game.
+     *
+     * @param game is the <code>Game</code> being played.
+     */
+    public void publish(Game game) {
+        boolean bKeyframe = iTicksToKeyframe-- <= 0;
+        if (bKeyframe) {
+            iTicksToKeyframe = iKeyframeTicks - 1;
+            Arrays.fill(iRows, 0);
+            Arrays.fill(iPiece, -1);
+            iScore = -1;
+            bOver = false;
+        }
+        iIdleTicks++;
+
+        /*
+        * The flags and the ticks go first; the rows that changed are
+        * written after their count, which is filled in at the end.
+        */
+        iLength = 4;
+        int iFlags = bKeyframe ? KEYFRAME : 0;
+        int iChanged = 0;
+        Board board = game.getBoard();
+        for (int iR = 0; iR < Playfield.ROWS; iR++) {
+            int iMask = board.getRowMask(iR);
+            int iFlipped = iMask ^ iRows[iR];
+            if (iFlipped != 0) {
+                putByte(iR);
+                putShort(iFlipped);
+                iRows[iR] = iMask;
+                iChanged++;
+            }
+        }
+        if (iChanged > 0 || bKeyframe) {
+            iFlags |= CELLS;
+            bFrame[3] = (byte) iChanged;
+        } else {
+            iLength = 3;
+        }
+
+        iNewPiece[0] = game.getPieceCol();
+        iNewPiece[1] = game.getPieceRow();
+        iNewPiece[2] = game.getPieceRotation();
+        iNewPiece[3] = game.getPieceType().ordinal();
+        iNewPiece[4] = game.getNextPieceType().ordinal();
+        if (!Arrays.equals(iNewPiece, iPiece)) {
+            iFlags |= PIECE;
+            for (int iP = 0; iP < iPiece.length; iP++) {
+                iPiece[iP] = iNewPiece[iP];
+                putByte(iNewPiece[iP]);
+            }
+        }
+
+        if (game.getScore() != iScore || game.getLevel() != iLevel
+                || game.getLines() != iLines) {
+            iFlags |= SCORE;
+            iScore = game.getScore();
+            iLevel = game.getLevel();
+            iLines = game.getLines();
+            putInt(iScore);
+            putShort(iLevel);
+            putInt(iLines);
+        }
+        boolean bChanged = iFlags != 0 || game.isGameOver() != bOver;
+        bOver = game.isGameOver();
+        if (bOver) {
+            iFlags |= OVER;
+        }
+
+        // Nothing changed, so nothing is sent, unless the ticks would no
+        // longer fit in the frame.
+        if (!bChanged && iIdleTicks < 0xFFFF) {
+            return;
+        }
+        bFrame[0] = (byte) iFlags;
+        bFrame[1] = (byte) (iIdleTicks >>> 8);
+        bFrame[2] = (byte) iIdleTicks;
+        iIdleTicks = 0;
+        send();
+    }
+
+    /**
+     * send
+     *
+     * Method that hands the frame to the broadcaster, to write to the file
+     * and the viewers.
+     */
+    private void send() {
+        broadcaster.offer(Arrays.copyOf(bFrame, iLength));
+    }
+
+    /**
+     * putByte
+     *
+     * Method that adds a byte to the frame.
+     *
+     * @param iValue is the <code>integer</code> with the byte.
+     */
+    private void putByte(int iValue) {
+        bFrame[iLength++] = (byte) iValue;
+    }
+
+    /**
+     * putShort
+     *
+     * Method that adds two bytes to the frame.
+     *
+     * @param iValue is the <code>integer</code> with the short.
+     */
+    private void putShort(int iValue) {
+        bFrame[iLength++] = (byte) (iValue >>> 8);
+        bFrame[iLength++] = (byte) iValue;
+    }
+
+    /**
+     * putInt
+     *
+     * Method that adds four bytes to the frame.
+     *
+     * @param iValue is the <code>integer</code>.
+     */
+    private void putInt(int iValue) {
+        putShort(iValue >>> 16);
+        putShort(iValue);
+    }
+
+    /**
+     * close
+     *
+     * Method that writes the frames published so far, closes the file and
+     * stops serving viewers. Nothing is published after it.
+     */
+    public void close() {
+        broadcaster.stop();
+        try {
+            thrBroadcaster.join();
+        } catch (InterruptedException excInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * writeHeader
+     *
+     * Method that writes the magic number and the version.
+     *
+     * @param osOut is the <code>OutputStream</code> to write to.
+     * @throws IOException
+     */
+    private static void writeHeader(OutputStream osOut) throws IOException {
+        osOut.write(getHeader());
+    }
+
+    /**
+     * getHeader
+     *
+     * Method that returns the first bytes of a stream.
+     *
+     * @return a <code>byte</code> array with the header.
+     */
+    private static byte[] getHeader() {
+        return ByteBuffer.allocate(5).putInt(MAGIC).put((byte) VERSION)
+                .array();
+    }
+
+    /**
+     * Class Broadcaster
+     *
+     * The {@code Broadcaster} class writes every frame to the file and to
+     * the viewers, and accepts the viewers, on a thread of its own.
+     */
+    private static final class Broadcaster implements Runnable {
+
+        // The frames handed over by the game and not sent yet.
+        private final ConcurrentLinkedQueue<byte[]> clqFrames =
+                new ConcurrentLinkedQueue<>();
+
+        // The file the stream is written to, or null.
+        private final OutputStream osFile;
+
+        // The selector of the viewers.
+        private final Selector selViewers;
+
+        // The channel the viewers connect to, or null.
+        private final ServerSocketChannel sscServer;
+
+        // The viewers, with their pending bytes attached.
+        private final ArrayList<SelectionKey> alViewers = new ArrayList<>();
+
+        // The buffer what viewers send is read into and ignored.
+        private final ByteBuffer bbIgnored = ByteBuffer.allocate(256);
+
+        // The last keyframe and the frames after it, for new viewers.
+        private byte[] bCatchUp = new byte[4096];
+
+        // The length of the catch up bytes.
+        private int iCatchUp;
+
+        // Whether or not the broadcaster is running.
+        private volatile boolean bRunning = true;
+
+        /**
+         * Broadcaster
+         *
+         * Constructor that opens the port of the viewers, if any.
+         *
+         * @param osFile is the <code>OutputStream</code> of the file, or
+         * null.
+         * @param iPort is the <code>integer</code> port on localhost, 0 for
+         * none.
+         * @throws IOException
+         */
+        private Broadcaster(OutputStream osFile, int iPort)
+                throws IOException {
+            this.osFile = osFile;
+            selViewers = Selector.open();
+            if (iPort > 0) {
+                sscServer = ServerSocketChannel.open();
+                sscServer.bind(new InetSocketAddress(
+                        InetAddress.getLoopbackAddress(), iPort));
+                sscServer.configureBlocking(false);
+                sscServer.register(selViewers, SelectionKey.OP_ACCEPT);
+            } else {
+                sscServer = null;
+            }
+        }
+
+        /**
+         * offer
+         *
+         * Method that hands a frame over to be sent. Called by the game.
+         *
+         * @param bFrame is the <code>byte</code> array of the frame.
+         */
+        private void offer(byte[] bFrame) {
+            if (bRunning) {
+                clqFrames.add(bFrame);
+                selViewers.wakeup();
+            }
+        }
+
+        /**
+         * stop
+         *
+         * Method that stops the thread once the frames handed over are
+         * sent, closing the file and every viewer.
+         */
+        private void stop() {
+            bRunning = false;
+            selViewers.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (bRunning) {
+                    selViewers.select();
+                    Iterator<SelectionKey> itKeys =
+                            selViewers.selectedKeys().iterator();
+                    while (itKeys.hasNext()) {
+                        SelectionKey skKey = itKeys.next();
+                        itKeys.remove();
+                        if (skKey.isValid() && skKey.isAcceptable()) {
+                            accept();
+                        } else if (skKey.isValid() && skKey.isReadable()) {
+                            // A viewer only reads; anything else is a close.
+                            drain(skKey);
+                        } else if (skKey.isValid() && skKey.isWritable()) {
+                            write(skKey);
+                        }
+                    }
+                    sendFrames();
+                }
+
+                // The frames handed over before the stop still go out.
+                sendFrames();
+            } catch (IOException ioe) {
+                System.err.println("Spectators stopped: " + ioe);
+            } finally {
+                for (int iV = alViewers.size() - 1; iV >= 0; iV--) {
+                    drop(alViewers.get(iV));
+                }
+                try {
+                    if (osFile != null) {
+                        osFile.close();
+                    }
+                    if (sscServer != null) {
+                        sscServer.close();
+                    }
+                    selViewers.close();
+                } catch (IOException ioe) {
+                    System.err.println("Spectators not closed: " + ioe);
+                }
+            }
+        }
+
+        /**
+         * sendFrames
+         *
+         * Method that writes the frames handed over to the file and queues
+         * them for every viewer, then writes to the viewers as far as their
+         * channels take it. The file is flushed at every keyframe and at the
+         * end of a game, so whoever reads it as it grows is at most a
+         * keyframe behind.
+         *
+         * @throws IOException
+         */
+        private void sendFrames() throws IOException {
+            byte[] bFrame;
+            while ((bFrame = clqFrames.poll()) != null) {
+                if (osFile != null) {
+                    osFile.write(bFrame);
+                    if ((bFrame[0] & (KEYFRAME | OVER)) != 0) {
+                        osFile.flush();
+                    }
+                }
+                if (sscServer == null) {
+                    continue;
+                }
+                keep(bFrame);
+                for (int iV = alViewers.size() - 1; iV >= 0; iV--) {
+                    SelectionKey skKey = alViewers.get(iV);
+                    if (!queue(skKey, bFrame, bFrame.length)) {
+                        drop(skKey);
+                    }
+                }
+            }
+            for (int iV = alViewers.size() - 1; iV >= 0; iV--) {
+                write(alViewers.get(iV));
+            }
+        }
+
+        /**
+         * keep
+         *
+         * Method that keeps a frame for the viewers that connect later,
+         * starting over at every keyframe.
+         *
+         * @param bFrame is the <code>byte</code> array of the frame.
+         */
+        private void keep(byte[] bFrame) {
+            if ((bFrame[0] & KEYFRAME) != 0) {
+                iCatchUp = 0;
+            }
+            if (iCatchUp + bFrame.length > bCatchUp.length) {
+                bCatchUp = Arrays.copyOf(bCatchUp, Math.max(
+                        bCatchUp.length * 2, iCatchUp + bFrame.length));
+            }
+            System.arraycopy(bFrame, 0, bCatchUp, iCatchUp, bFrame.length);
+            iCatchUp += bFrame.length;
+        }
+
+        /**
+         * queue
+         *
+         * Method that adds bytes to those pending for a viewer, growing its
+         * buffer as needed up to {@code iMaxPending}.
+         *
+         * @param skKey is the <code>SelectionKey</code> of the viewer.
+         * @param bBytes is the <code>byte</code> array with the bytes.
+         * @param iLength is the <code>integer</code> number of bytes.
+         * @return whether or not they fit.
+         */
+        private static boolean queue(SelectionKey skKey, byte[] bBytes,
+                int iLength) {
+            ByteBuffer bbPending = (ByteBuffer) skKey.attachment();
+            if (bbPending.remaining() < iLength) {
+                int iNeeded = bbPending.position() + iLength;
+                if (iNeeded > iMaxPending) {
+                    return false;
+                }
+                ByteBuffer bbGrown = ByteBuffer.allocate(Math.min(iMaxPending,
+                        Math.max(bbPending.capacity() * 2, iNeeded)));
+                bbPending.flip();
+                bbGrown.put(bbPending);
+                bbPending = bbGrown;
+                skKey.attach(bbPending);
+            }
+            bbPending.put(bBytes, 0, iLength);
+            return true;
+        }
+
+        /**
+         * accept
+         *
+         * Method that accepts a viewer and queues the header, the last
+         * keyframe and the frames since for it.
+         *
+         * @throws IOException
+         */
+        private void accept() throws IOException {
+            SocketChannel scViewer = sscServer.accept();
+            if (scViewer == null) {
+                return;
+            }
+            scViewer.configureBlocking(false);
+            SelectionKey skKey = scViewer.register(selViewers,
+                    SelectionKey.OP_READ, ByteBuffer.allocate(iFirstPending));
+            byte[] bHeader = getHeader();
+            if (!queue(skKey, bHeader, bHeader.length)
+                    || !queue(skKey, bCatchUp, iCatchUp)) {
+                // Too far from the keyframe; it starts at the next one.
+                drop(skKey);
+                return;
+            }
+            alViewers.add(skKey);
+        }
+
+        /**
+         * write
+         *
+         * Method that writes the pending bytes of a viewer, as far as its
+         * channel takes them. A buffer that grew goes back to its first
+         * size once it's empty.
+         *
+         * @param skKey is the <code>SelectionKey</code> of the viewer.
+         */
+        private void write(SelectionKey skKey) {
+            if (!skKey.isValid()) {
+                return;
+            }
+            ByteBuffer bbPending = (ByteBuffer) skKey.attachment();
+            bbPending.flip();
+            try {
+                ((SocketChannel) skKey.channel()).write(bbPending);
+            } catch (IOException ioe) {
+                drop(skKey);
+                return;
+            }
+            boolean bLeft = bbPending.hasRemaining();
+            if (!bLeft && bbPending.capacity() > iFirstPending) {
+                skKey.attach(ByteBuffer.allocate(iFirstPending));
+            } else {
+                bbPending.compact();
+            }
+            skKey.interestOps(bLeft ? SelectionKey.OP_READ
+                    | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        /**
+         * drain
+         *
+         * Method that reads and ignores what a viewer sends, closing it
+         * when it has gone.
+         *
+         * @param skKey is the <code>SelectionKey</code> of the viewer.
+         */
+        private void drain(SelectionKey skKey) {
+            bbIgnored.clear();
+            try {
+                if (((SocketChannel) skKey.channel()).read(bbIgnored) < 0) {
+                    drop(skKey);
+                }
+            } catch (IOException ioe) {
+                drop(skKey);
+            }
+        }
+
+        /**
+         * drop
+         *
+         * Method that disconnects a viewer.
+         *
+         * @param skKey is the <code>SelectionKey</code> of the viewer.
+         */
+        private void drop(SelectionKey skKey) {
+            alViewers.remove(skKey);
+            skKey.cancel();
+            try {
+                skKey.channel().close();
+            } catch (IOException ioe) {
+                // Nothing more can be done with the channel.
+            }
+        }
+    }
+
+    /**
+     * Class View
+     *
+     * The {@code View} class is what a viewer knows of the game, rebuilt
+     * from the frames of a stream.
+     */
+    public static final class View {
+
+        // The rows of the board.
+        private final int[] iRows = new int[Playfield.ROWS];
+
+        // The piece: column, row, rotation, piece and next piece.
+        private final int[] iPiece = new int[5];
+
+        // The score, level and lines.
+        private int iScore;
+        private int iLevel;
+        private int iLines;
+
+        // Whether or not the game is over.
+        private boolean bOver;
+
+        // The ticks since the start of the stream.
+        private long lTicks;
+
+        // Whether or not a keyframe has been read.
+        private boolean bSynced;
+
+        /**
+         * readHeader
+         *
+         * Method that checks the first bytes of a stream.
+         *
+         * @param disIn is the <code>DataInputStream</code> of the stream.
+         * @throws IOException
+         */
+        public void readHeader(DataInputStream disIn) throws IOException {
+            if (disIn.readInt() != MAGIC || disIn.readUnsignedByte()
+                    != VERSION) {
+                throw new IOException("Not a spectator stream");
+            }
+        }
+
+        /**
+         * read
+         *
+         * Method that reads a frame and applies it to the view.
+         *
+         * @param disIn is the <code>DataInputStream</code> of the stream.
+         * @return an <code>integer</code> with the flags of the frame.
+         * @throws IOException
+         */
+        public int read(DataInputStream disIn) throws IOException {
+            int iFlags = disIn.readUnsignedByte();
+            lTicks += disIn.readUnsignedShort();
+            if ((iFlags & KEYFRAME) != 0) {
+                Arrays.fill(iRows, 0);
+                bSynced = true;
+            }
+            if ((iFlags & CELLS) != 0) {
+                int iChanged = disIn.readUnsignedByte();
+                for (int iC = 0; iC < iChanged; iC++) {
+                    int iRow = disIn.readUnsignedByte();
+                    if (iRow >= Playfield.ROWS) {
+                        throw new IOException("No row " + iRow);
+                    }
+                    iRows[iRow] ^= disIn.readUnsignedShort();
+                }
+            }
+            if ((iFlags & PIECE) != 0) {
+                for (int iP = 0; iP < iPiece.length; iP++) {
+                    iPiece[iP] = disIn.readByte();
+                }
+            }
+            if ((iFlags & SCORE) != 0) {
+                iScore = disIn.readInt();
+                iLevel = disIn.readUnsignedShort();
+                iLines = disIn.readInt();
+            }
+            bOver = (iFlags & OVER) != 0;
+            return iFlags;
+        }
+
+        /**
+         * matches
+         *
+         * Method that checks whether or not the view shows a game as it is.
+         *
+         * @param game is the <code>Game</code>.
+         * @return whether or not they're the same.
+         */
+        public boolean matches(Game game) {
+            for (int iR = 0; iR < Playfield.ROWS; iR++) {
+                if (iRows[iR] != game.getBoard().getRowMask(iR)) {
+                    return false;
+                }
+            }
+            return iPiece[0] == game.getPieceCol()
+                    && iPiece[1] == game.getPieceRow()
+                    && iPiece[2] == game.getPieceRotation()
+                    && iPiece[3] == game.getPieceType().ordinal()
+                    && iPiece[4] == game.getNextPieceType().ordinal()
+                    && iScore == game.getScore() && iLevel == game.getLevel()
+                    && iLines == game.getLines()
+                    && bOver == game.isGameOver();
+        }
+
+        /**
+         * isSynced
+         *
+         * Method that tells whether or not a keyframe has been read, before
+         * which the board isn't known.
+         *
+         * @return whether or not the view is synced.
+         */
+        public boolean isSynced() {
+            return bSynced;
+        }
+
+        /**
+         * draw
+         *
+         * Method that draws the board with the piece, the score and the
+         * next piece as text.
+         *
+         * @param sbOut is the <code>StringBuilder</code> to draw on.
+         */
+        public void draw(StringBuilder sbOut) {
+            sbOut.append(String.format("tick %d  score %d  level %d  "
+                    + "lines %d  next %s%s%n", lTicks, iScore, iLevel,
+                    iLines, ExternalBot.getLetter(TileType.get(iPiece[4])),
+                    bOver ? "  GAME OVER" : ""));
+            int iType = iPiece[3];
+            for (int iR = 0; iR < Playfield.ROWS; iR++) {
+                int iMask = Playfield.getPieceMask(iType, iPiece[0],
+                        iR - iPiece[1], iPiece[2]);
+                sbOut.append('|');
+                for (int iC = 0; iC < Playfield.COLUMNS; iC++) {
+                    if (((iRows[iR] >>> iC) & 1) != 0) {
+                        sbOut.append('#');
+                    } else if (!bOver && ((iMask >>> iC) & 1) != 0) {
+                        sbOut.append('@');
+                    } else {
+                        sbOut.append(' ');
+                    }
+                }
+                sbOut.append("|\n");
+            }
+        }
+    }
+
+    /**
+     * main
+     *
+     * Method that shows a stream from a file, or from the port of a game on
+     * localhost: the board after every piece locks, and how many bytes a
+     * tick took.
+     *
+     * @param args is the <code>String</code> array with the file or port.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SpectatorStream file|port");
+            System.exit(2);
+        }
+        InputStream isIn;
+        if (args[0].matches("\\d+")) {
+            Socket sckGame = new Socket(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(args[0]));
+            isIn = sckGame.getInputStream();
+        } else {
+            isIn = new FileInputStream(new File(args[0]));
+        }
+
+        CountingInputStream cisIn = new CountingInputStream(
+                new BufferedInputStream(isIn));
+        DataInputStream disIn = new DataInputStream(cisIn);
+        View view = new View();
+        view.readHeader(disIn);
+        long lFrames = 0;
+        StringBuilder sbOut = new StringBuilder();
+        try {
+            while (true) {
+                int iFlags = view.read(disIn);
+                lFrames++;
+                if (view.isSynced() && ((iFlags & (CELLS | OVER)) != 0)) {
+                    sbOut.setLength(0);
+                    view.draw(sbOut);
+                    System.out.print(sbOut);
+                }
+            }
+        } catch (EOFException eofe) {
+            // The end of the stream.
+        }
+        System.out.println(String.format("%d frames, %d ticks, %d bytes, "
+                + "%.1f bytes per tick", lFrames, view.lTicks, cisIn.lCount,
+                (double) cisIn.lCount / Math.max(1, view.lTicks)));
+    }
+
+    /**
+     * Class CountingInputStream
+     *
+     * The {@code CountingInputStream} class counts the bytes read through
+     * it.
+     */
+    private static final class CountingInputStream
+            extends FilterInputStream {
+
+        // The bytes read.
+        private long lCount;
+
+        /**
+         * CountingInputStream
+         *
+         * Constructor that counts the bytes of a stream.
+         *
+         * @param isIn is the <code>InputStream</code> to read.
+         */
+        private CountingInputStream(InputStream isIn) {
+            super(isIn);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int iByte = super.read();
+            if (iByte >= 0) {
+                lCount++;
+            }
+            return iByte;
+        }
+
+        @Override
+        public int read(byte[] bBuffer, int iOffset, int iCount)
+                throws IOException {
+            int iRead = super.read(bBuffer, iOffset, iCount);
+            if (iRead > 0) {
+                lCount += iRead;
+            }
+            return iRead;
+        }
+    }
+}
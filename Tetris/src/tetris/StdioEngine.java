@@ -0,0 +1,121 @@
+package tetris;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class StdioEngine
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code StdioEngine} class is an engine of the protocol of
+ * {@code ExternalBot} that answers with the {@code ExpectimaxBot}, reading
+ * the moves from its standard input and writing the answers to its standard
+ * output. It's an example for engines written elsewhere and a way to check
+ * the protocol end to end:
+ * <pre>
+ * java -Dtetris.bot.engine="java tetris.StdioEngine" tetris.ExternalBot
+ * </pre>
+ * The moves are answered in the order they come, and the answers are only
+ * flushed when there are no more moves waiting to be read, so a batch of
+ * moves gets its answers in one write. With the argument {@code keys} it
+ * answers with the actions that take the piece to its place instead of the
+ * place. The bot is set with the {@code -Dtetris.bot.*} properties.
+ */
+public class StdioEngine {
+
+    /**
+     * StdioEngine
+     *
+     * Constructor that is never used, the engine runs from main.
+     */
+    private StdioEngine() {
+    }
+
+    /**
+     * main
+     *
+     * Method that answers the moves of the game until it quits.
+     *
+     * @param args is the <code>String</code> array, with {@code keys} to
+     * answer with actions.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        boolean bKeys = args.length > 0 && args[0].equals("keys");
+        BufferedReader brIn = new BufferedReader(new InputStreamReader(
+                System.in, StandardCharsets.US_ASCII));
+        Writer wrtOut = new BufferedWriter(new OutputStreamWriter(
+                System.out, StandardCharsets.US_ASCII));
+        ExpectimaxBot bot = ExpectimaxBot.create();
+        Playfield pfField = new Playfield();
+        int[] iRows = new int[Playfield.ROWS];
+        char[] cPath = new char[MoveGenerator.MAX_PATH];
+        StringBuilder sbAnswer = new StringBuilder(MoveGenerator.MAX_PATH);
+
+        String sLine;
+        while ((sLine = brIn.readLine()) != null && !sLine.equals("quit")) {
+            String[] sWords = sLine.split(" ");
+            if (!sWords[0].equals("move")) {
+                // The greeting, or a message of a later version.
+                continue;
+            }
+
+            /*
+            * move <id> <ms> <piece> <col> <row> <rot> <next> <board>
+            */
+            String sId = sWords[1];
+            long lMillis = Long.parseLong(sWords[2]);
+            TileType ttType = ExternalBot.getType(sWords[3].charAt(0));
+            int iCol = Integer.parseInt(sWords[4]);
+            int iRow = Integer.parseInt(sWords[5]);
+            int iRotation = Integer.parseInt(sWords[6]);
+            TileType ttNext = ExternalBot.getType(sWords[7].charAt(0));
+            String sBoard = sWords[8];
+            for (int iR = 0; iR < Playfield.ROWS; iR++) {
+                iRows[iR] = Integer.parseInt(
+                        sBoard.substring(iR * 3, iR * 3 + 3), 16);
+            }
+            // The features are counted once, for the whole board.
+            pfField.setRowMasks(iRows, 0, 1);
+
+            int iLength = (lMillis > 0) ? bot.think(pfField, ttType, iCol,
+                    iRow, iRotation, ttNext, System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(lMillis), cPath)
+                    : bot.think(pfField, ttType, iCol, iRow, iRotation,
+                    ttNext, cPath);
+            sbAnswer.setLength(0);
+            if (bKeys) {
+                sbAnswer.append("keys ").append(sId).append(' ');
+                if (iLength == 0) {
+                    sbAnswer.append('-');
+                } else {
+                    sbAnswer.append(cPath, 0, iLength);
+                }
+            } else {
+                sbAnswer.append("place ").append(sId).append(' ')
+                        .append(bot.getLastColumn()).append(' ')
+                        .append(bot.getLastRow()).append(' ')
+                        .append(bot.getLastRotation());
+            }
+            sbAnswer.append('\n');
+            wrtOut.append(sbAnswer);
+            if (!brIn.ready()) {
+                wrtOut.flush();
+            }
+        }
+        wrtOut.flush();
+        bot.shutdown();
+    }
+}
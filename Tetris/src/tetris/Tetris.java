@@ -4,8 +4,10 @@ import java.awt.BorderLayout;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.Random;
+import java.io.File;
 import java.io.RandomAccessFile;
 import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.JFrame;
 
 /**
@@ -30,8 +32,18 @@ public class Tetris extends JFrame {
     // The number of milliseconds per frame.
     private static final long FRAME_TIME = 1000L / 50L;
 
-    // The number of pieces that exist.
-    private static final int TYPE_COUNT = TileType.values().length;
+    // The number of nanoseconds per logic frame.
+    static final long FRAME_NANOS = FRAME_TIME * 1000000L;
+
+    // The cycles per second of the logic timer while a piece is dropped.
+    static final float DROP_SPEED = 25.0f;
+
+    // The number of milliseconds between redraws of an idle canvas, so the
+    // window still recovers when it's uncovered without any input.
+    private static final long IDLE_REDRAW_TIME = 500L;
+
+    // The number of voices of each sound effect, so quick locks overlap.
+    private static final int SFX_VOICES = 4;
 
     // The BoardPanel instance.
     private BoardPanel board;
@@ -39,61 +51,58 @@ public class Tetris extends JFrame {
     // The SidePanel instance.
     private SidePanel side;
 
-    // Boolean to know whether or not the game is paused.
-    private boolean bPaused;
+    // The GameCanvas instance, only used when rendering actively.
+    private GameCanvas canvas;
 
-    // Boolean to know whether or not we've played a game yet.
-    private boolean isNewGame;
+    // The metrics of the game loop.
+    private FrameMetrics metrics;
 
-    // Boolean to know whether or not the game is over.
-    private boolean isGameOver;
+    // The counters of the performance overlay.
+    private PerfCounters perf;
 
-    // Boolean to know wheter or not the music is playing.
-    private boolean bMusicOn;
+    // The latency from a key to the paint that shows it.
+    private InputLatency latency;
 
-    // Integer with the current level we're on.
-    private int level;
+    // The lock that keeps the input and the gravity steps in order, so a
+    // recorded game plays back the way it was played. It's notified after
+    // every tick, for the bot waiting on it.
+    private final Object oGameLock = new Object();
 
-    // Integer with the current score.
-    private int score;
+    // The folder recorded games are saved in, or null when not recording.
+    private final String sRecordDir = System.getProperty("tetris.record");
 
-    // The random number generator. 
-    // This is used to spit out pieces randomly.
-    private Random random;
+    // The replay of the game being recorded, or null.
+    private Replay replay;
 
-    // The clock that handles the update logic.
-    private Clock logicTimer;
+    // The stream the game is sent to spectators on, or null.
+    private SpectatorStream spectate;
+
+    // The lock the game loop waits on while the game is idle.
+    private final Object oIdleLock = new Object();
 
-    // The current type of tile.
-    private TileType currentType;
+    // Boolean to know whether input arrived since the loop went idle.
+    private boolean bInputPending;
 
-    // The next type of tile.
-    private TileType nextType;
+    // Boolean to know whether or not the game is paused.
+    private boolean bPaused;
 
-    // Integer with the current column of our tile.
-    private int currentCol;
+    // Boolean to know wheter or not the music is playing.
+    private boolean bMusicOn;
 
-    // Integer with the current row of our tile.
-    private int currentRow;
+    // The Game with the rules and the state of the pieces.
+    private Game game;
 
-    // Integer with the current rotation of our tile.
-    private int currentRotation;
+    // The clock that handles the update logic.
+    private Clock logicTimer;
 
-    // Integer that ensures that a certain amount of time passes after 
-    // a piece is spawned before we can drop it.
-    private int dropCooldown;
+    // AudioThread that plays the Game theme and the sound effects.
+    private AudioThread audioGame;
 
-    // Integer with the speed of the game.
-    private float gameSpeed;
+    // The file name of the theme the cached music name belongs to.
+    private String sMusicFile;
 
-    // SoundClip with the Game theme selected.
-    private SoundClip audioGame;
-    
-    // SoundClip with sound of a horizontal line popped.
-    private SoundClip soundPopped;
-    
-    // SoundClip with sound of a tile at the bottom.
-    private SoundClip soundBottom;
+    // The cached name of the theme, without its extension.
+    private String sMusicName;
 
     // Creates a new Tetris instance. Sets up the window's properties,
     // and adds a controller listener.
@@ -111,12 +120,29 @@ public class Tetris extends JFrame {
         */
         this.board = new BoardPanel(this);
         this.side = new SidePanel(this);
+        this.game = new Game(board, new Random());
 
         /*
-        * Add the BoardPanel and SidePanel instances to the window.
+        * Add the BoardPanel and SidePanel instances to the window, or the
+        * canvas that draws both of them when rendering actively.
         */
-        add(board, BorderLayout.CENTER);
-        add(side, BorderLayout.EAST);
+        if (GameCanvas.isActiveRendering()) {
+            this.canvas = new GameCanvas(board, side);
+            setIgnoreRepaint(true);
+            add(canvas, BorderLayout.CENTER);
+        } else {
+            add(board, BorderLayout.CENTER);
+            add(side, BorderLayout.EAST);
+        }
+
+        /*
+        * Initialize the metrics of the game loop and the overlay counters.
+        */
+        this.metrics = new FrameMetrics(FRAME_NANOS);
+        metrics.register();
+        this.latency = new InputLatency();
+        latency.register();
+        this.perf = new PerfCounters(metrics, latency);
 
         /*
         * Adds a custom anonymous KeyListener to the frame.
@@ -126,6 +152,14 @@ public class Tetris extends JFrame {
             @Override
             public void keyPressed(KeyEvent e) {
 
+                // Stamp the key for the input to paint latency.
+                long lStamp = InputLatency.getStamp(e.getWhen());
+
+                // Note the first input on the piece for the overlay.
+                if (isPieceInput(e.getKeyCode())) {
+                    perf.countInput(System.nanoTime());
+                }
+
                 switch (e.getKeyCode()) {
 
                     /*
@@ -134,8 +168,8 @@ public class Tetris extends JFrame {
                     * logic timer to run at a speed of 25 cycles per second.
                     */
                     case KeyEvent.VK_DOWN:
-                        if (!bPaused && dropCooldown == 0) {
-                            logicTimer.setCyclesPerSecond(25.0f);
+                        if (dropPiece()) {
+                            latency.pressed(InputLatency.DROP, lStamp);
                         }
                         break;
 
@@ -145,30 +179,38 @@ public class Tetris extends JFrame {
                     * logic timer to run at a speed of 25 cycles per second.
                     */
                     case KeyEvent.VK_SPACE:
-                        if (!bPaused && dropCooldown == 0) {
-                            logicTimer.setCyclesPerSecond(25.0f);
+                        if (dropPiece()) {
+                            latency.pressed(InputLatency.DROP, lStamp);
                         }
                         break;
 
                     /*
                     * Move Left - When pressed, we check to see that the game is
-                    * not paused and that the position to the left of the current
-                    * position is valid. If so, we decrement the current column by 1.
+                    * not paused and then attempt to move the piece one column to the
+                    * left; the game checks that the new position is valid.
                     */
                     case KeyEvent.VK_LEFT:
-                        if (!bPaused && board.isValidAndEmpty(currentType, currentCol - 1, currentRow, currentRotation)) {
-                            currentCol--;
+                        if (!bPaused) {
+                            synchronized (oGameLock) {
+                                trackInput(InputLatency.LEFT, lStamp,
+                                        game.moveLeft());
+                                record(Replay.MOVE_LEFT);
+                            }
                         }
                         break;
 
                     /*
                     * Move Right - When pressed, we check to see that the game is
-                    * not paused and that the position to the right of the current
-                    * position is valid. If so, we increment the current column by 1.
+                    * not paused and then attempt to move the piece one column to the
+                    * right; the game checks that the new position is valid.
                     */
                     case KeyEvent.VK_RIGHT:
-                        if (!bPaused && board.isValidAndEmpty(currentType, currentCol + 1, currentRow, currentRotation)) {
-                            currentCol++;
+                        if (!bPaused) {
+                            synchronized (oGameLock) {
+                                trackInput(InputLatency.RIGHT, lStamp,
+                                        game.moveRight());
+                                record(Replay.MOVE_RIGHT);
+                            }
                         }
                         break;
 
@@ -176,11 +218,15 @@ public class Tetris extends JFrame {
                     * Rotate Anticlockwise - When pressed, check to see that the game is not paused
                     * and then attempt to rotate the piece anticlockwise. Because of the size and
                     * complexity of the rotation code, as well as it's similarity to clockwise
-                    * rotation, the code for rotating the piece is handled in another method.
+                    * rotation, the code for rotating the piece is handled by the game.
                     */
                     case KeyEvent.VK_Z:
                         if (!bPaused) {
-                            rotatePiece((currentRotation == 0) ? 3 : currentRotation - 1);
+                            synchronized (oGameLock) {
+                                trackInput(InputLatency.ROTATE_ANTICLOCKWISE, lStamp,
+                                        game.rotateAnticlockwise());
+                                record(Replay.ROTATE_ANTICLOCKWISE);
+                            }
                         }
                         break;
 
@@ -188,12 +234,16 @@ public class Tetris extends JFrame {
                     * Rotate Clockwise - When pressed, check to see that the game is not paused
                     * and then attempt to rotate the piece clockwise. Because of the size and
                     * complexity of the rotation code, as well as it's similarity to anticlockwise
-                    * rotation, the code for rotating the piece is handled in another method.
+                    * rotation, the code for rotating the piece is handled by the game.
                     */
                     case KeyEvent.VK_X:
                     case KeyEvent.VK_UP:
                         if (!bPaused) {
-                            rotatePiece((currentRotation == 3) ? 0 : currentRotation + 1);
+                            synchronized (oGameLock) {
+                                trackInput(InputLatency.ROTATE_CLOCKWISE, lStamp,
+                                        game.rotateClockwise());
+                                record(Replay.ROTATE_CLOCKWISE);
+                            }
                         }
                         break;
 
@@ -205,7 +255,7 @@ public class Tetris extends JFrame {
                     * minute or so.
                     */
                     case KeyEvent.VK_P:
-                        if (!isGameOver && !isNewGame) {
+                        if (!game.isGameOver() && !game.isNewGame()) {
                             bPaused = !bPaused;
                             logicTimer.setPaused(bPaused);
                         }
@@ -216,62 +266,52 @@ public class Tetris extends JFrame {
                     * game state. If so, reset the game.
                     */
                     case KeyEvent.VK_ENTER:
-                        if (isGameOver || isNewGame) {
+                        if (game.isGameOver() || game.isNewGame()) {
                             resetGame();
                         }
                         break;
 
                     case KeyEvent.VK_1:
-                        audioGame.stop();
-                        audioGame = new SoundClip("Classic.wav");
-                        audioGame.play();
-                        audioGame.setLooping(true);
-                        bMusicOn = true;
+                        switchTheme(SoundBank.THEMES[0]);
                         break;
 
                     case KeyEvent.VK_2:
-                        audioGame.stop();
-                        audioGame = new SoundClip("Horror.wav");
-                        audioGame.play();
-                        audioGame.setLooping(true);
-                        bMusicOn = true;
+                        switchTheme(SoundBank.THEMES[1]);
                         break;
 
                     case KeyEvent.VK_3:
-                        audioGame.stop();
-                        audioGame = new SoundClip("Move.wav");
-                        audioGame.play();
-                        audioGame.setLooping(true);
-                        bMusicOn = true;
+                        switchTheme(SoundBank.THEMES[2]);
                         break;
 
                     case KeyEvent.VK_4:
-                        audioGame.stop();
-                        audioGame = new SoundClip("Pop.wav");
-                        audioGame.play();
-                        audioGame.setLooping(true);
-                        bMusicOn = true;
+                        switchTheme(SoundBank.THEMES[3]);
                         break;
 
                     case KeyEvent.VK_5:
-                        audioGame.stop();
-                        audioGame = new SoundClip("Relaxed.wav");
-                        audioGame.play();
-                        audioGame.setLooping(true);
-                        bMusicOn = true;
+                        switchTheme(SoundBank.THEMES[4]);
+                        break;
+
+                    /*
+                    * Performance Overlay - When pressed, show or hide the
+                    * performance overlay in the side panel.
+                    */
+                    case KeyEvent.VK_F3:
+                        perf.setEnabled(!perf.isEnabled());
                         break;
 
                     case KeyEvent.VK_0:
                         if (bMusicOn) {
-                            audioGame.pause();
+                            audioGame.pauseMusic();
                             bMusicOn = false;
                         } else if (!bMusicOn) {
-                            audioGame.unpause();
+                            audioGame.unpauseMusic();
                             bMusicOn = true;
                         }
                         break;
                 }
 
+                // Let the game loop draw the effect of the key if it's idle.
+                wakeGame();
             }
 
             @Override
@@ -285,7 +325,7 @@ public class Tetris extends JFrame {
                     * any cycles that might still be elapsed.
                      */
                     case KeyEvent.VK_DOWN:
-                        logicTimer.setCyclesPerSecond(gameSpeed);
+                        logicTimer.setCyclesPerSecond(game.getGameSpeed());
                         logicTimer.reset();
                         break;
 
@@ -304,6 +344,7 @@ public class Tetris extends JFrame {
                         break;
                 }
 
+                wakeGame();
             }
 
         });
@@ -321,233 +362,434 @@ public class Tetris extends JFrame {
      * Starts the game running. Initializes everything and enters the game loop.
      */
     private void startGame() {
-        // Initialize our random number generator, logic timer, 
-        // music, and new game variables.
-        this.random = new Random();
-        this.isNewGame = true;
-        this.gameSpeed = 1.0f;
+        // Initialize our logic timer and music.
         this.bMusicOn = true;
-        audioGame = new SoundClip("Classic.wav");
-        audioGame.play();
-        soundPopped = new SoundClip("popped.wav");
-        soundPopped.setLooping(false);
-        soundBottom = new SoundClip("bottom.wav");
-        soundBottom.setLooping(false);
+        audioGame = new AudioThread(SFX_VOICES);
+        audioGame.playTheme(SoundBank.THEMES[0]);
 
         /*
         * Setup the timer to keep the game from running before the user presses enter
         * to start it.
         */
-        this.logicTimer = new Clock(gameSpeed);
+        this.logicTimer = new Clock(game.getGameSpeed());
         logicTimer.setPaused(true);
 
+        // Send the game to spectators, if asked to.
+        spectate = SpectatorStream.create();
+        if (spectate != null) {
+            /*
+            * The window exits the JVM when it's closed, so the frames not
+            * written yet are sent and the file closed on the way out. No
+            * tick publishes after the stream is closed.
+            */
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                synchronized (oGameLock) {
+                    spectate.close();
+                    spectate = null;
+                }
+            }, "Tetris spectators closing"));
+        }
+
+        // Let the bot play, if asked to, or the engine of another process.
+        if (Boolean.getBoolean("tetris.bot")) {
+            Bot bot = (System.getProperty("tetris.bot.engine") != null)
+                    ? ExternalBot.create() : ExpectimaxBot.create();
+            new BotPlayer(this, game, oGameLock, bot).start();
+        }
+
+        /*
+        * The logic always runs at 50 frames per second. When rendering
+        * passively we draw once per logic frame, while the canvas draws at
+        * its own target frame rate (0 meaning as fast as possible).
+        */
+        long lRenderNanos = (canvas != null) ? canvas.getFrameNanos()
+                : FRAME_NANOS;
+        long lNextTick = System.nanoTime();
+        long lNextRender = lNextTick;
+
         while (true) {
-            // Get the time that the frame started.
-            long start = System.nanoTime();
+            long lNow = System.nanoTime();
+            boolean bWorked = false;
 
-            // Update the logic timer.
-            logicTimer.update();
+            if (lNow - lNextTick >= 0) {
+                // A tick that starts a whole frame late missed its deadline.
+                if (lNow - lNextTick >= FRAME_NANOS) {
+                    metrics.recordMissedDeadline();
+                }
+                tickGame();
+                lNextTick += FRAME_NANOS;
+                bWorked = true;
 
-            /*
-            * If a cycle has elapsed on the timer, we can update the game and
-            * move our current piece down.
-            */
-            if (logicTimer.hasElapsedCycle()) {
-                updateGame();
+                // Don't try to catch up after a long stall.
+                if (lNow - lNextTick >= FRAME_NANOS) {
+                    lNextTick = lNow + FRAME_NANOS;
+                }
             }
 
-            // Decrement the drop cool down if necessary.
-            if (dropCooldown > 0) {
-                dropCooldown--;
+            if (lNow - lNextRender >= 0) {
+                // Display the window to the user.
+                long lRenderStart = System.nanoTime();
+                renderGame();
+                metrics.record(FrameMetrics.RENDER,
+                        System.nanoTime() - lRenderStart);
+                lNextRender += lRenderNanos;
+                bWorked = true;
+                if (lNow - lNextRender >= lRenderNanos) {
+                    lNextRender = lNow + lRenderNanos;
+                }
             }
 
-            // Display the window to the user.
-            renderGame();
+            if (bWorked) {
+                long lEnd = System.nanoTime();
+                metrics.record(FrameMetrics.FRAME, lEnd - lNow);
+                metrics.endFrame(lEnd);
+            }
 
             /*
-            * Sleep to cap the framerate.
+            * Nothing changes while paused, on the title screen or after a game
+            * over, so once the screen is drawn we block until input arrives
+            * and start timing again from scratch.
             */
-            long delta = (System.nanoTime() - start) / 1000000L;
-            if (delta < FRAME_TIME) {
-                try {
-                    Thread.sleep(FRAME_TIME - delta);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            if (isIdle()) {
+                renderGame();
+                waitForInput();
+                lNextTick = System.nanoTime();
+                lNextRender = lNextTick;
+                metrics.restart(lNextTick);
+                continue;
+            }
+
+            /*
+            * Sleep until the next tick or frame is due to cap the framerate.
+            */
+            long lWait = Math.min(lNextTick, lNextRender) - System.nanoTime();
+            if (lWait > 0) {
+                long lSleepStart = System.nanoTime();
+                LockSupport.parkNanos(lWait);
+                long lSlept = System.nanoTime() - lSleepStart;
+                metrics.record(FrameMetrics.SLEEP, lSlept);
+                metrics.record(FrameMetrics.OVERSHOOT, lSlept - lWait);
+            } else if (lRenderNanos == 0) {
+                Thread.yield();
             }
         }
     }
 
     /**
-     * updateGame
+     * tickGame
      * 
-     * Method that updates the game and handles the bulk of it's logic.
+     * Method that runs one logic frame: updates the logic timer, updates the
+     * game if a cycle has elapsed and counts down the drop cool down.
      */
-    private void updateGame() {
+    private void tickGame() {
+        // Update the logic timer.
+        long lStart = System.nanoTime();
+        logicTimer.update();
+        long lUpdated = System.nanoTime();
+        metrics.record(FrameMetrics.CLOCK, lUpdated - lStart);
+
         /*
-        * Check to see if the piece's position can move down to the next row.
+        * If a cycle has elapsed on the timer, we can update the game and
+        * move our current piece down.
         */
-        if (board.isValidAndEmpty(currentType, currentCol, currentRow + 1, currentRotation)) {
-            // Increment the current row if it's safe to do so.
-            currentRow++;
-        } else {
-            /*
-            * We've either reached the bottom of the board, or landed on another piece, so
-            * we need to add the piece to the board.
-            */
-            board.addPiece(currentType, currentCol, currentRow, currentRotation);
+        if (logicTimer.hasElapsedCycle()) {
+            updateGame();
+            metrics.record(FrameMetrics.UPDATE, System.nanoTime() - lUpdated);
+        }
+        perf.countTick(lUpdated);
 
-            /*
-            * Check to see if adding the new piece resulted in any cleared lines. If so,
-            * increase the player's score. (Up to 4 lines can be cleared in a single go;
-            * [1 = 100pts, 2 = 200pts, 3 = 400pts, 4 = 800pts]).
-            */
-            int cleared = board.checkLines();
-            if (cleared > 0) {
-                score += 50 << cleared;
-                soundPopped.play();
-            } else {
-                soundBottom.play();
+        synchronized (oGameLock) {
+            // Decrement the drop cool down if necessary.
+            game.tickFrame();
+
+            // Send what changed during the tick to the spectators.
+            if (spectate != null) {
+                spectate.publish(game);
             }
 
-            /*
-            * Increase the speed slightly for the next piece and update the game's timer
-            * to reflect the increase.
-            */
-            gameSpeed += 0.035f;
-            logicTimer.setCyclesPerSecond(gameSpeed);
-            logicTimer.reset();
+            // Let the bot look at the game again.
+            oGameLock.notifyAll();
+        }
 
-            /*
-            * Set the drop cooldown so the next piece doesn't automatically come flying
-            * in from the heavens immediately after this piece hits if we've not reacted
-            * yet. (~0.5 second buffer).
-            */
-            dropCooldown = 25;
+        // The piece animation only runs while the board is being played.
+        if (!isIdle()) {
+            board.updateAnimation();
+        }
+    }
 
-            /*
-            * Update the difficulty level. This has no effect on the game, and is only
-            * used in the "Level" string in the SidePanel.
-            */
-            level = (int) (gameSpeed * 1.70f);
+    /**
+     * isPieceInput
+     * 
+     * Method that checks whether a key moves, rotates or drops the piece.
+     *
+     * @param iKeyCode is the <code>integer</code> code of the key.
+     * @return Whether or not the key acts on the piece.
+     */
+    private static boolean isPieceInput(int iKeyCode) {
+        switch (iKeyCode) {
+            case KeyEvent.VK_DOWN:
+            case KeyEvent.VK_SPACE:
+            case KeyEvent.VK_LEFT:
+            case KeyEvent.VK_RIGHT:
+            case KeyEvent.VK_Z:
+            case KeyEvent.VK_X:
+            case KeyEvent.VK_UP:
+                return true;
+            default:
+                return false;
+        }
+    }
 
-            /*
-            * Spawn a new piece to control.
-            */
-            spawnPiece();
+    /**
+     * trackInput
+     * 
+     * Method that notes a key that the game has just applied, if it changed
+     * anything, for the input to paint latency.
+     *
+     * @param iAction is the <code>integer</code> action, such as
+     * {@code InputLatency.LEFT}.
+     * @param lStamp is the <code>long</code> stamp of the key.
+     * @param bChanged is whether or not the key moved the piece.
+     */
+    private void trackInput(int iAction, long lStamp, boolean bChanged) {
+        if (bChanged) {
+            latency.pressed(iAction, lStamp);
+            latency.applied(iAction, System.nanoTime());
         }
     }
 
     /**
-     * renderGame
+     * isIdle
      * 
-     * Method that forces the BoardPanel and SidePanel to repaint.
+     * Method that checks whether the game is in a state where nothing changes
+     * until the player presses a key.
+     *
+     * @return Whether or not the game is idle.
      */
-    private void renderGame() {
-        board.repaint();
-        side.repaint();
+    boolean isIdle() {
+        return bPaused || game.isNewGame() || game.isGameOver();
     }
 
     /**
-     * resetGame
+     * waitForInput
      * 
-     * Method that resets the game variables to their default values at the start of a new
-     * game.
+     * Method that blocks the game loop until a key is pressed or released.
+     * When rendering actively the wait is bounded, so the canvas gets redrawn
+     * every now and then.
      */
-    private void resetGame() {
-        this.level = 1;
-        this.score = 0;
-        this.gameSpeed = 1.0f;
-        this.nextType = TileType.values()[random.nextInt(TYPE_COUNT)];
-        this.isNewGame = false;
-        this.isGameOver = false;
-        this.bMusicOn = true;
-        board.clear();
-        logicTimer.reset();
-        logicTimer.setCyclesPerSecond(gameSpeed);
-        spawnPiece();
+    private void waitForInput() {
+        synchronized (oIdleLock) {
+            try {
+                if (!bInputPending) {
+                    oIdleLock.wait(canvas != null ? IDLE_REDRAW_TIME : 0L);
+                }
+            } catch (InterruptedException excInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+            bInputPending = false;
+        }
     }
 
     /**
-     * spawnPiece
+     * wakeGame
      * 
-     * Method that spawns a new piece and resets our piece's variables to their default
-     * values.
+     * Method that wakes up the game loop if it's waiting for input.
      */
-    private void spawnPiece() {
+    private void wakeGame() {
+        synchronized (oIdleLock) {
+            bInputPending = true;
+            oIdleLock.notifyAll();
+        }
+    }
+
+    /**
+     * updateGame
+     * 
+     * Method that updates the game and handles the bulk of it's logic.
+     */
+    private void updateGame() {
+        /*
+        * Move the piece down, or lock it and spawn the next one. The game only
+        * returns a line count when the piece was locked.
+        */
+        int cleared;
+        synchronized (oGameLock) {
+            cleared = game.step();
+            record(Replay.STEP);
+        }
+        latency.applied(InputLatency.DROP, System.nanoTime());
+        if (cleared == Game.MOVED) {
+            return;
+        }
+        perf.countLock(System.nanoTime());
+
+        /*
+        * Play the sound of the lines that were cleared, or of the piece
+        * hitting the bottom.
+        */
+        if (cleared > 0) {
+            audioGame.playEffect(SoundBank.POPPED);
+        } else {
+            audioGame.playEffect(SoundBank.BOTTOM);
+        }
+
         /*
-        * Poll the last piece and reset our position and rotation to
-        * their default variables, then pick the next piece to use.
-         */
-        this.currentType = nextType;
-        this.currentCol = currentType.getSpawnColumn();
-        this.currentRow = currentType.getSpawnRow();
-        this.currentRotation = 0;
-        this.nextType = TileType.values()[random.nextInt(TYPE_COUNT)];
+        * Update the game's timer to reflect the new speed of the game.
+        */
+        logicTimer.setCyclesPerSecond(game.getGameSpeed());
+        logicTimer.reset();
 
         /*
-        * If the spawn point is invalid, we need to pause the game and flag that we've lost
-        * because it means that the pieces on the board have gotten too high.
-         */
-        if (!board.isValidAndEmpty(currentType, currentCol, currentRow, currentRotation)) {
-            this.isGameOver = true;
+        * If the new piece had no room to spawn, pause the timer because the
+        * game is over.
+        */
+        if (game.isGameOver()) {
             logicTimer.setPaused(true);
+            finishRecording();
         }
     }
 
     /**
-     * rotatePiece
+     * playAction
      * 
-     * Method that attempts to set the rotation of the current piece to newRotation.
+     * Method that plays a move or a rotation for the bot, the same way its
+     * key would. Called while holding the game lock.
      *
-     * @param newRotation The rotation of the new piece.
+     * @param cAction is the <code>char</code> action, such as
+     * {@code Replay.MOVE_LEFT}.
      */
-    private void rotatePiece(int newRotation) {
-        /*
-        * Sometimes pieces will need to be moved when rotated to avoid clipping
-        * out of the board (the I piece is a good example of this). Here we store
-        * a temporary row and column in case we need to move the tile as well.
-         */
-        int newColumn = currentCol;
-        int newRow = currentRow;
+    void playAction(char cAction) {
+        Replay.apply(game, cAction);
+        record(cAction);
+    }
 
-        /*
-        * Get the insets for each of the sides. These are used to determine how
-        * many empty rows or columns there are on a given side.
-         */
-        int left = currentType.getLeftInset(newRotation);
-        int right = currentType.getRightInset(newRotation);
-        int top = currentType.getTopInset(newRotation);
-        int bottom = currentType.getBottomInset(newRotation);
+    /**
+     * dropPiece
+     * 
+     * Method that drops the piece faster, for the drop keys and the bot,
+     * unless the game is paused or the drop cool down lasts.
+     *
+     * @return whether or not the piece is dropped.
+     */
+    boolean dropPiece() {
+        synchronized (oGameLock) {
+            if (bPaused || !game.canDrop()) {
+                return false;
+            }
+            logicTimer.setCyclesPerSecond(DROP_SPEED);
+            return true;
+        }
+    }
 
-        /*
-        * If the current piece is too far to the left or right, move the piece away from the edges
-        * so that the piece doesn't clip out of the map and automatically become invalid.
-         */
-        if (currentCol < -left) {
-            newColumn -= currentCol - left;
-        } else if (currentCol + currentType.getDimension() - right >= BoardPanel.iColumns) {
-            newColumn -= (currentCol + currentType.getDimension() - right) - BoardPanel.iColumns + 1;
+    /**
+     * getCyclesPerSecond
+     * 
+     * Method that returns the speed of the logic timer.
+     *
+     * @return a <code>float</code> with the cycles per second.
+     */
+    float getCyclesPerSecond() {
+        return logicTimer.getCyclesPerSecond();
+    }
+
+    /**
+     * record
+     * 
+     * Method that adds an action to the game being recorded, if any. Called
+     * while holding the game lock.
+     *
+     * @param cAction is the <code>char</code> action, such as
+     * {@code Replay.STEP}.
+     */
+    private void record(char cAction) {
+        if (replay != null) {
+            replay.record(cAction);
         }
+    }
 
-        /*
-        * If the current piece is too far to the top or bottom, move the piece away from the edges
-        * so that the piece doesn't clip out of the map and automatically become invalid.
-         */
-        if (currentRow < -top) {
-            newRow -= currentRow - top;
-        } else if (currentRow + currentType.getDimension() - bottom >= BoardPanel.iRows) {
-            newRow -= (currentRow + currentType.getDimension() - bottom) - BoardPanel.iRows + 1;
+    /**
+     * finishRecording
+     * 
+     * Method that saves the game being recorded, if any, once it's over.
+     */
+    private void finishRecording() {
+        Replay replayDone;
+        synchronized (oGameLock) {
+            replayDone = replay;
+            replay = null;
+        }
+        if (replayDone == null) {
+            return;
+        }
+        replayDone.finish(game);
+        File fileReplay = new File(sRecordDir, "game-"
+                + System.currentTimeMillis() + ".replay");
+        try {
+            replayDone.write(fileReplay);
+        } catch (IOException excWrite) {
+            System.err.println("Replay not saved: " + excWrite);
         }
+    }
 
-        /*
-        * Check to see if the new position is acceptable. If it is, update the rotation and
-        * position of the piece.
-         */
-        if (board.isValidAndEmpty(currentType, newColumn, newRow, newRotation)) {
-            currentRotation = newRotation;
-            currentRow = newRow;
-            currentCol = newColumn;
+    /**
+     * renderGame
+     * 
+     * Method that forces the BoardPanel and SidePanel to repaint, or draws
+     * them straight into the canvas when rendering actively.
+     */
+    private void renderGame() {
+        perf.countFrame();
+        if (canvas != null) {
+            Object oFrame = GameEvents.beginFrame();
+            canvas.render(logicTimer.getInterpolation());
+            latency.painted(System.nanoTime());
+            GameEvents.endFrame(oFrame, true);
+        } else {
+            /*
+            * A repaint only asks Swing to paint later, so the panels time
+            * the frame themselves when they're painted.
+            */
+            board.repaint();
+            side.repaint();
+        }
+    }
+
+    /**
+     * switchTheme
+     * 
+     * Method that asks the audio thread to loop another theme.
+     *
+     * @param sTheme is the <code>String</code> with the file of the theme.
+     */
+    private void switchTheme(String sTheme) {
+        audioGame.playTheme(sTheme);
+        bMusicOn = true;
+    }
+
+    /**
+     * resetGame
+     * 
+     * Method that resets the game variables to their default values at the start of a new
+     * game.
+     */
+    private void resetGame() {
+        this.bMusicOn = true;
+        synchronized (oGameLock) {
+            /*
+            * A recorded game needs a known seed to be played back.
+            */
+            if (sRecordDir != null) {
+                long lSeed = System.nanoTime();
+                game.reset(lSeed);
+                replay = new Replay(lSeed);
+            } else {
+                game.reset();
+            }
+        }
+        logicTimer.reset();
+        logicTimer.setCyclesPerSecond(game.getGameSpeed());
+        if (game.isGameOver()) {
+            logicTimer.setPaused(true);
         }
     }
 
@@ -570,7 +812,7 @@ public class Tetris extends JFrame {
      * @return Whether or not the game is over.
      */
     public boolean isGameOver() {
-        return isGameOver;
+        return game.isGameOver();
     }
 
     /**
@@ -581,7 +823,7 @@ public class Tetris extends JFrame {
      * @return Whether or not this is a new game.
      */
     public boolean isNewGame() {
-        return isNewGame;
+        return game.isNewGame();
     }
 
     /**
@@ -592,7 +834,7 @@ public class Tetris extends JFrame {
      * @return is the <code>integer</code> score.
      */
     public int getScore() {
-        return score;
+        return game.getScore();
     }
 
     /**
@@ -603,7 +845,7 @@ public class Tetris extends JFrame {
      * @return is the <code>integer</code> level.
      */
     public int getLevel() {
-        return level;
+        return game.getLevel();
     }
     
     /**
@@ -613,10 +855,35 @@ public class Tetris extends JFrame {
      * @return sTheme is the <code>string</code> with the name of the theme.
      */
     public String getMusic() {
-        String sTheme = this.audioGame.getFilename();
-        int iLength = sTheme.length();
-        sTheme = (String) sTheme.subSequence(0, iLength-4);
-        return sTheme;
+        String sTheme = this.audioGame.getTheme();
+        if (sTheme != sMusicFile) {
+            // Only strip the extension again when the theme has changed.
+            sMusicFile = sTheme;
+            sMusicName = sTheme.substring(0, sTheme.length() - 4);
+        }
+        return sMusicName;
+    }
+
+    /**
+     * getPerfCounters
+     * 
+     * Method that returns the counters of the performance overlay.
+     *
+     * @return The <code>PerfCounters</code>.
+     */
+    public PerfCounters getPerfCounters() {
+        return perf;
+    }
+
+    /**
+     * getInputLatency
+     * 
+     * Method that returns the latency from a key to the paint that shows it.
+     *
+     * @return The <code>InputLatency</code>.
+     */
+    public InputLatency getInputLatency() {
+        return latency;
     }
 
     /**
@@ -627,7 +894,7 @@ public class Tetris extends JFrame {
      * @return The piece type.
      */
     public TileType getPieceType() {
-        return currentType;
+        return game.getPieceType();
     }
 
     /**
@@ -638,7 +905,7 @@ public class Tetris extends JFrame {
      * @return The next piece.
      */
     public TileType getNextPieceType() {
-        return nextType;
+        return game.getNextPieceType();
     }
 
     /**
@@ -649,7 +916,7 @@ public class Tetris extends JFrame {
      * @return The column.
      */
     public int getPieceCol() {
-        return currentCol;
+        return game.getPieceCol();
     }
 
     /**
@@ -660,7 +927,7 @@ public class Tetris extends JFrame {
      * @return The row.
      */
     public int getPieceRow() {
-        return currentRow;
+        return game.getPieceRow();
     }
 
     /**
@@ -671,7 +938,7 @@ public class Tetris extends JFrame {
      * @return The rotation.
      */
     public int getPieceRotation() {
-        return currentRotation;
+        return game.getPieceRotation();
     }
 
     /**
@@ -681,25 +948,13 @@ public class Tetris extends JFrame {
      * @throws IOException 
      */
     public void saveGame() throws IOException {
-        RandomAccessFile rafFile = new RandomAccessFile("Game.dat", "rw");
-        rafFile.writeInt(this.level);
-        rafFile.writeInt(this.score);
-        rafFile.writeInt(this.currentCol);
-        rafFile.writeInt(this.currentRow);
-        rafFile.writeInt(this.currentRotation);
-        rafFile.writeInt(currentType.getType());
-        rafFile.writeInt(nextType.getType());
-        rafFile.writeFloat(this.gameSpeed);
-        rafFile.writeBoolean(this.isGameOver);
-        rafFile.writeBoolean(this.isNewGame);
-
-        int matStatus[][] = board.getState();
-
-        rafFile.writeInt(matStatus.length);
-        rafFile.writeInt(matStatus[0].length);
-        for (int iR = 0; iR < matStatus.length; iR++) {
-            for (int iC = 0; iC < matStatus[0].length; iC++) {
-                rafFile.writeInt(matStatus[iR][iC]);
+        // The lock keeps a tick from changing the game halfway through.
+        synchronized (oGameLock) {
+            Object oFile = GameEvents.beginFile();
+            try (RandomAccessFile rafFile = new RandomAccessFile("Game.dat", "rw")) {
+                game.save(rafFile);
+                rafFile.setLength(rafFile.getFilePointer());
+                GameEvents.endFile(oFile, "save", rafFile.getFilePointer());
             }
         }
     }
@@ -711,33 +966,17 @@ public class Tetris extends JFrame {
      * @throws IOException 
      */
     public void loadGame() throws IOException {
-        RandomAccessFile rafFile = new RandomAccessFile("Game.dat", "rw");
-        this.level = rafFile.readInt();
-        this.score = rafFile.readInt();
-        this.currentCol = rafFile.readInt();
-        this.currentRow = rafFile.readInt();
-        this.currentRotation = rafFile.readInt();
-        this.currentType = TileType.values()[rafFile.readInt()];
-        this.nextType = TileType.values()[rafFile.readInt()];
-        this.gameSpeed = rafFile.readFloat();
-        this.isGameOver = rafFile.readBoolean();
-        this.isNewGame = rafFile.readBoolean();
-
-        logicTimer.reset();
-        logicTimer.setCyclesPerSecond(gameSpeed);
-
-        int iI = rafFile.readInt();
-        int iJ = rafFile.readInt();
-        int matBoard[][] = new int[iI][iJ];
-
-        for (int iR = 0; iR < iI; iR++) {
-            for (int iC = 0; iC < iJ; iC++) {
-                matBoard[iR][iC] = rafFile.readInt();
+        synchronized (oGameLock) {
+            Object oFile = GameEvents.beginFile();
+            try (RandomAccessFile rafFile = new RandomAccessFile("Game.dat", "r")) {
+                game.load(rafFile);
+                GameEvents.endFile(oFile, "load", rafFile.getFilePointer());
             }
+            // A loaded game can't be played back from a seed.
+            replay = null;
         }
-
-        board.clear();
-        board.setState(matBoard);
+        logicTimer.reset();
+        logicTimer.setCyclesPerSecond(game.getGameSpeed());
     }
 
     /**
@@ -211,6 +211,15 @@ public enum TileType {
 	// The dark shading color of tiles of this type.
 	private Color darkColor;
 	
+	// The translucent base color used for the ghost of this type.
+	private Color ghostBaseColor;
+	
+	// The translucent light shading color used for the ghost of this type.
+	private Color ghostLightColor;
+	
+	// The translucent dark shading color used for the ghost of this type.
+	private Color ghostDarkColor;
+	
 	
 	// The column that this type spawns in.
 	private int iSpawnCol;
@@ -243,6 +252,9 @@ public enum TileType {
         
         // This is use to identifie the type of tile
         private int iType;
+
+	// Every piece, copied once instead of on every call to values().
+	private static final TileType[] ttValues = values();
 	
 	/**
 	 * Creates a new TileType.
@@ -257,6 +269,10 @@ public enum TileType {
 		this.baseColor = color;
 		this.lightColor = color.brighter();
 		this.darkColor = color.darker();        
+		this.ghostBaseColor = new Color(color.getRed(), color.getGreen(),
+				color.getBlue(), 40);
+		this.ghostLightColor = ghostBaseColor.brighter();
+		this.ghostDarkColor = ghostBaseColor.darker();
 		this.iDimension = iDimension;
 		this.bTiles = bTiles;
 		this.iCols = iCols;
@@ -269,6 +285,23 @@ public enum TileType {
         public int getType() {
 		return iType;
 	}
+
+	/**
+	 * Gets a piece by its ordinal, without copying the array of values().
+	 * @param iOrdinal The ordinal of the piece.
+	 * @return The piece.
+	 */
+	public static TileType get(int iOrdinal) {
+		return ttValues[iOrdinal];
+	}
+
+	/**
+	 * Gets the number of pieces.
+	 * @return The number of pieces.
+	 */
+	public static int getCount() {
+		return ttValues.length;
+	}
         
 	/**
 	 * Gets the base color of this type.
@@ -294,6 +327,30 @@ public enum TileType {
 		return darkColor;
 	}
 	
+	/**
+	 * Gets the translucent base color used to draw the ghost of this type.
+	 * @return The ghost base color.
+	 */
+	public Color getGhostBaseColor() {
+		return ghostBaseColor;
+	}
+	
+	/**
+	 * Gets the translucent light color used to draw the ghost of this type.
+	 * @return The ghost light color.
+	 */
+	public Color getGhostLightColor() {
+		return ghostLightColor;
+	}
+	
+	/**
+	 * Gets the translucent dark color used to draw the ghost of this type.
+	 * @return The ghost dark color.
+	 */
+	public Color getGhostDarkColor() {
+		return ghostDarkColor;
+	}
+	
 	/**
 	 * Gets the dimension of this type.
 	 * @return The dimension.
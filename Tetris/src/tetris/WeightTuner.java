@@ -0,0 +1,539 @@
+package tetris;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class WeightTuner
+ *
+ * @authors Brendan Jones, arrangements by: luisfelipesv y melytc
+ *
+ * Luis Felipe Salazar A00817158 Melissa Janet Treviño A00816715
+ *
+ * 1/MAR/16
+ * @version 2.0
+ *
+ * The {@code WeightTuner} class evolves the weights of the
+ * {@code Evaluator} with a genetic algorithm. Every generation each
+ * candidate plays the same seeded games, placing each piece where the
+ * evaluator likes it best, and its fitness is the average number of pieces
+ * it placed before the board filled up. The best candidates are kept as they are, and the rest of the
+ * next generation is bred from candidates picked by tournament: every
+ * weight comes from one of the two parents and is sometimes moved a little.
+ * <p>
+ * Good weights clear lines about as fast as pieces come on an empty board,
+ * so they would play for a very long time and every good candidate would
+ * reach any cap on the pieces, with the same fitness. Every few pieces a
+ * garbage row, full but for one random tile, pushes the board up from the
+ * bottom, so every game ends and the better weights last longer: with one
+ * every 8 pieces the default weights last about 125. The cap on the pieces
+ * is only a safeguard, far above that.
+ * <p>
+ * The games are played on {@code Playfield} with {@code MoveGenerator},
+ * without a {@code Game}, and are spread over every processor. Every
+ * generation is written to a checkpoint file, replacing the last one in a
+ * single step, and a run that finds a checkpoint goes on from it; the random
+ * numbers of a generation only depend on the seed and the generation, so a
+ * resumed run is the same as one that wasn't stopped. It's run from the
+ * command line:
+ * <pre>
+ * java tetris.WeightTuner checkpoint [generations]
+ * </pre>
+ * with {@code -Dtetris.tuner.population} (32), {@code -Dtetris.tuner.games}
+ * (16 per candidate), {@code -Dtetris.tuner.pieces} (10000 per game),
+ * {@code -Dtetris.tuner.garbage} (8 pieces between two garbage rows, 0 for
+ * none), {@code -Dtetris.tuner.threads} (every processor when missing or 0),
+ * {@code -Dtetris.tuner.sigma} (8, the size of a mutation) and
+ * {@code -Dtetris.tuner.seed}. The best weights can be given to the bot with
+ * {@code -Dtetris.bot.weights}.
+ */
+public class WeightTuner {
+
+    // The first line of a checkpoint file.
+    private static final String sHeader = "tetris-tuner 2";
+
+    // The candidates kept unchanged into the next generation.
+    private static final int iElite = 2;
+
+    // The candidates that take part in a tournament.
+    private static final int iTournament = 3;
+
+    // The chance of a weight being mutated.
+    private static final double dMutation = 0.3;
+
+
+    // The number of candidates of a generation.
+    private final int iPopulation;
+
+    // The games every candidate plays per generation.
+    private final int iGames;
+
+    // The pieces a game stops at.
+    private final int iPieces;
+
+    // The pieces between two garbage rows, 0 for none.
+    private final int iGarbage;
+
+    // The size of a mutation.
+    private final double dSigma;
+
+    // The seed of the run.
+    private final long lSeed;
+
+    // The threads that play the games.
+    private final ExecutorService esWorkers;
+
+    // The state each thread plays its games with.
+    private final ThreadLocal<Player> tlPlayers = new ThreadLocal<Player>() {
+        @Override
+        protected Player initialValue() {
+            return new Player();
+        }
+    };
+
+    // The generation to evaluate next.
+    private int iGeneration;
+
+    // The weights of the candidates of the generation.
+    private int[][] iCandidates;
+
+    // The best weights found so far, and their fitness.
+    private int[] iBest;
+    private double dBestFitness = Double.NEGATIVE_INFINITY;
+
+    /**
+     * WeightTuner
+     *
+     * Constructor that creates a tuner whose first generation is spread
+     * around the default weights.
+     *
+     * @param iPopulation is the <code>integer</code> number of candidates.
+     * @param iGames is the <code>integer</code> number of games per candidate.
+     * @param iPieces is the <code>integer</code> number of pieces per game.
+     * @param iGarbage is the <code>integer</code> number of pieces between
+     * two garbage rows, 0 for none.
+     * @param dSigma is the <code>double</code> size of a mutation.
+     * @param lSeed is the <code>long</code> seed of the run.
+     * @param iThreads is the <code>integer</code> number of threads.
+     */
+    public WeightTuner(int iPopulation, int iGames, int iPieces,
+            int iGarbage, double dSigma, long lSeed, int iThreads) {
+        if (iPopulation <= iElite) {
+            throw new IllegalArgumentException("The population must be "
+                    + "larger than " + iElite);
+        }
+        this.iPopulation = iPopulation;
+        this.iGames = iGames;
+        this.iPieces = iPieces;
+        this.iGarbage = iGarbage;
+        this.dSigma = dSigma;
+        this.lSeed = lSeed;
+        this.esWorkers = Executors.newFixedThreadPool(iThreads,
+                new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable rTask) {
+                Thread thrWorker = new Thread(rTask, "Tetris tuner");
+                thrWorker.setDaemon(true);
+                return thrWorker;
+            }
+        });
+
+        /*
+        * The defaults are a candidate of their own, so the tuner can only
+        * find something better.
+        */
+        Random ranStart = getRandom(-1);
+        int[] iDefaults = new Evaluator().getWeights();
+        iCandidates = new int[iPopulation][];
+        iCandidates[0] = iDefaults;
+        for (int iC = 1; iC < iPopulation; iC++) {
+            iCandidates[iC] = iDefaults.clone();
+            for (int iW = 0; iW < Evaluator.WEIGHTS; iW++) {
+                iCandidates[iC][iW] += (int) Math.round(
+                        ranStart.nextGaussian() * dSigma * 2.0);
+            }
+        }
+    }
+
+    /**
+     * runGeneration
+     *
+     * Method that plays the games of every candidate of the generation and
+     * breeds the next one.
+     *
+     * @return a <code>double</code> array with the fitness of every
+     * candidate of the generation that was played.
+     * @throws InterruptedException
+     */
+    public double[] runGeneration() throws InterruptedException {
+        /*
+        * A task per candidate and game, so the threads stay busy until the
+        * end even when one candidate plays much longer games.
+        */
+        List<Callable<Integer>> lstTasks = new ArrayList<>();
+        for (int iC = 0; iC < iPopulation; iC++) {
+            final Evaluator evaluator = new Evaluator(iCandidates[iC]);
+            for (int iG = 0; iG < iGames; iG++) {
+                final long lGameSeed = lSeed * 1000003L
+                        + (long) iGeneration * iGames + iG;
+                lstTasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return tlPlayers.get().play(evaluator, lGameSeed,
+                                iPieces, iGarbage);
+                    }
+                });
+            }
+        }
+
+        double[] dFitness = new double[iPopulation];
+        try {
+            List<Future<Integer>> lstResults = esWorkers.invokeAll(lstTasks);
+            for (int iT = 0; iT < lstResults.size(); iT++) {
+                dFitness[iT / iGames] += lstResults.get(iT).get();
+            }
+        } catch (ExecutionException excGame) {
+            throw new IllegalStateException(excGame.getCause());
+        }
+        for (int iC = 0; iC < iPopulation; iC++) {
+            dFitness[iC] /= iGames;
+            if (dFitness[iC] > dBestFitness) {
+                dBestFitness = dFitness[iC];
+                iBest = iCandidates[iC].clone();
+            }
+        }
+
+        iCandidates = breed(dFitness, getRandom(iGeneration));
+        iGeneration++;
+        return dFitness;
+    }
+
+    /**
+     * breed
+     *
+     * Method that makes the next generation: the best candidates as they
+     * are, and children of parents picked by tournament.
+     *
+     * @param dFitness is the <code>double</code> array with the fitness of
+     * every candidate.
+     * @param ranBreed is the <code>Random</code> of the generation.
+     * @return an <code>integer matrix</code> with the new candidates.
+     */
+    private int[][] breed(double[] dFitness, Random ranBreed) {
+        Integer[] iRanked = new Integer[iPopulation];
+        for (int iC = 0; iC < iPopulation; iC++) {
+            iRanked[iC] = iC;
+        }
+        Arrays.sort(iRanked, (iA, iB) -> Double.compare(dFitness[iB],
+                dFitness[iA]));
+
+        int[][] iNext = new int[iPopulation][];
+        for (int iC = 0; iC < iElite; iC++) {
+            iNext[iC] = iCandidates[iRanked[iC]].clone();
+        }
+        for (int iC = iElite; iC < iPopulation; iC++) {
+            int[] iMother = iCandidates[pick(dFitness, ranBreed)];
+            int[] iFather = iCandidates[pick(dFitness, ranBreed)];
+            iNext[iC] = new int[Evaluator.WEIGHTS];
+            for (int iW = 0; iW < Evaluator.WEIGHTS; iW++) {
+                iNext[iC][iW] = ranBreed.nextBoolean() ? iMother[iW]
+                        : iFather[iW];
+                if (ranBreed.nextDouble() < dMutation) {
+                    iNext[iC][iW] += (int) Math.round(
+                            ranBreed.nextGaussian() * dSigma);
+                }
+            }
+        }
+        return iNext;
+    }
+
+    /**
+     * pick
+     *
+     * Method that picks a parent: the fittest of a few random candidates.
+     *
+     * @param dFitness is the <code>double</code> array with the fitness.
+     * @param ranBreed is the <code>Random</code> of the generation.
+     * @return an <code>integer</code> with the index of the parent.
+     */
+    private int pick(double[] dFitness, Random ranBreed) {
+        int iWinner = ranBreed.nextInt(iPopulation);
+        for (int iT = 1; iT < iTournament; iT++) {
+            int iOther = ranBreed.nextInt(iPopulation);
+            if (dFitness[iOther] > dFitness[iWinner]) {
+                iWinner = iOther;
+            }
+        }
+        return iWinner;
+    }
+
+    /**
+     * getRandom
+     *
+     * Method that returns the random numbers of a generation, which only
+     * depend on the seed of the run.
+     *
+     * @param iFor is the <code>integer</code> generation, -1 for the first
+     * candidates.
+     * @return the <code>Random</code>.
+     */
+    private Random getRandom(int iFor) {
+        return new Random(lSeed * 31L + iFor);
+    }
+
+    /**
+     * save
+     *
+     * Method that writes the state of the tuner to a checkpoint. The file
+     * is written next to the checkpoint and then moved over it, so an
+     * interrupted save leaves the last checkpoint whole.
+     *
+     * @param fileCheckpoint is the <code>File</code> of the checkpoint.
+     * @throws IOException
+     */
+    public void save(File fileCheckpoint) throws IOException {
+        File fileTemp = new File(fileCheckpoint.getPath() + ".tmp");
+        try (PrintWriter pwOut = new PrintWriter(new FileWriter(fileTemp))) {
+            pwOut.println(sHeader);
+            pwOut.println("seed " + lSeed);
+            pwOut.println("generation " + iGeneration);
+            if (iBest != null) {
+                pwOut.println("best " + dBestFitness + " "
+                        + new Evaluator(iBest));
+            }
+            for (int[] iCandidate : iCandidates) {
+                pwOut.println("candidate " + new Evaluator(iCandidate));
+            }
+        }
+        Files.move(fileTemp.toPath(), fileCheckpoint.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * load
+     *
+     * Method that goes on from a checkpoint written with the same seed and
+     * population.
+     *
+     * @param fileCheckpoint is the <code>File</code> of the checkpoint.
+     * @throws IOException
+     */
+    public void load(File fileCheckpoint) throws IOException {
+        List<int[]> lstCandidates = new ArrayList<>();
+        try (BufferedReader brIn = new BufferedReader(
+                new FileReader(fileCheckpoint))) {
+            if (!sHeader.equals(brIn.readLine())) {
+                throw new IOException("Not a checkpoint: " + fileCheckpoint);
+            }
+            String sLine;
+            while ((sLine = brIn.readLine()) != null) {
+                String[] sParts = sLine.split(" ");
+                switch (sParts[0]) {
+                    case "seed":
+                        if (Long.parseLong(sParts[1]) != lSeed) {
+                            throw new IOException("The checkpoint has seed "
+                                    + sParts[1] + ", not " + lSeed);
+                        }
+                        break;
+                    case "generation":
+                        iGeneration = Integer.parseInt(sParts[1]);
+                        break;
+                    case "best":
+                        dBestFitness = Double.parseDouble(sParts[1]);
+                        iBest = Evaluator.parse(sParts[2]).getWeights();
+                        break;
+                    case "candidate":
+                        lstCandidates.add(
+                                Evaluator.parse(sParts[1]).getWeights());
+                        break;
+                    default:
+                        throw new IOException("Unknown line: " + sLine);
+                }
+            }
+        }
+        if (lstCandidates.size() != iPopulation) {
+            throw new IOException("The checkpoint has "
+                    + lstCandidates.size() + " candidates, not "
+                    + iPopulation);
+        }
+        iCandidates = lstCandidates.toArray(new int[iPopulation][]);
+    }
+
+    /**
+     * shutdown
+     *
+     * Method that stops the threads of the tuner.
+     */
+    public void shutdown() {
+        esWorkers.shutdown();
+    }
+
+    /**
+     * Class Player
+     *
+     * The {@code Player} class plays the games of one thread, placing every
+     * piece where the evaluator likes it best.
+     */
+    private static final class Player {
+
+        // The board of the game.
+        private final Playfield pfField = new Playfield();
+
+        // The positions of the piece.
+        private final MoveGenerator mgMoves = new MoveGenerator();
+
+        // The features of the position being scored.
+        private final int[] iFeatures = new int[Evaluator.WEIGHTS];
+
+        // The rows of the board pushed up by a garbage row.
+        private final int[] iRows = new int[Playfield.ROWS];
+
+        /**
+         * play
+         *
+         * Method that plays a game until the board is full or the pieces
+         * run out.
+         *
+         * @param evaluator is the <code>Evaluator</code> of the candidate.
+         * @param lGameSeed is the <code>long</code> seed of the pieces, as in
+         * {@code Game.reset(long)}, and of the garbage.
+         * @param iMaxPieces is the <code>integer</code> pieces it stops at.
+         * @param iGarbage is the <code>integer</code> number of pieces
+         * between two garbage rows, 0 for none.
+         * @return an <code>integer</code> with the pieces placed.
+         */
+        int play(Evaluator evaluator, long lGameSeed, int iMaxPieces,
+                int iGarbage) {
+            Random ranPieces = new Random(lGameSeed);
+            Random ranGarbage = new Random(~lGameSeed);
+            pfField.clear();
+            int iP;
+            for (iP = 0; iP < iMaxPieces; iP++) {
+                if (iGarbage > 0 && iP > 0 && iP % iGarbage == 0
+                        && !addGarbage(ranGarbage)) {
+                    break;
+                }
+                int iType = ranPieces.nextInt(TileType.getCount());
+                int iMoves = mgMoves.generate(pfField, iType,
+                        TileType.get(iType).getSpawnColumn(),
+                        TileType.get(iType).getSpawnRow(), 0);
+                if (iMoves == 0) {
+                    break;
+                }
+                int iBest = 0;
+                int iBestScore = Integer.MIN_VALUE;
+                for (int iM = 0; iM < iMoves; iM++) {
+                    int iScore = evaluator.evaluate(pfField, iType,
+                            mgMoves.getMoveColumn(iM), mgMoves.getMoveRow(iM),
+                            mgMoves.getMoveRotation(iM), iFeatures);
+                    if (iScore > iBestScore) {
+                        iBestScore = iScore;
+                        iBest = iM;
+                    }
+                }
+                pfField.addPiece(iType, mgMoves.getMoveColumn(iBest),
+                        mgMoves.getMoveRow(iBest),
+                        mgMoves.getMoveRotation(iBest));
+                pfField.checkLines();
+            }
+            return iP;
+        }
+
+        /**
+         * addGarbage
+         *
+         * Method that pushes the board up a row and fills the bottom row but
+         * for one random tile.
+         *
+         * @param ranGarbage is the <code>Random</code> of the garbage.
+         * @return whether or not the board had room for it.
+         */
+        private boolean addGarbage(Random ranGarbage) {
+            if (pfField.getRowMask(0) != 0) {
+                return false;
+            }
+            for (int iR = 0; iR < Playfield.ROWS - 1; iR++) {
+                iRows[iR] = pfField.getRowMask(iR + 1);
+            }
+            iRows[Playfield.ROWS - 1] = Playfield.FULL_ROW
+                    & ~(1 << ranGarbage.nextInt(Playfield.COLUMNS));
+            pfField.setRowMasks(iRows, 0, 1);
+            return true;
+        }
+    }
+
+    /**
+     * main
+     *
+     * Method that runs the tuner from the command line, printing every
+     * generation.
+     *
+     * @param args is the <code>String</code> array with the checkpoint and
+     * the number of generations to run.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: WeightTuner checkpoint [generations]");
+            System.exit(2);
+        }
+        File fileCheckpoint = new File(args[0]);
+        int iGenerations = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+        int iThreads = Integer.getInteger("tetris.tuner.threads", 0);
+        if (iThreads < 1) {
+            iThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        WeightTuner wtTuner = new WeightTuner(
+                Integer.getInteger("tetris.tuner.population", 32),
+                Integer.getInteger("tetris.tuner.games", 16),
+                Integer.getInteger("tetris.tuner.pieces", 10000),
+                Integer.getInteger("tetris.tuner.garbage", 8),
+                Double.parseDouble(System.getProperty("tetris.tuner.sigma",
+                        "8")),
+                Long.getLong("tetris.tuner.seed", 20160301L), iThreads);
+        if (fileCheckpoint.exists()) {
+            wtTuner.load(fileCheckpoint);
+            System.out.println("Resuming at generation "
+                    + wtTuner.iGeneration);
+        }
+
+        while (wtTuner.iGeneration < iGenerations) {
+            long lStart = System.nanoTime();
+            double[] dFitness = wtTuner.runGeneration();
+            long lNanos = System.nanoTime() - lStart;
+            wtTuner.save(fileCheckpoint);
+
+            double dMean = 0.0;
+            double dTop = Double.NEGATIVE_INFINITY;
+            for (double dF : dFitness) {
+                dMean += dF / dFitness.length;
+                dTop = Math.max(dTop, dF);
+            }
+            System.out.println(String.format("Generation %d: best %.1f, "
+                    + "mean %.1f pieces, %.1f s; best so far %.1f with %s",
+                    wtTuner.iGeneration, dTop, dMean, lNanos / 1e9,
+                    wtTuner.dBestFitness, new Evaluator(wtTuner.iBest)));
+        }
+        wtTuner.shutdown();
+    }
+}